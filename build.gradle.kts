@@ -13,6 +13,7 @@ plugins {
 	alias(libs.plugins.license)
 	alias(libs.plugins.artifactory)
 	alias(libs.plugins.cyclonedx)
+	alias(libs.plugins.jmh)
 }
 
 group = "org.sonarsource.sonarqube.mcp.server"
@@ -156,6 +157,13 @@ application {
 	mainClass = mainClassName
 }
 
+// Microbenchmarks under src/jmh, run on demand with ./gradlew jmh
+jmh {
+	(project.findProperty("jmh.includes") as String?)?.let { includes.add(it) }
+	(project.findProperty("jmh.profilers") as String?)?.let { profilers.add(it) }
+	jvmArgsAppend.add("-Dsonarqube.mcp.server.version=${project.version}")
+}
+
 artifactory {
 	clientConfig.info.buildName = "sonarqube-mcp-server"
 	clientConfig.info.buildNumber = System.getenv("BUILD_NUMBER")
@@ -0,0 +1,170 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi;
+
+import com.google.gson.Gson;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.CheckForNull;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonarsource.sonarqube.mcp.http.HttpClient;
+
+/**
+ * Compares the parsing of canned responses by the shared {@link JsonCodec} with the previous way, a new Gson instance parsing the body
+ * decoded to a String. Run with {@code ./gradlew jmh}, allocations are reported with {@code -Pjmh.profilers=gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonCodecBenchmark {
+
+  private static final int ISSUES = 500;
+  private static final int RULES = 500;
+
+  private HttpClient.Response issuesResponse;
+  private HttpClient.Response rulesResponse;
+
+  @Setup
+  public void setUp() {
+    issuesResponse = new CannedResponse(issuesSearchPayload().getBytes(StandardCharsets.UTF_8));
+    rulesResponse = new CannedResponse(rulesSearchPayload().getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Benchmark
+  public org.sonarsource.sonarqube.mcp.serverapi.issues.response.SearchResponse issuesSearchWithNewGsonFromString() {
+    return new Gson().fromJson(issuesResponse.bodyAsString(), org.sonarsource.sonarqube.mcp.serverapi.issues.response.SearchResponse.class);
+  }
+
+  @Benchmark
+  public org.sonarsource.sonarqube.mcp.serverapi.issues.response.SearchResponse issuesSearchWithSharedCodec() {
+    return JsonCodec.fromJson(issuesResponse, org.sonarsource.sonarqube.mcp.serverapi.issues.response.SearchResponse.class);
+  }
+
+  @Benchmark
+  public org.sonarsource.sonarqube.mcp.serverapi.rules.response.SearchResponse rulesSearchWithNewGsonFromString() {
+    return new Gson().fromJson(rulesResponse.bodyAsString(), org.sonarsource.sonarqube.mcp.serverapi.rules.response.SearchResponse.class);
+  }
+
+  @Benchmark
+  public org.sonarsource.sonarqube.mcp.serverapi.rules.response.SearchResponse rulesSearchWithSharedCodec() {
+    return JsonCodec.fromJson(rulesResponse, org.sonarsource.sonarqube.mcp.serverapi.rules.response.SearchResponse.class);
+  }
+
+  private static String issuesSearchPayload() {
+    var json = new StringBuilder("{\"total\":").append(ISSUES).append(",\"p\":1,\"ps\":").append(ISSUES)
+      .append(",\"paging\":{\"pageIndex\":1,\"pageSize\":").append(ISSUES).append(",\"total\":").append(ISSUES).append("},\"issues\":[");
+    for (var i = 0; i < ISSUES; i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append("{\"key\":\"AY").append(i).append("-issue\",\"rule\":\"java:S").append(1000 + i % 50)
+        .append("\",\"severity\":\"MAJOR\",\"component\":\"my-project:src/main/java/org/example/Service").append(i % 40)
+        .append(".java\",\"project\":\"my-project\",\"line\":").append(10 + i)
+        .append(",\"hash\":\"a3b1c9f0e2d4\",\"textRange\":{\"startLine\":").append(10 + i).append(",\"endLine\":").append(10 + i)
+        .append(",\"startOffset\":4,\"endOffset\":42},\"flows\":[{\"locations\":[{\"textRange\":{\"startLine\":").append(8 + i)
+        .append(",\"endLine\":").append(8 + i).append(",\"startOffset\":2,\"endOffset\":12},\"msg\":\"Previous use\"}]}]")
+        .append(",\"status\":\"OPEN\",\"issueStatus\":\"OPEN\",\"message\":\"Refactor this method to reduce its Cognitive Complexity from 23 to the 15 allowed.\"")
+        .append(",\"effort\":\"13min\",\"debt\":\"13min\",\"author\":\"developer@example.com\",\"tags\":[\"brain-overload\",\"design\"]")
+        .append(",\"transitions\":[\"confirm\",\"resolve\",\"falsepositive\",\"wontfix\"],\"actions\":[\"set_tags\",\"comment\",\"assign\"]")
+        .append(",\"comments\":[],\"creationDate\":\"2025-03-12T10:15:30+0000\",\"updateDate\":\"2025-03-12T10:15:30+0000\"")
+        .append(",\"type\":\"CODE_SMELL\",\"scope\":\"MAIN\",\"cleanCodeAttribute\":\"FOCUSED\",\"cleanCodeAttributeCategory\":\"ADAPTABLE\"")
+        .append(",\"impacts\":[{\"softwareQuality\":\"MAINTAINABILITY\",\"severity\":\"HIGH\"}]}");
+    }
+    json.append("],\"components\":[");
+    for (var i = 0; i < 40; i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append("{\"key\":\"my-project:src/main/java/org/example/Service").append(i).append(".java\",\"enabled\":true,\"qualifier\":\"FIL\"")
+        .append(",\"name\":\"Service").append(i).append(".java\",\"longName\":\"src/main/java/org/example/Service").append(i)
+        .append(".java\",\"path\":\"src/main/java/org/example/Service").append(i).append(".java\"}");
+    }
+    return json.append("],\"facets\":[]}").toString();
+  }
+
+  private static String rulesSearchPayload() {
+    var json = new StringBuilder("{\"total\":").append(RULES).append(",\"p\":1,\"ps\":").append(RULES).append(",\"rules\":[");
+    for (var i = 0; i < RULES; i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append("{\"key\":\"java:S").append(1000 + i).append("\",\"repo\":\"java\",\"name\":\"Methods should not be too complex\"")
+        .append(",\"createdAt\":\"2013-08-08T09:15:01+0000\",\"severity\":\"CRITICAL\",\"status\":\"READY\",\"isTemplate\":false")
+        .append(",\"tags\":[],\"sysTags\":[\"brain-overload\"],\"lang\":\"java\",\"langName\":\"Java\",\"params\":[{\"key\":\"Threshold\"")
+        .append(",\"htmlDesc\":\"The maximum authorized complexity.\",\"defaultValue\":\"15\",\"type\":\"INTEGER\"}],\"type\":\"CODE_SMELL\"")
+        .append(",\"impacts\":[{\"softwareQuality\":\"MAINTAINABILITY\",\"severity\":\"HIGH\"}]}");
+    }
+    json.append("],\"actives\":{");
+    for (var i = 0; i < RULES; i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append("\"java:S").append(1000 + i).append("\":[{\"qProfile\":\"AYxyz\",\"inherit\":\"NONE\",\"severity\":\"CRITICAL\"")
+        .append(",\"params\":[{\"key\":\"Threshold\",\"value\":\"15\"}]}]");
+    }
+    return json.append("}}").toString();
+  }
+
+  private record CannedResponse(byte[] body) implements HttpClient.Response {
+
+    @Override
+    public int code() {
+      return 200;
+    }
+
+    @Override
+    public String bodyAsString() {
+      return new String(body, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public InputStream bodyAsStream() {
+      return new ByteArrayInputStream(body);
+    }
+
+    @CheckForNull
+    @Override
+    public String header(String name) {
+      return null;
+    }
+
+    @Override
+    public void close() {
+      // nothing to release
+    }
+
+    @Override
+    public String url() {
+      return "https://sonarcloud.io/api/canned";
+    }
+  }
+
+}
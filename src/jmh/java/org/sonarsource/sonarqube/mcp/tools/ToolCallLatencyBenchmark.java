@@ -0,0 +1,167 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.tools;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.server.McpAsyncServer;
+import io.modelcontextprotocol.server.McpServer;
+import io.modelcontextprotocol.server.McpServerFeatures;
+import io.modelcontextprotocol.spec.McpSchema;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonarsource.sonarqube.mcp.configuration.McpServerLaunchConfiguration;
+import org.sonarsource.sonarqube.mcp.slcore.BackendService;
+import org.sonarsource.sonarqube.mcp.transport.QueueOverflowPolicy;
+import org.sonarsource.sonarqube.mcp.transport.StreamableHttpServerTransportProvider;
+import reactor.core.publisher.Mono;
+
+/**
+ * Measures the latency of short tool calls (e.g. ping_system) sent through the HTTP transport while long tool calls
+ * (e.g. analyze_code_snippet) are in flight on the same server. Run with {@code ./gradlew jmh -Pjmh.includes=ToolCallLatencyBenchmark},
+ * the p99 is part of the reported percentiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ToolCallLatencyBenchmark {
+
+  private static final int LONG_CALLS = 4;
+  private static final int MAX_CONCURRENT_TOOL_CALLS = 8;
+
+  private final HttpClient httpClient = HttpClient.newHttpClient();
+  private final AtomicLong requestIds = new AtomicLong();
+  private final List<CompletableFuture<HttpResponse<String>>> longCalls = new ArrayList<>();
+  private Path storagePath;
+  private CountDownLatch releaseLongCalls;
+  private ToolExecutor toolExecutor;
+  private StreamableHttpServerTransportProvider transportProvider;
+  private McpAsyncServer mcpServer;
+  private String sessionId;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException, InterruptedException {
+    storagePath = Files.createTempDirectory("tool-call-latency-benchmark");
+    var backendService = new BackendService(new McpServerLaunchConfiguration(Map.of("STORAGE_PATH", storagePath.toString(),
+      "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org")));
+    toolExecutor = new ToolExecutor(backendService, MAX_CONCURRENT_TOOL_CALLS);
+    releaseLongCalls = new CountDownLatch(1);
+    var longTool = tool("long_tool", () -> {
+      try {
+        releaseLongCalls.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return Tool.Result.success("Long");
+    });
+    var shortTool = tool("short_tool", () -> Tool.Result.success("Short"));
+
+    transportProvider = new StreamableHttpServerTransportProvider(new ObjectMapper(), "127.0.0.1", 0, 1024 * 1024, 1024 * 1024,
+      storagePath.resolve("arguments"), 1024 * 1024, QueueOverflowPolicy.BLOCK, true);
+    mcpServer = McpServer.async(transportProvider)
+      .serverInfo(new McpSchema.Implementation("benchmark", "1.0"))
+      .capabilities(McpSchema.ServerCapabilities.builder().tools(true).build())
+      .tools(toSpec(longTool), toSpec(shortTool))
+      .build();
+
+    var initializeResponse = post("{\"jsonrpc\":\"2.0\",\"id\":0,\"method\":\"initialize\",\"params\":{\"protocolVersion\":\"2024-11-05\"," +
+      "\"capabilities\":{},\"clientInfo\":{\"name\":\"benchmark\",\"version\":\"1.0\"}}}", null);
+    sessionId = initializeResponse.headers().firstValue("Mcp-Session-Id").orElseThrow();
+    post("{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}", sessionId);
+
+    for (var i = 0; i < LONG_CALLS; i++) {
+      longCalls.add(httpClient.sendAsync(toolCallRequest("long_tool", sessionId), HttpResponse.BodyHandlers.ofString()));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    releaseLongCalls.countDown();
+    CompletableFuture.allOf(longCalls.toArray(CompletableFuture[]::new)).join();
+    mcpServer.closeGracefully().block();
+    toolExecutor.shutdown();
+    Files.deleteIfExists(storagePath);
+  }
+
+  @Benchmark
+  public String shortToolCallWhileLongToolCallsAreInFlight() throws IOException, InterruptedException {
+    return httpClient.send(toolCallRequest("short_tool", sessionId), HttpResponse.BodyHandlers.ofString()).body();
+  }
+
+  private McpServerFeatures.AsyncToolSpecification toSpec(Tool tool) {
+    return new McpServerFeatures.AsyncToolSpecification(tool.definition(),
+      (exchange, arguments) -> Mono.fromFuture(() -> toolExecutor.executeAsync(tool, arguments)));
+  }
+
+  private HttpResponse<String> post(String message, @Nullable String session) throws IOException, InterruptedException {
+    return httpClient.send(request(message, session), HttpResponse.BodyHandlers.ofString());
+  }
+
+  private HttpRequest toolCallRequest(String toolName, String session) {
+    return request("{\"jsonrpc\":\"2.0\",\"id\":" + requestIds.incrementAndGet() + ",\"method\":\"tools/call\",\"params\":{\"name\":\"" + toolName +
+      "\",\"arguments\":{}}}", session);
+  }
+
+  private HttpRequest request(String message, @Nullable String session) {
+    var request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + transportProvider.getPort() + StreamableHttpServerTransportProvider.ENDPOINT))
+      .POST(HttpRequest.BodyPublishers.ofString(message))
+      .header("Content-Type", "application/json")
+      .header("Accept", "application/json, text/event-stream");
+    if (session != null) {
+      request.header("Mcp-Session-Id", session);
+    }
+    return request.build();
+  }
+
+  private static Tool tool(String name, Supplier<Tool.Result> execution) {
+    return new Tool(new McpSchema.Tool(name, null, new McpSchema.JsonSchema("object", Map.of(), List.of(), false, Map.of(), Map.of()))) {
+      @Override
+      public Result execute(Arguments arguments) {
+        return execution.get();
+      }
+    };
+  }
+
+}
@@ -16,27 +16,42 @@
  */
 package org.sonarsource.sonarqube.mcp;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.server.McpAsyncServer;
+import io.modelcontextprotocol.server.McpAsyncServerExchange;
 import io.modelcontextprotocol.server.McpServer;
 import io.modelcontextprotocol.server.McpServerFeatures;
-import io.modelcontextprotocol.server.McpSyncServer;
-import io.modelcontextprotocol.server.McpSyncServerExchange;
 import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.sonarsource.sonarqube.mcp.bridge.SonarQubeIdeBridgeClient;
 import org.sonarsource.sonarqube.mcp.configuration.McpServerLaunchConfiguration;
 import org.sonarsource.sonarqube.mcp.http.HttpClientProvider;
+import org.sonarsource.sonarqube.mcp.http.HttpMetricsExporter;
 import org.sonarsource.sonarqube.mcp.log.McpLogger;
 import org.sonarsource.sonarqube.mcp.plugins.PluginsSynchronizer;
 import org.sonarsource.sonarqube.mcp.serverapi.EndpointParams;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
+import org.sonarsource.sonarqube.mcp.serverapi.cache.RequestCoalescer;
+import org.sonarsource.sonarqube.mcp.serverapi.cache.ResponseCache;
+import org.sonarsource.sonarqube.mcp.serverapi.retry.RequestRetrier;
 import org.sonarsource.sonarqube.mcp.slcore.BackendService;
 import org.sonarsource.sonarqube.mcp.tools.Tool;
 import org.sonarsource.sonarqube.mcp.tools.ToolExecutor;
 import org.sonarsource.sonarqube.mcp.tools.analysis.AnalysisTool;
+import org.sonarsource.sonarqube.mcp.tools.analysis.AnalyzeCodeSnippetsTool;
 import org.sonarsource.sonarqube.mcp.tools.analysis.AnalyzeFileListTool;
+import org.sonarsource.sonarqube.mcp.tools.analysis.ProjectRules;
 import org.sonarsource.sonarqube.mcp.tools.analysis.ToggleAutomaticAnalysisTool;
 import org.sonarsource.sonarqube.mcp.tools.dependencyrisks.SearchDependencyRisksTool;
 import org.sonarsource.sonarqube.mcp.tools.enterprises.ListEnterprisesTool;
@@ -60,71 +75,141 @@ import org.sonarsource.sonarqube.mcp.tools.system.SystemPingTool;
 import org.sonarsource.sonarqube.mcp.tools.system.SystemStatusTool;
 import org.sonarsource.sonarqube.mcp.tools.webhooks.CreateWebhookTool;
 import org.sonarsource.sonarqube.mcp.tools.webhooks.ListWebhooksTool;
+import org.sonarsource.sonarqube.mcp.transport.ProgressNotifier;
 import org.sonarsource.sonarqube.mcp.transport.StdioServerTransportProvider;
+import org.sonarsource.sonarqube.mcp.transport.StreamableHttpServerTransportProvider;
+import org.sonarsource.sonarqube.mcp.transport.ToolCallTimeout;
+import reactor.core.publisher.Mono;
 
 public class SonarQubeMcpServer {
 
   private static final McpLogger LOG = McpLogger.getInstance();
+  private static final int MAX_TOKEN_TOOL_SETS = 64;
   private final BackendService backendService;
   private final ToolExecutor toolExecutor;
-  private final StdioServerTransportProvider transportProvider;
-  private final List<Tool> supportedTools = new ArrayList<>();
+  private final McpServerTransportProvider transportProvider;
+  private final List<Tool> supportedTools;
+  /**
+   * Tools of the sessions authenticated with another token than the configured one, keyed by a hash of the token.
+   * Released when the last session of the token is closed, and the least recently used ones are evicted above the maximum number of entries.
+   */
+  private final Map<String, Map<String, Tool>> toolsByTokenIdentity = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Map<String, Tool>> eldest) {
+      return size() > MAX_TOKEN_TOOL_SETS;
+    }
+  };
   private final McpServerLaunchConfiguration mcpConfiguration;
   private final HttpClientProvider httpClientProvider;
+  private final HttpMetricsExporter httpMetricsExporter;
+  @Nullable
+  private final ResponseCache responseCache;
+  @Nullable
+  private final RequestCoalescer requestCoalescer;
+  private final RequestRetrier requestRetrier;
   private final PluginsSynchronizer pluginsSynchronizer;
   private final SonarQubeVersionChecker sonarQubeVersionChecker;
-  private McpSyncServer syncServer;
+  private final SonarQubeIdeBridgeClient sonarqubeIdeBridgeClient;
+  private final boolean isSonarQubeIdeBridgeAvailable;
+  private final boolean isScaEnabled;
+  private McpAsyncServer mcpServer;
   private volatile boolean isShutdown = false;
-  private boolean logFileLocationLogged;
+  private final AtomicBoolean logFileLocationLogged = new AtomicBoolean(false);
 
   public static void main(String[] args) {
-    new SonarQubeMcpServer(new StdioServerTransportProvider(), System.getenv()).start();
+    var mcpConfiguration = new McpServerLaunchConfiguration(System.getenv());
+    new SonarQubeMcpServer(createTransportProvider(mcpConfiguration), mcpConfiguration).start();
+  }
+
+  public SonarQubeMcpServer(McpServerTransportProvider transportProvider, Map<String, String> environment) {
+    this(transportProvider, new McpServerLaunchConfiguration(environment));
   }
 
-  public SonarQubeMcpServer(StdioServerTransportProvider transportProvider, Map<String, String> environment) {
+  private SonarQubeMcpServer(McpServerTransportProvider transportProvider, McpServerLaunchConfiguration mcpConfiguration) {
     this.transportProvider = transportProvider;
-    this.mcpConfiguration = new McpServerLaunchConfiguration(environment);
+    this.mcpConfiguration = mcpConfiguration;
+    if (transportProvider instanceof StdioServerTransportProvider stdioTransportProvider) {
+      stdioTransportProvider.setInboundMessageLimits(mcpConfiguration.getMaxInboundMessageSize(), mcpConfiguration.getArgumentSpillThreshold(),
+        mcpConfiguration.getArgumentSpillDirectory());
+      stdioTransportProvider.setQueueLimits(mcpConfiguration.getMaxQueuedMessageBytes(), mcpConfiguration.getQueueOverflowPolicy());
+    } else if (transportProvider instanceof StreamableHttpServerTransportProvider httpTransportProvider) {
+      httpTransportProvider.setTokenReleaseListener(this::releaseToolsForToken);
+    }
     this.backendService = new BackendService(mcpConfiguration);
-    this.httpClientProvider = new HttpClientProvider(mcpConfiguration.getUserAgent());
-    var serverApi = initializeServerApi(mcpConfiguration);
+    this.responseCache = mcpConfiguration.getResponseCacheMaxBytes() > 0 ? new ResponseCache(mcpConfiguration.getResponseCacheMaxBytes()) : null;
+    this.requestCoalescer = mcpConfiguration.isRequestCoalescing() ? new RequestCoalescer() : null;
+    this.requestRetrier = new RequestRetrier(mcpConfiguration.getRetryPolicy());
+    this.httpClientProvider = new HttpClientProvider(mcpConfiguration.getUserAgent(), mcpConfiguration.getConnectionPoolSettings(),
+      mcpConfiguration.getHttpVersionSettings(), mcpConfiguration.getCompressionSettings(), mcpConfiguration.getConcurrencyLimitSettings());
+    this.httpMetricsExporter = exportHttpMetrics(mcpConfiguration);
+    prewarmConnections(mcpConfiguration);
+    var serverApi = initializeServerApi(mcpConfiguration.getSonarQubeToken());
     this.sonarQubeVersionChecker = new SonarQubeVersionChecker(serverApi);
-    this.pluginsSynchronizer = new PluginsSynchronizer(serverApi, mcpConfiguration.getStoragePath());
-    this.toolExecutor = new ToolExecutor(backendService);
-    var sonarqubeIdeBridgeClient = initializeBridgeClient(mcpConfiguration);
+    this.pluginsSynchronizer = new PluginsSynchronizer(serverApi, mcpConfiguration.getStoragePath(), mcpConfiguration.getMaxPluginSizeBytes());
+    this.toolExecutor = new ToolExecutor(backendService, mcpConfiguration.getMaxConcurrentToolCalls(), mcpConfiguration.getToolCallTimeout());
+    this.sonarqubeIdeBridgeClient = initializeBridgeClient(mcpConfiguration);
+    this.isSonarQubeIdeBridgeAvailable = sonarqubeIdeBridgeClient.isAvailable();
 
-    if (sonarqubeIdeBridgeClient.isAvailable()) {
+    if (isSonarQubeIdeBridgeAvailable) {
       LOG.info("SonarQube for IDE integration is available, enabling related tools.");
       backendService.notifySonarQubeIdeIntegration();
-      this.supportedTools.add(new AnalyzeFileListTool(sonarqubeIdeBridgeClient));
-      this.supportedTools.add(new ToggleAutomaticAnalysisTool(sonarqubeIdeBridgeClient));
+    }
+
+    if (mcpConfiguration.isSonarCloud() || sonarQubeVersionChecker.isSonarQubeServerVersionHigherOrEqualsThan("2025.4")) {
+      this.isScaEnabled = serverApi.scaApi().getFeatureEnabled().enabled();
+      if (!isScaEnabled) {
+        LOG.info("Search Dependency Risks tool is not available because Advanced Security is not enabled.");
+      }
     } else {
-      this.supportedTools.add(new AnalysisTool(backendService, serverApi));
+      this.isScaEnabled = false;
+      LOG.info("Search Dependency Risks tool is not available because it requires SonarQube Server 2025.4 Enterprise or higher.");
+    }
+
+    this.supportedTools = createTools(serverApi);
+  }
+
+  private static McpServerTransportProvider createTransportProvider(McpServerLaunchConfiguration mcpConfiguration) {
+    if (mcpConfiguration.isHttpTransport()) {
+      return new StreamableHttpServerTransportProvider(new ObjectMapper(), mcpConfiguration.getHttpHost(), mcpConfiguration.getHttpPort(),
+        mcpConfiguration.getMaxInboundMessageSize(), mcpConfiguration.getArgumentSpillThreshold(), mcpConfiguration.getArgumentSpillDirectory(),
+        mcpConfiguration.getMaxQueuedMessageBytes(),
+        mcpConfiguration.getQueueOverflowPolicy(), mcpConfiguration.isHttpAllowAnonymous());
+    }
+    return new StdioServerTransportProvider();
+  }
+
+  /**
+   * Creates the tools calling SonarQube with the given API client. Everything else, like the backend and the HTTP connection pool, is shared.
+   */
+  private List<Tool> createTools(ServerApi serverApi) {
+    var tools = new ArrayList<Tool>();
+    if (isSonarQubeIdeBridgeAvailable) {
+      tools.add(new AnalyzeFileListTool(sonarqubeIdeBridgeClient));
+      tools.add(new ToggleAutomaticAnalysisTool(sonarqubeIdeBridgeClient));
+    } else {
+      var projectRules = new ProjectRules(backendService, serverApi);
+      tools.add(new AnalysisTool(backendService, projectRules));
+      tools.add(new AnalyzeCodeSnippetsTool(backendService, projectRules));
     }
 
     // SonarQube Cloud specific tools
     if (mcpConfiguration.isSonarCloud()) {
-      this.supportedTools.add(new ListEnterprisesTool(serverApi));
+      tools.add(new ListEnterprisesTool(serverApi));
     } else {
       // SonarQube Server specific tools
-      this.supportedTools.addAll(List.of(
+      tools.addAll(List.of(
         new SystemHealthTool(serverApi),
         new SystemInfoTool(serverApi),
-        new SystemLogsTool(serverApi),
+        new SystemLogsTool(serverApi, mcpConfiguration.getMaxLogsBytes()),
         new SystemPingTool(serverApi),
         new SystemStatusTool(serverApi)));
     }
 
-    if (mcpConfiguration.isSonarCloud() || sonarQubeVersionChecker.isSonarQubeServerVersionHigherOrEqualsThan("2025.4")) {
-      if (serverApi.scaApi().getFeatureEnabled().enabled()) {
-        this.supportedTools.add(new SearchDependencyRisksTool(serverApi));
-      } else {
-        LOG.info("Search Dependency Risks tool is not available because Advanced Security is not enabled.");
-      }
-    } else {
-      LOG.info("Search Dependency Risks tool is not available because it requires SonarQube Server 2025.4 Enterprise or higher.");
+    if (isScaEnabled) {
+      tools.add(new SearchDependencyRisksTool(serverApi));
     }
 
-    this.supportedTools.addAll(List.of(
+    tools.addAll(List.of(
       new ChangeIssueStatusTool(serverApi),
       new SearchMyProjectsTool(serverApi),
       new SearchIssuesTool(serverApi),
@@ -140,14 +225,15 @@ public class SonarQubeMcpServer {
       new CreateWebhookTool(serverApi),
       new ListWebhooksTool(serverApi),
       new ListPortfoliosTool(serverApi)));
+    return tools;
   }
 
   public void start() {
     sonarQubeVersionChecker.failIfSonarQubeServerVersionIsNotSupported();
-    syncServer = McpServer.sync(transportProvider)
+    mcpServer = McpServer.async(transportProvider)
       .serverInfo(new McpSchema.Implementation("sonarqube-mcp-server", mcpConfiguration.getAppVersion()))
       .capabilities(McpSchema.ServerCapabilities.builder().tools(true).logging().build())
-      .tools(supportedTools.stream().map(this::toSpec).toArray(McpServerFeatures.SyncToolSpecification[]::new))
+      .tools(supportedTools.stream().map(this::toSpec).toArray(McpServerFeatures.AsyncToolSpecification[]::new))
       .build();
 
     var analyzers = pluginsSynchronizer.synchronizeAnalyzers();
@@ -155,31 +241,83 @@ public class SonarQubeMcpServer {
     Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
   }
 
-  private McpServerFeatures.SyncToolSpecification toSpec(Tool tool) {
-    return new McpServerFeatures.SyncToolSpecification(
+  private HttpMetricsExporter exportHttpMetrics(McpServerLaunchConfiguration mcpConfiguration) {
+    var exporter = new HttpMetricsExporter(httpClientProvider.getMetrics());
+    if (!mcpConfiguration.getHttpMetricsFileInterval().isZero()) {
+      exporter.writePeriodically(mcpConfiguration.getStoragePath().resolve("metrics").resolve(HttpMetricsExporter.METRICS_FILE_NAME),
+        mcpConfiguration.getHttpMetricsFileInterval());
+    }
+    if (mcpConfiguration.getHttpMetricsPort() > 0) {
+      exporter.serve(mcpConfiguration.getHttpMetricsPort());
+      LOG.info("HTTP client metrics served on http://localhost:" + exporter.getPort() + HttpMetricsExporter.METRICS_PATH);
+    }
+    return exporter;
+  }
+
+  private void prewarmConnections(McpServerLaunchConfiguration mcpConfiguration) {
+    if (mcpConfiguration.getPrewarmConnections() > 0) {
+      var serverUrl = mcpConfiguration.getSonarQubeUrl();
+      var serverUrls = new LinkedHashSet<>(List.of(serverUrl, ServerApiHelper.toApiSubdomainUrl(serverUrl)));
+      httpClientProvider.prewarm(serverUrls, mcpConfiguration.getPrewarmConnections());
+    }
+  }
+
+  private McpServerFeatures.AsyncToolSpecification toSpec(Tool tool) {
+    // Each call is dispatched on its own virtual thread, so that the transport can keep serving other requests in the meantime
+    return new McpServerFeatures.AsyncToolSpecification(
       tool.definition(),
-      (exchange, argMap) -> {
-        logLogFileLocation(exchange);
-        return toolExecutor.execute(tool, argMap);
-      });
+      (exchange, argMap) -> Mono.deferContextual(context -> {
+        // a client of the HTTP transport may have sent its own token for its session
+        var sessionTool = context.<String>getOrEmpty(StreamableHttpServerTransportProvider.SONARQUBE_TOKEN_CONTEXT_KEY)
+          .map(token -> getToolForToken(token, tool))
+          .orElse(tool);
+        // only set when the client asked for progress notifications
+        var progressNotifier = context.getOrDefault(ProgressNotifier.CONTEXT_KEY, ProgressNotifier.NONE);
+        if (mcpConfiguration.isStreamPartialResults()) {
+          progressNotifier = progressNotifier.withPartialResults();
+        }
+        var toolProgressNotifier = progressNotifier;
+        // only set when the client asked for a timeout
+        var requestedTimeout = context.<Duration>getOrEmpty(ToolCallTimeout.CONTEXT_KEY).orElse(null);
+        return logLogFileLocation(exchange)
+          .then(Mono.fromFuture(() -> toolExecutor.executeAsync(sessionTool, argMap, toolProgressNotifier, requestedTimeout)));
+      }));
+  }
+
+  private Tool getToolForToken(String token, Tool tool) {
+    if (token.equals(mcpConfiguration.getSonarQubeToken())) {
+      return tool;
+    }
+    Map<String, Tool> tools;
+    synchronized (toolsByTokenIdentity) {
+      tools = toolsByTokenIdentity.computeIfAbsent(ResponseCache.credentialIdentity(token), identity -> createTools(initializeServerApi(token)).stream()
+        .collect(Collectors.toMap(toolForToken -> toolForToken.definition().name(), Function.identity())));
+    }
+    return tools.get(tool.definition().name());
+  }
+
+  private void releaseToolsForToken(String token) {
+    synchronized (toolsByTokenIdentity) {
+      toolsByTokenIdentity.remove(ResponseCache.credentialIdentity(token));
+    }
   }
 
-  private void logLogFileLocation(McpSyncServerExchange exchange) {
-    if (!logFileLocationLogged) {
-      exchange.loggingNotification(new McpSchema.LoggingMessageNotification(McpSchema.LoggingLevel.INFO, "sonarqube-mcp-server",
+  private Mono<Void> logLogFileLocation(McpAsyncServerExchange exchange) {
+    if (logFileLocationLogged.compareAndSet(false, true)) {
+      return exchange.loggingNotification(new McpSchema.LoggingMessageNotification(McpSchema.LoggingLevel.INFO, "sonarqube-mcp-server",
         "Logs are redirected to " + mcpConfiguration.getLogFilePath().toAbsolutePath()));
-      logFileLocationLogged = true;
     }
+    return Mono.empty();
   }
 
-  private ServerApi initializeServerApi(McpServerLaunchConfiguration mcpConfiguration) {
+  private ServerApi initializeServerApi(String token) {
     var organization = mcpConfiguration.getSonarqubeOrg();
-    var token = mcpConfiguration.getSonarQubeToken();
     var url = mcpConfiguration.getSonarQubeUrl();
 
     var httpClient = httpClientProvider.getHttpClient(token);
 
-    var serverApiHelper = new ServerApiHelper(new EndpointParams(url, organization), httpClient);
+    var serverApiHelper = new ServerApiHelper(new EndpointParams(url, organization), httpClient, responseCache, requestCoalescer, token, requestRetrier,
+      mcpConfiguration.isProtobufResponses());
     return new ServerApi(serverApiHelper);
   }
 
@@ -195,18 +333,20 @@ public class SonarQubeMcpServer {
       return;
     }
     isShutdown = true;
+    httpMetricsExporter.close();
     try {
       httpClientProvider.shutdown();
     } catch (Exception e) {
       LOG.error("Error shutting down HTTP client", e);
     }
     try {
-      if (syncServer != null) {
-        syncServer.closeGracefully();
+      if (mcpServer != null) {
+        mcpServer.closeGracefully().block();
       }
     } catch (Exception e) {
       LOG.error("Error shutting down MCP server", e);
     }
+    toolExecutor.shutdown();
     try {
       backendService.shutdown();
     } catch (Exception e) {
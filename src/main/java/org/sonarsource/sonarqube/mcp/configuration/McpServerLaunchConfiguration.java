@@ -18,11 +18,28 @@ package org.sonarsource.sonarqube.mcp.configuration;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
 import org.jetbrains.annotations.NotNull;
 import org.sonarsource.sonarqube.mcp.SonarQubeMcpServer;
+import org.sonarsource.sonarqube.mcp.http.CompressionSettings;
+import org.sonarsource.sonarqube.mcp.http.ConcurrencyLimitSettings;
+import org.sonarsource.sonarqube.mcp.http.ConnectionPoolSettings;
+import org.sonarsource.sonarqube.mcp.http.HttpVersionSettings;
+import org.sonarsource.sonarqube.mcp.plugins.PluginsSynchronizer;
+import org.sonarsource.sonarqube.mcp.serverapi.cache.ResponseCache;
+import org.sonarsource.sonarqube.mcp.serverapi.retry.RetryPolicy;
+import org.sonarsource.sonarqube.mcp.tools.ToolExecutor;
+import org.sonarsource.sonarqube.mcp.tools.system.SystemLogsTool;
+import org.sonarsource.sonarqube.mcp.transport.QueueOverflowPolicy;
+import org.sonarsource.sonarqube.mcp.transport.StdioServerTransportProvider;
+import org.sonarsource.sonarqube.mcp.transport.StreamableHttpServerTransportProvider;
 
 import static java.util.Objects.requireNonNull;
 
@@ -37,6 +54,43 @@ public class McpServerLaunchConfiguration {
   private static final String SONARQUBE_TOKEN = "SONARQUBE_TOKEN";
   private static final String SONARQUBE_IDE_PORT_ENV = "SONARQUBE_IDE_PORT";
   private static final String TELEMETRY_DISABLED = "TELEMETRY_DISABLED";
+  private static final String SONARQUBE_MAX_CONCURRENT_TOOL_CALLS = "SONARQUBE_MAX_CONCURRENT_TOOL_CALLS";
+  private static final String SONARQUBE_TOOL_CALL_TIMEOUT_SECONDS = "SONARQUBE_TOOL_CALL_TIMEOUT_SECONDS";
+  private static final String SONARQUBE_MAX_INBOUND_MESSAGE_SIZE = "SONARQUBE_MAX_INBOUND_MESSAGE_SIZE";
+  private static final String SONARQUBE_ARGUMENT_SPILL_THRESHOLD = "SONARQUBE_ARGUMENT_SPILL_THRESHOLD";
+  private static final String SONARQUBE_MAX_QUEUED_MESSAGE_BYTES = "SONARQUBE_MAX_QUEUED_MESSAGE_BYTES";
+  private static final String SONARQUBE_QUEUE_OVERFLOW_POLICY = "SONARQUBE_QUEUE_OVERFLOW_POLICY";
+  private static final String SONARQUBE_HTTP_MAX_CONNECTIONS = "SONARQUBE_HTTP_MAX_CONNECTIONS";
+  private static final String SONARQUBE_HTTP_MAX_CONNECTIONS_PER_ROUTE = "SONARQUBE_HTTP_MAX_CONNECTIONS_PER_ROUTE";
+  private static final String SONARQUBE_HTTP_CONNECTION_TTL_SECONDS = "SONARQUBE_HTTP_CONNECTION_TTL_SECONDS";
+  private static final String SONARQUBE_HTTP_IDLE_EVICTION_SECONDS = "SONARQUBE_HTTP_IDLE_EVICTION_SECONDS";
+  private static final String SONARQUBE_HTTP_VALIDATE_AFTER_INACTIVITY_MILLIS = "SONARQUBE_HTTP_VALIDATE_AFTER_INACTIVITY_MILLIS";
+  private static final String SONARQUBE_HTTP_PREWARM_CONNECTIONS = "SONARQUBE_HTTP_PREWARM_CONNECTIONS";
+  private static final String SONARQUBE_HTTP_VERSION = "SONARQUBE_HTTP_VERSION";
+  private static final String SONARQUBE_HTTP_COMPRESSION = "SONARQUBE_HTTP_COMPRESSION";
+  private static final String SONARQUBE_HTTP_MAX_ATTEMPTS = "SONARQUBE_HTTP_MAX_ATTEMPTS";
+  private static final String SONARQUBE_HTTP_ADAPTIVE_CONCURRENCY = "SONARQUBE_HTTP_ADAPTIVE_CONCURRENCY";
+  private static final String SONARQUBE_HTTP_MIN_CONCURRENCY = "SONARQUBE_HTTP_MIN_CONCURRENCY";
+  private static final String SONARQUBE_HTTP_MAX_CONCURRENCY = "SONARQUBE_HTTP_MAX_CONCURRENCY";
+  private static final String SONARQUBE_HTTP_MAX_QUEUEING_MILLIS = "SONARQUBE_HTTP_MAX_QUEUEING_MILLIS";
+  private static final String SONARQUBE_HTTP_RETRY_BUDGET_MILLIS = "SONARQUBE_HTTP_RETRY_BUDGET_MILLIS";
+  private static final String SONARQUBE_HTTP_HEDGING = "SONARQUBE_HTTP_HEDGING";
+  private static final String SONARQUBE_HTTP_MIN_HEDGING_DELAY_MILLIS = "SONARQUBE_HTTP_MIN_HEDGING_DELAY_MILLIS";
+  private static final String SONARQUBE_HTTP_COMPRESSED_ENDPOINTS = "SONARQUBE_HTTP_COMPRESSED_ENDPOINTS";
+  private static final String SONARQUBE_HTTP_METRICS_FILE_INTERVAL_SECONDS = "SONARQUBE_HTTP_METRICS_FILE_INTERVAL_SECONDS";
+  private static final String SONARQUBE_HTTP_METRICS_PORT = "SONARQUBE_HTTP_METRICS_PORT";
+  private static final String SONARQUBE_RESPONSE_CACHE_MAX_BYTES = "SONARQUBE_RESPONSE_CACHE_MAX_BYTES";
+  private static final String SONARQUBE_REQUEST_COALESCING = "SONARQUBE_REQUEST_COALESCING";
+  private static final String SONARQUBE_PROTOBUF_RESPONSES = "SONARQUBE_PROTOBUF_RESPONSES";
+  private static final String SONARQUBE_STREAM_PARTIAL_RESULTS = "SONARQUBE_STREAM_PARTIAL_RESULTS";
+  private static final String SONARQUBE_MAX_PLUGIN_SIZE_BYTES = "SONARQUBE_MAX_PLUGIN_SIZE_BYTES";
+  private static final String SONARQUBE_MAX_LOGS_BYTES = "SONARQUBE_MAX_LOGS_BYTES";
+  private static final String SONARQUBE_TRANSPORT = "SONARQUBE_TRANSPORT";
+  private static final String SONARQUBE_HTTP_HOST = "SONARQUBE_HTTP_HOST";
+  private static final String SONARQUBE_HTTP_PORT = "SONARQUBE_HTTP_PORT";
+  private static final String SONARQUBE_HTTP_ALLOW_ANONYMOUS = "SONARQUBE_HTTP_ALLOW_ANONYMOUS";
+  private static final String STDIO_TRANSPORT = "stdio";
+  private static final String HTTP_TRANSPORT = "http";
 
   private final Path storagePath;
   private final String sonarqubeUrl;
@@ -48,6 +102,30 @@ public class McpServerLaunchConfiguration {
   private final String userAgent;
   private final boolean isTelemetryEnabled;
   private final boolean isSonarCloud;
+  private final int maxConcurrentToolCalls;
+  private final Duration toolCallTimeout;
+  private final int maxInboundMessageSize;
+  private final int argumentSpillThreshold;
+  private final int maxQueuedMessageBytes;
+  private final QueueOverflowPolicy queueOverflowPolicy;
+  private final ConnectionPoolSettings connectionPoolSettings;
+  private final int prewarmConnections;
+  private final HttpVersionSettings httpVersionSettings;
+  private final CompressionSettings compressionSettings;
+  private final RetryPolicy retryPolicy;
+  private final ConcurrencyLimitSettings concurrencyLimitSettings;
+  private final Duration httpMetricsFileInterval;
+  private final int httpMetricsPort;
+  private final int responseCacheMaxBytes;
+  private final boolean isRequestCoalescing;
+  private final boolean isProtobufResponses;
+  private final boolean isStreamPartialResults;
+  private final int maxPluginSizeBytes;
+  private final int maxLogsBytes;
+  private final boolean isHttpTransport;
+  private final String httpHost;
+  private final int httpPort;
+  private final boolean isHttpAllowAnonymous;
 
   public McpServerLaunchConfiguration(Map<String, String> environment) {
     var storagePathString = getValueViaEnvOrPropertyOrDefault(environment, STORAGE_PATH, null);
@@ -73,6 +151,72 @@ public class McpServerLaunchConfiguration {
     this.appVersion = fetchAppVersion();
     this.userAgent = APP_NAME + " " + appVersion;
     this.isTelemetryEnabled = !Boolean.parseBoolean(getValueViaEnvOrPropertyOrDefault(environment, TELEMETRY_DISABLED, "false"));
+    this.maxConcurrentToolCalls = parsePositiveIntValue(environment, SONARQUBE_MAX_CONCURRENT_TOOL_CALLS,
+      ToolExecutor.DEFAULT_MAX_CONCURRENT_TOOL_CALLS);
+    this.toolCallTimeout = Duration.ofSeconds(parsePositiveIntValue(environment, SONARQUBE_TOOL_CALL_TIMEOUT_SECONDS,
+      (int) ToolExecutor.DEFAULT_TOOL_CALL_TIMEOUT.toSeconds()));
+    this.maxInboundMessageSize = parsePositiveIntValue(environment, SONARQUBE_MAX_INBOUND_MESSAGE_SIZE,
+      StdioServerTransportProvider.DEFAULT_MAX_INBOUND_MESSAGE_SIZE);
+    this.argumentSpillThreshold = parsePositiveIntValue(environment, SONARQUBE_ARGUMENT_SPILL_THRESHOLD,
+      StdioServerTransportProvider.DEFAULT_ARGUMENT_SPILL_THRESHOLD);
+    this.maxQueuedMessageBytes = parsePositiveIntValue(environment, SONARQUBE_MAX_QUEUED_MESSAGE_BYTES,
+      StdioServerTransportProvider.DEFAULT_MAX_QUEUED_BYTES);
+    this.queueOverflowPolicy = parseQueueOverflowPolicyValue(
+      getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_QUEUE_OVERFLOW_POLICY, "block"));
+    this.connectionPoolSettings = new ConnectionPoolSettings(
+      parsePositiveIntValue(environment, SONARQUBE_HTTP_MAX_CONNECTIONS, ConnectionPoolSettings.DEFAULT_MAX_TOTAL),
+      parsePositiveIntValue(environment, SONARQUBE_HTTP_MAX_CONNECTIONS_PER_ROUTE, ConnectionPoolSettings.DEFAULT_MAX_PER_ROUTE),
+      Duration.ofSeconds(parsePositiveIntValue(environment, SONARQUBE_HTTP_CONNECTION_TTL_SECONDS,
+        (int) ConnectionPoolSettings.DEFAULT_TIME_TO_LIVE.toSeconds())),
+      Duration.ofSeconds(parsePositiveIntValue(environment, SONARQUBE_HTTP_IDLE_EVICTION_SECONDS,
+        (int) ConnectionPoolSettings.DEFAULT_IDLE_EVICTION_INTERVAL.toSeconds())),
+      Duration.ofMillis(parsePositiveIntValue(environment, SONARQUBE_HTTP_VALIDATE_AFTER_INACTIVITY_MILLIS,
+        (int) ConnectionPoolSettings.DEFAULT_VALIDATE_AFTER_INACTIVITY.toMillis())));
+    this.prewarmConnections = parseNonNegativeIntValue(environment, SONARQUBE_HTTP_PREWARM_CONNECTIONS, 0);
+    this.httpVersionSettings = new HttpVersionSettings(
+      // SonarQube Cloud negotiates HTTP/2, SonarQube Server is often reached through proxies that don't handle it well
+      parseHttpVersionValue(getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_HTTP_VERSION, isSonarCloud ? "negotiate" : "http1")),
+      HttpVersionSettings.DEFAULT_INITIAL_WINDOW_SIZE);
+    this.compressionSettings = new CompressionSettings(
+      Boolean.parseBoolean(getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_HTTP_COMPRESSION, "true")),
+      parseEndpointsValue(getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_HTTP_COMPRESSED_ENDPOINTS, null)));
+    this.retryPolicy = new RetryPolicy(
+      parsePositiveIntValue(environment, SONARQUBE_HTTP_MAX_ATTEMPTS, RetryPolicy.DEFAULT_MAX_ATTEMPTS),
+      RetryPolicy.DEFAULT_INITIAL_BACKOFF,
+      RetryPolicy.DEFAULT_MAX_BACKOFF,
+      Duration.ofMillis(parseNonNegativeIntValue(environment, SONARQUBE_HTTP_RETRY_BUDGET_MILLIS, (int) RetryPolicy.DEFAULT_RETRY_BUDGET.toMillis())),
+      Boolean.parseBoolean(getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_HTTP_HEDGING, "false")),
+      Duration.ofMillis(parsePositiveIntValue(environment, SONARQUBE_HTTP_MIN_HEDGING_DELAY_MILLIS,
+        (int) RetryPolicy.DEFAULT_MIN_HEDGING_DELAY.toMillis())));
+    var minConcurrency = parsePositiveIntValue(environment, SONARQUBE_HTTP_MIN_CONCURRENCY, ConcurrencyLimitSettings.DEFAULT_MIN_LIMIT);
+    var maxConcurrency = parsePositiveIntValue(environment, SONARQUBE_HTTP_MAX_CONCURRENCY, ConcurrencyLimitSettings.DEFAULT_MAX_LIMIT);
+    if (minConcurrency > maxConcurrency) {
+      throw new IllegalArgumentException(SONARQUBE_HTTP_MIN_CONCURRENCY + " value must not be greater than " + SONARQUBE_HTTP_MAX_CONCURRENCY +
+        ", got: " + minConcurrency);
+    }
+    this.concurrencyLimitSettings = new ConcurrencyLimitSettings(
+      Boolean.parseBoolean(getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_HTTP_ADAPTIVE_CONCURRENCY, "true")),
+      Math.clamp(ConcurrencyLimitSettings.DEFAULT_INITIAL_LIMIT, minConcurrency, maxConcurrency),
+      minConcurrency,
+      maxConcurrency,
+      Duration.ofMillis(parsePositiveIntValue(environment, SONARQUBE_HTTP_MAX_QUEUEING_MILLIS,
+        (int) ConcurrencyLimitSettings.DEFAULT_MAX_QUEUEING_DELAY.toMillis())));
+    this.httpMetricsFileInterval = Duration.ofSeconds(parseNonNegativeIntValue(environment, SONARQUBE_HTTP_METRICS_FILE_INTERVAL_SECONDS, 0));
+    this.httpMetricsPort = parseNonNegativeIntValue(environment, SONARQUBE_HTTP_METRICS_PORT, 0);
+    if (httpMetricsPort > 65535) {
+      throw new IllegalArgumentException("Invalid " + SONARQUBE_HTTP_METRICS_PORT + " value: " + httpMetricsPort);
+    }
+    this.responseCacheMaxBytes = parseNonNegativeIntValue(environment, SONARQUBE_RESPONSE_CACHE_MAX_BYTES, ResponseCache.DEFAULT_MAX_BYTES);
+    this.isRequestCoalescing = Boolean.parseBoolean(getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_REQUEST_COALESCING, "true"));
+    this.isProtobufResponses = Boolean.parseBoolean(getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_PROTOBUF_RESPONSES, "false"));
+    this.isStreamPartialResults = Boolean.parseBoolean(getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_STREAM_PARTIAL_RESULTS, "false"));
+    this.maxPluginSizeBytes = parsePositiveIntValue(environment, SONARQUBE_MAX_PLUGIN_SIZE_BYTES, PluginsSynchronizer.DEFAULT_MAX_PLUGIN_SIZE);
+    this.maxLogsBytes = parsePositiveIntValue(environment, SONARQUBE_MAX_LOGS_BYTES, SystemLogsTool.DEFAULT_MAX_LOGS_BYTES);
+    this.isHttpTransport = parseTransportValue(getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_TRANSPORT, STDIO_TRANSPORT));
+    this.httpHost = requireNonNull(getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_HTTP_HOST,
+      StreamableHttpServerTransportProvider.DEFAULT_HOST));
+    this.httpPort = parsePositiveIntValue(environment, SONARQUBE_HTTP_PORT, StreamableHttpServerTransportProvider.DEFAULT_PORT);
+    this.isHttpAllowAnonymous = Boolean.parseBoolean(getValueViaEnvOrPropertyOrDefault(environment, SONARQUBE_HTTP_ALLOW_ANONYMOUS, "false"));
   }
 
   @NotNull
@@ -122,6 +266,121 @@ public class McpServerLaunchConfiguration {
     return isSonarCloud;
   }
 
+  public int getMaxConcurrentToolCalls() {
+    return maxConcurrentToolCalls;
+  }
+
+  public Duration getToolCallTimeout() {
+    return toolCallTimeout;
+  }
+
+  public int getMaxInboundMessageSize() {
+    return maxInboundMessageSize;
+  }
+
+  public int getArgumentSpillThreshold() {
+    return argumentSpillThreshold;
+  }
+
+  public Path getArgumentSpillDirectory() {
+    return storagePath.resolve("arguments");
+  }
+
+  public int getMaxQueuedMessageBytes() {
+    return maxQueuedMessageBytes;
+  }
+
+  public QueueOverflowPolicy getQueueOverflowPolicy() {
+    return queueOverflowPolicy;
+  }
+
+  public ConnectionPoolSettings getConnectionPoolSettings() {
+    return connectionPoolSettings;
+  }
+
+  /**
+   * Number of connections opened to the server at startup, 0 when disabled
+   */
+  public int getPrewarmConnections() {
+    return prewarmConnections;
+  }
+
+  public HttpVersionSettings getHttpVersionSettings() {
+    return httpVersionSettings;
+  }
+
+  public CompressionSettings getCompressionSettings() {
+    return compressionSettings;
+  }
+
+  public RetryPolicy getRetryPolicy() {
+    return retryPolicy;
+  }
+
+  public ConcurrencyLimitSettings getConcurrencyLimitSettings() {
+    return concurrencyLimitSettings;
+  }
+
+  /**
+   * Interval between two writes of the HTTP client metrics to the storage path, zero when disabled
+   */
+  public Duration getHttpMetricsFileInterval() {
+    return httpMetricsFileInterval;
+  }
+
+  /**
+   * Local port serving the HTTP client metrics, 0 when disabled
+   */
+  public int getHttpMetricsPort() {
+    return httpMetricsPort;
+  }
+
+  /**
+   * Maximum size of the cached responses, 0 when caching is disabled
+   */
+  public int getResponseCacheMaxBytes() {
+    return responseCacheMaxBytes;
+  }
+
+  public boolean isRequestCoalescing() {
+    return isRequestCoalescing;
+  }
+
+  /**
+   * Whether the Web API responses are requested in protobuf when the endpoint supports it, JSON otherwise
+   */
+  public boolean isProtobufResponses() {
+    return isProtobufResponses;
+  }
+
+  public boolean isStreamPartialResults() {
+    return isStreamPartialResults;
+  }
+
+  public int getMaxPluginSizeBytes() {
+    return maxPluginSizeBytes;
+  }
+
+  public int getMaxLogsBytes() {
+    return maxLogsBytes;
+  }
+
+  public boolean isHttpTransport() {
+    return isHttpTransport;
+  }
+
+  public String getHttpHost() {
+    return httpHost;
+  }
+
+  public int getHttpPort() {
+    return httpPort;
+  }
+
+  public boolean isHttpAllowAnonymous() {
+    return isHttpAllowAnonymous;
+  }
+
   @CheckForNull
   private static String getValueViaEnvOrPropertyOrDefault(Map<String, String> environment, String propertyName, @Nullable String defaultValue) {
     var value = environment.get(propertyName);
@@ -149,6 +408,81 @@ public class McpServerLaunchConfiguration {
     return implementationVersion;
   }
 
+  private static int parsePositiveIntValue(Map<String, String> environment, String propertyName, int defaultValue) {
+    var valueStr = getValueViaEnvOrPropertyOrDefault(environment, propertyName, null);
+    if (valueStr == null) {
+      return defaultValue;
+    }
+    try {
+      var value = Integer.parseInt(valueStr.trim());
+      if (value <= 0) {
+        throw new IllegalArgumentException(propertyName + " value must be greater than 0, got: " + value);
+      }
+      return value;
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid " + propertyName + " value: " + valueStr, e);
+    }
+  }
+
+  private static int parseNonNegativeIntValue(Map<String, String> environment, String propertyName, int defaultValue) {
+    var valueStr = getValueViaEnvOrPropertyOrDefault(environment, propertyName, null);
+    if (valueStr == null) {
+      return defaultValue;
+    }
+    try {
+      var value = Integer.parseInt(valueStr.trim());
+      if (value < 0) {
+        throw new IllegalArgumentException(propertyName + " value must not be negative, got: " + value);
+      }
+      return value;
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid " + propertyName + " value: " + valueStr, e);
+    }
+  }
+
+  private static Set<String> parseEndpointsValue(@Nullable String endpoints) {
+    if (endpoints == null) {
+      return CompressionSettings.DEFAULT_ENDPOINTS;
+    }
+    return Arrays.stream(endpoints.split(","))
+      .map(String::trim)
+      .filter(endpoint -> !endpoint.isEmpty())
+      .map(endpoint -> endpoint.startsWith("/") ? endpoint : ("/" + endpoint))
+      .collect(Collectors.toSet());
+  }
+
+  private static QueueOverflowPolicy parseQueueOverflowPolicyValue(@Nullable String policy) {
+    for (var value : QueueOverflowPolicy.values()) {
+      if (value.name().equalsIgnoreCase(policy)) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Invalid SONARQUBE_QUEUE_OVERFLOW_POLICY value: " + policy + ", expected 'block' or 'fail'");
+  }
+
+  private static HttpVersionPolicy parseHttpVersionValue(@Nullable String version) {
+    if ("http1".equalsIgnoreCase(version)) {
+      return HttpVersionPolicy.FORCE_HTTP_1;
+    }
+    if ("negotiate".equalsIgnoreCase(version)) {
+      return HttpVersionPolicy.NEGOTIATE;
+    }
+    if ("http2".equalsIgnoreCase(version)) {
+      return HttpVersionPolicy.FORCE_HTTP_2;
+    }
+    throw new IllegalArgumentException("Invalid SONARQUBE_HTTP_VERSION value: " + version + ", expected 'http1', 'negotiate' or 'http2'");
+  }
+
+  private static boolean parseTransportValue(@Nullable String transport) {
+    if (STDIO_TRANSPORT.equalsIgnoreCase(transport)) {
+      return false;
+    }
+    if (HTTP_TRANSPORT.equalsIgnoreCase(transport)) {
+      return true;
+    }
+    throw new IllegalArgumentException("Invalid SONARQUBE_TRANSPORT value: " + transport + ", expected 'stdio' or 'http'");
+  }
+
   @CheckForNull
   private static Integer parsePortValue(@Nullable String portStr) {
     if (isNullOrBlank(portStr)) {
@@ -0,0 +1,368 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Limits the number of concurrent requests sent to each endpoint family (e.g. "/api/issues") of each server, so that many tool calls fanning
+ * out don't overload a single server node. The limit adapts to the latencies observed, in the spirit of TCP congestion control:
+ * <ul>
+ *   <li>it grows while the latency stays close to the usual latency of the endpoint family, as long as the limit is actually reached</li>
+ *   <li>it shrinks proportionally as the latency grows over twice the usual latency, before the server starts timing out</li>
+ *   <li>it shrinks by 10% each time the server answers 429, 503 or 504, or a request fails with an I/O error</li>
+ * </ul>
+ * Requests over the limit wait in a FIFO queue, and fail with a {@link RequestQueueTimeoutException} if they wait for too long.
+ * The limit and the queueing delays of each endpoint family are exposed through JMX.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+  private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+  private static final String JMX_DOMAIN = "org.sonarsource.sonarqube.mcp";
+  private static final AtomicInteger INSTANCE_COUNTER = new AtomicInteger();
+  private static final Set<Integer> OVERLOADED_STATUSES = Set.of(429, 503, 504);
+  private static final double LATENCY_TOLERANCE = 2;
+  private static final double MIN_GRADIENT = 0.5;
+  private static final double BACKOFF_RATIO = 0.9;
+  private static final double LONG_LATENCY_WINDOW = 100;
+  private static final double SMOOTHING = 0.2;
+  /**
+   * Times out the queued requests, the timeout of a request is cancelled as soon as it leaves the queue so that it is not retained
+   */
+  private static final ScheduledThreadPoolExecutor QUEUE_TIMEOUTS = createQueueTimeoutScheduler();
+
+  private final ConcurrencyLimitSettings settings;
+  private final Map<String, Limit> limits = new ConcurrentHashMap<>();
+  private final int instanceId = INSTANCE_COUNTER.incrementAndGet();
+
+  public AdaptiveConcurrencyLimiter(ConcurrencyLimitSettings settings) {
+    this.settings = settings;
+  }
+
+  /**
+   * @param request Sends the request, once the limit allows it
+   */
+  public CompletableFuture<HttpClient.Response> execute(String url, Supplier<CompletableFuture<HttpClient.Response>> request) {
+    if (!settings.isEnabled()) {
+      return request.get();
+    }
+    var limit = limits.computeIfAbsent(limitKey(url), Limit::new);
+    var call = new LimitedCall(limit, url, request);
+    limit.acquire(call);
+    return call;
+  }
+
+  @CheckForNull
+  ConcurrencyLimitMXBean getLimit(String url) {
+    return limits.get(limitKey(url));
+  }
+
+  public void close() {
+    limits.values().forEach(Limit::unregisterMBean);
+  }
+
+  private static ScheduledThreadPoolExecutor createQueueTimeoutScheduler() {
+    var scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+      var thread = new Thread(runnable, "sonarqube-mcp-request-queue-timeouts");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.setRemoveOnCancelPolicy(true);
+    return scheduler;
+  }
+
+  static int scheduledQueueTimeouts() {
+    return QUEUE_TIMEOUTS.getQueue().size();
+  }
+
+  /**
+   * The server, and the first segment of the path after "/api" (or the first segment when there is no "/api"), so that a server with a
+   * context path is handled too.
+   */
+  static String limitKey(String url) {
+    URI uri;
+    try {
+      uri = URI.create(url);
+    } catch (IllegalArgumentException e) {
+      return url;
+    }
+    var path = uri.getPath() == null ? "" : uri.getPath();
+    var apiIndex = path.indexOf("/api/");
+    var familyStart = apiIndex >= 0 ? (apiIndex + "/api".length()) : 0;
+    var familyEnd = path.indexOf('/', familyStart + 1);
+    var family = path.substring(apiIndex >= 0 ? apiIndex : 0, familyEnd < 0 ? path.length() : familyEnd);
+    return uri.getScheme() + "://" + uri.getRawAuthority() + family;
+  }
+
+  private class Limit implements ConcurrencyLimitMXBean {
+    private final String key;
+    private final Deque<LimitedCall> queue = new ArrayDeque<>();
+    private double limit = settings.initialLimit();
+    private int inFlight;
+    private double longLatencyNanos;
+    private final LongAdder queuedRequests = new LongAdder();
+    private final LongAdder rejectedRequests = new LongAdder();
+    private final LongAdder totalQueueingDelayNanos = new LongAdder();
+    private final AtomicLong maxQueueingDelayNanos = new AtomicLong();
+    private volatile long lastQueueingDelayNanos;
+    @Nullable
+    private volatile ObjectName objectName;
+
+    private Limit(String key) {
+      this.key = key;
+      registerMBean();
+    }
+
+    private void acquire(LimitedCall call) {
+      synchronized (this) {
+        if (inFlight >= (int) limit || !queue.isEmpty()) {
+          queue.add(call);
+          queuedRequests.increment();
+          // the call completes on the common pool, not on the scheduler thread
+          call.queueTimeout = QUEUE_TIMEOUTS.schedule(() -> ForkJoinPool.commonPool().execute(() -> timeOut(call)),
+            settings.maxQueueingDelay().toMillis(), TimeUnit.MILLISECONDS);
+          return;
+        }
+        call.inFlightWhenSent = ++inFlight;
+      }
+      call.send();
+    }
+
+    private void timeOut(LimitedCall call) {
+      if (remove(call)) {
+        rejectedRequests.increment();
+        call.completeExceptionally(new RequestQueueTimeoutException(call.url, settings.maxQueueingDelay()));
+      }
+    }
+
+    private synchronized boolean remove(LimitedCall call) {
+      if (queue.remove(call)) {
+        call.cancelQueueTimeout();
+        return true;
+      }
+      return false;
+    }
+
+    /**
+     * @param latencyNanos Negative when the request did not complete normally, e.g. it was cancelled
+     */
+    private void release(long latencyNanos, boolean isOverloaded, int inFlightWhenSent) {
+      var calls = new ArrayList<LimitedCall>();
+      synchronized (this) {
+        inFlight--;
+        if (isOverloaded) {
+          limit = Math.max(settings.minLimit(), limit * BACKOFF_RATIO);
+        } else if (latencyNanos >= 0) {
+          adjust(latencyNanos, inFlightWhenSent);
+        }
+        while (inFlight < (int) limit && !queue.isEmpty()) {
+          var call = queue.poll();
+          call.cancelQueueTimeout();
+          call.inFlightWhenSent = ++inFlight;
+          calls.add(call);
+        }
+      }
+      calls.forEach(LimitedCall::send);
+    }
+
+    private void adjust(long latencyNanos, int inFlightWhenSent) {
+      var latency = Math.max(latencyNanos, 1);
+      longLatencyNanos = longLatencyNanos == 0 ? latency : (longLatencyNanos + (latency - longLatencyNanos) / LONG_LATENCY_WINDOW);
+      if (longLatencyNanos / latency > 2) {
+        // latencies are back to normal after a slow period, forget it faster
+        longLatencyNanos *= 0.95;
+      }
+      if (inFlightWhenSent < limit / 2) {
+        // the limit is not what bounds the throughput, there is nothing to learn
+        return;
+      }
+      var gradient = Math.clamp(LATENCY_TOLERANCE * longLatencyNanos / latency, MIN_GRADIENT, 1);
+      var newLimit = limit * gradient + Math.sqrt(limit);
+      limit = Math.clamp(limit * (1 - SMOOTHING) + newLimit * SMOOTHING, settings.minLimit(), settings.maxLimit());
+    }
+
+    private void recordQueueingDelay(long delayNanos) {
+      lastQueueingDelayNanos = delayNanos;
+      totalQueueingDelayNanos.add(delayNanos);
+      maxQueueingDelayNanos.accumulateAndGet(delayNanos, Math::max);
+    }
+
+    @Override
+    public synchronized int getLimit() {
+      return (int) limit;
+    }
+
+    @Override
+    public synchronized int getInFlight() {
+      return inFlight;
+    }
+
+    @Override
+    public synchronized int getQueued() {
+      return queue.size();
+    }
+
+    @Override
+    public long getQueuedRequests() {
+      return queuedRequests.sum();
+    }
+
+    @Override
+    public long getRejectedRequests() {
+      return rejectedRequests.sum();
+    }
+
+    @Override
+    public long getTotalQueueingDelayMillis() {
+      return TimeUnit.NANOSECONDS.toMillis(totalQueueingDelayNanos.sum());
+    }
+
+    @Override
+    public long getMaxQueueingDelayMillis() {
+      return TimeUnit.NANOSECONDS.toMillis(maxQueueingDelayNanos.get());
+    }
+
+    @Override
+    public long getLastQueueingDelayMillis() {
+      return TimeUnit.NANOSECONDS.toMillis(lastQueueingDelayNanos);
+    }
+
+    private void registerMBean() {
+      try {
+        var properties = new Hashtable<String, String>();
+        properties.put("type", "ConcurrencyLimit");
+        properties.put("name", ObjectName.quote(key));
+        properties.put("id", String.valueOf(instanceId));
+        var newObjectName = new ObjectName(JMX_DOMAIN, properties);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, newObjectName);
+        objectName = newObjectName;
+      } catch (JMException e) {
+        logger.debug("Unable to register the concurrency limit metrics of {}", key, e);
+      }
+    }
+
+    private void unregisterMBean() {
+      var registeredObjectName = objectName;
+      if (registeredObjectName != null) {
+        objectName = null;
+        try {
+          ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredObjectName);
+        } catch (JMException e) {
+          logger.debug("Unable to unregister the concurrency limit metrics of {}", key, e);
+        }
+      }
+    }
+  }
+
+  private static class LimitedCall extends CompletableFuture<HttpClient.Response> {
+    private final Limit limit;
+    private final String url;
+    private final Supplier<CompletableFuture<HttpClient.Response>> request;
+    private final long createdAt = System.nanoTime();
+    private volatile CompletableFuture<HttpClient.Response> sent;
+    // both written while holding the lock of the limit, before the call leaves the queue
+    @Nullable
+    private ScheduledFuture<?> queueTimeout;
+    private int inFlightWhenSent;
+
+    private LimitedCall(Limit limit, String url, Supplier<CompletableFuture<HttpClient.Response>> request) {
+      this.limit = limit;
+      this.url = url;
+      this.request = request;
+    }
+
+    private void cancelQueueTimeout() {
+      if (queueTimeout != null) {
+        queueTimeout.cancel(false);
+        queueTimeout = null;
+      }
+    }
+
+    private void send() {
+      var inFlightWhenSent = this.inFlightWhenSent;
+      var sentAt = System.nanoTime();
+      limit.recordQueueingDelay(sentAt - createdAt);
+      if (isDone()) {
+        // cancelled while queued
+        limit.release(-1, false, inFlightWhenSent);
+        return;
+      }
+      try {
+        sent = request.get();
+      } catch (RuntimeException e) {
+        limit.release(-1, false, inFlightWhenSent);
+        completeExceptionally(e);
+        return;
+      }
+      sent.whenComplete((response, error) -> {
+        var cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        var isOverloaded = cause instanceof IOException || (response != null && OVERLOADED_STATUSES.contains(response.code()));
+        limit.release(error == null ? (System.nanoTime() - sentAt) : -1, isOverloaded, inFlightWhenSent);
+        if (error != null) {
+          completeExceptionally(error);
+        } else if (!complete(response)) {
+          response.close();
+        }
+      });
+      if (isCancelled()) {
+        sent.cancel(true);
+      }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      var cancelled = super.cancel(mayInterruptIfRunning);
+      limit.remove(this);
+      var sentRequest = sent;
+      if (sentRequest != null) {
+        sentRequest.cancel(mayInterruptIfRunning);
+      }
+      return cancelled;
+    }
+
+    @Override
+    public <U> CompletableFuture<U> newIncompleteFuture() {
+      return new CancellationPropagatingFuture<>(this);
+    }
+  }
+
+}
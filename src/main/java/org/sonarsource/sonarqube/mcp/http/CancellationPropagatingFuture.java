@@ -0,0 +1,45 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * Stage created by chaining on a response future (e.g. when parsing the body), cancelling it also aborts the underlying request.
+ */
+public class CancellationPropagatingFuture<T> extends CompletableFuture<T> {
+
+  private final Future<?> source;
+
+  public CancellationPropagatingFuture(Future<?> source) {
+    this.source = source;
+  }
+
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    var cancelled = super.cancel(mayInterruptIfRunning);
+    source.cancel(mayInterruptIfRunning);
+    return cancelled;
+  }
+
+  @Override
+  public <U> CompletableFuture<U> newIncompleteFuture() {
+    return new CancellationPropagatingFuture<>(this);
+  }
+
+}
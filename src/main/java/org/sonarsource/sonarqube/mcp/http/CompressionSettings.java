@@ -0,0 +1,56 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.net.URI;
+import java.util.Set;
+
+/**
+ * Which requests negotiate a compressed response body (gzip or deflate), decompressed as it is received.
+ * Compression is only worth it for the endpoints returning large and highly compressible text, it is a waste of CPU for small responses.
+ * @param endpoints Paths of the endpoints to compress the response of, relative to the server URL (e.g. "/api/issues/search")
+ */
+public record CompressionSettings(boolean isEnabled, Set<String> endpoints) {
+
+  public static final Set<String> DEFAULT_ENDPOINTS = Set.of(
+    "/api/issues/search",
+    "/api/rules/search",
+    "/api/system/info",
+    "/api/sources/raw");
+
+  public static final CompressionSettings DEFAULT = new CompressionSettings(true, DEFAULT_ENDPOINTS);
+  public static final CompressionSettings DISABLED = new CompressionSettings(false, Set.of());
+
+  public CompressionSettings {
+    endpoints = Set.copyOf(endpoints);
+  }
+
+  boolean isEnabledFor(String url) {
+    if (!isEnabled) {
+      return false;
+    }
+    String path;
+    try {
+      path = URI.create(url).getPath();
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+    // the server URL can have a context path
+    return path != null && endpoints.stream().anyMatch(path::endsWith);
+  }
+
+}
@@ -0,0 +1,40 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+/**
+ * Metrics of the adaptive concurrency limit of an endpoint family of a server, exposed through JMX.
+ */
+public interface ConcurrencyLimitMXBean {
+
+  int getLimit();
+
+  int getInFlight();
+
+  int getQueued();
+
+  long getQueuedRequests();
+
+  long getRejectedRequests();
+
+  long getTotalQueueingDelayMillis();
+
+  long getMaxQueueingDelayMillis();
+
+  long getLastQueueingDelayMillis();
+
+}
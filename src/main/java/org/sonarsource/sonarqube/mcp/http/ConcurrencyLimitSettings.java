@@ -0,0 +1,41 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.time.Duration;
+
+/**
+ * Bounds of the adaptive concurrency limit applied to the requests sent to each endpoint family of each server.
+ * @param initialLimit Number of concurrent requests allowed until latencies are measured
+ * @param minLimit The limit never goes below this, even when the server is overloaded
+ * @param maxLimit The limit never goes above this, even when the server is healthy
+ * @param maxQueueingDelay Requests waiting longer than this for the limit to allow them fail without being sent
+ */
+public record ConcurrencyLimitSettings(boolean isEnabled, int initialLimit, int minLimit, int maxLimit, Duration maxQueueingDelay) {
+
+  public static final int DEFAULT_INITIAL_LIMIT = 8;
+  public static final int DEFAULT_MIN_LIMIT = 1;
+  public static final int DEFAULT_MAX_LIMIT = 64;
+  public static final Duration DEFAULT_MAX_QUEUEING_DELAY = Duration.ofSeconds(30);
+
+  public static final ConcurrencyLimitSettings DEFAULT = new ConcurrencyLimitSettings(true, DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT,
+    DEFAULT_MAX_QUEUEING_DELAY);
+
+  public static final ConcurrencyLimitSettings DISABLED = new ConcurrencyLimitSettings(false, DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT,
+    DEFAULT_MAX_QUEUEING_DELAY);
+
+}
@@ -0,0 +1,40 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.time.Duration;
+
+/**
+ * Limits and keep-alive settings of the connection pool shared by all the HTTP clients.
+ * @param maxTotal Maximum number of connections, all routes included
+ * @param maxPerRoute Maximum number of connections to a single host, it should not be lower than the number of concurrent tool calls
+ * @param timeToLive Connections older than this are closed instead of being reused, so that DNS changes are eventually picked up
+ * @param idleEvictionInterval Connections idle for longer than this are closed by a background evictor, before the server drops them
+ * @param validateAfterInactivity Connections idle for longer than this are checked before being reused
+ */
+public record ConnectionPoolSettings(int maxTotal, int maxPerRoute, Duration timeToLive, Duration idleEvictionInterval, Duration validateAfterInactivity) {
+
+  public static final int DEFAULT_MAX_TOTAL = 64;
+  public static final int DEFAULT_MAX_PER_ROUTE = 16;
+  public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(5);
+  public static final Duration DEFAULT_IDLE_EVICTION_INTERVAL = Duration.ofSeconds(30);
+  public static final Duration DEFAULT_VALIDATE_AFTER_INACTIVITY = Duration.ofSeconds(2);
+
+  public static final ConnectionPoolSettings DEFAULT = new ConnectionPoolSettings(DEFAULT_MAX_TOTAL, DEFAULT_MAX_PER_ROUTE, DEFAULT_TIME_TO_LIVE,
+    DEFAULT_IDLE_EVICTION_INTERVAL, DEFAULT_VALIDATE_AFTER_INACTIVITY);
+
+}
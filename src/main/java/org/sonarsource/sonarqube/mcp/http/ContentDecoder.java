@@ -0,0 +1,228 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * Decodes a gzip or deflate encoded response body chunk by chunk, as it is received, so that the compressed body is never buffered whole.
+ * The "deflate" encoding is zlib-wrapped as per RFC 9110, but raw deflate streams sent by some servers are accepted too.
+ */
+class ContentDecoder {
+
+  static final String SUPPORTED_ENCODINGS = "gzip, deflate";
+
+  private static final int OUTPUT_BUFFER_SIZE = 16 * 1024;
+  private static final int GZIP_MIN_HEADER_SIZE = 10;
+  private static final int GZIP_TRAILER_SIZE = 8;
+  private static final int GZIP_FLAG_HEADER_CRC = 2;
+  private static final int GZIP_FLAG_EXTRA = 4;
+  private static final int GZIP_FLAG_NAME = 8;
+  private static final int GZIP_FLAG_COMMENT = 16;
+
+  interface Sink {
+    void write(ByteBuffer decoded) throws IOException;
+  }
+
+  private final boolean isGzip;
+  private final byte[] output = new byte[OUTPUT_BUFFER_SIZE];
+  private final CRC32 crc = new CRC32();
+  private final byte[] trailer = new byte[GZIP_TRAILER_SIZE];
+  private int trailerLength;
+  // bytes received before the header could be parsed
+  private byte[] pending = new byte[GZIP_MIN_HEADER_SIZE];
+  private int pendingLength;
+  @Nullable
+  private Inflater inflater;
+
+  private ContentDecoder(boolean isGzip) {
+    this.isGzip = isGzip;
+  }
+
+  /**
+   * Returns null when the body is not encoded, or with an encoding that is not supported.
+   */
+  @CheckForNull
+  static ContentDecoder forEncoding(@Nullable String contentEncoding) {
+    if (contentEncoding == null) {
+      return null;
+    }
+    return switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+      case "gzip", "x-gzip" -> new ContentDecoder(true);
+      case "deflate" -> new ContentDecoder(false);
+      default -> null;
+    };
+  }
+
+  void decode(ByteBuffer src, Sink sink) throws IOException {
+    if (inflater != null) {
+      inflate(src, sink);
+      return;
+    }
+    appendPending(src);
+    var headerLength = isGzip ? gzipHeaderLength() : deflateHeaderLength();
+    if (headerLength >= 0) {
+      inflater = new Inflater(isGzip || !isZlibWrapped());
+      var remaining = ByteBuffer.wrap(pending, headerLength, pendingLength - headerLength);
+      pending = null;
+      inflate(remaining, sink);
+    }
+  }
+
+  /**
+   * Checks that the whole encoded body was received.
+   */
+  void finish() throws IOException {
+    if (inflater == null) {
+      if (pendingLength > 0) {
+        throw new EOFException("Unexpected end of the compressed response body");
+      }
+      return;
+    }
+    if (!inflater.finished() || (isGzip && trailerLength < GZIP_TRAILER_SIZE)) {
+      throw new EOFException("Unexpected end of the compressed response body");
+    }
+    if (isGzip && (readInt(trailer, 0) != crc.getValue() || readInt(trailer, 4) != (inflater.getBytesWritten() & 0xffffffffL))) {
+      throw new ZipException("Corrupted compressed response body");
+    }
+  }
+
+  void release() {
+    if (inflater != null) {
+      inflater.end();
+    }
+  }
+
+  private void inflate(ByteBuffer input, Sink sink) throws IOException {
+    if (inflater.finished()) {
+      collectTrailer(input);
+      return;
+    }
+    inflater.setInput(input);
+    try {
+      while (true) {
+        var length = inflater.inflate(output);
+        if (length > 0) {
+          if (isGzip) {
+            crc.update(output, 0, length);
+          }
+          sink.write(ByteBuffer.wrap(output, 0, length));
+        }
+        if (inflater.finished()) {
+          collectTrailer(input);
+          return;
+        }
+        if (inflater.needsDictionary()) {
+          throw new ZipException("Compressed response bodies with a preset dictionary are not supported");
+        }
+        if (length == 0) {
+          return;
+        }
+      }
+    } catch (DataFormatException e) {
+      throw new ZipException("Invalid compressed response body: " + e.getMessage());
+    }
+  }
+
+  private void collectTrailer(ByteBuffer input) {
+    var length = Math.min(input.remaining(), GZIP_TRAILER_SIZE - trailerLength);
+    input.get(trailer, trailerLength, length);
+    trailerLength += length;
+    // anything after the trailer, like another gzip member, is ignored
+    input.position(input.limit());
+  }
+
+  private void appendPending(ByteBuffer src) {
+    if (pendingLength + src.remaining() > pending.length) {
+      pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingLength + src.remaining()));
+    }
+    var length = src.remaining();
+    src.get(pending, pendingLength, length);
+    pendingLength += length;
+  }
+
+  /**
+   * Returns the length of the gzip header (RFC 1952), or -1 if it was not fully received yet.
+   */
+  private int gzipHeaderLength() throws ZipException {
+    if (pendingLength < GZIP_MIN_HEADER_SIZE) {
+      return -1;
+    }
+    if ((pending[0] & 0xff) != 0x1f || (pending[1] & 0xff) != 0x8b) {
+      throw new ZipException("The response body is not in gzip format");
+    }
+    if (pending[2] != Deflater.DEFLATED) {
+      throw new ZipException("Unsupported gzip compression method: " + pending[2]);
+    }
+    var flags = pending[3] & 0xff;
+    var position = GZIP_MIN_HEADER_SIZE;
+    if ((flags & GZIP_FLAG_EXTRA) != 0) {
+      if (pendingLength < position + 2) {
+        return -1;
+      }
+      position += 2 + ((pending[position] & 0xff) | (pending[position + 1] & 0xff) << 8);
+    }
+    if ((flags & GZIP_FLAG_NAME) != 0) {
+      position = skipZeroTerminated(position);
+    }
+    if (position >= 0 && (flags & GZIP_FLAG_COMMENT) != 0) {
+      position = skipZeroTerminated(position);
+    }
+    if (position >= 0 && (flags & GZIP_FLAG_HEADER_CRC) != 0) {
+      position += 2;
+    }
+    return position <= pendingLength ? position : -1;
+  }
+
+  private int skipZeroTerminated(int position) {
+    for (var i = position; i < pendingLength; i++) {
+      if (pending[i] == 0) {
+        return i + 1;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * The zlib header is consumed by the inflater itself, only the first 2 bytes are needed to detect it.
+   */
+  private int deflateHeaderLength() {
+    return pendingLength < 2 ? -1 : 0;
+  }
+
+  private boolean isZlibWrapped() {
+    var cmf = pending[0] & 0xff;
+    var flg = pending[1] & 0xff;
+    return (cmf & 0x0f) == Deflater.DEFLATED && (cmf >> 4) <= 7 && ((cmf << 8) | flg) % 31 == 0;
+  }
+
+  private static long readInt(byte[] bytes, int offset) {
+    return (bytes[offset] & 0xffL) | (bytes[offset + 1] & 0xffL) << 8 | (bytes[offset + 2] & 0xffL) << 16 | (bytes[offset + 3] & 0xffL) << 24;
+  }
+
+}
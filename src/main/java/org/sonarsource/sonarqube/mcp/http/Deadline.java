@@ -0,0 +1,117 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Point in time by which a tool call must complete. The deadline of the call is bound to the thread executing it, and every HTTP request
+ * started from that thread is given the remaining time as timeouts, so that a server that hangs fails the call instead of blocking it.
+ * Asynchronous stages don't inherit it, they are cancelled with the call once the deadline is exceeded.
+ * The deadline also keeps the time the requests of the call spent waiting before being retried, so that the retry budget applies to the
+ * whole call.
+ */
+public final class Deadline {
+
+  /** No deadline, the calls wait as long as needed */
+  public static final Deadline NONE = new Deadline(Long.MAX_VALUE, null);
+
+  private static final ThreadLocal<Deadline> CURRENT = ThreadLocal.withInitial(() -> NONE);
+
+  private final long expiresAtNanos;
+  private final Duration timeout;
+  private final AtomicLong retryWaitNanos = new AtomicLong();
+
+  private Deadline(long expiresAtNanos, Duration timeout) {
+    this.expiresAtNanos = expiresAtNanos;
+    this.timeout = timeout;
+  }
+
+  public static Deadline after(Duration timeout) {
+    return new Deadline(System.nanoTime() + timeout.toNanos(), timeout);
+  }
+
+  /**
+   * Returns the deadline bound to the current thread, {@link #NONE} if there is none.
+   */
+  public static Deadline current() {
+    return CURRENT.get();
+  }
+
+  public boolean isBounded() {
+    return this != NONE;
+  }
+
+  /**
+   * The timeout the deadline was created with, e.g. for error messages.
+   */
+  public Duration timeout() {
+    return isBounded() ? timeout : Duration.ofNanos(Long.MAX_VALUE);
+  }
+
+  /**
+   * Time left before the deadline, zero once it is exceeded.
+   */
+  public Duration remaining() {
+    if (!isBounded()) {
+      return Duration.ofNanos(Long.MAX_VALUE);
+    }
+    return Duration.ofNanos(Math.max(0, expiresAtNanos - System.nanoTime()));
+  }
+
+  public boolean isExceeded() {
+    return isBounded() && System.nanoTime() - expiresAtNanos >= 0;
+  }
+
+  /**
+   * Reserves a wait before retrying one of the requests of the call, if it fits both in the retry budget, shared by all the requests of
+   * the call, and in the time left before the deadline. Calls without a deadline have no shared budget, it is up to the caller to keep
+   * track of the time waited.
+   */
+  public boolean tryReserveRetryWait(Duration wait, Duration retryBudget) {
+    if (!isBounded() || wait.compareTo(remaining()) >= 0) {
+      return false;
+    }
+    var waitNanos = wait.toNanos();
+    var budgetNanos = retryBudget.toNanos();
+    while (true) {
+      var waited = retryWaitNanos.get();
+      if (waited + waitNanos > budgetNanos) {
+        return false;
+      }
+      if (retryWaitNanos.compareAndSet(waited, waited + waitNanos)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Binds the deadline to the current thread while the action runs, e.g. to send a retry from a timer thread.
+   */
+  public <T> T callWith(Supplier<T> action) {
+    var previous = CURRENT.get();
+    CURRENT.set(this);
+    try {
+      return action.get();
+    } finally {
+      CURRENT.set(previous);
+    }
+  }
+
+}
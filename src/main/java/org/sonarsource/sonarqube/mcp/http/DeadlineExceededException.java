@@ -0,0 +1,31 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * The request did not complete before the deadline of the tool call that sent it, see {@link Deadline}.
+ */
+public class DeadlineExceededException extends IOException {
+
+  public DeadlineExceededException(String url, Duration timeout) {
+    super("Request to " + url + " did not complete within the " + timeout.toMillis() + " ms timeout of the call");
+  }
+
+}
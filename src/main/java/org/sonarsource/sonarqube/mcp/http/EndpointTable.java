@@ -0,0 +1,160 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import javax.annotation.CheckForNull;
+
+/**
+ * Values kept by endpoint, the path of a URL without its query and fragment, e.g. the metrics or the latencies of the requests sent to it.
+ * The value of an endpoint already seen is found by matching the path in place in the URL, so that looking it up does not allocate.
+ * Beyond the maximum number of endpoints, e.g. if some URLs embed identifiers in their path, the other endpoints share the value of
+ * {@value #OTHER_ENDPOINTS}.
+ */
+public final class EndpointTable<V> {
+
+  public static final String OTHER_ENDPOINTS = "other";
+
+  private static final String ROOT_PATH = "/";
+
+  private final int maxEndpoints;
+  private final Function<String, V> valueFactory;
+  /** Open addressing, replaced by a copy when an endpoint is added so that lookups don't lock */
+  private volatile Entry<V>[] entries;
+  private int size;
+
+  /**
+   * @param valueFactory Creates the value of an endpoint the first time it is seen, given its path or {@value #OTHER_ENDPOINTS}
+   */
+  public EndpointTable(int maxEndpoints, Function<String, V> valueFactory) {
+    this.maxEndpoints = maxEndpoints;
+    this.valueFactory = valueFactory;
+    // at most half full, the other endpoints included
+    this.entries = newEntries(Integer.highestOneBit(maxEndpoints + 1) * 4);
+  }
+
+  public V get(String url) {
+    var pathStart = pathStart(url);
+    if (pathStart < 0) {
+      return get(ROOT_PATH, 0, ROOT_PATH.length());
+    }
+    return get(url, pathStart, pathEnd(url, pathStart));
+  }
+
+  /**
+   * The values of the endpoints seen so far, in no particular order
+   */
+  public List<V> values() {
+    var values = new ArrayList<V>();
+    for (var entry : entries) {
+      if (entry != null) {
+        values.add(entry.value);
+      }
+    }
+    return values;
+  }
+
+  /**
+   * The path of the URL, without the query and the fragment
+   */
+  public static String template(String url) {
+    var pathStart = pathStart(url);
+    return pathStart < 0 ? ROOT_PATH : url.substring(pathStart, pathEnd(url, pathStart));
+  }
+
+  private V get(String text, int start, int end) {
+    var hash = hash(text, start, end);
+    var value = find(entries, text, start, end, hash);
+    return value != null ? value : add(text, start, end, hash);
+  }
+
+  private synchronized V add(String text, int start, int end, int hash) {
+    var value = find(entries, text, start, end, hash);
+    if (value != null) {
+      return value;
+    }
+    var template = text.substring(start, end);
+    if (size >= maxEndpoints) {
+      template = OTHER_ENDPOINTS;
+      hash = hash(template, 0, template.length());
+      value = find(entries, template, 0, template.length(), hash);
+      if (value != null) {
+        return value;
+      }
+    }
+    value = valueFactory.apply(template);
+    var copy = entries.clone();
+    var index = hash & (copy.length - 1);
+    while (copy[index] != null) {
+      index = (index + 1) & (copy.length - 1);
+    }
+    copy[index] = new Entry<>(template, hash, value);
+    if (!OTHER_ENDPOINTS.equals(template)) {
+      size++;
+    }
+    entries = copy;
+    return value;
+  }
+
+  @CheckForNull
+  private static <V> V find(Entry<V>[] entries, String text, int start, int end, int hash) {
+    var length = end - start;
+    var index = hash & (entries.length - 1);
+    Entry<V> entry;
+    while ((entry = entries[index]) != null) {
+      if (entry.hash == hash && entry.template.length() == length && entry.template.regionMatches(0, text, start, length)) {
+        return entry.value;
+      }
+      index = (index + 1) & (entries.length - 1);
+    }
+    return null;
+  }
+
+  private static int hash(String text, int start, int end) {
+    var hash = 0;
+    for (var i = start; i < end; i++) {
+      hash = 31 * hash + text.charAt(i);
+    }
+    return hash ^ (hash >>> 16);
+  }
+
+  private static int pathStart(String url) {
+    var schemeEnd = url.indexOf("://");
+    return url.indexOf('/', schemeEnd < 0 ? 0 : (schemeEnd + 3));
+  }
+
+  private static int pathEnd(String url, int pathStart) {
+    for (var i = pathStart; i < url.length(); i++) {
+      var c = url.charAt(i);
+      if (c == '?' || c == '#') {
+        return i;
+      }
+    }
+    return url.length();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <V> Entry<V>[] newEntries(int capacity) {
+    return (Entry<V>[]) new Entry<?>[capacity];
+  }
+
+  private record Entry<V>(String template, int hash, V value) {
+  }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram with fixed bucket bounds, so that recording a value never allocates nor locks: it only increments the counter of its bucket.
+ * Percentiles are approximated by the upper bound of the bucket they fall in.
+ */
+class Histogram {
+
+  private final long[] upperBounds;
+  // one more bucket for the values above the last bound
+  private final AtomicLongArray counts;
+  private final LongAdder sum = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * @param upperBounds Inclusive upper bounds of the buckets, in ascending order
+   */
+  Histogram(long... upperBounds) {
+    this.upperBounds = upperBounds.clone();
+    this.counts = new AtomicLongArray(upperBounds.length + 1);
+  }
+
+  void record(long value) {
+    var bucket = 0;
+    while (bucket < upperBounds.length && value > upperBounds[bucket]) {
+      bucket++;
+    }
+    counts.incrementAndGet(bucket);
+    sum.add(value);
+    max.accumulateAndGet(value, Math::max);
+  }
+
+  long[] upperBounds() {
+    return upperBounds.clone();
+  }
+
+  /**
+   * Number of values recorded in each bucket, the last one holding the values above the last bound.
+   */
+  long[] bucketCounts() {
+    var snapshot = new long[counts.length()];
+    for (var i = 0; i < snapshot.length; i++) {
+      snapshot[i] = counts.get(i);
+    }
+    return snapshot;
+  }
+
+  long count() {
+    var count = 0L;
+    for (var i = 0; i < counts.length(); i++) {
+      count += counts.get(i);
+    }
+    return count;
+  }
+
+  long sum() {
+    return sum.sum();
+  }
+
+  long max() {
+    return max.get();
+  }
+
+  long mean() {
+    var count = count();
+    return count == 0 ? 0 : (sum() / count);
+  }
+
+  /**
+   * @param quantile Between 0 and 1, e.g. 0.95 for the 95th percentile
+   * @return the upper bound of the bucket holding the percentile, or the maximum value if it is above all the bounds
+   */
+  long percentile(double quantile) {
+    var bucketCounts = bucketCounts();
+    var count = 0L;
+    for (var bucketCount : bucketCounts) {
+      count += bucketCount;
+    }
+    if (count == 0) {
+      return 0;
+    }
+    var rank = Math.max(1, (long) Math.ceil(quantile * count));
+    var seen = 0L;
+    for (var i = 0; i < upperBounds.length; i++) {
+      seen += bucketCounts[i];
+      if (seen >= rank) {
+        return Math.min(upperBounds[i], max());
+      }
+    }
+    return max();
+  }
+
+}
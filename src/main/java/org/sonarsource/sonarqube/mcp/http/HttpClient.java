@@ -17,7 +17,10 @@
 package org.sonarsource.sonarqube.mcp.http;
 
 import java.io.Closeable;
+import java.nio.file.Path;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import javax.annotation.CheckForNull;
 
 public interface HttpClient {
 
@@ -35,6 +38,12 @@ public interface HttpClient {
 
     java.io.InputStream bodyAsStream();
 
+    /**
+     * Returns the first value of the response header, or null if it is absent.
+     */
+    @CheckForNull
+    String header(String name);
+
     /**
      * Only runtime exception
      */
@@ -42,10 +51,35 @@ public interface HttpClient {
     void close();
 
     String url();
+
+    /**
+     * Whether the beginning of the body was dropped to keep it under the maximum size, see {@link #getTailAsync(String, long)}.
+     */
+    default boolean isTruncated() {
+      return false;
+    }
   }
 
   CompletableFuture<Response> getAsync(String url);
 
+  /**
+   * Same as {@link #getAsync(String)} with additional request headers, e.g. for conditional requests.
+   */
+  CompletableFuture<Response> getAsync(String url, Map<String, String> headers);
+
+  /**
+   * Writes the body of a successful response to the destination file as it arrives, instead of buffering it in memory.
+   * The body of other responses is kept in memory for error messages.
+   * Fails with a {@link ResponseTooLargeException} as soon as the body is known to be bigger than the maximum size, either from its
+   * Content-Length header or while it is received.
+   */
+  CompletableFuture<Response> getToFileAsync(String url, Path destination, long maxBodySize);
+
+  /**
+   * Only keeps the last bytes of the body in memory, up to the maximum size, e.g. for logs where the latest lines matter most.
+   */
+  CompletableFuture<Response> getTailAsync(String url, long maxBodySize);
+
   CompletableFuture<Response> getAsyncAnonymous(String url);
 
   CompletableFuture<Response> postAsync(String url, String contentType, String body);
@@ -17,32 +17,51 @@
 package org.sonarsource.sonarqube.mcp.http;
 
 import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 import javax.annotation.Nullable;
 import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
-import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
 import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
+import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
 import org.apache.hc.core5.concurrent.FutureCallback;
 import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.util.Timeout;
 
 class HttpClientAdapter implements HttpClient {
 
   private static final String ORIGIN_HEADER = "Origin";
   private static final String HOST = "http://localhost";
   private static final String AUTHORIZATION_HEADER = "Authorization";
+  private static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
   private final CloseableHttpAsyncClient apacheClient;
   private final String token;
+  private final CompressionSettings compressionSettings;
+  private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+  private final HttpClientMetrics metrics;
 
-  HttpClientAdapter(CloseableHttpAsyncClient apacheClient, String sonarqubeCloudToken) {
+  HttpClientAdapter(CloseableHttpAsyncClient apacheClient, String sonarqubeCloudToken, CompressionSettings compressionSettings,
+    AdaptiveConcurrencyLimiter concurrencyLimiter, HttpClientMetrics metrics) {
     this.apacheClient = apacheClient;
     this.token = sonarqubeCloudToken;
+    this.compressionSettings = compressionSettings;
+    this.concurrencyLimiter = concurrencyLimiter;
+    this.metrics = metrics;
   }
 
-  HttpClientAdapter(CloseableHttpAsyncClient apacheClient) {
+  HttpClientAdapter(CloseableHttpAsyncClient apacheClient, CompressionSettings compressionSettings, AdaptiveConcurrencyLimiter concurrencyLimiter,
+    HttpClientMetrics metrics) {
     this.apacheClient = apacheClient;
     this.token = null;
+    this.compressionSettings = compressionSettings;
+    this.concurrencyLimiter = concurrencyLimiter;
+    this.metrics = metrics;
   }
 
   @Override
@@ -56,40 +75,92 @@ class HttpClientAdapter implements HttpClient {
 
   @Override
   public CompletableFuture<Response> getAsync(String url) {
-    return executeAsync(SimpleRequestBuilder
-      .get(url)
-      .addHeader(ORIGIN_HEADER, HOST)
-      .build(), token);
+    return getAsync(url, Map.of());
+  }
+
+  @Override
+  public CompletableFuture<Response> getAsync(String url, Map<String, String> headers) {
+    return executeGetAsync(url, headers, token);
   }
 
   @Override
   public CompletableFuture<Response> getAsyncAnonymous(String url) {
-    return executeAsync(SimpleRequestBuilder
+    return executeGetAsync(url, Map.of(), null);
+  }
+
+  @Override
+  public CompletableFuture<Response> getToFileAsync(String url, Path destination, long maxBodySize) {
+    var request = buildGet(url, Map.of());
+    return executeAsync(request, token, StreamingResponseConsumer.toFile(requestUrl(request), destination, maxBodySize));
+  }
+
+  @Override
+  public CompletableFuture<Response> getTailAsync(String url, long maxBodySize) {
+    var request = buildGet(url, Map.of());
+    return executeAsync(request, token, StreamingResponseConsumer.toTail(requestUrl(request), maxBodySize));
+  }
+
+  /**
+   * The response of the endpoints with compression enabled is decoded as it arrives, other responses are buffered as is.
+   */
+  private CompletableFuture<Response> executeGetAsync(String url, Map<String, String> headers, @Nullable String tokenToUse) {
+    var request = buildGet(url, headers);
+    if (request.containsHeader(ACCEPT_ENCODING_HEADER)) {
+      return executeAsync(request, tokenToUse, StreamingResponseConsumer.toMemory(requestUrl(request)));
+    }
+    return executeAsync(request, tokenToUse);
+  }
+
+  private SimpleHttpRequest buildGet(String url, Map<String, String> headers) {
+    var requestBuilder = SimpleRequestBuilder
       .get(url)
-      .addHeader(ORIGIN_HEADER, HOST)
-      .build(), null);
+      .addHeader(ORIGIN_HEADER, HOST);
+    if (compressionSettings.isEnabledFor(url)) {
+      requestBuilder.addHeader(ACCEPT_ENCODING_HEADER, ContentDecoder.SUPPORTED_ENCODINGS);
+    }
+    headers.forEach(requestBuilder::addHeader);
+    return requestBuilder.build();
   }
 
+  /**
+   * Also records the latency, the size and the status of the response in the metrics of its endpoint. The latency starts once the request
+   * is actually sent, after any wait for the concurrency limit.
+   */
   private class CompletableFutureWrappingFuture extends CompletableFuture<Response> {
 
-    private final Future<SimpleHttpResponse> wrapped;
+    private final HttpClientMetrics.EndpointMetrics endpointMetrics;
+    private final long sentAt = System.nanoTime();
+    private final Future<?> wrapped;
 
     private CompletableFutureWrappingFuture(SimpleHttpRequest httpRequest) {
-      this.wrapped = apacheClient.execute(httpRequest, new FutureCallback<>() {
+      var url = requestUrl(httpRequest);
+      this.endpointMetrics = metrics.endpoint(url);
+      this.wrapped = apacheClient.execute(httpRequest, completingWith(result -> new HttpResponse(url, result),
+        result -> result.getBodyBytes() == null ? 0 : result.getBodyBytes().length));
+    }
+
+    private CompletableFutureWrappingFuture(SimpleHttpRequest httpRequest, StreamingResponseConsumer responseConsumer) {
+      this.endpointMetrics = metrics.endpoint(requestUrl(httpRequest));
+      this.wrapped = apacheClient.execute(SimpleRequestProducer.create(httpRequest), responseConsumer, completingWith(Function.identity(),
+        result -> responseConsumer.transferredBytes()));
+    }
+
+    private <T> FutureCallback<T> completingWith(Function<T, Response> toResponse, ToLongFunction<T> bodySize) {
+      return new FutureCallback<>() {
         @Override
-        public void completed(SimpleHttpResponse result) {
-          try {
-            var uri = httpRequest.getUri().toString();
-            HttpClientAdapter.CompletableFutureWrappingFuture.this.completeAsync(() ->
-              new HttpResponse(uri, result));
-          } catch (URISyntaxException e) {
-            HttpClientAdapter.CompletableFutureWrappingFuture.this.completeAsync(() ->
-              new HttpResponse(httpRequest.getRequestUri(), result));
-          }
+        public void completed(T result) {
+          var latencyNanos = System.nanoTime() - sentAt;
+          var size = bodySize.applyAsLong(result);
+          HttpClientAdapter.CompletableFutureWrappingFuture.this.completeAsync(() -> {
+            var response = toResponse.apply(result);
+            endpointMetrics.recordResponse(response.code(), size, latencyNanos);
+            return response;
+          });
         }
 
         @Override
         public void failed(Exception ex) {
+          endpointMetrics.recordFailure();
           HttpClientAdapter.CompletableFutureWrappingFuture.this.completeExceptionally(ex);
         }
 
@@ -97,7 +168,7 @@ class HttpClientAdapter implements HttpClient {
         public void cancelled() {
           HttpClientAdapter.CompletableFutureWrappingFuture.this.cancel();
         }
-      });
+      };
     }
 
     private void cancel() {
@@ -108,19 +179,71 @@ class HttpClientAdapter implements HttpClient {
     public boolean cancel(boolean mayInterruptIfRunning) {
       return wrapped.cancel(mayInterruptIfRunning);
     }
+
+    @Override
+    public <U> CompletableFuture<U> newIncompleteFuture() {
+      return new CancellationPropagatingFuture<>(this);
+    }
   }
 
   private CompletableFuture<Response> executeAsync(SimpleHttpRequest httpRequest, @Nullable String tokenToUse) {
+    return executeAsync(httpRequest, tokenToUse, null);
+  }
+
+  /**
+   * When the request is sent during a call with a deadline, the remaining time bounds the wait for a pooled connection and for the response,
+   * and the request is aborted if it is still running once the deadline is exceeded, wherever it stands (queued, connecting or receiving).
+   */
+  private CompletableFuture<Response> executeAsync(SimpleHttpRequest httpRequest, @Nullable String tokenToUse, @Nullable StreamingResponseConsumer responseConsumer) {
+    var deadline = Deadline.current();
+    var url = requestUrl(httpRequest);
+    if (deadline.isExceeded()) {
+      return CompletableFuture.failedFuture(new DeadlineExceededException(url, deadline.timeout()));
+    }
     try {
       if (tokenToUse != null) {
         httpRequest.setHeader(AUTHORIZATION_HEADER, bearer(tokenToUse));
       }
-      return new CompletableFutureWrappingFuture(httpRequest);
+      if (deadline.isBounded()) {
+        var remaining = Timeout.of(deadline.remaining());
+        httpRequest.setConfig(RequestConfig.custom()
+          .setConnectionRequestTimeout(remaining)
+          .setResponseTimeout(remaining)
+          .build());
+      }
+      var call = concurrencyLimiter.execute(url, () -> responseConsumer == null ? new CompletableFutureWrappingFuture(httpRequest) :
+        new CompletableFutureWrappingFuture(httpRequest, responseConsumer));
+      return deadline.isBounded() ? withDeadline(call, url, deadline) : call;
     } catch (Exception e) {
       throw new IllegalStateException("Unable to execute request: " + e.getMessage(), e);
     }
   }
 
+  private static CompletableFuture<Response> withDeadline(CompletableFuture<Response> call, String url, Deadline deadline) {
+    var boundedCall = new CancellationPropagatingFuture<Response>(call);
+    call.whenComplete((response, error) -> {
+      if (error != null) {
+        boundedCall.completeExceptionally(error);
+      } else if (!boundedCall.complete(response)) {
+        response.close();
+      }
+    });
+    CompletableFuture.delayedExecutor(deadline.remaining().toNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+      if (boundedCall.completeExceptionally(new DeadlineExceededException(url, deadline.timeout()))) {
+        call.cancel(true);
+      }
+    });
+    return boundedCall;
+  }
+
+  private static String requestUrl(SimpleHttpRequest httpRequest) {
+    try {
+      return httpRequest.getUri().toString();
+    } catch (URISyntaxException e) {
+      return httpRequest.getRequestUri();
+    }
+  }
+
   private static String bearer(String token) {
     return String.format("Bearer %s", token);
   }
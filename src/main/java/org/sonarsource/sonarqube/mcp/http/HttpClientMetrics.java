@@ -0,0 +1,355 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.apache.hc.core5.pool.ConnPoolStats;
+import org.apache.hc.core5.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Metrics of the requests sent by an HTTP client, to see where the time goes between the tools and the server:
+ * <ul>
+ *   <li>latency and response size histograms, and status code counters, for each endpoint (the path of the URL, without the query)</li>
+ *   <li>leased, available and pending connections of the pool</li>
+ *   <li>time to open a connection, TLS handshake included, and time of the TLS handshake alone</li>
+ * </ul>
+ * Recording only increments counters of preallocated histograms, it does not allocate nor lock. The metrics are exposed through JMX, and in
+ * the Prometheus text format by {@link #toPrometheusText()}.
+ */
+public final class HttpClientMetrics implements HttpConnectionMetricsMXBean {
+
+  private static final Logger logger = LoggerFactory.getLogger(HttpClientMetrics.class);
+  private static final String JMX_DOMAIN = "org.sonarsource.sonarqube.mcp";
+  private static final String METRIC_PREFIX = "sonarqube_mcp_http_";
+  private static final AtomicInteger INSTANCE_COUNTER = new AtomicInteger();
+  // beyond this, e.g. if some URLs embed identifiers in their path, endpoints are counted together
+  private static final int MAX_ENDPOINTS = 256;
+  private static final long[] DURATION_BOUNDS_NANOS = millisToNanos(5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000);
+  private static final long[] SIZE_BOUNDS_BYTES = {256, 1024, 4 * 1024, 16 * 1024, 64 * 1024, 256 * 1024, 1024 * 1024, 4 * 1024 * 1024,
+    16 * 1024 * 1024, 64 * 1024 * 1024};
+  private static final int MIN_STATUS = 100;
+  private static final int MAX_STATUS = 599;
+
+  private final EndpointTable<EndpointMetrics> endpoints = new EndpointTable<>(MAX_ENDPOINTS, EndpointMetrics::new);
+  private final Histogram connectDurations = new Histogram(DURATION_BOUNDS_NANOS);
+  private final Histogram tlsHandshakeDurations = new Histogram(DURATION_BOUNDS_NANOS);
+  private final int instanceId = INSTANCE_COUNTER.incrementAndGet();
+  @Nullable
+  private volatile ConnPoolStats<?> connectionPool;
+  @Nullable
+  private volatile ObjectName objectName;
+
+  public HttpClientMetrics() {
+    objectName = registerMBean(this, "HttpConnections", null);
+  }
+
+  void setConnectionPool(ConnPoolStats<?> connectionPool) {
+    this.connectionPool = connectionPool;
+  }
+
+  /**
+   * Returns the metrics of the endpoint of the URL, to record its response once received.
+   */
+  EndpointMetrics endpoint(String url) {
+    return endpoints.get(url);
+  }
+
+  void recordConnect(long durationNanos) {
+    connectDurations.record(durationNanos);
+  }
+
+  void recordTlsHandshake(long durationNanos) {
+    tlsHandshakeDurations.record(durationNanos);
+  }
+
+  public void close() {
+    unregisterMBean(objectName, "connections");
+    objectName = null;
+    endpoints.values().forEach(EndpointMetrics::unregisterMBean);
+  }
+
+  /**
+   * Writes all the metrics in the Prometheus text exposition format, durations in seconds and sizes in bytes.
+   */
+  public String toPrometheusText() {
+    var text = new StringBuilder();
+    var sortedEndpoints = endpoints.values().stream().sorted(Comparator.comparing(endpoint -> endpoint.template)).toList();
+
+    header(text, "request_duration_seconds", "histogram", "Time from sending the request to receiving the whole response, by endpoint");
+    sortedEndpoints.forEach(endpoint -> histogram(text, "request_duration_seconds", endpointLabel(endpoint), endpoint.latencies, true));
+    header(text, "response_size_bytes", "histogram", "Size of the response bodies as transferred, by endpoint");
+    sortedEndpoints.forEach(endpoint -> histogram(text, "response_size_bytes", endpointLabel(endpoint), endpoint.responseSizes, false));
+    header(text, "responses_total", "counter", "Number of responses, by endpoint and status code");
+    sortedEndpoints.forEach(endpoint -> endpoint.getStatusCounts().forEach((status, count) -> sample(text, "responses_total",
+      endpointLabel(endpoint) + ",code=\"" + status + "\"", count)));
+    header(text, "request_failures_total", "counter", "Number of requests that failed without a response, by endpoint");
+    sortedEndpoints.forEach(endpoint -> sample(text, "request_failures_total", endpointLabel(endpoint), endpoint.getFailures()));
+
+    header(text, "pool_connections", "gauge", "Connections of the pool, by state");
+    sample(text, "pool_connections", "state=\"leased\"", getLeasedConnections());
+    sample(text, "pool_connections", "state=\"available\"", getAvailableConnections());
+    header(text, "pool_pending_requests", "gauge", "Requests waiting for a connection of the pool");
+    sample(text, "pool_pending_requests", "", getPendingConnectionRequests());
+    header(text, "pool_max_connections", "gauge", "Maximum number of connections of the pool");
+    sample(text, "pool_max_connections", "", getMaxConnections());
+    header(text, "connect_duration_seconds", "histogram", "Time to open a connection, including the TLS handshake");
+    histogram(text, "connect_duration_seconds", "", connectDurations, true);
+    header(text, "tls_handshake_duration_seconds", "histogram", "Time of the TLS handshakes");
+    histogram(text, "tls_handshake_duration_seconds", "", tlsHandshakeDurations, true);
+    return text.toString();
+  }
+
+  private static void header(StringBuilder text, String name, String type, String help) {
+    text.append("# HELP ").append(METRIC_PREFIX).append(name).append(' ').append(help).append('\n');
+    text.append("# TYPE ").append(METRIC_PREFIX).append(name).append(' ').append(type).append('\n');
+  }
+
+  private static void sample(StringBuilder text, String name, String labels, long value) {
+    text.append(METRIC_PREFIX).append(name);
+    if (!labels.isEmpty()) {
+      text.append('{').append(labels).append('}');
+    }
+    text.append(' ').append(value).append('\n');
+  }
+
+  private static void histogram(StringBuilder text, String name, String labels, Histogram histogram, boolean isDuration) {
+    var labelsPrefix = labels.isEmpty() ? "" : (labels + ",");
+    var upperBounds = histogram.upperBounds();
+    var bucketCounts = histogram.bucketCounts();
+    var cumulativeCount = 0L;
+    for (var i = 0; i < bucketCounts.length; i++) {
+      cumulativeCount += bucketCounts[i];
+      var bound = i < upperBounds.length ? formatValue(upperBounds[i], isDuration) : "+Inf";
+      text.append(METRIC_PREFIX).append(name).append("_bucket{").append(labelsPrefix).append("le=\"").append(bound).append("\"} ")
+        .append(cumulativeCount).append('\n');
+    }
+    text.append(METRIC_PREFIX).append(name).append("_sum");
+    if (!labels.isEmpty()) {
+      text.append('{').append(labels).append('}');
+    }
+    text.append(' ').append(formatValue(histogram.sum(), isDuration)).append('\n');
+    // the count of the +Inf bucket, so that the snapshot stays consistent with concurrent recordings
+    sample(text, name + "_count", labels, cumulativeCount);
+  }
+
+  private static String formatValue(long value, boolean isDuration) {
+    return isDuration ? String.format(Locale.ROOT, "%.3f", value / 1e9) : String.valueOf(value);
+  }
+
+  private static String endpointLabel(EndpointMetrics endpoint) {
+    return "endpoint=\"" + endpoint.template.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+  }
+
+  private PoolStats poolStats() {
+    var pool = connectionPool;
+    return pool == null ? new PoolStats(0, 0, 0, 0) : pool.getTotalStats();
+  }
+
+  @Override
+  public int getLeasedConnections() {
+    return poolStats().getLeased();
+  }
+
+  @Override
+  public int getAvailableConnections() {
+    return poolStats().getAvailable();
+  }
+
+  @Override
+  public int getPendingConnectionRequests() {
+    return poolStats().getPending();
+  }
+
+  @Override
+  public int getMaxConnections() {
+    return poolStats().getMax();
+  }
+
+  @Override
+  public long getConnects() {
+    return connectDurations.count();
+  }
+
+  @Override
+  public long getMeanConnectMillis() {
+    return toMillis(connectDurations.mean());
+  }
+
+  @Override
+  public long getMaxConnectMillis() {
+    return toMillis(connectDurations.max());
+  }
+
+  @Override
+  public long getTlsHandshakes() {
+    return tlsHandshakeDurations.count();
+  }
+
+  @Override
+  public long getMeanTlsHandshakeMillis() {
+    return toMillis(tlsHandshakeDurations.mean());
+  }
+
+  @Override
+  public long getMaxTlsHandshakeMillis() {
+    return toMillis(tlsHandshakeDurations.max());
+  }
+
+  private static long toMillis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+
+  private static long[] millisToNanos(long... millis) {
+    var nanos = new long[millis.length];
+    for (var i = 0; i < millis.length; i++) {
+      nanos[i] = TimeUnit.MILLISECONDS.toNanos(millis[i]);
+    }
+    return nanos;
+  }
+
+  @Nullable
+  private ObjectName registerMBean(Object mBean, String type, @Nullable String name) {
+    try {
+      var properties = new Hashtable<String, String>();
+      properties.put("type", type);
+      if (name != null) {
+        properties.put("name", ObjectName.quote(name));
+      }
+      properties.put("id", String.valueOf(instanceId));
+      var newObjectName = new ObjectName(JMX_DOMAIN, properties);
+      ManagementFactory.getPlatformMBeanServer().registerMBean(mBean, newObjectName);
+      return newObjectName;
+    } catch (JMException e) {
+      logger.debug("Unable to register the HTTP client metrics of {}", name == null ? "connections" : name, e);
+      return null;
+    }
+  }
+
+  private static void unregisterMBean(@Nullable ObjectName objectName, String name) {
+    if (objectName != null) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+      } catch (JMException e) {
+        logger.debug("Unable to unregister the HTTP client metrics of {}", name, e);
+      }
+    }
+  }
+
+  class EndpointMetrics implements HttpEndpointMetricsMXBean {
+    private final String template;
+    private final Histogram latencies = new Histogram(DURATION_BOUNDS_NANOS);
+    private final Histogram responseSizes = new Histogram(SIZE_BOUNDS_BYTES);
+    private final AtomicLongArray statusCounts = new AtomicLongArray(MAX_STATUS - MIN_STATUS + 1);
+    private final LongAdder failures = new LongAdder();
+    @Nullable
+    private volatile ObjectName objectName;
+
+    private EndpointMetrics(String template) {
+      this.template = template;
+      this.objectName = registerMBean(this, "HttpEndpoint", template);
+    }
+
+    void recordResponse(int status, long bodySize, long latencyNanos) {
+      latencies.record(latencyNanos);
+      responseSizes.record(bodySize);
+      if (status >= MIN_STATUS && status <= MAX_STATUS) {
+        statusCounts.incrementAndGet(status - MIN_STATUS);
+      }
+    }
+
+    void recordFailure() {
+      failures.increment();
+    }
+
+    private void unregisterMBean() {
+      HttpClientMetrics.unregisterMBean(objectName, template);
+      objectName = null;
+    }
+
+    @Override
+    public long getResponses() {
+      return latencies.count();
+    }
+
+    @Override
+    public long getFailures() {
+      return failures.sum();
+    }
+
+    @Override
+    public long getMeanLatencyMillis() {
+      return toMillis(latencies.mean());
+    }
+
+    @Override
+    public long getP50LatencyMillis() {
+      return toMillis(latencies.percentile(0.5));
+    }
+
+    @Override
+    public long getP95LatencyMillis() {
+      return toMillis(latencies.percentile(0.95));
+    }
+
+    @Override
+    public long getP99LatencyMillis() {
+      return toMillis(latencies.percentile(0.99));
+    }
+
+    @Override
+    public long getMaxLatencyMillis() {
+      return toMillis(latencies.max());
+    }
+
+    @Override
+    public long getMeanResponseBytes() {
+      return responseSizes.mean();
+    }
+
+    @Override
+    public long getMaxResponseBytes() {
+      return responseSizes.max();
+    }
+
+    @Override
+    public Map<Integer, Long> getStatusCounts() {
+      var counts = new LinkedHashMap<Integer, Long>();
+      for (var i = 0; i < statusCounts.length(); i++) {
+        var count = statusCounts.get(i);
+        if (count > 0) {
+          counts.put(MIN_STATUS + i, count);
+        }
+      }
+      return counts;
+    }
+  }
+
+}
@@ -17,33 +17,87 @@
 package org.sonarsource.sonarqube.mcp.http;
 
 import java.net.ProxySelector;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
 import javax.net.ssl.SSLContext;
 import nl.altindag.ssl.SSLFactory;
 import org.apache.commons.lang3.SystemUtils;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.SchemePortResolver;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
 import org.apache.hc.client5.http.config.TlsConfig;
 import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
 import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
 import org.apache.hc.client5.http.impl.auth.SystemDefaultCredentialsProvider;
 import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
 import org.apache.hc.client5.http.impl.routing.SystemDefaultRoutePlanner;
+import org.apache.hc.client5.http.nio.AsyncClientConnectionOperator;
 import org.apache.hc.client5.http.ssl.DefaultClientTlsStrategy;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
 import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.config.H2Config;
 import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.sonarsource.sonarqube.mcp.log.McpLogger;
 
 public class HttpClientProvider {
 
+  private static final McpLogger LOG = McpLogger.getInstance();
+
   private final CloseableHttpAsyncClient httpClient;
+  private final ConnectionPoolSettings poolSettings;
+  private final HttpVersionSettings versionSettings;
+  private final CompressionSettings compressionSettings;
+  private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+  private final HttpClientMetrics metrics = new HttpClientMetrics();
 
   public HttpClientProvider(String userAgent) {
-    var asyncConnectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
-      .setTlsStrategy(new DefaultClientTlsStrategy(configureSsl()))
+    this(userAgent, ConnectionPoolSettings.DEFAULT, HttpVersionSettings.HTTP_1, CompressionSettings.DEFAULT, ConcurrencyLimitSettings.DEFAULT);
+  }
+
+  /**
+   * @param versionSettings With HTTP/2, the concurrent requests to a host share a single connection from the pool
+   * @param concurrencyLimitSettings Limits of the concurrent requests to each endpoint family, shared by all the HTTP clients
+   */
+  public HttpClientProvider(String userAgent, ConnectionPoolSettings poolSettings, HttpVersionSettings versionSettings,
+    CompressionSettings compressionSettings, ConcurrencyLimitSettings concurrencyLimitSettings) {
+    this.poolSettings = poolSettings;
+    this.versionSettings = versionSettings;
+    this.compressionSettings = compressionSettings;
+    this.concurrencyLimiter = new AdaptiveConcurrencyLimiter(concurrencyLimitSettings);
+    var asyncConnectionManager = new PoolingAsyncClientConnectionManagerBuilder() {
+      @Override
+      protected AsyncClientConnectionOperator createConnectionOperator(TlsStrategy tlsStrategy, SchemePortResolver schemePortResolver,
+        DnsResolver dnsResolver) {
+        return new TimingConnectionOperator(super.createConnectionOperator(tlsStrategy, schemePortResolver, dnsResolver), metrics);
+      }
+    }
+      .setTlsStrategy(new TimingTlsStrategy(new DefaultClientTlsStrategy(configureSsl()), metrics))
       .setDefaultTlsConfig(TlsConfig.custom()
-        // Force HTTP/1 since we know SQ/SC don't support HTTP/2 ATM
-        .setVersionPolicy(HttpVersionPolicy.FORCE_HTTP_1)
+        .setVersionPolicy(versionSettings.versionPolicy())
+        .build())
+      // multiplex the concurrent requests over the HTTP/2 connections instead of opening a new connection per request
+      .setMessageMultiplexing(versionSettings.isHttp2Allowed())
+      .setMaxConnTotal(poolSettings.maxTotal())
+      .setMaxConnPerRoute(poolSettings.maxPerRoute())
+      .setDefaultConnectionConfig(ConnectionConfig.custom()
+        .setTimeToLive(TimeValue.of(poolSettings.timeToLive()))
+        .setValidateAfterInactivity(TimeValue.of(poolSettings.validateAfterInactivity()))
         .build())
       .build();
+    metrics.setConnectionPool(asyncConnectionManager);
     this.httpClient = HttpAsyncClients.custom()
       .setConnectionManager(asyncConnectionManager)
+      .setH2Config(H2Config.custom()
+        .setPushEnabled(false)
+        .setInitialWindowSize(versionSettings.initialWindowSize())
+        .build())
+      .evictExpiredConnections()
+      .evictIdleConnections(TimeValue.of(poolSettings.idleEvictionInterval()))
       .addResponseInterceptorFirst(new RedirectInterceptor())
       .setUserAgent(userAgent)
       .setDefaultCredentialsProvider(new SystemDefaultCredentialsProvider())
@@ -54,14 +108,61 @@ public class HttpClientProvider {
   }
 
   public HttpClient getHttpClient(String sonarqubeCloudToken) {
-    return new HttpClientAdapter(httpClient, sonarqubeCloudToken);
+    return new HttpClientAdapter(httpClient, sonarqubeCloudToken, compressionSettings, concurrencyLimiter, metrics);
   }
 
   public HttpClient getHttpClientWithoutToken() {
-    return new HttpClientAdapter(httpClient);
+    return new HttpClientAdapter(httpClient, compressionSettings, concurrencyLimiter, metrics);
+  }
+
+  /**
+   * Metrics of all the requests sent by the HTTP clients of this provider
+   */
+  public HttpClientMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Opens keep-alive connections to each server in the background, so that the first tool calls don't pay for DNS resolution and the TCP and
+   * TLS handshakes. Connections are opened by concurrent anonymous HEAD requests, and stay in the pool once answered, whatever the response.
+   * When the server speaks HTTP/2, the concurrent requests are multiplexed over a single connection, so only one connection is opened.
+   * @param connectionsPerServer Number of connections to open to each server, capped by the maximum number of connections per route, and
+   * ignored when HTTP/2 is forced
+   * @return a future completing once all the connections were attempted, it never fails
+   */
+  public CompletableFuture<Void> prewarm(Collection<String> serverUrls, int connectionsPerServer) {
+    var connections = versionSettings.versionPolicy() == HttpVersionPolicy.FORCE_HTTP_2 ? Math.min(connectionsPerServer, 1) :
+      Math.min(connectionsPerServer, poolSettings.maxPerRoute());
+    return CompletableFuture.allOf(serverUrls.stream()
+      .flatMap(serverUrl -> IntStream.range(0, connections).mapToObj(i -> openConnection(serverUrl)))
+      .toArray(CompletableFuture[]::new));
+  }
+
+  private CompletableFuture<Void> openConnection(String serverUrl) {
+    var opened = new CompletableFuture<Void>();
+    httpClient.execute(SimpleRequestBuilder.head(serverUrl).build(), new FutureCallback<SimpleHttpResponse>() {
+      @Override
+      public void completed(SimpleHttpResponse result) {
+        opened.complete(null);
+      }
+
+      @Override
+      public void failed(Exception ex) {
+        LOG.info("Unable to open a connection to " + serverUrl + " in advance: " + ex.getMessage());
+        opened.complete(null);
+      }
+
+      @Override
+      public void cancelled() {
+        opened.complete(null);
+      }
+    });
+    return opened;
   }
 
   public void shutdown() {
+    concurrencyLimiter.close();
+    metrics.close();
     httpClient.close(CloseMode.IMMEDIATE);
   }
 
@@ -0,0 +1,50 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.util.Map;
+
+/**
+ * Metrics of the requests sent to an endpoint (e.g. "/api/issues/search"), exposed through JMX. Percentiles are approximated by the bounds
+ * of the histogram buckets.
+ */
+public interface HttpEndpointMetricsMXBean {
+
+  long getResponses();
+
+  long getFailures();
+
+  long getMeanLatencyMillis();
+
+  long getP50LatencyMillis();
+
+  long getP95LatencyMillis();
+
+  long getP99LatencyMillis();
+
+  long getMaxLatencyMillis();
+
+  long getMeanResponseBytes();
+
+  long getMaxResponseBytes();
+
+  /**
+   * Number of responses by status code
+   */
+  Map<Integer, Long> getStatusCounts();
+
+}
@@ -0,0 +1,138 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Exposes the {@link HttpClientMetrics} in the Prometheus text format, so that they can be scraped:
+ * <ul>
+ *   <li>written periodically to a file, e.g. for the textfile collector of the node exporter. The file is replaced atomically, it is never
+ *   read half-written</li>
+ *   <li>served at "/metrics" on a port of the loopback interface</li>
+ * </ul>
+ */
+public class HttpMetricsExporter {
+
+  public static final String METRICS_FILE_NAME = "http-client.prom";
+  public static final String METRICS_PATH = "/metrics";
+
+  private static final Logger logger = LoggerFactory.getLogger(HttpMetricsExporter.class);
+
+  private final HttpClientMetrics metrics;
+  @Nullable
+  private ScheduledExecutorService fileWriter;
+  @Nullable
+  private HttpServer httpServer;
+
+  public HttpMetricsExporter(HttpClientMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Writes the metrics to the file now, then at each interval until closed.
+   */
+  public synchronized void writePeriodically(Path file, Duration interval) {
+    var executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      var thread = new Thread(runnable, "sonarqube-mcp-metrics-writer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.scheduleWithFixedDelay(() -> {
+      try {
+        write(file);
+      } catch (IOException | UncheckedIOException e) {
+        logger.debug("Unable to write the HTTP client metrics to {}", file, e);
+      }
+    }, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    fileWriter = executor;
+  }
+
+  void write(Path file) throws IOException {
+    var directory = file.toAbsolutePath().getParent();
+    Files.createDirectories(directory);
+    var temporaryFile = Files.createTempFile(directory, METRICS_FILE_NAME, ".tmp");
+    try {
+      Files.writeString(temporaryFile, metrics.toPrometheusText(), StandardCharsets.UTF_8);
+      Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporaryFile);
+    }
+  }
+
+  /**
+   * @param port 0 to pick a free port, see {@link #getPort()}
+   */
+  public synchronized void serve(int port) {
+    try {
+      var server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+      server.createContext(METRICS_PATH, this::handleExchange);
+      server.start();
+      httpServer = server;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to serve the HTTP client metrics on port " + port, e);
+    }
+  }
+
+  /**
+   * The port the metrics are served on, or 0 if they are not served
+   */
+  public synchronized int getPort() {
+    return httpServer == null ? 0 : httpServer.getAddress().getPort();
+  }
+
+  private void handleExchange(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      if (!"GET".equals(exchange.getRequestMethod())) {
+        exchange.sendResponseHeaders(405, -1);
+        return;
+      }
+      var body = metrics.toPrometheusText().getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+      exchange.sendResponseHeaders(200, body.length);
+      exchange.getResponseBody().write(body);
+    }
+  }
+
+  public synchronized void close() {
+    if (fileWriter != null) {
+      fileWriter.shutdownNow();
+      fileWriter = null;
+    }
+    if (httpServer != null) {
+      httpServer.stop(0);
+      httpServer = null;
+    }
+  }
+
+}
@@ -18,6 +18,7 @@ package org.sonarsource.sonarqube.mcp.http;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import javax.annotation.CheckForNull;
 import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
 
 class HttpResponse implements HttpClient.Response {
@@ -42,7 +43,15 @@ class HttpResponse implements HttpClient.Response {
 
   @Override
   public InputStream bodyAsStream() {
-    return new ByteArrayInputStream(response.getBodyBytes());
+    var body = response.getBodyBytes();
+    return new ByteArrayInputStream(body == null ? new byte[0] : body);
+  }
+
+  @CheckForNull
+  @Override
+  public String header(String name) {
+    var header = response.getFirstHeader(name);
+    return header == null ? null : header.getValue();
   }
 
   @Override
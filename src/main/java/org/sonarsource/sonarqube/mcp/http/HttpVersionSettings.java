@@ -0,0 +1,39 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+
+/**
+ * HTTP versions used to talk to the server. With HTTP/2, concurrent requests to the same host are multiplexed over a single connection,
+ * instead of paying for one TCP and TLS handshake per concurrent request.
+ * @param versionPolicy {@link HttpVersionPolicy#NEGOTIATE} uses HTTP/2 when the server offers it through ALPN, and falls back to HTTP/1.1
+ * @param initialWindowSize Bytes of a response the server can send before the client acknowledges them, large enough to not slow down big
+ * responses
+ */
+public record HttpVersionSettings(HttpVersionPolicy versionPolicy, int initialWindowSize) {
+
+  public static final int DEFAULT_INITIAL_WINDOW_SIZE = 1024 * 1024;
+
+  public static final HttpVersionSettings HTTP_1 = new HttpVersionSettings(HttpVersionPolicy.FORCE_HTTP_1, DEFAULT_INITIAL_WINDOW_SIZE);
+  public static final HttpVersionSettings NEGOTIATE = new HttpVersionSettings(HttpVersionPolicy.NEGOTIATE, DEFAULT_INITIAL_WINDOW_SIZE);
+
+  public boolean isHttp2Allowed() {
+    return versionPolicy != HttpVersionPolicy.FORCE_HTTP_1;
+  }
+
+}
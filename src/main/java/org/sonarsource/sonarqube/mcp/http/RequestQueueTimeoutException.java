@@ -0,0 +1,31 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * The request waited too long for the concurrency limit of the server to allow it, it was not sent.
+ */
+public class RequestQueueTimeoutException extends IOException {
+
+  public RequestQueueTimeoutException(String url, Duration maxQueueingDelay) {
+    super("The request to " + url + " was not sent, the server was too busy to accept it within " + maxQueueingDelay.toMillis() + " ms");
+  }
+
+}
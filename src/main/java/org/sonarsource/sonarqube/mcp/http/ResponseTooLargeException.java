@@ -0,0 +1,30 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.io.IOException;
+
+/**
+ * Raised while receiving a response whose body is bigger than the accepted size, the rest of the body is not read.
+ */
+public class ResponseTooLargeException extends IOException {
+
+  public ResponseTooLargeException(String url, long maxBodySize) {
+    super("The response of " + url + " is bigger than the maximum size of " + maxBodySize + " bytes");
+  }
+
+}
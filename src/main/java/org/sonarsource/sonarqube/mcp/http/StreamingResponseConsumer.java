@@ -0,0 +1,277 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.apache.hc.client5.http.async.methods.AbstractBinResponseConsumer;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
+
+/**
+ * Consumes the response body as it arrives, instead of buffering it whole like a SimpleHttpResponse.
+ * The body of a successful response is either written to a file, or kept in memory up to a maximum size. The body of other responses is
+ * kept in memory, up to a small size, for error messages.
+ * A gzip or deflate encoded body is decoded on the fly, and the maximum size applies to the decoded body.
+ */
+class StreamingResponseConsumer extends AbstractBinResponseConsumer<HttpClient.Response> {
+
+  private static final int MAX_ERROR_BODY_SIZE = 64 * 1024;
+  private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+  /** Bytes the server is allowed to send ahead of the ones consumed, so that flow control bounds the data in flight */
+  private static final int CAPACITY_INCREMENT = 64 * 1024;
+
+  private final String url;
+  @Nullable
+  private final Path destination;
+  private final long maxBodySize;
+  private HttpResponse head;
+  private Charset charset = StandardCharsets.UTF_8;
+  @Nullable
+  private FileChannel fileChannel;
+  @Nullable
+  private TailBuffer tailBuffer;
+  private long receivedBytes;
+  private long transferredBytes;
+  @Nullable
+  private ContentDecoder decoder;
+
+  private StreamingResponseConsumer(String url, @Nullable Path destination, long maxBodySize) {
+    this.url = url;
+    this.destination = destination;
+    this.maxBodySize = maxBodySize;
+  }
+
+  /**
+   * Writes the body of a successful response to the destination file, and fails if it is bigger than the maximum size.
+   */
+  static StreamingResponseConsumer toFile(String url, Path destination, long maxBodySize) {
+    return new StreamingResponseConsumer(url, destination, maxBodySize);
+  }
+
+  /**
+   * Keeps the whole body of a successful response in memory.
+   */
+  static StreamingResponseConsumer toMemory(String url) {
+    return new StreamingResponseConsumer(url, null, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Keeps the last bytes of the body of a successful response, up to the maximum size.
+   */
+  static StreamingResponseConsumer toTail(String url, long maxBodySize) {
+    return new StreamingResponseConsumer(url, null, maxBodySize);
+  }
+
+  @Override
+  protected void start(HttpResponse response, @Nullable ContentType contentType) throws IOException {
+    this.head = response;
+    if (contentType != null && contentType.getCharset() != null) {
+      this.charset = contentType.getCharset();
+    }
+    var contentEncoding = response.getFirstHeader(HttpHeaders.CONTENT_ENCODING);
+    decoder = ContentDecoder.forEncoding(contentEncoding == null ? null : contentEncoding.getValue());
+    if (decoder != null) {
+      // the headers describe the decoded body from now on
+      response.removeHeaders(HttpHeaders.CONTENT_ENCODING);
+      response.removeHeaders(HttpHeaders.CONTENT_LENGTH);
+    }
+    var isSuccessful = response.getCode() >= 200 && response.getCode() < 300;
+    if (isSuccessful && destination != null) {
+      var contentLength = response.getFirstHeader(HttpHeaders.CONTENT_LENGTH);
+      if (contentLength != null && parseLong(contentLength.getValue()) > maxBodySize) {
+        // don't even start the download
+        throw new ResponseTooLargeException(url, maxBodySize);
+      }
+      fileChannel = FileChannel.open(destination, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    } else {
+      tailBuffer = new TailBuffer((int) Math.min(isSuccessful ? maxBodySize : MAX_ERROR_BODY_SIZE, Integer.MAX_VALUE - 8));
+    }
+  }
+
+  @Override
+  protected int capacityIncrement() {
+    return CAPACITY_INCREMENT;
+  }
+
+  @Override
+  protected void data(ByteBuffer src, boolean endOfStream) throws IOException {
+    transferredBytes += src.remaining();
+    if (decoder == null) {
+      write(src);
+      return;
+    }
+    decoder.decode(src, this::write);
+    if (endOfStream) {
+      decoder.finish();
+    }
+  }
+
+  private void write(ByteBuffer src) throws IOException {
+    receivedBytes += src.remaining();
+    if (fileChannel != null) {
+      if (receivedBytes > maxBodySize) {
+        // the Content-Length was missing or wrong
+        throw new ResponseTooLargeException(url, maxBodySize);
+      }
+      while (src.hasRemaining()) {
+        fileChannel.write(src);
+      }
+    } else if (tailBuffer != null) {
+      tailBuffer.write(src);
+    }
+  }
+
+  @Override
+  protected HttpClient.Response buildResult() {
+    closeFileChannel();
+    var body = tailBuffer == null ? new byte[0] : tailBuffer.toByteArray();
+    var isTruncated = tailBuffer != null && tailBuffer.isTruncated();
+    return new StreamedResponse(url, head, body, charset, fileChannel == null ? null : destination, isTruncated);
+  }
+
+  /**
+   * Size of the body as received, before it is decoded.
+   */
+  long transferredBytes() {
+    return transferredBytes;
+  }
+
+  @Override
+  public void releaseResources() {
+    closeFileChannel();
+    if (decoder != null) {
+      decoder.release();
+    }
+  }
+
+  private void closeFileChannel() {
+    if (fileChannel != null && fileChannel.isOpen()) {
+      try {
+        fileChannel.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException("Unable to write the response of " + url + " to " + destination, e);
+      }
+    }
+  }
+
+  private static long parseLong(String value) {
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Ring buffer keeping the last bytes written, that grows up to its capacity as needed.
+   */
+  private static class TailBuffer {
+    private final int capacity;
+    private byte[] buffer;
+    private long written;
+
+    private TailBuffer(int capacity) {
+      this.capacity = capacity;
+      this.buffer = new byte[Math.min(capacity, INITIAL_BUFFER_SIZE)];
+    }
+
+    private void write(ByteBuffer src) {
+      while (src.hasRemaining()) {
+        if (written == buffer.length && buffer.length < capacity) {
+          buffer = Arrays.copyOf(buffer, (int) Math.min(capacity, buffer.length * 2L));
+        }
+        if (buffer.length == 0) {
+          written += src.remaining();
+          src.position(src.limit());
+          return;
+        }
+        var position = (int) (written % buffer.length);
+        var length = Math.min(src.remaining(), buffer.length - position);
+        src.get(buffer, position, length);
+        written += length;
+      }
+    }
+
+    private boolean isTruncated() {
+      return written > capacity;
+    }
+
+    private byte[] toByteArray() {
+      if (written <= buffer.length) {
+        return Arrays.copyOf(buffer, (int) written);
+      }
+      var start = (int) (written % buffer.length);
+      var bytes = new byte[buffer.length];
+      System.arraycopy(buffer, start, bytes, 0, buffer.length - start);
+      System.arraycopy(buffer, 0, bytes, buffer.length - start, start);
+      return bytes;
+    }
+  }
+
+  private record StreamedResponse(String url, HttpResponse head, byte[] body, Charset charset, @Nullable Path file, boolean isTruncated)
+    implements HttpClient.Response {
+
+    @Override
+    public int code() {
+      return head.getCode();
+    }
+
+    @Override
+    public String bodyAsString() {
+      return new String(body, charset);
+    }
+
+    @Override
+    public InputStream bodyAsStream() {
+      if (file != null) {
+        try {
+          return Files.newInputStream(file);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      return new ByteArrayInputStream(body);
+    }
+
+    @CheckForNull
+    @Override
+    public String header(String name) {
+      var header = head.getFirstHeader(name);
+      return header == null ? null : header.getValue();
+    }
+
+    @Override
+    public void close() {
+      // nothing to release, the file belongs to the caller
+    }
+  }
+
+}
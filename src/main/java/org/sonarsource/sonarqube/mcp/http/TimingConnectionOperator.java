@@ -0,0 +1,99 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.net.SocketAddress;
+import java.util.concurrent.Future;
+import javax.annotation.Nullable;
+import org.apache.hc.client5.http.nio.AsyncClientConnectionOperator;
+import org.apache.hc.client5.http.nio.ManagedAsyncClientConnection;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.net.NamedEndpoint;
+import org.apache.hc.core5.reactor.ConnectionInitiator;
+import org.apache.hc.core5.util.Timeout;
+
+/**
+ * Measures the time to open the connections of the pool, from the DNS resolution to the end of the TLS handshake if any.
+ */
+class TimingConnectionOperator implements AsyncClientConnectionOperator {
+
+  private final AsyncClientConnectionOperator delegate;
+  private final HttpClientMetrics metrics;
+
+  TimingConnectionOperator(AsyncClientConnectionOperator delegate, HttpClientMetrics metrics) {
+    this.delegate = delegate;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public Future<ManagedAsyncClientConnection> connect(ConnectionInitiator connectionInitiator, HttpHost host, @Nullable NamedEndpoint endpointName,
+    @Nullable SocketAddress localAddress, Timeout connectTimeout, @Nullable Object attachment, @Nullable HttpContext context,
+    @Nullable FutureCallback<ManagedAsyncClientConnection> callback) {
+    var startedAt = System.nanoTime();
+    return delegate.connect(connectionInitiator, host, endpointName, localAddress, connectTimeout, attachment, context, new FutureCallback<>() {
+      @Override
+      public void completed(ManagedAsyncClientConnection connection) {
+        metrics.recordConnect(System.nanoTime() - startedAt);
+        if (callback != null) {
+          callback.completed(connection);
+        }
+      }
+
+      @Override
+      public void failed(Exception ex) {
+        if (callback != null) {
+          callback.failed(ex);
+        }
+      }
+
+      @Override
+      public void cancelled() {
+        if (callback != null) {
+          callback.cancelled();
+        }
+      }
+    });
+  }
+
+  /**
+   * @deprecated only called by older versions of the connection manager
+   */
+  @Deprecated
+  @Override
+  public Future<ManagedAsyncClientConnection> connect(ConnectionInitiator connectionInitiator, HttpHost host, SocketAddress localAddress,
+    Timeout connectTimeout, Object attachment, FutureCallback<ManagedAsyncClientConnection> callback) {
+    return connect(connectionInitiator, host, null, localAddress, connectTimeout, attachment, null, callback);
+  }
+
+  @Override
+  public void upgrade(ManagedAsyncClientConnection connection, HttpHost host, @Nullable NamedEndpoint endpointName, @Nullable Object attachment,
+    @Nullable HttpContext context, @Nullable FutureCallback<ManagedAsyncClientConnection> callback) {
+    delegate.upgrade(connection, host, endpointName, attachment, context, callback);
+  }
+
+  /**
+   * @deprecated only called by older versions of the connection manager
+   */
+  @Deprecated
+  @Override
+  public void upgrade(ManagedAsyncClientConnection connection, HttpHost host, Object attachment) {
+    delegate.upgrade(connection, host, attachment);
+  }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.net.SocketAddress;
+import javax.annotation.Nullable;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.net.NamedEndpoint;
+import org.apache.hc.core5.reactor.ssl.TransportSecurityLayer;
+import org.apache.hc.core5.util.Timeout;
+
+/**
+ * Measures the time of the TLS handshakes performed by another strategy.
+ */
+class TimingTlsStrategy implements TlsStrategy {
+
+  private final TlsStrategy delegate;
+  private final HttpClientMetrics metrics;
+
+  TimingTlsStrategy(TlsStrategy delegate, HttpClientMetrics metrics) {
+    this.delegate = delegate;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public void upgrade(TransportSecurityLayer sessionLayer, NamedEndpoint endpoint, @Nullable Object attachment, @Nullable Timeout handshakeTimeout,
+    @Nullable FutureCallback<TransportSecurityLayer> callback) {
+    var startedAt = System.nanoTime();
+    delegate.upgrade(sessionLayer, endpoint, attachment, handshakeTimeout, new FutureCallback<>() {
+      @Override
+      public void completed(TransportSecurityLayer result) {
+        metrics.recordTlsHandshake(System.nanoTime() - startedAt);
+        if (callback != null) {
+          callback.completed(result);
+        }
+      }
+
+      @Override
+      public void failed(Exception ex) {
+        if (callback != null) {
+          callback.failed(ex);
+        }
+      }
+
+      @Override
+      public void cancelled() {
+        if (callback != null) {
+          callback.cancelled();
+        }
+      }
+    });
+  }
+
+  /**
+   * @deprecated the handshake is not measured, this variant does not report its completion
+   */
+  @Deprecated
+  @Override
+  public boolean upgrade(TransportSecurityLayer sessionLayer, HttpHost host, SocketAddress localAddress, SocketAddress remoteAddress, Object attachment,
+    Timeout handshakeTimeout) {
+    return delegate.upgrade(sessionLayer, host, localAddress, remoteAddress, attachment, handshakeTimeout);
+  }
+
+}
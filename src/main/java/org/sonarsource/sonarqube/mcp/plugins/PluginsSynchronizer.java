@@ -19,11 +19,12 @@ package org.sonarsource.sonarqube.mcp.plugins;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
-import org.apache.commons.io.FileUtils;
 import org.sonarsource.sonarlint.core.rpc.protocol.common.Language;
 import org.sonarsource.sonarqube.mcp.log.McpLogger;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
@@ -35,13 +36,20 @@ import static org.sonarsource.sonarqube.mcp.analysis.LanguageUtils.SUPPORTED_LAN
 public class PluginsSynchronizer {
 
   private static final McpLogger LOG = McpLogger.getInstance();
+  public static final int DEFAULT_MAX_PLUGIN_SIZE = 512 * 1024 * 1024;
 
   private final ServerApi serverApi;
   private final Path pluginsPath;
+  private final long maxPluginSize;
 
   public PluginsSynchronizer(ServerApi serverApi, Path storagePath) {
+    this(serverApi, storagePath, DEFAULT_MAX_PLUGIN_SIZE);
+  }
+
+  public PluginsSynchronizer(ServerApi serverApi, Path storagePath, long maxPluginSize) {
     this.serverApi = serverApi;
     this.pluginsPath = storagePath.resolve("plugins");
+    this.maxPluginSize = maxPluginSize;
   }
 
   public BackendService.AnalyzersAndLanguagesEnabled synchronizeAnalyzers() {
@@ -68,18 +76,31 @@ public class PluginsSynchronizer {
     return plugin.sonarLintSupported() && !Files.exists(pluginsPath.resolve(plugin.filename()));
   }
 
+  /**
+   * The plugin is streamed to a temporary file next to its final location, and only moved there once complete,
+   * so that an interrupted download never leaves a truncated jar behind.
+   */
   private void downloadPlugin(String pluginKey, Path localPath) {
-    try (var response = serverApi.pluginsApi().downloadPlugin(pluginKey)) {
+    var partialPath = localPath.resolveSibling(localPath.getFileName() + ".part");
+    try (var response = serverApi.pluginsApi().downloadPlugin(pluginKey, partialPath, maxPluginSize)) {
       if (response.isSuccessful()) {
-        try (var inputStream = response.bodyAsStream()) {
-          FileUtils.copyInputStreamToFile(inputStream, localPath.toFile());
-        }
+        Files.move(partialPath, localPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         LOG.info("Successfully downloaded plugin '" + pluginKey + "' to " + localPath);
       } else {
         throw new IllegalStateException("Failed to download plugin '" + pluginKey + "': HTTP status " + response.code());
       }
+    } catch (IOException | CompletionException e) {
+      throw new IllegalStateException("Error downloading plugin '" + pluginKey + "'", e instanceof CompletionException ? e.getCause() : e);
+    } finally {
+      deleteQuietly(partialPath);
+    }
+  }
+
+  private static void deleteQuietly(Path path) {
+    try {
+      Files.deleteIfExists(path);
     } catch (IOException e) {
-      throw new IllegalStateException("Error downloading plugin '" + pluginKey + "'", e);
+      // best effort, the file is overwritten by the next download
     }
   }
 
@@ -0,0 +1,64 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import javax.annotation.CheckForNull;
+import org.sonarsource.sonarqube.mcp.http.HttpClient;
+
+/**
+ * Parses the JSON responses of the server into the response records of the APIs.
+ * <p>
+ * A single Gson instance is shared by all the APIs: it builds the reflective type adapter of each response record once, and caches it for
+ * the following calls. The body is parsed as it is read from the response stream, without being copied to an intermediate String first.
+ */
+public final class JsonCodec {
+
+  private static final Gson GSON = new Gson();
+
+  private JsonCodec() {
+    // static use only
+  }
+
+  /**
+   * @return null if the body is empty
+   */
+  @CheckForNull
+  public static <T> T fromJson(HttpClient.Response response, Class<T> type) {
+    return fromJson(response, TypeToken.get(type));
+  }
+
+  /**
+   * For generic types, e.g. a response that is a JSON array.
+   * @return null if the body is empty
+   */
+  @CheckForNull
+  public static <T> T fromJson(HttpClient.Response response, TypeToken<T> type) {
+    // JSON exchanged between systems is always UTF-8 encoded
+    try (var reader = new InputStreamReader(response.bodyAsStream(), StandardCharsets.UTF_8)) {
+      return GSON.fromJson(reader, type);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to read the response of " + response.url(), e);
+    }
+  }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads all the pages of a paginated endpoint. The first page tells how many pages there are, the next ones are then requested ahead of the
+ * consumer, with at most a given number of requests in flight, and are handed over in order.
+ * Closing the paginator, e.g. when the consumer stops early or a page fails, cancels the pages still in flight.
+ *
+ * @param <P> The type of a page
+ */
+public class Paginator<P> implements Iterator<P>, AutoCloseable {
+
+  public static final int DEFAULT_PARALLELISM = 4;
+
+  private final IntFunction<CompletableFuture<P>> pageFetcher;
+  private final ToIntFunction<P> pageCount;
+  private final int parallelism;
+  private final ArrayDeque<CompletableFuture<P>> inFlightPages = new ArrayDeque<>();
+  private int lastRequestedPage;
+  private int lastPage = -1;
+  private int returnedPages;
+
+  /**
+   * @param pageFetcher Requests a page, starting at 1
+   * @param pageCount Returns the number of pages, read from the first page
+   * @param parallelism Maximum number of pages requested at the same time
+   */
+  public Paginator(IntFunction<CompletableFuture<P>> pageFetcher, ToIntFunction<P> pageCount, int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("The parallelism must be at least 1");
+    }
+    this.pageFetcher = pageFetcher;
+    this.pageCount = pageCount;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * The pages in order, the stream has to be closed to cancel the pages still in flight when it is not fully consumed.
+   */
+  public static <P> Stream<P> stream(IntFunction<CompletableFuture<P>> pageFetcher, ToIntFunction<P> pageCount, int parallelism) {
+    var paginator = new Paginator<>(pageFetcher, pageCount, parallelism);
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(paginator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+      .onClose(paginator::close);
+  }
+
+  /**
+   * The number of pages needed to read all the results, at least one
+   */
+  public static int pageCount(int total, int pageSize) {
+    if (pageSize <= 0 || total <= pageSize) {
+      return 1;
+    }
+    return (int) ((total + (long) pageSize - 1) / pageSize);
+  }
+
+  @Override
+  public boolean hasNext() {
+    return lastPage < 0 || returnedPages < lastPage;
+  }
+
+  @Override
+  public P next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    if (lastPage < 0) {
+      lastRequestedPage = 1;
+      var firstPage = join(pageFetcher.apply(1));
+      lastPage = pageCount.applyAsInt(firstPage);
+      requestNextPages();
+      returnedPages++;
+      return firstPage;
+    }
+    var page = join(inFlightPages.removeFirst());
+    requestNextPages();
+    returnedPages++;
+    return page;
+  }
+
+  private void requestNextPages() {
+    while (inFlightPages.size() < parallelism && lastRequestedPage < lastPage) {
+      lastRequestedPage++;
+      inFlightPages.addLast(pageFetcher.apply(lastRequestedPage));
+    }
+  }
+
+  private P join(CompletableFuture<P> page) {
+    try {
+      return ServerApiHelper.join(page);
+    } catch (RuntimeException e) {
+      close();
+      throw e;
+    }
+  }
+
+  @Override
+  public void close() {
+    inFlightPages.forEach(page -> page.cancel(true));
+    inFlightPages.clear();
+    // nothing else is requested
+    lastPage = returnedPages;
+  }
+
+}
@@ -19,26 +19,68 @@ package org.sonarsource.sonarqube.mcp.serverapi;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
 import java.net.HttpURLConnection;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Strings;
+import org.sonarsource.sonarqube.mcp.http.Deadline;
+import org.sonarsource.sonarqube.mcp.http.DeadlineExceededException;
 import org.sonarsource.sonarqube.mcp.http.HttpClient;
+import org.sonarsource.sonarqube.mcp.serverapi.cache.RequestCoalescer;
+import org.sonarsource.sonarqube.mcp.serverapi.cache.ResponseCache;
 import org.sonarsource.sonarqube.mcp.serverapi.exception.ForbiddenException;
 import org.sonarsource.sonarqube.mcp.serverapi.exception.NotFoundException;
 import org.sonarsource.sonarqube.mcp.serverapi.exception.ServerInternalErrorException;
 import org.sonarsource.sonarqube.mcp.serverapi.exception.UnauthorizedException;
+import org.sonarsource.sonarqube.mcp.serverapi.retry.RequestRetrier;
+import org.sonarsource.sonarqube.mcp.serverapi.retry.RetryPolicy;
 
 public class ServerApiHelper {
 
+  public static final String PROTOBUF_MEDIA_TYPE = "application/x-protobuf";
+
   private final HttpClient client;
   private final EndpointParams endpointParams;
+  @Nullable
+  private final ResponseCache responseCache;
+  @Nullable
+  private final RequestCoalescer requestCoalescer;
+  private final String credentialIdentity;
+  private final RequestRetrier retrier;
+  private final boolean protobufResponses;
 
   public ServerApiHelper(EndpointParams endpointParams, HttpClient client) {
+    this(endpointParams, client, null, null, null, new RequestRetrier(RetryPolicy.NONE), false);
+  }
+
+  /**
+   * @param responseCache Cache shared by the helpers of all the users, null to disable caching
+   * @param requestCoalescer Shares the identical GET requests in flight, shared by the helpers of all the users, null to disable coalescing
+   * @param token The token used by the client, only to tell apart the cached and coalesced responses of each user
+   * @param retrier Retries the GET requests failing with a transient error, shared by the helpers of all the users
+   * @param protobufResponses Whether {@link #getProtobufAsync(String)} asks for protobuf responses, or for JSON ones
+   */
+  public ServerApiHelper(EndpointParams endpointParams, HttpClient client, @Nullable ResponseCache responseCache,
+    @Nullable RequestCoalescer requestCoalescer, @Nullable String token, RequestRetrier retrier, boolean protobufResponses) {
     this.endpointParams = endpointParams;
     this.client = client;
+    this.responseCache = responseCache;
+    this.requestCoalescer = requestCoalescer;
+    this.credentialIdentity = ResponseCache.credentialIdentity(token);
+    this.retrier = retrier;
+    this.protobufResponses = protobufResponses;
   }
 
   @CheckForNull
@@ -47,60 +89,158 @@ public class ServerApiHelper {
   }
 
   public HttpClient.Response get(String path) {
-    var response = rawGet(path);
-    if (!response.isSuccessful()) {
-      throw handleError(response);
+    return join(getAsync(path));
+  }
+
+  /**
+   * The responses of the endpoints that rarely change are served from the response cache, when there is one.
+   */
+  public CompletableFuture<HttpClient.Response> getAsync(String path) {
+    var cachePolicy = responseCache == null ? null : responseCache.getPolicy(path);
+    if (cachePolicy == null) {
+      return rawGetAsync(path).thenApply(ServerApiHelper::throwIfFailed);
     }
-    return response;
+    var url = buildEndpointUrl(path);
+    return responseCache.getAsync(credentialIdentity, url, cachePolicy, headers -> headers.isEmpty() ?
+      sendGet(credentialIdentity, url, () -> client.getAsync(url)) :
+      retrier.executeAsync(url, () -> client.getAsync(url, headers)))
+      .thenApply(ServerApiHelper::throwIfFailed);
   }
 
-  public HttpClient.Response getAnonymous(String path) {
-    var response = rawGetAnonymous(path);
-    if (!response.isSuccessful()) {
-      throw handleError(response);
+  /**
+   * Same as {@link #getAsync(String)}, for the endpoints able to answer in protobuf. When protobuf responses are enabled, they are requested
+   * through the Accept header, and the caller has to check the format of the response with {@link #isProtobuf(HttpClient.Response)}, since
+   * a server or a proxy may still answer in JSON. These responses are never cached.
+   */
+  public CompletableFuture<HttpClient.Response> getProtobufAsync(String path) {
+    if (!protobufResponses) {
+      return getAsync(path);
     }
-    return response;
+    var url = buildEndpointUrl(path);
+    // the JSON and protobuf responses of the same URL must not be shared
+    return sendGet(credentialIdentity + " " + PROTOBUF_MEDIA_TYPE, url, () -> client.getAsync(url, Map.of("Accept", PROTOBUF_MEDIA_TYPE)))
+      .thenApply(ServerApiHelper::throwIfFailed);
+  }
+
+  public static boolean isProtobuf(HttpClient.Response response) {
+    var contentType = response.header("Content-Type");
+    return contentType != null && contentType.trim().toLowerCase(Locale.ROOT).startsWith(PROTOBUF_MEDIA_TYPE);
+  }
+
+  public HttpClient.Response getAnonymous(String path) {
+    return join(getAnonymousAsync(path));
+  }
+
+  public CompletableFuture<HttpClient.Response> getAnonymousAsync(String path) {
+    return rawGetAnonymousAsync(path).thenApply(ServerApiHelper::throwIfFailed);
   }
 
   public HttpClient.Response post(String path, String contentType, String body) {
-    var response = rawPost(buildEndpointUrl(path), contentType, body);
-    if (!response.isSuccessful()) {
-      throw handleError(response);
-    }
-    return response;
+    return join(postAsync(path, contentType, body));
+  }
+
+  public CompletableFuture<HttpClient.Response> postAsync(String path, String contentType, String body) {
+    return client.postAsync(buildEndpointUrl(path), contentType, body).thenApply(ServerApiHelper::throwIfFailed);
   }
 
   /**
    * Execute GET and don't check response
    */
   public HttpClient.Response rawGet(String relativePath) {
-    return client.getAsync(buildEndpointUrl(relativePath)).join();
+    return rawGetAsync(relativePath).join();
+  }
+
+  public CompletableFuture<HttpClient.Response> rawGetAsync(String relativePath) {
+    var url = buildEndpointUrl(relativePath);
+    return sendGet(credentialIdentity, url, () -> client.getAsync(url));
+  }
+
+  /**
+   * Execute GET streaming the body of a successful response to the destination file, and don't check response.
+   * The call fails with a {@link org.sonarsource.sonarqube.mcp.http.ResponseTooLargeException} when the body is bigger than the maximum size.
+   */
+  public CompletableFuture<HttpClient.Response> rawGetToFileAsync(String relativePath, Path destination, long maxBodySize) {
+    return client.getToFileAsync(buildEndpointUrl(relativePath), destination, maxBodySize);
+  }
+
+  /**
+   * Execute GET keeping only the last bytes of the body when it is bigger than the maximum size, see {@link HttpClient.Response#isTruncated()}.
+   */
+  public CompletableFuture<HttpClient.Response> getTailAsync(String relativePath, long maxBodySize) {
+    return client.getTailAsync(buildEndpointUrl(relativePath), maxBodySize).thenApply(ServerApiHelper::throwIfFailed);
   }
 
   public HttpClient.Response rawGetAnonymous(String relativePath) {
-    return client.getAsyncAnonymous(buildEndpointUrl(relativePath)).join();
+    return rawGetAnonymousAsync(relativePath).join();
   }
 
-  private HttpClient.Response rawPost(String url, String contentType, String body) {
-    return client.postAsync(url, contentType, body).join();
+  public CompletableFuture<HttpClient.Response> rawGetAnonymousAsync(String relativePath) {
+    var url = buildEndpointUrl(relativePath);
+    return sendGet(ResponseCache.credentialIdentity(null), url, () -> client.getAsyncAnonymous(url));
   }
 
   /**
    * Execute GET using the API subdomain (api.sonarcloud.io)
    */
   public HttpClient.Response getApiSubdomain(String path) {
-    var response = rawGetApiSubdomain(path);
-    if (!response.isSuccessful()) {
-      throw handleError(response);
-    }
-    return response;
+    return join(getApiSubdomainAsync(path));
+  }
+
+  public CompletableFuture<HttpClient.Response> getApiSubdomainAsync(String path) {
+    return rawGetApiSubdomainAsync(path).thenApply(ServerApiHelper::throwIfFailed);
   }
 
   /**
    * Execute raw GET using the API subdomain (api.sonarcloud.io)
    */
   public HttpClient.Response rawGetApiSubdomain(String relativePath) {
-    return client.getAsync(buildApiSubdomainUrl(relativePath)).join();
+    return rawGetApiSubdomainAsync(relativePath).join();
+  }
+
+  public CompletableFuture<HttpClient.Response> rawGetApiSubdomainAsync(String relativePath) {
+    var url = buildApiSubdomainUrl(relativePath);
+    return sendGet(credentialIdentity, url, () -> client.getAsync(url));
+  }
+
+  /**
+   * Retries the request on transient errors, and shares it with the callers sending the same request at the same time.
+   */
+  private CompletableFuture<HttpClient.Response> sendGet(String requestIdentity, String url, Supplier<CompletableFuture<HttpClient.Response>> request) {
+    Supplier<CompletableFuture<HttpClient.Response>> retriedRequest = () -> retrier.executeAsync(url, request);
+    return requestCoalescer == null ? retriedRequest.get() : requestCoalescer.getAsync(requestIdentity, url, retriedRequest);
+  }
+
+  /**
+   * Waits for the result of an asynchronous call, and rethrows the error raised by the call as is (e.g. {@link UnauthorizedException}) instead of
+   * wrapping it into a {@link CompletionException}. Other failures, like I/O errors, stay wrapped as before.
+   * If the waiting thread is interrupted (e.g. the tool call was cancelled by the client), the call is cancelled too.
+   * The wait is bounded by the {@link Deadline} of the current tool call, if any.
+   */
+  public static <T> T join(CompletableFuture<T> future) {
+    var deadline = Deadline.current();
+    try {
+      return deadline.isBounded() ? future.get(deadline.remaining().toNanos(), TimeUnit.NANOSECONDS) : future.get();
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      throw new CompletionException(new DeadlineExceededException("the server", deadline.timeout()));
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new CancellationException("The call was interrupted");
+    } catch (ExecutionException e) {
+      var cause = e.getCause();
+      if (cause instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new CompletionException(cause);
+    }
+  }
+
+  private static HttpClient.Response throwIfFailed(HttpClient.Response response) {
+    if (!response.isSuccessful()) {
+      throw handleError(response);
+    }
+    return response;
   }
 
   private String buildEndpointUrl(String relativePath) {
@@ -116,12 +256,17 @@ public class ServerApiHelper {
       return buildEndpointUrl(relativePath);
     }
 
-    var baseUrl = endpointParams.baseUrl();
-    // Transform sonarcloud.io to api.sonarcloud.io
+    return concat(toApiSubdomainUrl(endpointParams.baseUrl()), relativePath);
+  }
+
+  /**
+   * Transforms sonarcloud.io to api.sonarcloud.io, other URLs are returned as is
+   */
+  public static String toApiSubdomainUrl(String baseUrl) {
     if (baseUrl.contains("sonarcloud.io")) {
-      baseUrl = baseUrl.replace("://sonarcloud.io", "://api.sonarcloud.io");
+      return baseUrl.replace("://sonarcloud.io", "://api.sonarcloud.io");
     }
-    return concat(baseUrl, relativePath);
+    return baseUrl;
   }
 
   public static String concat(String baseUrl, String relativePath) {
@@ -158,6 +303,10 @@ public class ServerApiHelper {
 
   @CheckForNull
   private static String tryParseAsJsonError(HttpClient.Response response) {
+    if (isProtobuf(response)) {
+      // errors are sent in the format that was asked for
+      return null;
+    }
     var content = response.bodyAsString();
     if (StringUtils.isBlank(content)) {
       return null;
@@ -0,0 +1,27 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi.cache;
+
+import java.time.Duration;
+
+/**
+ * How long the responses of an endpoint can be reused.
+ * @param timeToLive The response is served from the cache without contacting the server during this time
+ * @param staleWhileRevalidate After the time to live, the response is still served during this time while it is revalidated in the background
+ */
+public record CachePolicy(Duration timeToLive, Duration staleWhileRevalidate) {
+}
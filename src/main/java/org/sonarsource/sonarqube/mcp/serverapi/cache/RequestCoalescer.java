@@ -0,0 +1,278 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.http.CancellationPropagatingFuture;
+import org.sonarsource.sonarqube.mcp.http.Deadline;
+import org.sonarsource.sonarqube.mcp.http.DeadlineExceededException;
+import org.sonarsource.sonarqube.mcp.http.HttpClient;
+
+/**
+ * Sends a single request when several callers ask for the same idempotent GET at the same time, e.g. the same rule or the same quality gate
+ * requested by parallel tool calls. Requests are keyed by URL and by credential identity, since the response depends on the permissions of
+ * the user. Only requests in flight are shared, a request sent after the previous one completed reaches the server again.
+ * <p>
+ * When a single caller is still waiting for the response, it gets the response as is, and its body is streamed as without coalescing.
+ * Only when several callers are waiting is the body read once, and each caller gets its own view of it, which it can read and close
+ * independently. Cancelling a call only cancels the shared request once all the callers sharing it cancelled theirs.
+ * The shared request is sent without {@link Deadline}, since the callers sharing it may have different ones: each caller fails on its own
+ * deadline, which counts as cancelling its call.
+ */
+public class RequestCoalescer {
+
+  private static final ScheduledThreadPoolExecutor DEADLINES = createDeadlineScheduler();
+
+  private final Map<String, InFlightRequest> inFlightRequests = new ConcurrentHashMap<>();
+
+  /**
+   * @param request Sends the request, only called if the same request is not already in flight
+   */
+  public CompletableFuture<HttpClient.Response> getAsync(String credentialIdentity, String url, Supplier<CompletableFuture<HttpClient.Response>> request) {
+    var key = credentialIdentity + " " + url;
+    while (true) {
+      var inFlightRequest = inFlightRequests.computeIfAbsent(key, k -> new InFlightRequest(k, url, request));
+      var call = inFlightRequest.join();
+      if (call != null) {
+        return call;
+      }
+      // the request completed, or was cancelled by all its callers, in the meantime
+      inFlightRequests.remove(key, inFlightRequest);
+    }
+  }
+
+  int getInFlightCount() {
+    return inFlightRequests.size();
+  }
+
+  static int scheduledDeadlines() {
+    return DEADLINES.getQueue().size();
+  }
+
+  private static ScheduledThreadPoolExecutor createDeadlineScheduler() {
+    var scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+      var thread = new Thread(runnable, "sonarqube-mcp-coalesced-request-deadlines");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.setRemoveOnCancelPolicy(true);
+    return scheduler;
+  }
+
+  private class InFlightRequest {
+    private final String key;
+    private final String url;
+    private final Supplier<CompletableFuture<HttpClient.Response>> request;
+    private final List<CoalescedCall> calls = new ArrayList<>();
+    @Nullable
+    private CompletableFuture<HttpClient.Response> source;
+    private boolean done;
+
+    private InFlightRequest(String key, String url, Supplier<CompletableFuture<HttpClient.Response>> request) {
+      this.key = key;
+      this.url = url;
+      this.request = request;
+    }
+
+    /**
+     * Returns null if the request already completed or was cancelled by all its callers, a new one has to be sent.
+     */
+    @CheckForNull
+    private CoalescedCall join() {
+      CompletableFuture<HttpClient.Response> sent = null;
+      var call = new CoalescedCall(this);
+      synchronized (this) {
+        if (done) {
+          return null;
+        }
+        if (source == null) {
+          source = Deadline.NONE.callWith(request);
+          sent = source;
+        }
+        calls.add(call);
+      }
+      // only listened to once the first call is registered, since the request can complete right away
+      if (sent != null) {
+        sent.whenComplete(this::dispatch);
+      }
+      var deadline = Deadline.current();
+      if (deadline.isBounded()) {
+        var timeout = DEADLINES.schedule(() -> ForkJoinPool.commonPool().execute(() -> {
+          if (call.completeExceptionally(new DeadlineExceededException(url, deadline.timeout()))) {
+            leave(call);
+          }
+        }), deadline.remaining().toNanos(), TimeUnit.NANOSECONDS);
+        // releases the call, and the response it holds, as soon as it completes
+        call.whenComplete((response, error) -> timeout.cancel(false));
+      }
+      return call;
+    }
+
+    private void dispatch(@Nullable HttpClient.Response response, @Nullable Throwable error) {
+      inFlightRequests.remove(key, this);
+      List<CoalescedCall> waitingCalls;
+      synchronized (this) {
+        done = true;
+        waitingCalls = calls.stream().filter(call -> !call.isDone()).toList();
+        calls.clear();
+      }
+      if (error != null) {
+        waitingCalls.forEach(call -> call.completeExceptionally(error));
+      } else if (waitingCalls.size() == 1) {
+        if (!waitingCalls.get(0).complete(response)) {
+          response.close();
+        }
+      } else if (waitingCalls.isEmpty()) {
+        response.close();
+      } else {
+        SharedResponse shared;
+        try {
+          shared = SharedResponse.read(response);
+        } catch (UncheckedIOException e) {
+          waitingCalls.forEach(call -> call.completeExceptionally(e.getCause()));
+          return;
+        }
+        waitingCalls.forEach(call -> call.complete(shared.newView()));
+      }
+    }
+
+    private void leave(CoalescedCall call) {
+      CompletableFuture<HttpClient.Response> cancelledSource = null;
+      synchronized (this) {
+        if (calls.remove(call) && calls.isEmpty() && !done) {
+          done = true;
+          cancelledSource = source;
+        }
+      }
+      if (cancelledSource != null) {
+        cancelledSource.cancel(true);
+      }
+    }
+  }
+
+  private static class CoalescedCall extends CompletableFuture<HttpClient.Response> {
+    private final InFlightRequest inFlightRequest;
+
+    private CoalescedCall(InFlightRequest inFlightRequest) {
+      this.inFlightRequest = inFlightRequest;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      var cancelled = super.cancel(mayInterruptIfRunning);
+      if (cancelled) {
+        inFlightRequest.leave(this);
+      }
+      return cancelled;
+    }
+
+    @Override
+    public <U> CompletableFuture<U> newIncompleteFuture() {
+      return new CancellationPropagatingFuture<>(this);
+    }
+  }
+
+  private record SharedResponse(HttpClient.Response response, byte[] body) {
+
+    private static SharedResponse read(HttpClient.Response response) {
+      try (response) {
+        return new SharedResponse(response, response.bodyAsStream().readAllBytes());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private HttpClient.Response newView() {
+      return new ResponseView(this);
+    }
+  }
+
+  private record ResponseView(SharedResponse shared) implements HttpClient.Response {
+
+    @Override
+    public int code() {
+      return shared.response.code();
+    }
+
+    @Override
+    public String bodyAsString() {
+      return new String(shared.body, charset(shared.response.header("Content-Type")));
+    }
+
+    @Override
+    public InputStream bodyAsStream() {
+      return new ByteArrayInputStream(shared.body);
+    }
+
+    @CheckForNull
+    @Override
+    public String header(String name) {
+      return shared.response.header(name);
+    }
+
+    @Override
+    public String url() {
+      return shared.response.url();
+    }
+
+    @Override
+    public boolean isTruncated() {
+      return shared.response.isTruncated();
+    }
+
+    @Override
+    public void close() {
+      // the body is shared with the other callers, and only released once none of them reference it
+    }
+  }
+
+  static Charset charset(@Nullable String contentType) {
+    if (contentType != null) {
+      for (var parameter : contentType.split(";")) {
+        var nameAndValue = parameter.trim().split("=", 2);
+        if (nameAndValue.length == 2 && "charset".equals(nameAndValue[0].trim().toLowerCase(Locale.ROOT))) {
+          try {
+            return Charset.forName(nameAndValue[1].trim().replace("\"", ""));
+          } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            // fall back to the default charset of JSON
+          }
+        }
+      }
+    }
+    return StandardCharsets.UTF_8;
+  }
+
+}
@@ -0,0 +1,273 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.http.HttpClient;
+import org.sonarsource.sonarqube.mcp.log.McpLogger;
+import org.sonarsource.sonarqube.mcp.serverapi.languages.LanguagesApi;
+import org.sonarsource.sonarqube.mcp.serverapi.metrics.MetricsApi;
+import org.sonarsource.sonarqube.mcp.serverapi.plugins.PluginsApi;
+import org.sonarsource.sonarqube.mcp.serverapi.qualitygates.QualityGatesApi;
+import org.sonarsource.sonarqube.mcp.serverapi.rules.RulesApi;
+
+/**
+ * Cache of the successful responses of the endpoints whose content rarely changes, shared by all the clients of the server.
+ * Entries are keyed by URL and by credential identity, since the response depends on the permissions of the user.
+ * <p>
+ * A response is served from memory during the time to live of its endpoint. After that, during the stale-while-revalidate window, it is
+ * still served right away while a background request refreshes it. Once too old, it is refreshed before being served.
+ * When the server sent an ETag or a Last-Modified date, refreshing is a conditional request, and a 304 answer reuses the cached body.
+ * <p>
+ * The least recently used entries are evicted once the cached bodies exceed the maximum size.
+ */
+public class ResponseCache {
+
+  private static final McpLogger LOG = McpLogger.getInstance();
+
+  public static final int DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+
+  static final Map<String, CachePolicy> DEFAULT_POLICIES = Map.of(
+    LanguagesApi.LIST_PATH, new CachePolicy(Duration.ofHours(1), Duration.ofDays(7)),
+    MetricsApi.SEARCH_PATH, new CachePolicy(Duration.ofHours(1), Duration.ofDays(7)),
+    RulesApi.SHOW_PATH, new CachePolicy(Duration.ofHours(1), Duration.ofDays(1)),
+    PluginsApi.INSTALLED_PLUGINS_PATH, new CachePolicy(Duration.ofMinutes(10), Duration.ofDays(1)),
+    QualityGatesApi.LIST_PATH, new CachePolicy(Duration.ofMinutes(5), Duration.ofHours(1)));
+
+  private static final int HTTP_OK = 200;
+  private static final int HTTP_NOT_MODIFIED = 304;
+  private static final String ETAG_HEADER = "ETag";
+  private static final String LAST_MODIFIED_HEADER = "Last-Modified";
+  /** Rough memory used by an entry besides its body and key */
+  private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+  private final long maxBytes;
+  private final Map<String, CachePolicy> policiesByPath;
+  private final LongSupplier nanoClock;
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final Set<String> revalidatingKeys = ConcurrentHashMap.newKeySet();
+  private long cachedBytes;
+
+  public ResponseCache(long maxBytes) {
+    this(maxBytes, DEFAULT_POLICIES, System::nanoTime);
+  }
+
+  ResponseCache(long maxBytes, Map<String, CachePolicy> policiesByPath, LongSupplier nanoClock) {
+    this.maxBytes = maxBytes;
+    this.policiesByPath = policiesByPath;
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * Returns the policy of the endpoint, or null if its responses must not be cached.
+   */
+  @CheckForNull
+  public CachePolicy getPolicy(String relativePath) {
+    var queryIndex = relativePath.indexOf('?');
+    return policiesByPath.get(queryIndex < 0 ? relativePath : relativePath.substring(0, queryIndex));
+  }
+
+  /**
+   * Identifies the credentials without keeping them as is in the keys of the cache.
+   */
+  public static String credentialIdentity(@Nullable String token) {
+    if (token == null) {
+      return "anonymous";
+    }
+    try {
+      var digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  /**
+   * Returns the cached response if it can be used, or fetches it.
+   * @param fetcher Sends the GET request with the given additional headers
+   */
+  public CompletableFuture<HttpClient.Response> getAsync(String credentialIdentity, String url, CachePolicy policy,
+    Function<Map<String, String>, CompletableFuture<HttpClient.Response>> fetcher) {
+    var key = credentialIdentity + " " + url;
+    var entry = getEntry(key);
+    if (entry != null) {
+      var age = nanoClock.getAsLong() - entry.storedAtNanos;
+      if (age <= policy.timeToLive().toNanos()) {
+        return CompletableFuture.completedFuture(entry.toResponse(url));
+      }
+      if (age <= policy.timeToLive().plus(policy.staleWhileRevalidate()).toNanos()) {
+        revalidateInBackground(key, url, entry, fetcher);
+        return CompletableFuture.completedFuture(entry.toResponse(url));
+      }
+    }
+    return fetch(key, url, entry, fetcher);
+  }
+
+  private void revalidateInBackground(String key, String url, Entry entry, Function<Map<String, String>, CompletableFuture<HttpClient.Response>> fetcher) {
+    if (revalidatingKeys.add(key)) {
+      fetch(key, url, entry, fetcher).whenComplete((response, error) -> {
+        revalidatingKeys.remove(key);
+        if (error != null) {
+          LOG.info("Unable to refresh the cached response of " + url + ": " + error.getMessage());
+        } else {
+          response.close();
+        }
+      });
+    }
+  }
+
+  private CompletableFuture<HttpClient.Response> fetch(String key, String url, @Nullable Entry entry,
+    Function<Map<String, String>, CompletableFuture<HttpClient.Response>> fetcher) {
+    var headers = entry == null ? Map.<String, String>of() : entry.conditionalHeaders();
+    return fetcher.apply(headers).thenApply(response -> {
+      if (entry != null && response.code() == HTTP_NOT_MODIFIED) {
+        response.close();
+        var refreshedEntry = new Entry(entry.body, firstNonNull(response.header(ETAG_HEADER), entry.etag),
+          firstNonNull(response.header(LAST_MODIFIED_HEADER), entry.lastModified), nanoClock.getAsLong());
+        putEntry(key, refreshedEntry);
+        return refreshedEntry.toResponse(url);
+      }
+      if (response.code() != HTTP_OK) {
+        // errors are never cached, and are handled by the caller
+        return response;
+      }
+      byte[] body;
+      try (response) {
+        body = response.bodyAsStream().readAllBytes();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      var newEntry = new Entry(body, response.header(ETAG_HEADER), response.header(LAST_MODIFIED_HEADER), nanoClock.getAsLong());
+      putEntry(key, newEntry);
+      return newEntry.toResponse(url);
+    });
+  }
+
+  @CheckForNull
+  private synchronized Entry getEntry(String key) {
+    return entries.get(key);
+  }
+
+  private synchronized void putEntry(String key, Entry entry) {
+    var size = sizeOf(key, entry);
+    var previousEntry = entries.remove(key);
+    if (previousEntry != null) {
+      cachedBytes -= sizeOf(key, previousEntry);
+    }
+    if (size > maxBytes) {
+      return;
+    }
+    entries.put(key, entry);
+    cachedBytes += size;
+    var iterator = entries.entrySet().iterator();
+    while (cachedBytes > maxBytes && iterator.hasNext()) {
+      var eldest = iterator.next();
+      iterator.remove();
+      cachedBytes -= sizeOf(eldest.getKey(), eldest.getValue());
+    }
+  }
+
+  synchronized long getCachedBytes() {
+    return cachedBytes;
+  }
+
+  synchronized int getSize() {
+    return entries.size();
+  }
+
+  private static long sizeOf(String key, Entry entry) {
+    return entry.body.length + 2L * key.length() + ENTRY_OVERHEAD_BYTES;
+  }
+
+  @CheckForNull
+  private static String firstNonNull(@Nullable String first, @Nullable String second) {
+    return first != null ? first : second;
+  }
+
+  private record Entry(byte[] body, @Nullable String etag, @Nullable String lastModified, long storedAtNanos) {
+
+    private Map<String, String> conditionalHeaders() {
+      var headers = new HashMap<String, String>();
+      if (etag != null) {
+        headers.put("If-None-Match", etag);
+      }
+      if (lastModified != null) {
+        headers.put("If-Modified-Since", lastModified);
+      }
+      return headers;
+    }
+
+    private HttpClient.Response toResponse(String url) {
+      return new CachedResponse(url, this);
+    }
+  }
+
+  private record CachedResponse(String url, Entry entry) implements HttpClient.Response {
+
+    @Override
+    public int code() {
+      return HTTP_OK;
+    }
+
+    @Override
+    public String bodyAsString() {
+      // the cached endpoints all answer JSON, which is always UTF-8 encoded
+      return new String(entry.body, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public InputStream bodyAsStream() {
+      return new ByteArrayInputStream(entry.body);
+    }
+
+    @CheckForNull
+    @Override
+    public String header(String name) {
+      if (ETAG_HEADER.equalsIgnoreCase(name)) {
+        return entry.etag;
+      }
+      if (LAST_MODIFIED_HEADER.equalsIgnoreCase(name)) {
+        return entry.lastModified;
+      }
+      return null;
+    }
+
+    @Override
+    public void close() {
+      // nothing to release
+    }
+  }
+
+}
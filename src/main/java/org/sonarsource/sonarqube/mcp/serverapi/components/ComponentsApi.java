@@ -16,7 +16,8 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.components;
 
-import com.google.gson.Gson;
+import java.util.concurrent.CompletableFuture;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.components.response.SearchResponse;
@@ -32,6 +33,10 @@ public class ComponentsApi {
   }
 
   public SearchResponse searchProjectsInMyOrg(int page) {
+    return ServerApiHelper.join(searchProjectsInMyOrgAsync(page));
+  }
+
+  public CompletableFuture<SearchResponse> searchProjectsInMyOrgAsync(int page) {
     var builder = new UrlBuilder(COMPONENTS_SEARCH_PATH)
       .addParam("p", Integer.toString(page));
     if (helper.getOrganization() != null) {
@@ -40,10 +45,11 @@ public class ComponentsApi {
       builder.addParam("qualifiers", "TRK");
     }
 
-    try (var response = helper.get(builder.build())) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, SearchResponse.class);
-    }
+    return helper.getAsync(builder.build()).thenApply(response -> {
+      try (response) {
+        return JsonCodec.fromJson(response, SearchResponse.class);
+      }
+    });
   }
 
 }
@@ -16,10 +16,11 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.enterprises;
 
-import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.enterprises.response.ListResponse;
@@ -37,22 +38,32 @@ public class EnterprisesApi {
   }
 
   public ListResponse listEnterprises(@Nullable String enterpriseKey) {
-    try (var response = helper.getApiSubdomain(buildEnterprisesPath(enterpriseKey))) {
-      // The API returns a direct array, not wrapped in an object
-      var responseStr = response.bodyAsString();
-      var enterpriseListType = new TypeToken<List<ListResponse.Enterprise>>(){}.getType();
-      List<ListResponse.Enterprise> enterprises = new Gson().fromJson(responseStr, enterpriseListType);
-      
-      return new ListResponse(enterprises);
-    }
+    return ServerApiHelper.join(listEnterprisesAsync(enterpriseKey));
+  }
+
+  public CompletableFuture<ListResponse> listEnterprisesAsync(@Nullable String enterpriseKey) {
+    return helper.getApiSubdomainAsync(buildEnterprisesPath(enterpriseKey)).thenApply(response -> {
+      try (response) {
+        // The API returns a direct array, not wrapped in an object
+        var enterprises = JsonCodec.fromJson(response, new TypeToken<List<ListResponse.Enterprise>>(){});
+
+        return new ListResponse(enterprises);
+      }
+    });
   }
 
   public PortfoliosResponse listPortfolios(@Nullable String enterpriseId, @Nullable String query, @Nullable Boolean favorite,
     @Nullable Boolean draft, @Nullable Integer pageIndex, @Nullable Integer pageSize) {
-    try (var response = helper.getApiSubdomain(buildPortfoliosPath(enterpriseId, query, favorite, draft, pageIndex, pageSize))) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, PortfoliosResponse.class);
-    }
+    return ServerApiHelper.join(listPortfoliosAsync(enterpriseId, query, favorite, draft, pageIndex, pageSize));
+  }
+
+  public CompletableFuture<PortfoliosResponse> listPortfoliosAsync(@Nullable String enterpriseId, @Nullable String query, @Nullable Boolean favorite,
+    @Nullable Boolean draft, @Nullable Integer pageIndex, @Nullable Integer pageSize) {
+    return helper.getApiSubdomainAsync(buildPortfoliosPath(enterpriseId, query, favorite, draft, pageIndex, pageSize)).thenApply(response -> {
+      try (response) {
+        return JsonCodec.fromJson(response, PortfoliosResponse.class);
+      }
+    });
   }
 
   private static String buildEnterprisesPath(@Nullable String enterpriseKey) {
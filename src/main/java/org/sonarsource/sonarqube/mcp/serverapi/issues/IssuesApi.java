@@ -16,9 +16,11 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.issues;
 
-import com.google.gson.Gson;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.http.HttpClient;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.issues.response.SearchResponse;
@@ -40,16 +42,25 @@ public class IssuesApi {
 
   public SearchResponse search(@Nullable List<String> projects, @Nullable String pullRequestId, @Nullable List<String> severities, @Nullable Integer page,
     @Nullable Integer pageSize) {
-    try (var response = helper.get(buildPath(projects, pullRequestId, severities, page, pageSize))) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, SearchResponse.class);
-    }
+    return ServerApiHelper.join(searchAsync(projects, pullRequestId, severities, page, pageSize));
+  }
+
+  public CompletableFuture<SearchResponse> searchAsync(@Nullable List<String> projects, @Nullable String pullRequestId, @Nullable List<String> severities,
+    @Nullable Integer page, @Nullable Integer pageSize) {
+    return helper.getAsync(buildPath(projects, pullRequestId, severities, page, pageSize)).thenApply(response -> {
+      try (response) {
+        return JsonCodec.fromJson(response, SearchResponse.class);
+      }
+    });
   }
 
   public void doTransition(String issueKey, Transition transition) {
+    ServerApiHelper.join(doTransitionAsync(issueKey, transition));
+  }
+
+  public CompletableFuture<Void> doTransitionAsync(String issueKey, Transition transition) {
     var body = "issue=" + urlEncode(issueKey) + "&transition=" + urlEncode(transition.getStatus());
-    var response = helper.post("/api/issues/do_transition", FORM_URL_ENCODED_CONTENT_TYPE, body);
-    response.close();
+    return helper.postAsync("/api/issues/do_transition", FORM_URL_ENCODED_CONTENT_TYPE, body).thenAccept(HttpClient.Response::close);
   }
 
   private String buildPath(@Nullable List<String> projects, @Nullable String pullRequestId, @Nullable List<String> severities, @Nullable Integer page, @Nullable Integer pageSize) {
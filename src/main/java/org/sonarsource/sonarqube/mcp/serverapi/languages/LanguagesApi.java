@@ -16,8 +16,9 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.languages;
 
-import com.google.gson.Gson;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.languages.response.ListResponse;
@@ -33,10 +34,15 @@ public class LanguagesApi {
   }
 
   public ListResponse list(@Nullable String query) {
-    try (var response = helper.get(buildListPath(query))) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, ListResponse.class);
-    }
+    return ServerApiHelper.join(listAsync(query));
+  }
+
+  public CompletableFuture<ListResponse> listAsync(@Nullable String query) {
+    return helper.getAsync(buildListPath(query)).thenApply(response -> {
+      try (response) {
+        return JsonCodec.fromJson(response, ListResponse.class);
+      }
+    });
   }
 
   private static String buildListPath(@Nullable String query) {
@@ -16,9 +16,16 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.measures;
 
-import com.google.gson.Gson;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
+import org.sonarsource.sonarlint.core.serverapi.proto.sonarqube.ws.Common;
+import org.sonarsource.sonarlint.core.serverapi.proto.sonarqube.ws.Measures;
+import org.sonarsource.sonarqube.mcp.http.HttpClient;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.measures.response.ComponentMeasuresResponse;
@@ -35,10 +42,59 @@ public class MeasuresApi {
 
   public ComponentMeasuresResponse getComponentMeasures(@Nullable String component, @Nullable String branch,
     @Nullable List<String> metricKeys, @Nullable String pullRequest) {
-    try (var response = helper.get(buildPath(component, branch, metricKeys, pullRequest))) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, ComponentMeasuresResponse.class);
+    return ServerApiHelper.join(getComponentMeasuresAsync(component, branch, metricKeys, pullRequest));
+  }
+
+  public CompletableFuture<ComponentMeasuresResponse> getComponentMeasuresAsync(@Nullable String component, @Nullable String branch,
+    @Nullable List<String> metricKeys, @Nullable String pullRequest) {
+    return helper.getProtobufAsync(buildPath(component, branch, metricKeys, pullRequest)).thenApply(response -> {
+      try (response) {
+        return ServerApiHelper.isProtobuf(response) ? parseProtobuf(response) : JsonCodec.fromJson(response, ComponentMeasuresResponse.class);
+      }
+    });
+  }
+
+  private static ComponentMeasuresResponse parseProtobuf(HttpClient.Response response) {
+    Measures.ComponentWsResponse wsResponse;
+    try (var body = response.bodyAsStream()) {
+      wsResponse = Measures.ComponentWsResponse.parseFrom(body);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to read the response of " + response.url(), e);
     }
+    var component = wsResponse.hasComponent() ? toComponent(wsResponse.getComponent()) : null;
+    var metrics = wsResponse.getMetrics().getMetricsList().stream().map(MeasuresApi::toMetric).toList();
+    var periods = wsResponse.getPeriods().getPeriodsList().stream()
+      .map(period -> new ComponentMeasuresResponse.Period(period.getIndex(), valueOrNull(period.hasMode(), period.getMode()),
+        valueOrNull(period.hasDate(), period.getDate()), valueOrNull(period.hasParameter(), period.getParameter())))
+      .toList();
+    return new ComponentMeasuresResponse(component, metrics, periods);
+  }
+
+  private static ComponentMeasuresResponse.Component toComponent(Measures.Component component) {
+    var measures = component.getMeasuresList().stream()
+      .map(measure -> new ComponentMeasuresResponse.Measure(valueOrNull(measure.hasMetric(), measure.getMetric()),
+        valueOrNull(measure.hasValue(), measure.getValue()),
+        // the protobuf format only has the value on the new code period, not the deprecated list of periods
+        measure.hasPeriod() ? List.of(new ComponentMeasuresResponse.MeasurePeriod(measure.getPeriod().getIndex(), measure.getPeriod().getValue(),
+          measure.getPeriod().getBestValue())) : null))
+      .toList();
+    return new ComponentMeasuresResponse.Component(valueOrNull(component.hasKey(), component.getKey()), valueOrNull(component.hasName(), component.getName()),
+      valueOrNull(component.hasQualifier(), component.getQualifier()), valueOrNull(component.hasLanguage(), component.getLanguage()),
+      valueOrNull(component.hasPath(), component.getPath()), measures);
+  }
+
+  private static ComponentMeasuresResponse.Metric toMetric(Common.Metric metric) {
+    return new ComponentMeasuresResponse.Metric(valueOrNull(metric.hasKey(), metric.getKey()), valueOrNull(metric.hasName(), metric.getName()),
+      valueOrNull(metric.hasDescription(), metric.getDescription()), valueOrNull(metric.hasDomain(), metric.getDomain()),
+      valueOrNull(metric.hasType(), metric.getType()), metric.getHigherValuesAreBetter(), metric.getQualitative(), metric.getHidden(), metric.getCustom());
+  }
+
+  /**
+   * Absent protobuf fields have a default value, while absent JSON fields are null
+   */
+  @CheckForNull
+  private static String valueOrNull(boolean present, String value) {
+    return present ? value : null;
   }
 
   private static String buildPath(@Nullable String component, @Nullable String branch, 
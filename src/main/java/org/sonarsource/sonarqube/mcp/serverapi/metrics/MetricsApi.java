@@ -16,8 +16,9 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.metrics;
 
-import com.google.gson.Gson;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.metrics.response.SearchMetricsResponse;
@@ -33,10 +34,15 @@ public class MetricsApi {
   }
 
   public SearchMetricsResponse searchMetrics(@Nullable Integer page, @Nullable Integer pageSize) {
-    try (var response = helper.get(buildSearchPath(page, pageSize))) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, SearchMetricsResponse.class);
-    }
+    return ServerApiHelper.join(searchMetricsAsync(page, pageSize));
+  }
+
+  public CompletableFuture<SearchMetricsResponse> searchMetricsAsync(@Nullable Integer page, @Nullable Integer pageSize) {
+    return helper.getAsync(buildSearchPath(page, pageSize)).thenApply(response -> {
+      try (response) {
+        return JsonCodec.fromJson(response, SearchMetricsResponse.class);
+      }
+    });
   }
 
   private static String buildSearchPath(@Nullable Integer page, @Nullable Integer pageSize) {
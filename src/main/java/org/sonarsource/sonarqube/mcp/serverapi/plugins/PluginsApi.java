@@ -16,8 +16,10 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.plugins;
 
-import com.google.gson.Gson;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
 import org.sonarsource.sonarqube.mcp.http.HttpClient;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.plugins.response.InstalledPluginsResponse;
 
@@ -33,15 +35,28 @@ public class PluginsApi {
   }
 
   public InstalledPluginsResponse getInstalled() {
-    try (var response = helper.get(INSTALLED_PLUGINS_PATH)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, InstalledPluginsResponse.class);
-    }
+    return ServerApiHelper.join(getInstalledAsync());
   }
 
-  public HttpClient.Response downloadPlugin(String pluginKey) {
+  public CompletableFuture<InstalledPluginsResponse> getInstalledAsync() {
+    return helper.getAsync(INSTALLED_PLUGINS_PATH).thenApply(response -> {
+      try (response) {
+        return JsonCodec.fromJson(response, InstalledPluginsResponse.class);
+      }
+    });
+  }
+
+  /**
+   * Streams the plugin to the destination file as it is received, without holding it in memory.
+   * The status of the returned response is not checked, the destination is only written when the download is successful.
+   */
+  public HttpClient.Response downloadPlugin(String pluginKey, Path destination, long maxPluginSize) {
+    return ServerApiHelper.join(downloadPluginAsync(pluginKey, destination, maxPluginSize));
+  }
+
+  public CompletableFuture<HttpClient.Response> downloadPluginAsync(String pluginKey, Path destination, long maxPluginSize) {
     var downloadPath = DOWNLOAD_PLUGINS_PATH + "?plugin=" + pluginKey;
-    return helper.rawGet(downloadPath);
+    return helper.rawGetToFileAsync(downloadPath, destination, maxPluginSize);
   }
 
 }
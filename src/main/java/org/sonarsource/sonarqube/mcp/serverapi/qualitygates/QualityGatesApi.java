@@ -16,8 +16,9 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.qualitygates;
 
-import com.google.gson.Gson;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.qualitygates.response.ListResponse;
@@ -36,10 +37,16 @@ public class QualityGatesApi {
 
   public ProjectStatusResponse getProjectQualityGateStatus(@Nullable String analysisId, @Nullable String branchKey,
     @Nullable String projectId, @Nullable String projectKey, @Nullable String pullRequest) {
-    try (var response = helper.get(buildStatusPath(analysisId, branchKey, projectId, projectKey, pullRequest))) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, ProjectStatusResponse.class);
-    }
+    return ServerApiHelper.join(getProjectQualityGateStatusAsync(analysisId, branchKey, projectId, projectKey, pullRequest));
+  }
+
+  public CompletableFuture<ProjectStatusResponse> getProjectQualityGateStatusAsync(@Nullable String analysisId, @Nullable String branchKey,
+    @Nullable String projectId, @Nullable String projectKey, @Nullable String pullRequest) {
+    return helper.getAsync(buildStatusPath(analysisId, branchKey, projectId, projectKey, pullRequest)).thenApply(response -> {
+      try (response) {
+        return JsonCodec.fromJson(response, ProjectStatusResponse.class);
+      }
+    });
   }
 
   private static String buildStatusPath(@Nullable String analysisId, @Nullable String branchKey,
@@ -54,10 +61,15 @@ public class QualityGatesApi {
   }
 
   public ListResponse list() {
-    try (var response = helper.get(buildListPath(helper.getOrganization()))) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, ListResponse.class);
-    }
+    return ServerApiHelper.join(listAsync());
+  }
+
+  public CompletableFuture<ListResponse> listAsync() {
+    return helper.getAsync(buildListPath(helper.getOrganization())).thenApply(response -> {
+      try (response) {
+        return JsonCodec.fromJson(response, ListResponse.class);
+      }
+    });
   }
 
   private static String buildListPath(@Nullable String organization) {
@@ -16,8 +16,9 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.qualityprofiles;
 
-import com.google.gson.Gson;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.qualityprofiles.response.SearchResponse;
@@ -33,6 +34,10 @@ public class QualityProfilesApi {
   }
 
   public SearchResponse getQualityProfiles(@Nullable String projectKey) {
+    return ServerApiHelper.join(getQualityProfilesAsync(projectKey));
+  }
+
+  public CompletableFuture<SearchResponse> getQualityProfilesAsync(@Nullable String projectKey) {
     var url = new UrlBuilder(SEARCH_PATH);
     url.addParam("organization", helper.getOrganization());
     if (projectKey != null) {
@@ -40,10 +45,11 @@ public class QualityProfilesApi {
     } else {
       url.addParam("defaults", "true");
     }
-    try (var response = helper.get(url.build())) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, SearchResponse.class);
-    }
+    return helper.getAsync(url.build()).thenApply(response -> {
+      try (response) {
+        return JsonCodec.fromJson(response, SearchResponse.class);
+      }
+    });
   }
 
 }
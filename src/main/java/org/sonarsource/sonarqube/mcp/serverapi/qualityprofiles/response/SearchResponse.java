@@ -17,10 +17,11 @@
 package org.sonarsource.sonarqube.mcp.serverapi.qualityprofiles.response;
 
 import java.util.List;
+import javax.annotation.Nullable;
 
 public record SearchResponse(List<QualityProfile> profiles) {
 
-  public record QualityProfile(String key) {
+  public record QualityProfile(String key, @Nullable String rulesUpdatedAt, @Nullable String lastUsed) {
   }
 
 }
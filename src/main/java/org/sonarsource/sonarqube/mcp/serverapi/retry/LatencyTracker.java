@@ -0,0 +1,56 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi.retry;
+
+import java.time.Duration;
+import java.util.Arrays;
+import javax.annotation.CheckForNull;
+
+/**
+ * Keeps the latest request latencies to compute their percentiles.
+ */
+class LatencyTracker {
+
+  private static final int WINDOW_SIZE = 256;
+  static final int MIN_SAMPLES = 20;
+
+  private final long[] latenciesNanos = new long[WINDOW_SIZE];
+  private long count;
+
+  synchronized void record(Duration latency) {
+    latenciesNanos[(int) (count % WINDOW_SIZE)] = latency.toNanos();
+    count++;
+  }
+
+  /**
+   * Returns null until enough latencies were recorded for the percentile to be meaningful.
+   */
+  @CheckForNull
+  Duration percentile(double percentile) {
+    long[] samples;
+    synchronized (this) {
+      if (count < MIN_SAMPLES) {
+        return null;
+      }
+      samples = Arrays.copyOf(latenciesNanos, (int) Math.min(count, WINDOW_SIZE));
+    }
+    Arrays.sort(samples);
+    var index = (int) Math.ceil(percentile / 100 * samples.length) - 1;
+    return Duration.ofNanos(samples[Math.max(index, 0)]);
+  }
+
+}
@@ -0,0 +1,280 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi.retry;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.http.CancellationPropagatingFuture;
+import org.sonarsource.sonarqube.mcp.http.Deadline;
+import org.sonarsource.sonarqube.mcp.http.DeadlineExceededException;
+import org.sonarsource.sonarqube.mcp.http.EndpointTable;
+import org.sonarsource.sonarqube.mcp.http.HttpClient;
+import org.sonarsource.sonarqube.mcp.http.RequestQueueTimeoutException;
+import org.sonarsource.sonarqube.mcp.http.ResponseTooLargeException;
+import org.sonarsource.sonarqube.mcp.log.McpLogger;
+
+/**
+ * Retries idempotent requests that failed with a transient error: a 429 from a rate limiter, a 502, 503 or 504 from a proxy or a restarting
+ * node, or an I/O error. Retries wait for a random delay growing exponentially (full jitter), or for the delay asked by the Retry-After
+ * header, within the retry budget of the policy.
+ * When hedging is enabled, a duplicate request is sent if the first one is slower than the 95th percentile of the latencies of its endpoint,
+ * and the first response that can't be retried is kept.
+ * The retries of a request sent during a call with a {@link Deadline} are sent with the same deadline, and are given up when they can't
+ * complete in time. The retry budget is then shared by all the requests of the call.
+ */
+public class RequestRetrier {
+
+  private static final McpLogger LOG = McpLogger.getInstance();
+  private static final Set<Integer> RETRYABLE_STATUSES = Set.of(429, 502, 503, 504);
+  private static final double HEDGING_PERCENTILE = 95;
+  private static final int MAX_TRACKED_ENDPOINTS = 256;
+
+  private final RetryPolicy policy;
+  private final EndpointTable<LatencyTracker> latenciesByEndpoint = new EndpointTable<>(MAX_TRACKED_ENDPOINTS, endpoint -> new LatencyTracker());
+
+  public RequestRetrier(RetryPolicy policy) {
+    this.policy = policy;
+  }
+
+  /**
+   * @param url The URL of the request, its latencies are tracked per endpoint to decide when to hedge it
+   * @param request Sends the request again each time it is called
+   */
+  public CompletableFuture<HttpClient.Response> executeAsync(String url, Supplier<CompletableFuture<HttpClient.Response>> request) {
+    if (policy.maxAttempts() <= 1 && !policy.isHedgingEnabled()) {
+      return request.get();
+    }
+    var deadline = Deadline.current();
+    var call = new RetriedCall(() -> deadline.callWith(request), latencies(url), deadline);
+    call.attempt(1);
+    return call;
+  }
+
+  LatencyTracker latencies(String url) {
+    return latenciesByEndpoint.get(url);
+  }
+
+  private class RetriedCall extends CompletableFuture<HttpClient.Response> {
+    private final Supplier<CompletableFuture<HttpClient.Response>> request;
+    private final LatencyTracker latencies;
+    private final Deadline deadline;
+    private volatile CompletableFuture<HttpClient.Response> currentAttempt;
+    private Duration waited = Duration.ZERO;
+
+    private RetriedCall(Supplier<CompletableFuture<HttpClient.Response>> request, LatencyTracker latencies, Deadline deadline) {
+      this.request = request;
+      this.latencies = latencies;
+      this.deadline = deadline;
+    }
+
+    private void attempt(int attemptNumber) {
+      if (isDone()) {
+        return;
+      }
+      var attempt = policy.isHedgingEnabled() ? sendHedged(request, latencies) : sendMeasured(request, latencies);
+      currentAttempt = attempt;
+      attempt.whenComplete((response, error) -> {
+        if (isDone()) {
+          closeQuietly(response);
+          return;
+        }
+        var delay = retryDelay(attemptNumber, response, error);
+        if (delay == null) {
+          if (error != null) {
+            completeExceptionally(error);
+          } else {
+            complete(response);
+          }
+          return;
+        }
+        LOG.info("Retrying request in " + delay.toMillis() + " ms after " + (error != null ? ("error: " + unwrap(error).getMessage()) :
+          ("status " + response.code() + " from " + response.url())));
+        closeQuietly(response);
+        CompletableFuture.delayedExecutor(delay.toMillis(), TimeUnit.MILLISECONDS).execute(() -> attempt(attemptNumber + 1));
+      });
+    }
+
+    @CheckForNull
+    private Duration retryDelay(int attemptNumber, @Nullable HttpClient.Response response, @Nullable Throwable error) {
+      if (attemptNumber >= policy.maxAttempts() || !isRetryable(response, error)) {
+        return null;
+      }
+      var retryAfter = response == null ? null : parseRetryAfter(response.header("Retry-After"));
+      var delay = retryAfter != null ? retryAfter : backoff(attemptNumber);
+      return reserveWait(delay) ? delay : null;
+    }
+
+    /**
+     * During a tool call the retry budget is shared by all the requests of the call, otherwise it applies to this request only.
+     */
+    private boolean reserveWait(Duration delay) {
+      if (deadline.isBounded()) {
+        return deadline.tryReserveRetryWait(delay, policy.retryBudget());
+      }
+      if (waited.plus(delay).compareTo(policy.retryBudget()) > 0) {
+        return false;
+      }
+      waited = waited.plus(delay);
+      return true;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      var cancelled = super.cancel(mayInterruptIfRunning);
+      var attempt = currentAttempt;
+      if (attempt != null) {
+        attempt.cancel(mayInterruptIfRunning);
+      }
+      return cancelled;
+    }
+
+    @Override
+    public <U> CompletableFuture<U> newIncompleteFuture() {
+      return new CancellationPropagatingFuture<>(this);
+    }
+  }
+
+  private static CompletableFuture<HttpClient.Response> sendMeasured(Supplier<CompletableFuture<HttpClient.Response>> request, LatencyTracker latencies) {
+    var start = System.nanoTime();
+    var attempt = request.get();
+    attempt.thenRun(() -> latencies.record(Duration.ofNanos(System.nanoTime() - start)));
+    return attempt;
+  }
+
+  private CompletableFuture<HttpClient.Response> sendHedged(Supplier<CompletableFuture<HttpClient.Response>> request, LatencyTracker latencies) {
+    var race = new HedgedAttempt();
+    race.send(sendMeasured(request, latencies));
+    var percentile = latencies.percentile(HEDGING_PERCENTILE);
+    var hedgingDelay = percentile == null || percentile.compareTo(policy.minHedgingDelay()) < 0 ? policy.minHedgingDelay() : percentile;
+    CompletableFuture.delayedExecutor(hedgingDelay.toNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+      if (!race.isDone()) {
+        race.send(sendMeasured(request, latencies));
+      }
+    });
+    return race;
+  }
+
+  /**
+   * Completes with the first response received that can't be retried, the other requests are cancelled. A transient error (e.g. a 503) doesn't
+   * win the race while another request is still running, since the other one may still succeed.
+   * It only completes with a transient error if all the requests ended with one, the last one is kept.
+   */
+  private static class HedgedAttempt extends CompletableFuture<HttpClient.Response> {
+    private final List<CompletableFuture<HttpClient.Response>> requests = new CopyOnWriteArrayList<>();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicBoolean hasWinner = new AtomicBoolean();
+
+    private void send(CompletableFuture<HttpClient.Response> sent) {
+      running.incrementAndGet();
+      requests.add(sent);
+      sent.whenComplete((response, error) -> {
+        var isLast = running.decrementAndGet() == 0;
+        if (!isRetryable(response, error) && hasWinner.compareAndSet(false, true)) {
+          // cancel the other requests before the caller gets the response
+          requests.stream().filter(other -> other != sent).forEach(other -> other.cancel(true));
+          completeWith(response, error);
+        } else if (isLast && !hasWinner.get()) {
+          completeWith(response, error);
+        } else {
+          closeQuietly(response);
+        }
+      });
+    }
+
+    private void completeWith(@Nullable HttpClient.Response response, @Nullable Throwable error) {
+      if (error != null) {
+        completeExceptionally(error);
+      } else if (!complete(response)) {
+        closeQuietly(response);
+      }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      var cancelled = super.cancel(mayInterruptIfRunning);
+      requests.forEach(request -> request.cancel(mayInterruptIfRunning));
+      return cancelled;
+    }
+  }
+
+  private static boolean isRetryable(@Nullable HttpClient.Response response, @Nullable Throwable error) {
+    if (error != null) {
+      var cause = unwrap(error);
+      // a request that timed out in the queue of the concurrency limiter was not sent, the server is already too busy
+      return cause instanceof IOException && !(cause instanceof ResponseTooLargeException) && !(cause instanceof RequestQueueTimeoutException)
+        && !(cause instanceof DeadlineExceededException);
+    }
+    return response != null && RETRYABLE_STATUSES.contains(response.code());
+  }
+
+  private Duration backoff(int attemptNumber) {
+    var maxDelayMillis = Math.min(policy.maxBackoff().toMillis(), policy.initialBackoff().toMillis() << Math.min(attemptNumber - 1, 30));
+    return Duration.ofMillis(ThreadLocalRandom.current().nextLong(maxDelayMillis + 1));
+  }
+
+  /**
+   * The Retry-After header is either a number of seconds or an HTTP date.
+   */
+  @CheckForNull
+  static Duration parseRetryAfter(@Nullable String retryAfter) {
+    if (retryAfter == null || retryAfter.isBlank()) {
+      return null;
+    }
+    try {
+      return Duration.ofSeconds(Math.max(0, Long.parseLong(retryAfter.trim())));
+    } catch (NumberFormatException e) {
+      // not a number of seconds
+    }
+    try {
+      var delay = Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+      return delay.isNegative() ? Duration.ZERO : delay;
+    } catch (DateTimeParseException e) {
+      return null;
+    }
+  }
+
+  private static Throwable unwrap(Throwable error) {
+    var cause = error;
+    while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    return cause;
+  }
+
+  private static void closeQuietly(@Nullable HttpClient.Response response) {
+    if (response != null) {
+      response.close();
+    }
+  }
+
+}
@@ -0,0 +1,46 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi.retry;
+
+import java.time.Duration;
+
+/**
+ * How idempotent GET requests are retried when they fail with a transient error, and optionally hedged.
+ * @param maxAttempts Maximum number of attempts of a request, the first one included, 1 disables retries
+ * @param initialBackoff Upper bound of the random delay before the first retry, doubled for each following retry
+ * @param maxBackoff Upper bound of the random delay between two attempts
+ * @param retryBudget Maximum total time spent waiting before retries, shared by all the requests of a tool call, a Retry-After asking to
+ *                    wait longer fails right away
+ * @param isHedgingEnabled Whether a duplicate request is sent when the first one is slower than the 95th percentile of the latencies measured
+ *                         for its endpoint
+ * @param minHedgingDelay Lower bound of the delay before sending the duplicate request, used as is until enough latencies were measured
+ */
+public record RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff, Duration retryBudget, boolean isHedgingEnabled,
+  Duration minHedgingDelay) {
+
+  public static final int DEFAULT_MAX_ATTEMPTS = 3;
+  public static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofMillis(200);
+  public static final Duration DEFAULT_MAX_BACKOFF = Duration.ofSeconds(5);
+  public static final Duration DEFAULT_RETRY_BUDGET = Duration.ofSeconds(10);
+  public static final Duration DEFAULT_MIN_HEDGING_DELAY = Duration.ofMillis(500);
+
+  public static final RetryPolicy DEFAULT = new RetryPolicy(DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF, DEFAULT_MAX_BACKOFF, DEFAULT_RETRY_BUDGET,
+    false, DEFAULT_MIN_HEDGING_DELAY);
+
+  public static final RetryPolicy NONE = new RetryPolicy(1, DEFAULT_INITIAL_BACKOFF, DEFAULT_MAX_BACKOFF, Duration.ZERO, false, DEFAULT_MIN_HEDGING_DELAY);
+
+}
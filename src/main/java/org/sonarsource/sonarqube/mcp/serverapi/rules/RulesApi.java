@@ -16,8 +16,9 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.rules;
 
-import com.google.gson.Gson;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.rules.response.RepositoriesResponse;
@@ -39,10 +40,15 @@ public class RulesApi {
   }
 
   public ShowResponse showRule(String ruleKey) {
-    try (var response = helper.get(buildPath(ruleKey))) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, ShowResponse.class);
-    }
+    return ServerApiHelper.join(showRuleAsync(ruleKey));
+  }
+
+  public CompletableFuture<ShowResponse> showRuleAsync(String ruleKey) {
+    return helper.getAsync(buildPath(ruleKey)).thenApply(response -> {
+      try (response) {
+        return JsonCodec.fromJson(response, ShowResponse.class);
+      }
+    });
   }
 
   private String buildPath(String ruleKey) {
@@ -53,10 +59,15 @@ public class RulesApi {
   }
 
   public RepositoriesResponse getRepositories(@Nullable String language, @Nullable String query) {
-    try (var response = helper.get(buildRepositoriesPath(language, query))) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, RepositoriesResponse.class);
-    }
+    return ServerApiHelper.join(getRepositoriesAsync(language, query));
+  }
+
+  public CompletableFuture<RepositoriesResponse> getRepositoriesAsync(@Nullable String language, @Nullable String query) {
+    return helper.getAsync(buildRepositoriesPath(language, query)).thenApply(response -> {
+      try (response) {
+        return JsonCodec.fromJson(response, RepositoriesResponse.class);
+      }
+    });
   }
 
   private static String buildRepositoriesPath(@Nullable String language, @Nullable String query) {
@@ -67,6 +78,10 @@ public class RulesApi {
   }
 
   public SearchResponse search(String qualityProfileKey, int page) {
+    return ServerApiHelper.join(searchAsync(qualityProfileKey, page));
+  }
+
+  public CompletableFuture<SearchResponse> searchAsync(String qualityProfileKey, int page) {
     var url = new UrlBuilder(SEARCH_PATH)
       .addParam("qprofile", qualityProfileKey)
       .addParam("organization", helper.getOrganization())
@@ -74,9 +89,10 @@ public class RulesApi {
       .addParam("f", "templateKey,actives")
       .addParam("p", page)
       .build();
-    try (var response = helper.get(url)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, SearchResponse.class);
-    }
+    return helper.getAsync(url).thenApply(response -> {
+      try (response) {
+        return JsonCodec.fromJson(response, SearchResponse.class);
+      }
+    });
   }
 }
@@ -16,8 +16,9 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.sca;
 
-import com.google.gson.Gson;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.sca.response.DependencyRisksResponse;
@@ -35,23 +36,35 @@ public class ScaApi {
   }
 
   public FeatureEnabledResponse getFeatureEnabled() {
+    return ServerApiHelper.join(getFeatureEnabledAsync());
+  }
+
+  public CompletableFuture<FeatureEnabledResponse> getFeatureEnabledAsync() {
     var organization = helper.getOrganization();
     var path = new UrlBuilder(FEATURE_ENABLED_PATH)
       .addParam("organization", organization)
       .build();
-    try (var response = organization == null ? helper.get("/api/v2" + path) : helper.getApiSubdomain(path)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, FeatureEnabledResponse.class);
-    }
+    var responseFuture = organization == null ? helper.getAsync("/api/v2" + path) : helper.getApiSubdomainAsync(path);
+    return responseFuture.thenApply(response -> {
+      try (response) {
+        return JsonCodec.fromJson(response, FeatureEnabledResponse.class);
+      }
+    });
   }
 
   public DependencyRisksResponse getDependencyRisks(String projectKey, @Nullable String branchKey, @Nullable String pullRequestKey) {
+    return ServerApiHelper.join(getDependencyRisksAsync(projectKey, branchKey, pullRequestKey));
+  }
+
+  public CompletableFuture<DependencyRisksResponse> getDependencyRisksAsync(String projectKey, @Nullable String branchKey, @Nullable String pullRequestKey) {
     var organization = helper.getOrganization();
     var path = buildPath(projectKey, branchKey, pullRequestKey);
-    try (var response = organization == null ? helper.get("/api/v2" + path) : helper.getApiSubdomain(path)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, DependencyRisksResponse.class);
-    }
+    var responseFuture = organization == null ? helper.getAsync("/api/v2" + path) : helper.getApiSubdomainAsync(path);
+    return responseFuture.thenApply(response -> {
+      try (response) {
+        return JsonCodec.fromJson(response, DependencyRisksResponse.class);
+      }
+    });
   }
 
   private static String buildPath(String projectKey, @Nullable String branchKey, @Nullable String pullRequestKey) {
@@ -16,8 +16,9 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.sources;
 
-import com.google.gson.Gson;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.sources.response.ScmResponse;
@@ -34,18 +35,28 @@ public class SourcesApi {
   }
 
   public String getRawSource(String key, @Nullable String branch, @Nullable String pullRequest) {
+    return ServerApiHelper.join(getRawSourceAsync(key, branch, pullRequest));
+  }
+
+  public CompletableFuture<String> getRawSourceAsync(String key, @Nullable String branch, @Nullable String pullRequest) {
     var url = new UrlBuilder(SOURCES_RAW_PATH)
       .addParam("key", key)
       .addParam("branch", branch)
       .addParam("pullRequest", pullRequest)
       .build();
 
-    try (var response = helper.get(url)) {
-      return response.bodyAsString();
-    }
+    return helper.getAsync(url).thenApply(response -> {
+      try (response) {
+        return response.bodyAsString();
+      }
+    });
   }
 
   public ScmResponse getScmInfo(String key, @Nullable Boolean commitsByLine, @Nullable Integer from, @Nullable Integer to) {
+    return ServerApiHelper.join(getScmInfoAsync(key, commitsByLine, from, to));
+  }
+
+  public CompletableFuture<ScmResponse> getScmInfoAsync(String key, @Nullable Boolean commitsByLine, @Nullable Integer from, @Nullable Integer to) {
     var url = new UrlBuilder(SOURCES_SCM_PATH)
       .addParam("key", key)
       .addParam("commits_by_line", commitsByLine)
@@ -53,10 +64,11 @@ public class SourcesApi {
       .addParam("to", to)
       .build();
 
-    try (var response = helper.get(url)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, ScmResponse.class);
-    }
+    return helper.getAsync(url).thenApply(response -> {
+      try (response) {
+        return JsonCodec.fromJson(response, ScmResponse.class);
+      }
+    });
   }
 
 }
@@ -16,8 +16,9 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.system;
 
-import com.google.gson.Gson;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.system.response.HealthResponse;
@@ -39,36 +40,75 @@ public class SystemApi {
   }
 
   public HealthResponse getHealth() {
-    try (var response = helper.get(HEALTH_PATH)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, HealthResponse.class);
-    }
+    return ServerApiHelper.join(getHealthAsync());
+  }
+
+  public CompletableFuture<HealthResponse> getHealthAsync() {
+    return helper.getAsync(HEALTH_PATH).thenApply(response -> {
+      try (response) {
+        return JsonCodec.fromJson(response, HealthResponse.class);
+      }
+    });
   }
 
   public InfoResponse getInfo() {
-    try (var response = helper.get(INFO_PATH)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, InfoResponse.class);
-    }
+    return ServerApiHelper.join(getInfoAsync());
   }
 
-  public String getLogs(@Nullable String name) {
-    try (var response = helper.get(buildLogsPath(name))) {
-      return response.bodyAsString();
-    }
+  public CompletableFuture<InfoResponse> getInfoAsync() {
+    return helper.getAsync(INFO_PATH).thenApply(response -> {
+      try (response) {
+        return JsonCodec.fromJson(response, InfoResponse.class);
+      }
+    });
+  }
+
+  public Logs getLogs(@Nullable String name, long maxBytes) {
+    return ServerApiHelper.join(getLogsAsync(name, maxBytes));
+  }
+
+  /**
+   * Only the last bytes of the logs are kept when they are bigger than the maximum size, since the latest lines are usually the ones of interest.
+   * In that case, the first partial line is dropped.
+   */
+  public CompletableFuture<Logs> getLogsAsync(@Nullable String name, long maxBytes) {
+    return helper.getTailAsync(buildLogsPath(name), maxBytes).thenApply(response -> {
+      try (response) {
+        var logs = response.bodyAsString();
+        if (!response.isTruncated()) {
+          return new Logs(logs, false);
+        }
+        var firstNewline = logs.indexOf('\n');
+        return new Logs(firstNewline < 0 ? logs : logs.substring(firstNewline + 1), true);
+      }
+    });
+  }
+
+  public record Logs(String content, boolean isTruncated) {
   }
 
   public String getPing() {
-    try (var response = helper.getAnonymous(PING_PATH)) {
-      return response.bodyAsString();
-    }
+    return ServerApiHelper.join(getPingAsync());
+  }
+
+  public CompletableFuture<String> getPingAsync() {
+    return helper.getAnonymousAsync(PING_PATH).thenApply(response -> {
+      try (response) {
+        return response.bodyAsString();
+      }
+    });
   }
 
   public StatusResponse getStatus() {
-    try (var response = helper.getAnonymous(STATUS_PATH)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, StatusResponse.class);
-    }
+    return ServerApiHelper.join(getStatusAsync());
+  }
+
+  public CompletableFuture<StatusResponse> getStatusAsync() {
+    return helper.getAnonymousAsync(STATUS_PATH).thenApply(response -> {
+      try (response) {
+        return JsonCodec.fromJson(response, StatusResponse.class);
+      }
+    });
   }
 
   private static String buildLogsPath(@Nullable String name) {
@@ -16,8 +16,9 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.views;
 
-import com.google.gson.Gson;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.views.response.SearchResponse;
@@ -34,11 +35,16 @@ public class ViewsApi {
 
   public SearchResponse search(@Nullable String query, @Nullable Boolean onlyFavorites, 
     @Nullable Integer pageIndex, @Nullable Integer pageSize) {
-    
-    try (var response = helper.get(buildSearchPath(query, onlyFavorites, pageIndex, pageSize))) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, SearchResponse.class);
-    }
+    return ServerApiHelper.join(searchAsync(query, onlyFavorites, pageIndex, pageSize));
+  }
+
+  public CompletableFuture<SearchResponse> searchAsync(@Nullable String query, @Nullable Boolean onlyFavorites,
+    @Nullable Integer pageIndex, @Nullable Integer pageSize) {
+    return helper.getAsync(buildSearchPath(query, onlyFavorites, pageIndex, pageSize)).thenApply(response -> {
+      try (response) {
+        return JsonCodec.fromJson(response, SearchResponse.class);
+      }
+    });
   }
 
   private static String buildSearchPath(@Nullable String query, @Nullable Boolean onlyFavorites, 
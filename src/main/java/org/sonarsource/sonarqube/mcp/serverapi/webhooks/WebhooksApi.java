@@ -16,9 +16,10 @@
  */
 package org.sonarsource.sonarqube.mcp.serverapi.webhooks;
 
-import com.google.gson.Gson;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
+import org.sonarsource.sonarqube.mcp.serverapi.JsonCodec;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
 import org.sonarsource.sonarqube.mcp.serverapi.UrlBuilder;
 import org.sonarsource.sonarqube.mcp.serverapi.webhooks.response.CreateResponse;
@@ -40,20 +41,30 @@ public class WebhooksApi {
   }
 
   public CreateResponse createWebhook(String name, String url, @Nullable String project, @Nullable String secret) {
+    return ServerApiHelper.join(createWebhookAsync(name, url, project, secret));
+  }
+
+  public CompletableFuture<CreateResponse> createWebhookAsync(String name, String url, @Nullable String project, @Nullable String secret) {
     var path = buildPath();
     var body = buildRequestBody(name, url, project, secret);
-    try (var response = helper.post(path, "application/x-www-form-urlencoded", body)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, CreateResponse.class);
-    }
+    return helper.postAsync(path, "application/x-www-form-urlencoded", body).thenApply(response -> {
+      try (response) {
+        return JsonCodec.fromJson(response, CreateResponse.class);
+      }
+    });
   }
 
   public ListResponse listWebhooks(@Nullable String project) {
+    return ServerApiHelper.join(listWebhooksAsync(project));
+  }
+
+  public CompletableFuture<ListResponse> listWebhooksAsync(@Nullable String project) {
     var path = buildListPath(project);
-    try (var response = helper.get(path)) {
-      var responseStr = response.bodyAsString();
-      return new Gson().fromJson(responseStr, ListResponse.class);
-    }
+    return helper.getAsync(path).thenApply(response -> {
+      try (response) {
+        return JsonCodec.fromJson(response, ListResponse.class);
+      }
+    });
   }
 
   private String buildPath() {
@@ -23,7 +23,7 @@ import ch.qos.logback.core.rolling.TimeBasedRollingPolicy;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.net.URI;
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.EnumSet;
@@ -33,7 +33,11 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,6 +56,7 @@ import org.sonarsource.sonarlint.core.rpc.protocol.backend.initialize.Initialize
 import org.sonarsource.sonarlint.core.rpc.protocol.backend.initialize.LanguageSpecificRequirements;
 import org.sonarsource.sonarlint.core.rpc.protocol.backend.initialize.SslConfigurationDto;
 import org.sonarsource.sonarlint.core.rpc.protocol.backend.initialize.TelemetryClientConstantAttributesDto;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.rules.RuleDefinitionDto;
 import org.sonarsource.sonarlint.core.rpc.protocol.backend.rules.StandaloneRuleConfigDto;
 import org.sonarsource.sonarlint.core.rpc.protocol.backend.rules.UpdateStandaloneRulesConfigurationParams;
 import org.sonarsource.sonarlint.core.rpc.protocol.client.telemetry.ToolCalledParams;
@@ -62,6 +67,7 @@ import org.sonarsource.sonarqube.mcp.log.McpLogger;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
+import static java.util.stream.Collectors.toSet;
 
 public class BackendService {
 
@@ -75,6 +81,20 @@ public class BackendService {
   private final String userAgent;
   private final String appName;
   private boolean isTelemetryEnabled;
+  /**
+   * Listed once, the analyzers don't change while the backend runs
+   */
+  @Nullable
+  private Set<String> rulesActiveByDefault;
+  @Nullable
+  private Map<String, StandaloneRuleConfigDto> appliedRulesConfiguration;
+  /**
+   * The rules configuration is global to the backend, it can only change while no analysis relies on it
+   */
+  private final ReentrantLock rulesConfigurationLock = new ReentrantLock();
+  private final Condition rulesConfigurationReleased = rulesConfigurationLock.newCondition();
+  private int rulesConfigurationHolders;
+  private int rulesConfigurationWaiters;
   private ClientJsonRpcLauncher clientLauncher;
 
   public BackendService(McpServerLaunchConfiguration mcpConfiguration) {
@@ -96,9 +116,35 @@ public class BackendService {
     this.appName = appName;
   }
 
+  /**
+   * Cancelling the returned future also cancels the analysis in the backend.
+   */
   public CompletableFuture<AnalyzeFilesResponse> analyzeFilesAndTrack(UUID analysisId, List<URI> filesToAnalyze, Long startTime) {
-    return backendFuture.thenComposeAsync(server -> server.getAnalysisService().analyzeFilesAndTrack(
-      new AnalyzeFilesAndTrackParams(PROJECT_ID, analysisId, filesToAnalyze, Map.of(), false, startTime)));
+    var result = new CompletableFuture<AnalyzeFilesResponse>();
+    backendFuture.whenCompleteAsync((server, initializationError) -> {
+      if (initializationError != null) {
+        result.completeExceptionally(initializationError);
+        return;
+      }
+      if (result.isDone()) {
+        return;
+      }
+      var analysis = server.getAnalysisService().analyzeFilesAndTrack(
+        new AnalyzeFilesAndTrackParams(PROJECT_ID, analysisId, filesToAnalyze, Map.of(), false, startTime));
+      analysis.whenComplete((response, error) -> {
+        if (error != null) {
+          result.completeExceptionally(error);
+        } else {
+          result.complete(response);
+        }
+      });
+      result.whenComplete((response, error) -> {
+        if (result.isCancelled()) {
+          analysis.cancel(true);
+        }
+      });
+    });
+    return result;
   }
 
   public void addFile(ClientFileDto clientFileDto) {
@@ -106,8 +152,12 @@ public class BackendService {
     backendFuture.thenAcceptAsync(server -> server.getFileService().didUpdateFileSystem(new DidUpdateFileSystemParams(List.of(clientFileDto), List.of(), List.of())));
   }
 
-  public ClientFileDto toClientFileDto(Path filePath, String content, @Nullable Language language) {
-    return new ClientFileDto(filePath.toUri(), filePath, PROJECT_ID, false, Charset.defaultCharset().toString(), filePath,
+  /**
+   * The content is given to the backend, which analyzes it without reading the file. It is encoded in UTF-8, whatever the platform charset.
+   * Without content, the backend reads the file, which must be encoded in UTF-8.
+   */
+  public ClientFileDto toClientFileDto(Path filePath, @Nullable String content, @Nullable Language language) {
+    return new ClientFileDto(filePath.toUri(), filePath, PROJECT_ID, false, StandardCharsets.UTF_8.name(), filePath,
       content, language, true);
   }
 
@@ -116,6 +166,19 @@ public class BackendService {
     backendFuture.thenAcceptAsync(server -> server.getFileService().didUpdateFileSystem(new DidUpdateFileSystemParams(List.of(), List.of(), List.of(file))));
   }
 
+  /**
+   * Same as {@link #addFile(ClientFileDto)} for several files, with a single notification to the backend.
+   */
+  public void addFiles(List<ClientFileDto> clientFileDtos) {
+    LOG.info("Adding " + clientFileDtos.size() + " files");
+    backendFuture.thenAcceptAsync(server -> server.getFileService().didUpdateFileSystem(new DidUpdateFileSystemParams(clientFileDtos, List.of(), List.of())));
+  }
+
+  public void removeFiles(List<URI> files) {
+    LOG.info("Removing " + files.size() + " files");
+    backendFuture.thenAcceptAsync(server -> server.getFileService().didUpdateFileSystem(new DidUpdateFileSystemParams(List.of(), List.of(), files)));
+  }
+
   public void notifyToolCalled(String toolName, boolean succeeded) {
     backendFuture.thenAcceptAsync(server -> server.getTelemetryService().toolCalled(new ToolCalledParams(toolName, succeeded)));
   }
@@ -234,18 +297,87 @@ public class BackendService {
     }
   }
 
-  public void updateRulesConfiguration(Map<String, StandaloneRuleConfigDto> ruleConfigurationByKey) {
-    backendFuture.thenAccept(server -> {
-      var newActiveRules = new HashMap<String, StandaloneRuleConfigDto>();
-      server.getRulesService().listAllStandaloneRulesDefinitions().join().getRulesByKey().forEach((key, value) ->
-      // disable all standalone rules
-      newActiveRules.put(key, new StandaloneRuleConfigDto(false, Map.of())));
-      // enable custom ones
-      newActiveRules.putAll(ruleConfigurationByKey);
-      server.getRulesService().updateStandaloneRulesConfiguration(new UpdateStandaloneRulesConfigurationParams(newActiveRules));
+  /**
+   * Only the given rules are active, with the given parameters, until the returned configuration is released, so that the analyses started
+   * meanwhile use them. Callers asking for the configuration in use share it, the others wait until it is released by all its holders.
+   * Nothing is sent to the backend when the configuration didn't change.
+   */
+  public RulesConfiguration acquireRulesConfiguration(Map<String, StandaloneRuleConfigDto> ruleConfigurationByKey)
+    throws ExecutionException, InterruptedException {
+    var server = backendFuture.get();
+    rulesConfigurationLock.lockInterruptibly();
+    try {
+      var newConfiguration = toFullConfiguration(server, ruleConfigurationByKey);
+      // callers already waiting go first, so that a configuration in constant use doesn't starve the others
+      if (rulesConfigurationHolders > 0 && (rulesConfigurationWaiters > 0 || !isSameConfiguration(appliedRulesConfiguration, newConfiguration))) {
+        rulesConfigurationWaiters++;
+        try {
+          do {
+            rulesConfigurationReleased.await();
+          } while (rulesConfigurationHolders > 0 && !isSameConfiguration(appliedRulesConfiguration, newConfiguration));
+        } finally {
+          rulesConfigurationWaiters--;
+        }
+      }
+      if (appliedRulesConfiguration == null || !isSameConfiguration(appliedRulesConfiguration, newConfiguration)) {
+        server.getRulesService().updateStandaloneRulesConfiguration(new UpdateStandaloneRulesConfigurationParams(newConfiguration));
+        appliedRulesConfiguration = newConfiguration;
+      }
+      rulesConfigurationHolders++;
+      return new RulesConfiguration();
+    } finally {
+      rulesConfigurationLock.unlock();
+    }
+  }
+
+  private Map<String, StandaloneRuleConfigDto> toFullConfiguration(SonarLintRpcServer server, Map<String, StandaloneRuleConfigDto> ruleConfigurationByKey) {
+    if (rulesActiveByDefault == null) {
+      rulesActiveByDefault = server.getRulesService().listAllStandaloneRulesDefinitions().join().getRulesByKey().values().stream()
+        .filter(RuleDefinitionDto::isActiveByDefault)
+        .map(RuleDefinitionDto::getKey)
+        .collect(toSet());
+    }
+    // the backend replaces its whole configuration, and falls back to the default activation for the rules missing from it
+    var newConfiguration = new HashMap<String, StandaloneRuleConfigDto>();
+    rulesActiveByDefault.forEach(key -> newConfiguration.put(key, new StandaloneRuleConfigDto(false, Map.of())));
+    newConfiguration.putAll(ruleConfigurationByKey);
+    return newConfiguration;
+  }
+
+  private static boolean isSameConfiguration(@Nullable Map<String, StandaloneRuleConfigDto> first, Map<String, StandaloneRuleConfigDto> second) {
+    return first != null && first.size() == second.size() && first.entrySet().stream().allMatch(entry -> {
+      var other = second.get(entry.getKey());
+      return other != null && other.isActive() == entry.getValue().isActive() && other.getParamValueByKey().equals(entry.getValue().getParamValueByKey());
     });
   }
 
+  /**
+   * A hold on the rules configuration of the backend, it doesn't change until released.
+   */
+  public class RulesConfiguration implements AutoCloseable {
+
+    private final AtomicBoolean isReleased = new AtomicBoolean(false);
+
+    private RulesConfiguration() {
+    }
+
+    @Override
+    public void close() {
+      if (isReleased.compareAndSet(false, true)) {
+        rulesConfigurationLock.lock();
+        try {
+          rulesConfigurationHolders--;
+          if (rulesConfigurationHolders == 0) {
+            rulesConfigurationReleased.signalAll();
+          }
+        } finally {
+          rulesConfigurationLock.unlock();
+        }
+      }
+    }
+
+  }
+
   public record AnalyzersAndLanguagesEnabled(Set<Path> analyzerPaths, EnumSet<Language> enabledLanguages) {
   }
 
@@ -0,0 +1,40 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.tools;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import java.util.concurrent.CompletionStage;
+import org.sonarsource.sonarqube.mcp.serverapi.ServerApiHelper;
+
+/**
+ * A tool backed by non-blocking calls (e.g. the asynchronous variants of the SonarQube API).
+ * No thread is held while its requests are in flight, the result is completed by the HTTP client.
+ */
+public abstract class AsyncTool extends Tool {
+
+  protected AsyncTool(McpSchema.Tool definition) {
+    super(definition);
+  }
+
+  public abstract CompletionStage<Result> executeAsync(Arguments arguments);
+
+  @Override
+  public Result execute(Arguments arguments) {
+    return ServerApiHelper.join(executeAsync(arguments).toCompletableFuture());
+  }
+
+}
@@ -82,6 +82,22 @@ public class SchemaToolBuilder {
     return this;
   }
 
+  /**
+   * An array of objects with string properties
+   *
+   * @param itemProperties Description of each property of the objects, by name
+   */
+  public SchemaToolBuilder addRequiredObjectArrayProperty(String propertyName, Map<String, String> itemProperties, List<String> requiredItemProperties,
+    String description) {
+    var itemPropertiesSchema = new HashMap<String, Object>();
+    itemProperties.forEach((itemPropertyName, itemPropertyDescription) -> itemPropertiesSchema.put(itemPropertyName,
+      Map.of(TYPE_PROPERTY_NAME, "string", DESCRIPTION_KEY_NAME, itemPropertyDescription)));
+    var items = Map.of(TYPE_PROPERTY_NAME, "object", "properties", itemPropertiesSchema, "required", requiredItemProperties);
+    properties.put(propertyName, Map.of(TYPE_PROPERTY_NAME, "array", DESCRIPTION_KEY_NAME, description, ITEMS_PROPERTY_NAME, items));
+    requiredProperties.add(propertyName);
+    return this;
+  }
+
   public SchemaToolBuilder addEnumProperty(String propertyName, String[] items, String description) {
     var content = Map.of(TYPE_PROPERTY_NAME, "array", DESCRIPTION_KEY_NAME, description, ITEMS_PROPERTY_NAME, Map.of("enum", items));
     properties.put(propertyName, content);
@@ -17,10 +17,13 @@
 package org.sonarsource.sonarqube.mcp.tools;
 
 import io.modelcontextprotocol.spec.McpSchema;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.CheckForNull;
 import org.sonarsource.sonarqube.mcp.tools.exception.MissingRequiredArgumentException;
+import org.sonarsource.sonarqube.mcp.transport.ProgressNotifier;
+import org.sonarsource.sonarqube.mcp.transport.SpilledString;
 
 public abstract class Tool {
   private final McpSchema.Tool definition;
@@ -37,9 +40,26 @@ public abstract class Tool {
 
   public static class Arguments {
     private final Map<String, Object> argumentsMap;
+    private final ProgressNotifier progressNotifier;
 
     public Arguments(Map<String, Object> argumentsMap) {
+      this(argumentsMap, ProgressNotifier.NONE);
+    }
+
+    public Arguments(Map<String, Object> argumentsMap, ProgressNotifier progressNotifier) {
       this.argumentsMap = argumentsMap;
+      this.progressNotifier = progressNotifier;
+    }
+
+    /**
+     * Reports the progress of the call to the client, does nothing if the client did not ask for it.
+     */
+    public ProgressNotifier progress() {
+      return progressNotifier;
+    }
+
+    public PartialResults partialResults() {
+      return new PartialResults(progressNotifier);
     }
 
     public String getStringOrThrow(String argumentName) {
@@ -49,6 +69,7 @@ public abstract class Tool {
       var arg = argumentsMap.get(argumentName);
       return switch (arg) {
         case String string -> string;
+        case SpilledString spilledString -> spilledString.read();
         case null -> throw new MissingRequiredArgumentException(argumentName);
         default -> String.valueOf(arg);
       };
@@ -86,11 +107,22 @@ public abstract class Tool {
       };
     }
 
+    /**
+     * Returns the file holding the argument when it was too large to be kept in memory, so that it can be used without reading it back,
+     * or null otherwise. The file is deleted once the call is over.
+     */
+    @CheckForNull
+    public Path getSpilledFile(String argumentName) {
+      return argumentsMap.get(argumentName) instanceof SpilledString spilledString ? spilledString.file() : null;
+    }
+
     @CheckForNull
     public String getOptionalString(String argumentName) {
       var arg = argumentsMap.get(argumentName);
       if (arg instanceof String string) {
         return string;
+      } else if (arg instanceof SpilledString spilledString) {
+        return spilledString.read();
       } else {
         return null;
       }
@@ -112,11 +144,59 @@ public abstract class Tool {
       return (List<String>) argumentsMap.get(argumentName);
     }
 
+    @SuppressWarnings("unchecked")
+    public List<Map<String, Object>> getObjectListOrThrow(String argumentName) {
+      if (!(argumentsMap.get(argumentName) instanceof List<?> list)) {
+        throw new MissingRequiredArgumentException(argumentName);
+      }
+      return (List<Map<String, Object>>) list;
+    }
+
     @CheckForNull
     @SuppressWarnings("unchecked")
     public List<String> getOptionalStringList(String argumentName) {
       return (List<String>) argumentsMap.get(argumentName);
     }
+
+    /**
+     * Deletes the temporary files of the arguments that were too large to be kept in memory.
+     */
+    public void deleteSpilledArguments() {
+      argumentsMap.values().forEach(arg -> {
+        if (arg instanceof SpilledString spilledString) {
+          spilledString.delete();
+        }
+      });
+    }
+  }
+
+  /**
+   * Collects the parts of a tool result, separated by new lines. When the client accepts partial results, each part is sent as a progress notification as soon as it
+   * is added, and the final result only holds a summary, so that large results are neither buffered nor sent twice.
+   */
+  public static class PartialResults {
+    private final ProgressNotifier progressNotifier;
+    private final StringBuilder content = new StringBuilder();
+
+    private PartialResults(ProgressNotifier progressNotifier) {
+      this.progressNotifier = progressNotifier;
+    }
+
+    public PartialResults add(String part) {
+      if (progressNotifier.hasPartialResults()) {
+        progressNotifier.notifyProgress(part);
+      } else {
+        if (!content.isEmpty()) {
+          content.append("\n");
+        }
+        content.append(part);
+      }
+      return this;
+    }
+
+    public Result toResult(String summary) {
+      return Result.success(progressNotifier.hasPartialResults() ? summary : content.toString());
+    }
   }
 
   public static class Result {
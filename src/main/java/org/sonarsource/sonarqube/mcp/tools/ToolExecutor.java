@@ -17,35 +17,180 @@
 package org.sonarsource.sonarqube.mcp.tools;
 
 import io.modelcontextprotocol.spec.McpSchema;
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 import org.eclipse.lsp4j.jsonrpc.ResponseErrorException;
+import org.sonarsource.sonarqube.mcp.http.Deadline;
 import org.sonarsource.sonarqube.mcp.log.McpLogger;
 import org.sonarsource.sonarqube.mcp.serverapi.exception.NotFoundException;
 import org.sonarsource.sonarqube.mcp.slcore.BackendService;
+import org.sonarsource.sonarqube.mcp.transport.ProgressNotifier;
 
 public class ToolExecutor {
+  public static final int DEFAULT_MAX_CONCURRENT_TOOL_CALLS = 16;
+  public static final Duration DEFAULT_TOOL_CALL_TIMEOUT = Duration.ofMinutes(2);
+
   private final McpLogger logger = McpLogger.getInstance();
   private final BackendService backendService;
+  private final Semaphore toolCallPermits;
+  private final ExecutorService toolCallExecutor;
+  private final Duration toolCallTimeout;
 
   public ToolExecutor(BackendService backendService) {
+    this(backendService, DEFAULT_MAX_CONCURRENT_TOOL_CALLS, DEFAULT_TOOL_CALL_TIMEOUT);
+  }
+
+  public ToolExecutor(BackendService backendService, int maxConcurrentToolCalls) {
+    this(backendService, maxConcurrentToolCalls, DEFAULT_TOOL_CALL_TIMEOUT);
+  }
+
+  /**
+   * @param toolCallTimeout Maximum duration of a tool call, waiting for a free slot included
+   */
+  public ToolExecutor(BackendService backendService, int maxConcurrentToolCalls, Duration toolCallTimeout) {
     this.backendService = backendService;
+    this.toolCallTimeout = toolCallTimeout;
+    this.toolCallPermits = new Semaphore(maxConcurrentToolCalls, true);
+    this.toolCallExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sonarqube-mcp-tool-", 0).factory());
+  }
+
+  /**
+   * Runs the tool call on its own virtual thread, so that a slow call (e.g. a code snippet analysis) does not delay the other ones.
+   * An {@link AsyncTool} only uses the virtual thread to start its requests, and completes without holding any thread.
+   * At most {@code maxConcurrentToolCalls} tools are executed at the same time, additional calls wait for a free slot.
+   * Cancelling the returned future (e.g. when the client cancels the request) interrupts the tool, or cancels its pending requests.
+   * <p>
+   * Each call has a {@link Deadline}, bound to the thread of the call so that the HTTP requests it sends are given the remaining time as
+   * timeouts. A call still running once its deadline is exceeded fails, and is cancelled the same way.
+   */
+  public CompletableFuture<McpSchema.CallToolResult> executeAsync(Tool tool, Map<String, Object> arguments) {
+    return executeAsync(tool, arguments, ProgressNotifier.NONE, null);
+  }
+
+  /**
+   * @param requestedTimeout Timeout asked by the client for this call, only used if shorter than the configured one
+   */
+  public CompletableFuture<McpSchema.CallToolResult> executeAsync(Tool tool, Map<String, Object> arguments, ProgressNotifier progressNotifier,
+    @Nullable Duration requestedTimeout) {
+    var timeout = requestedTimeout != null && requestedTimeout.compareTo(toolCallTimeout) < 0 ? requestedTimeout : toolCallTimeout;
+    var deadline = Deadline.after(timeout);
+    var toolCall = new ToolCall();
+    toolCall.task = toolCallExecutor.submit(() -> callWithPermit(tool, new Tool.Arguments(arguments, progressNotifier), toolCall, deadline));
+    CompletableFuture.delayedExecutor(timeout.toNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+      if (toolCall.expire(timeout)) {
+        logger.info("The call of tool " + tool.definition().name() + " was cancelled after reaching its timeout of " + timeout.toMillis() + " ms");
+      }
+    });
+    return toolCall;
+  }
+
+  private void callWithPermit(Tool tool, Tool.Arguments arguments, ToolCall toolCall, Deadline deadline) {
+    try {
+      toolCallPermits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      toolCall.complete(Tool.Result.failure("An error occurred during the tool execution: the call was interrupted").toCallToolResult());
+      return;
+    }
+    if (toolCall.isDone()) {
+      toolCallPermits.release();
+      return;
+    }
+    var resultStage = deadline.callWith(() -> call(tool, arguments));
+    toolCall.resultStage = resultStage;
+    resultStage.whenComplete((result, error) -> {
+      toolCallPermits.release();
+      toolCall.complete(result);
+    });
+    if (toolCall.isCancelled()) {
+      resultStage.cancel(true);
+    }
   }
 
   public McpSchema.CallToolResult execute(Tool tool, Map<String, Object> arguments) {
-    Tool.Result result;
+    return call(tool, new Tool.Arguments(arguments)).join();
+  }
+
+  private CompletableFuture<McpSchema.CallToolResult> call(Tool tool, Tool.Arguments toolArguments) {
+    CompletionStage<Tool.Result> resultStage;
     try {
-      result = tool.execute(new Tool.Arguments(arguments));
+      resultStage = tool instanceof AsyncTool asyncTool ? asyncTool.executeAsync(toolArguments) : CompletableFuture.completedFuture(tool.execute(toolArguments));
     } catch (Exception e) {
-      String message;
-      if (e instanceof NotFoundException) {
-        message = "Make sure your token is valid.";
-      } else {
-        message = e instanceof ResponseErrorException responseErrorException ? responseErrorException.getResponseError().getMessage() : e.getMessage();
+      resultStage = CompletableFuture.failedFuture(e);
+    }
+    var toolStage = resultStage;
+    var callResult = resultStage.handle((result, error) -> {
+      if (error != null) {
+        result = toFailure(error instanceof CompletionException completionException && completionException.getCause() != null ? completionException.getCause() : error);
+      }
+      backendService.notifyToolCalled("mcp_" + tool.definition().name(), !result.isError());
+      return result.toCallToolResult();
+    }).toCompletableFuture();
+    callResult.whenComplete((result, error) -> {
+      if (callResult.isCancelled()) {
+        toolStage.toCompletableFuture().cancel(true);
       }
-      result = Tool.Result.failure("An error occurred during the tool execution: " + message);
-      logger.error("An error occurred during the tool execution", e);
+      toolArguments.deleteSpilledArguments();
+    });
+    return callResult;
+  }
+
+  private Tool.Result toFailure(Throwable error) {
+    String message;
+    if (error instanceof NotFoundException) {
+      message = "Make sure your token is valid.";
+    } else {
+      message = error instanceof ResponseErrorException responseErrorException ? responseErrorException.getResponseError().getMessage() : error.getMessage();
     }
-    backendService.notifyToolCalled("mcp_" + tool.definition().name(), !result.isError());
-    return result.toCallToolResult();
+    logger.error("An error occurred during the tool execution", error);
+    return Tool.Result.failure("An error occurred during the tool execution: " + message);
+  }
+
+  private static class ToolCall extends CompletableFuture<McpSchema.CallToolResult> {
+    private volatile Future<?> task;
+    private volatile CompletableFuture<McpSchema.CallToolResult> resultStage;
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+      var cancelled = super.cancel(mayInterruptIfRunning);
+      stop();
+      return cancelled;
+    }
+
+    /**
+     * Fails the call if it is still running, returns whether it did.
+     */
+    private boolean expire(Duration timeout) {
+      var expired = complete(Tool.Result.failure("An error occurred during the tool execution: the call did not complete within its timeout of " +
+        timeout.toMillis() + " ms").toCallToolResult());
+      if (expired) {
+        stop();
+      }
+      return expired;
+    }
+
+    private void stop() {
+      var currentResultStage = resultStage;
+      if (currentResultStage != null) {
+        currentResultStage.cancel(true);
+      }
+      var currentTask = task;
+      if (currentTask != null) {
+        currentTask.cancel(true);
+      }
+    }
+  }
+
+  public void shutdown() {
+    toolCallExecutor.shutdownNow();
   }
 }
@@ -0,0 +1,70 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.tools.analysis;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.rules.StandaloneRuleConfigDto;
+
+/**
+ * Keeps the active rules downloaded for each quality profile, so that repeated analyses on the same project don't page through the rules again.
+ * An entry is only reused while the profile reports the same rules update and last use dates, and profiles missing either date are never cached.
+ * The least recently used profiles are evicted above the maximum number of entries.
+ */
+class ActiveRulesCache {
+
+  static final int MAX_PROFILES = 64;
+
+  private final Map<String, Entry> entriesByProfileKey = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+      return size() > MAX_PROFILES;
+    }
+  };
+
+  /**
+   * @param download Fetches the active rules of the profile, only called if they are not cached for this version of the profile
+   */
+  Map<String, StandaloneRuleConfigDto> get(String profileKey, @Nullable String rulesUpdatedAt, @Nullable String lastUsed,
+    Supplier<Map<String, StandaloneRuleConfigDto>> download) {
+    if (rulesUpdatedAt == null || lastUsed == null) {
+      return download.get();
+    }
+    var version = new Version(rulesUpdatedAt, lastUsed);
+    synchronized (entriesByProfileKey) {
+      var entry = entriesByProfileKey.get(profileKey);
+      if (entry != null && entry.version.equals(version)) {
+        return entry.activeRules;
+      }
+    }
+    // downloaded outside of the lock, concurrent calls for the same profile may both download it
+    var activeRules = Map.copyOf(download.get());
+    synchronized (entriesByProfileKey) {
+      entriesByProfileKey.put(profileKey, new Entry(version, activeRules));
+    }
+    return activeRules;
+  }
+
+  private record Version(String rulesUpdatedAt, String lastUsed) {
+  }
+
+  private record Entry(Version version, Map<String, StandaloneRuleConfigDto> activeRules) {
+  }
+
+}
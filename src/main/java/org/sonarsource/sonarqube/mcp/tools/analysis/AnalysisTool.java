@@ -16,26 +16,19 @@
  */
 package org.sonarsource.sonarqube.mcp.tools.analysis;
 
-import jakarta.annotation.Nullable;
 import java.io.IOException;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import org.sonarsource.sonarlint.core.commons.api.SonarLanguage;
 import org.sonarsource.sonarlint.core.rpc.protocol.backend.analysis.AnalyzeFilesResponse;
-import org.sonarsource.sonarlint.core.rpc.protocol.backend.rules.StandaloneRuleConfigDto;
-import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
-import org.sonarsource.sonarqube.mcp.serverapi.rules.response.SearchResponse;
 import org.sonarsource.sonarqube.mcp.slcore.BackendService;
 import org.sonarsource.sonarqube.mcp.tools.SchemaToolBuilder;
 import org.sonarsource.sonarqube.mcp.tools.Tool;
 
-import static java.util.stream.Collectors.toMap;
 import static org.sonarsource.sonarqube.mcp.analysis.LanguageUtils.getSonarLanguageFromInput;
 import static org.sonarsource.sonarqube.mcp.analysis.LanguageUtils.mapSonarLanguageToLanguage;
 
@@ -46,10 +39,16 @@ public class AnalysisTool extends Tool {
   public static final String SNIPPET_PROPERTY = "codeSnippet";
   public static final String LANGUAGE_PROPERTY = "language";
 
+  static final String DISCLAIMER = "Disclaimer: Analysis results might not be fully accurate as the code snippet is not part of a complete project context." +
+    " Use SonarQube for IDE for better results, or setup a full project analysis in SonarQube Server or Cloud.";
+
   private final BackendService backendService;
-  private final ServerApi serverApi;
+  private final SnippetAnalyzer snippetAnalyzer;
 
-  public AnalysisTool(BackendService backendService, ServerApi serverApi) {
+  /**
+   * @param projectRules Shared with the other analysis tools, so that the active rules of a quality profile are only downloaded once
+   */
+  public AnalysisTool(BackendService backendService, ProjectRules projectRules) {
     super(new SchemaToolBuilder()
       .setName(TOOL_NAME)
       .setDescription("Analyze a file or code snippet with SonarQube analyzers to identify code quality and security issues. " +
@@ -59,13 +58,15 @@ public class AnalysisTool extends Tool {
       .addStringProperty(LANGUAGE_PROPERTY, "Language of the code snippet")
       .build());
     this.backendService = backendService;
-    this.serverApi = serverApi;
+    this.snippetAnalyzer = new SnippetAnalyzer(backendService, projectRules);
   }
 
   @Override
   public Result execute(Arguments arguments) {
     var projectKey = arguments.getOptionalString(PROJECT_KEY_PROPERTY);
-    var codeSnippet = arguments.getStringOrThrow(SNIPPET_PROPERTY);
+    // a large snippet was written to a file while the request was read, the backend reads it from there instead of memory
+    var spilledSnippet = arguments.getSpilledFile(SNIPPET_PROPERTY);
+    var codeSnippet = spilledSnippet == null ? arguments.getStringOrThrow(SNIPPET_PROPERTY) : null;
     var language = arguments.getOptionalString(LANGUAGE_PROPERTY);
 
     var sonarLanguage = getSonarLanguageFromInput(language);
@@ -73,110 +74,55 @@ public class AnalysisTool extends Tool {
       sonarLanguage = SonarLanguage.SECRETS;
     }
 
-    applyRulesFromProject(projectKey);
-
     var analysisId = UUID.randomUUID();
-    Path tmpFile = null;
+    var snippetPath = SnippetAnalyzer.snippetPathForLanguage(analysisId.toString(),
+      spilledSnippet == null ? backendService.getWorkDir() : spilledSnippet.getParent(), sonarLanguage);
     try {
-      tmpFile = createTemporaryFileForLanguage(analysisId.toString(), backendService.getWorkDir(), codeSnippet,
-        sonarLanguage);
-      var clientFileDto = backendService.toClientFileDto(tmpFile, codeSnippet, mapSonarLanguageToLanguage(sonarLanguage));
-      backendService.addFile(clientFileDto);
-      var startTime = System.currentTimeMillis();
-      var response = backendService.analyzeFilesAndTrack(analysisId, List.of(tmpFile.toUri()), startTime).get(30,
-        TimeUnit.SECONDS);
-      return Tool.Result.success(buildResponseFromAnalysisResults(response));
-    } catch (IOException | ExecutionException | TimeoutException e) {
-      return Tool.Result.failure("Error while analyzing the code snippet: " + e.getMessage());
-    } catch (InterruptedException e) {
-      Thread.currentThread().interrupt();
+      if (spilledSnippet != null) {
+        // renamed in place, for its extension to tell the language
+        Files.move(spilledSnippet, snippetPath);
+      }
+      // otherwise the snippet only lives in memory, the backend analyzes the content it is given instead of reading the file
+      var clientFileDto = backendService.toClientFileDto(snippetPath, codeSnippet, mapSonarLanguageToLanguage(sonarLanguage));
+      return snippetAnalyzer.analyze(projectKey, analysisId, List.of(clientFileDto), arguments, "the code snippet",
+        (response, issuesByFile) -> buildResponseFromAnalysisResults(response, issuesByFile, arguments.partialResults()));
+    } catch (IOException e) {
       return Tool.Result.failure("Error while analyzing the code snippet: " + e.getMessage());
     } finally {
-      if (tmpFile != null) {
-        backendService.removeFile(tmpFile.toUri());
-        try {
-          removeTmpFileForAnalysis(tmpFile);
-        } catch (IOException e) {
-          // Error
-        }
+      if (spilledSnippet != null) {
+        deleteQuietly(snippetPath);
       }
     }
   }
 
-  private void applyRulesFromProject(@Nullable String projectKey) {
-    var activeRules = new HashMap<String, StandaloneRuleConfigDto>();
-    serverApi.qualityProfilesApi().getQualityProfiles(projectKey).profiles()
-      .forEach(profile -> {
-        var count = 0;
-        var page = 1;
-        SearchResponse searchResponse;
-        do {
-          searchResponse = serverApi.rulesApi().search(profile.key(), page);
-          page++;
-          count += searchResponse.ps();
-          searchResponse.actives().forEach((ruleKey, actives) -> activeRules.put(ruleKey,
-            new StandaloneRuleConfigDto(true, actives.getFirst().params().stream().collect(toMap(SearchResponse.RuleParameter::key, SearchResponse.RuleParameter::value)))));
-        } while (count < searchResponse.total());
-      });
-    backendService.updateRulesConfiguration(activeRules);
+  private static void deleteQuietly(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      // best effort, the file is in a dedicated directory of the storage
+    }
   }
 
-  private static String buildResponseFromAnalysisResults(AnalyzeFilesResponse response) {
-    var stringBuilder = new StringBuilder();
-
+  private static Tool.Result buildResponseFromAnalysisResults(AnalyzeFilesResponse response, Map<URI, List<String>> issuesByFile,
+    Tool.PartialResults partialResults) {
     if (!response.getFailedAnalysisFiles().isEmpty()) {
-      stringBuilder.append("Failed to analyze the code snippet.");
-      return stringBuilder.toString();
+      return Tool.Result.success("Failed to analyze the code snippet.");
     }
 
+    String summary;
     if (response.getRawIssues().isEmpty()) {
-      stringBuilder.append("No Sonar issues found in the code snippet.");
+      summary = "No Sonar issues found in the code snippet.";
+      partialResults.add(summary);
     } else {
-      stringBuilder.append("Found ").append(response.getRawIssues().size()).append(" Sonar issues in the code snippet");
-
-      for (var issue : response.getRawIssues()) {
-        stringBuilder.append("\n");
-        stringBuilder.append(issue.getPrimaryMessage());
-        stringBuilder.append("\n");
-        stringBuilder.append("Rule key: ").append(issue.getRuleKey());
-        stringBuilder.append("\n");
-        stringBuilder.append("Severity: ").append(issue.getSeverity());
-        stringBuilder.append("\n");
-        stringBuilder.append("Clean Code attribute: ").append(issue.getCleanCodeAttribute().name());
-        stringBuilder.append("\n");
-        stringBuilder.append("Impacts: ").append(issue.getImpacts().toString());
-        stringBuilder.append("\n");
-        stringBuilder.append("Description: ").append(issue.getPrimaryMessage());
-        stringBuilder.append("\n");
-        stringBuilder.append("Quick fixes available: ").append(issue.getQuickFixes().isEmpty() ? "No" : "Yes");
-
-        var textRange = issue.getTextRange();
-        if (textRange != null) {
-          stringBuilder.append("\n");
-          stringBuilder.append("Starting on line: ").append(textRange.getStartLine());
-        }
-      }
-    }
+      partialResults.add("Found " + response.getRawIssues().size() + " Sonar issues in the code snippet");
+      summary = "Found " + response.getRawIssues().size() + " Sonar issues in the code snippet, sent as progress notifications.";
 
-    stringBuilder.append("\nDisclaimer: Analysis results might not be fully accurate as the code snippet is not part of a complete project context." +
-      " Use SonarQube for IDE for better results, or setup a full project analysis in SonarQube Server or Cloud.");
-
-    return stringBuilder.toString().trim();
-  }
-
-  private static Path createTemporaryFileForLanguage(String analysisId, Path workDir, String fileContent, SonarLanguage language) throws IOException {
-    var defaultFileSuffixes = language.getDefaultFileSuffixes();
-    var extension = defaultFileSuffixes.length > 0 ? defaultFileSuffixes[0] : "";
-    if (extension.isBlank()) {
-      extension = ".txt";
+      issuesByFile.values().forEach(issues -> issues.forEach(partialResults::add));
     }
-    var tempFile = workDir.resolve("analysis-" + analysisId + extension);
-    Files.writeString(tempFile, fileContent);
-    return tempFile;
-  }
 
-  private static void removeTmpFileForAnalysis(Path tempFile) throws IOException {
-    Files.deleteIfExists(tempFile);
+    partialResults.add(DISCLAIMER);
+
+    return partialResults.toResult(summary + "\n" + DISCLAIMER);
   }
 
 }
@@ -0,0 +1,138 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.tools.analysis;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javax.annotation.CheckForNull;
+import org.sonarsource.sonarlint.core.commons.api.SonarLanguage;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.analysis.AnalyzeFilesResponse;
+import org.sonarsource.sonarlint.core.rpc.protocol.common.ClientFileDto;
+import org.sonarsource.sonarqube.mcp.slcore.BackendService;
+import org.sonarsource.sonarqube.mcp.tools.SchemaToolBuilder;
+import org.sonarsource.sonarqube.mcp.tools.Tool;
+
+import static org.sonarsource.sonarqube.mcp.analysis.LanguageUtils.getSonarLanguageFromInput;
+import static org.sonarsource.sonarqube.mcp.analysis.LanguageUtils.mapSonarLanguageToLanguage;
+
+/**
+ * Same as {@link AnalysisTool} for several snippets at once: they are all registered to the backend and analyzed together, and the issues
+ * are grouped by snippet.
+ */
+public class AnalyzeCodeSnippetsTool extends Tool {
+
+  public static final String TOOL_NAME = "analyze_code_snippets";
+  public static final String PROJECT_KEY_PROPERTY = "projectKey";
+  public static final String SNIPPETS_PROPERTY = "snippets";
+  public static final String NAME_PROPERTY = "name";
+  public static final String SNIPPET_PROPERTY = "codeSnippet";
+  public static final String LANGUAGE_PROPERTY = "language";
+  public static final int MAX_SNIPPETS = 100;
+
+  private final BackendService backendService;
+  private final SnippetAnalyzer snippetAnalyzer;
+
+  /**
+   * @param projectRules Shared with the other analysis tools, so that the active rules of a quality profile are only downloaded once
+   */
+  public AnalyzeCodeSnippetsTool(BackendService backendService, ProjectRules projectRules) {
+    super(new SchemaToolBuilder()
+      .setName(TOOL_NAME)
+      .setDescription("Analyze several files or code snippets at once with SonarQube analyzers to identify code quality and security issues, " +
+        "e.g. all the files of a change. The issues are grouped by snippet. Specify the language of each snippet to improve analysis accuracy.")
+      .addRequiredStringProperty(PROJECT_KEY_PROPERTY, "The SonarQube project key")
+      .addRequiredObjectArrayProperty(SNIPPETS_PROPERTY, Map.of(
+          NAME_PROPERTY, "Name of the snippet used to report its issues, e.g. the path of the file",
+          SNIPPET_PROPERTY, "Code snippet or full file content",
+          LANGUAGE_PROPERTY, "Language of the code snippet"),
+        List.of(SNIPPET_PROPERTY), "The snippets to analyze, at most " + MAX_SNIPPETS)
+      .build());
+    this.backendService = backendService;
+    this.snippetAnalyzer = new SnippetAnalyzer(backendService, projectRules);
+  }
+
+  @Override
+  public Result execute(Arguments arguments) {
+    var projectKey = arguments.getOptionalString(PROJECT_KEY_PROPERTY);
+    var snippetArguments = arguments.getObjectListOrThrow(SNIPPETS_PROPERTY);
+    if (snippetArguments.isEmpty()) {
+      return Result.failure("No code snippets provided to analyze.");
+    }
+    if (snippetArguments.size() > MAX_SNIPPETS) {
+      return Result.failure("Too many code snippets to analyze, at most " + MAX_SNIPPETS + " can be analyzed at once.");
+    }
+
+    var analysisId = UUID.randomUUID();
+    // in the order of the arguments
+    var snippetNamesByUri = new LinkedHashMap<URI, String>();
+    var clientFileDtos = new ArrayList<ClientFileDto>();
+    for (var i = 0; i < snippetArguments.size(); i++) {
+      var snippetArgument = snippetArguments.get(i);
+      var codeSnippet = getString(snippetArgument, SNIPPET_PROPERTY);
+      if (codeSnippet == null) {
+        return Result.failure("Missing " + SNIPPET_PROPERTY + " in snippet " + (i + 1) + ".");
+      }
+      var sonarLanguage = getSonarLanguageFromInput(getString(snippetArgument, LANGUAGE_PROPERTY));
+      if (sonarLanguage == null) {
+        sonarLanguage = SonarLanguage.SECRETS;
+      }
+      var name = getString(snippetArgument, NAME_PROPERTY);
+      var snippetPath = SnippetAnalyzer.snippetPathForLanguage(analysisId + "-" + (i + 1), backendService.getWorkDir(), sonarLanguage);
+      snippetNamesByUri.put(snippetPath.toUri(), name != null ? name : ("Snippet " + (i + 1)));
+      clientFileDtos.add(backendService.toClientFileDto(snippetPath, codeSnippet, mapSonarLanguageToLanguage(sonarLanguage)));
+    }
+
+    return snippetAnalyzer.analyze(projectKey, analysisId, clientFileDtos, arguments, clientFileDtos.size() + " code snippets",
+      (response, issuesByUri) -> buildResponseFromAnalysisResults(response, issuesByUri, snippetNamesByUri, arguments.partialResults()));
+  }
+
+  @CheckForNull
+  private static String getString(Map<String, Object> snippetArgument, String propertyName) {
+    return snippetArgument.get(propertyName) instanceof String string ? string : null;
+  }
+
+  static Tool.Result buildResponseFromAnalysisResults(AnalyzeFilesResponse response, Map<URI, List<String>> issuesByUri,
+    Map<URI, String> snippetNamesByUri, Tool.PartialResults partialResults) {
+    var failedSnippets = response.getFailedAnalysisFiles().size();
+    var summary = "Found " + response.getRawIssues().size() + " Sonar issues in " + issuesByUri.size() + " of the " + snippetNamesByUri.size() +
+      " code snippets" + (failedSnippets > 0 ? (", " + failedSnippets + " could not be analyzed") : "");
+    partialResults.add(summary);
+
+    snippetNamesByUri.forEach((uri, name) -> {
+      var issues = issuesByUri.getOrDefault(uri, List.of());
+      var stringBuilder = new StringBuilder(name).append(": ");
+      if (response.getFailedAnalysisFiles().contains(uri)) {
+        stringBuilder.append("Failed to analyze the code snippet.");
+      } else if (issues.isEmpty()) {
+        stringBuilder.append("No Sonar issues found.");
+      } else {
+        stringBuilder.append("Found ").append(issues.size()).append(" Sonar issues");
+        issues.forEach(issue -> stringBuilder.append("\n").append(issue));
+      }
+      partialResults.add(stringBuilder.toString());
+    });
+
+    partialResults.add(AnalysisTool.DISCLAIMER);
+
+    return partialResults.toResult(summary + ", sent as progress notifications.\n" + AnalysisTool.DISCLAIMER);
+  }
+
+}
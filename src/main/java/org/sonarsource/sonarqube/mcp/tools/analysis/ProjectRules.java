@@ -0,0 +1,70 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.tools.analysis;
+
+import jakarta.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.rules.StandaloneRuleConfigDto;
+import org.sonarsource.sonarqube.mcp.serverapi.Paginator;
+import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
+import org.sonarsource.sonarqube.mcp.serverapi.rules.response.SearchResponse;
+import org.sonarsource.sonarqube.mcp.slcore.BackendService;
+import org.sonarsource.sonarqube.mcp.transport.ProgressNotifier;
+
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * Configures the analysis backend with the rules active in the quality profiles of a project, or in the default ones.
+ * The configuration is held until released, so that concurrent calls for other projects don't change the rules in the middle of an analysis.
+ */
+public class ProjectRules {
+
+  private final BackendService backendService;
+  private final ServerApi serverApi;
+  private final ActiveRulesCache activeRulesCache = new ActiveRulesCache();
+
+  public ProjectRules(BackendService backendService, ServerApi serverApi) {
+    this.backendService = backendService;
+    this.serverApi = serverApi;
+  }
+
+  BackendService.RulesConfiguration apply(@Nullable String projectKey, ProgressNotifier progress) throws ExecutionException, InterruptedException {
+    var activeRules = new HashMap<String, StandaloneRuleConfigDto>();
+    serverApi.qualityProfilesApi().getQualityProfiles(projectKey).profiles()
+      .forEach(profile -> activeRules.putAll(activeRulesCache.get(profile.key(), profile.rulesUpdatedAt(), profile.lastUsed(),
+        () -> downloadActiveRules(profile.key(), progress))));
+    return backendService.acquireRulesConfiguration(activeRules);
+  }
+
+  private Map<String, StandaloneRuleConfigDto> downloadActiveRules(String profileKey, ProgressNotifier progress) {
+    var activeRules = new HashMap<String, StandaloneRuleConfigDto>();
+    var fetchedPages = new AtomicInteger();
+    try (var pages = Paginator.stream(page -> serverApi.rulesApi().searchAsync(profileKey, page),
+      searchResponse -> Paginator.pageCount(searchResponse.total(), searchResponse.ps()), Paginator.DEFAULT_PARALLELISM)) {
+      pages.forEach(searchResponse -> {
+        progress.notifyProgress("Fetched page " + fetchedPages.incrementAndGet() + " of the active rules of quality profile " + profileKey);
+        searchResponse.actives().forEach((ruleKey, actives) -> activeRules.put(ruleKey,
+          new StandaloneRuleConfigDto(true, actives.getFirst().params().stream().collect(toMap(SearchResponse.RuleParameter::key, SearchResponse.RuleParameter::value)))));
+      });
+    }
+    return activeRules;
+  }
+
+}
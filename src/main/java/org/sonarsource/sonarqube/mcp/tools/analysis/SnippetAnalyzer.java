@@ -0,0 +1,147 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.tools.analysis;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import javax.annotation.Nullable;
+import org.sonarsource.sonarlint.core.commons.api.SonarLanguage;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.analysis.AnalyzeFilesResponse;
+import org.sonarsource.sonarlint.core.rpc.protocol.common.ClientFileDto;
+import org.sonarsource.sonarqube.mcp.http.Deadline;
+import org.sonarsource.sonarqube.mcp.slcore.BackendService;
+import org.sonarsource.sonarqube.mcp.tools.Tool;
+
+/**
+ * Analyzes code snippets with the rules active in the quality profiles of a project, for the analysis tools.
+ * The snippets are only registered to the backend for the time of the analysis, and the rules of the project stay active until it is over.
+ */
+class SnippetAnalyzer {
+
+  /** Used when the tool is called without a deadline */
+  private static final Duration DEFAULT_ANALYSIS_TIMEOUT = Duration.ofSeconds(30);
+
+  private final BackendService backendService;
+  private final ProjectRules projectRules;
+
+  SnippetAnalyzer(BackendService backendService, ProjectRules projectRules) {
+    this.backendService = backendService;
+    this.projectRules = projectRules;
+  }
+
+  /**
+   * The analysis is cancelled when it times out, or when the tool call is cancelled.
+   * @param subject What is analyzed, for the progress and error messages, e.g. "the code snippet"
+   * @param toResult Builds the result of the tool from the response of the analysis and the formatted issues, grouped by snippet
+   */
+  Tool.Result analyze(@Nullable String projectKey, UUID analysisId, List<ClientFileDto> snippets, Tool.Arguments arguments, String subject,
+    BiFunction<AnalyzeFilesResponse, Map<URI, List<String>>, Tool.Result> toResult) {
+    var snippetUris = snippets.stream().map(ClientFileDto::getUri).toList();
+    CompletableFuture<AnalyzeFilesResponse> analysis = null;
+    BackendService.RulesConfiguration rules = null;
+    try {
+      // the rules of the project stay active until the analysis is over
+      rules = projectRules.apply(projectKey, arguments.progress());
+      backendService.addFiles(snippets);
+      var startTime = System.currentTimeMillis();
+      arguments.progress().notifyProgress("Analyzing " + subject);
+      analysis = backendService.analyzeFilesAndTrack(analysisId, snippetUris, startTime);
+      var response = analysis.get(analysisTimeout().toNanos(), TimeUnit.NANOSECONDS);
+      return toResult.apply(response, formatIssuesByFile(response));
+    } catch (ExecutionException e) {
+      return Tool.Result.failure("Error while analyzing " + subject + ": " + e.getMessage());
+    } catch (TimeoutException e) {
+      analysis.cancel(true);
+      return Tool.Result.failure("Error while analyzing " + subject + ": " + e.getMessage());
+    } catch (InterruptedException e) {
+      // the tool call was cancelled, don't let the analysis run for nothing
+      if (analysis != null) {
+        analysis.cancel(true);
+      }
+      Thread.currentThread().interrupt();
+      return Tool.Result.failure("Error while analyzing " + subject + ": " + e.getMessage());
+    } finally {
+      if (rules != null) {
+        rules.close();
+      }
+      backendService.removeFiles(snippetUris);
+    }
+  }
+
+  /**
+   * The issues found by the analysis, grouped by file in the order they were reported
+   */
+  static Map<URI, List<String>> formatIssuesByFile(AnalyzeFilesResponse response) {
+    var issuesByFile = new LinkedHashMap<URI, List<String>>();
+    response.getRawIssues().forEach(issue -> {
+      var stringBuilder = new StringBuilder();
+      stringBuilder.append(issue.getPrimaryMessage());
+      stringBuilder.append("\n");
+      stringBuilder.append("Rule key: ").append(issue.getRuleKey());
+      stringBuilder.append("\n");
+      stringBuilder.append("Severity: ").append(issue.getSeverity());
+      stringBuilder.append("\n");
+      stringBuilder.append("Clean Code attribute: ").append(issue.getCleanCodeAttribute().name());
+      stringBuilder.append("\n");
+      stringBuilder.append("Impacts: ").append(issue.getImpacts().toString());
+      stringBuilder.append("\n");
+      stringBuilder.append("Description: ").append(issue.getPrimaryMessage());
+      stringBuilder.append("\n");
+      stringBuilder.append("Quick fixes available: ").append(issue.getQuickFixes().isEmpty() ? "No" : "Yes");
+
+      var textRange = issue.getTextRange();
+      if (textRange != null) {
+        stringBuilder.append("\n");
+        stringBuilder.append("Starting on line: ").append(textRange.getStartLine());
+      }
+      issuesByFile.computeIfAbsent(issue.getFileUri(), uri -> new ArrayList<>()).add(stringBuilder.toString());
+    });
+    return issuesByFile;
+  }
+
+  /**
+   * The analysis can take the time left to the call
+   */
+  static Duration analysisTimeout() {
+    var deadline = Deadline.current();
+    return deadline.isBounded() ? deadline.remaining() : DEFAULT_ANALYSIS_TIMEOUT;
+  }
+
+  /**
+   * The path is never written to, its extension tells the language of the snippet to the analyzers
+   */
+  static Path snippetPathForLanguage(String analysisId, Path workDir, SonarLanguage language) {
+    var defaultFileSuffixes = language.getDefaultFileSuffixes();
+    var extension = defaultFileSuffixes.length > 0 ? defaultFileSuffixes[0] : "";
+    if (extension.isBlank()) {
+      extension = ".txt";
+    }
+    return workDir.resolve("analysis-" + analysisId + extension);
+  }
+
+}
@@ -16,13 +16,16 @@
  */
 package org.sonarsource.sonarqube.mcp.tools.dependencyrisks;
 
+import java.util.concurrent.CompletionStage;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
 import org.sonarsource.sonarqube.mcp.serverapi.sca.response.DependencyRisksResponse;
+import org.sonarsource.sonarqube.mcp.tools.AsyncTool;
 import org.sonarsource.sonarqube.mcp.tools.SchemaToolBuilder;
 import org.sonarsource.sonarqube.mcp.tools.Tool;
 
-public class SearchDependencyRisksTool extends Tool {
+public class SearchDependencyRisksTool extends AsyncTool {
 
   public static final String TOOL_NAME = "search_dependency_risks";
   public static final String PROJECT_KEY_PROPERTY = "projectKey";
@@ -44,44 +47,49 @@ public class SearchDependencyRisksTool extends Tool {
   }
 
   @Override
-  public Tool.Result execute(Tool.Arguments arguments) {
+  public CompletionStage<Tool.Result> executeAsync(Tool.Arguments arguments) {
     var projectKey = arguments.getStringOrThrow(PROJECT_KEY_PROPERTY);
     var branchKey = arguments.getOptionalString(BRANCH_KEY_PROPERTY);
     var pullRequestKey = arguments.getOptionalString(PULL_REQUEST_KEY_PROPERTY);
-    
-    var response = serverApi.scaApi().getDependencyRisks(projectKey, branchKey, pullRequestKey);
-    return Tool.Result.success(buildResponseFromDependencyRisksResponse(response));
+
+    return serverApi.scaApi().getDependencyRisksAsync(projectKey, branchKey, pullRequestKey)
+      .thenApply(response -> buildResponseFromDependencyRisksResponse(response, arguments.partialResults()));
   }
 
-  private static String buildResponseFromDependencyRisksResponse(DependencyRisksResponse response) {
+  private static Tool.Result buildResponseFromDependencyRisksResponse(DependencyRisksResponse response, Tool.PartialResults partialResults) {
     var issuesReleases = response.issuesReleases();
 
     if (issuesReleases.isEmpty()) {
-      return "No dependency risks were found.";
+      return Tool.Result.success("No dependency risks were found.");
+    }
+
+    var header = "Found " + issuesReleases.size() + " dependency risks.";
+    var paginationInfo = buildPaginationInfo(response.page());
+    partialResults.add(header);
+    if (paginationInfo != null) {
+      partialResults.add(paginationInfo);
     }
 
-    var stringBuilder = new StringBuilder();
-    stringBuilder.append("Found ").append(issuesReleases.size()).append(" dependency risks.\n");
-    
-    appendPaginationInfo(stringBuilder, response.page());
-    
     for (var issueRelease : issuesReleases) {
-      appendIssueReleaseInfo(stringBuilder, issueRelease);
+      partialResults.add(buildIssueReleaseInfo(issueRelease));
     }
 
-    return stringBuilder.toString().trim();
+    var summary = "Found " + issuesReleases.size() + " dependency risks, sent as progress notifications.";
+    return partialResults.toResult(paginationInfo == null ? summary : (summary + "\n" + paginationInfo));
   }
 
-  private static void appendPaginationInfo(StringBuilder stringBuilder, @Nullable DependencyRisksResponse.Page page) {
-    if (page != null) {
-      var totalPages = (int) Math.ceil((double) page.total() / page.pageSize());
-      stringBuilder.append("This response is paginated and this is the page ").append(page.pageIndex())
-        .append(" out of ").append(totalPages).append(" total pages. There is a maximum of ")
-        .append(page.pageSize()).append(" items per page.\n");
+  @CheckForNull
+  private static String buildPaginationInfo(@Nullable DependencyRisksResponse.Page page) {
+    if (page == null) {
+      return null;
     }
+    var totalPages = (int) Math.ceil((double) page.total() / page.pageSize());
+    return "This response is paginated and this is the page " + page.pageIndex() + " out of " + totalPages + " total pages. There is a maximum of "
+      + page.pageSize() + " items per page.";
   }
 
-  private static void appendIssueReleaseInfo(StringBuilder stringBuilder, DependencyRisksResponse.IssueRelease issueRelease) {
+  private static String buildIssueReleaseInfo(DependencyRisksResponse.IssueRelease issueRelease) {
+    var stringBuilder = new StringBuilder();
     stringBuilder.append("Issue key: ").append(issueRelease.key())
       .append(" | Severity: ").append(issueRelease.severity())
       .append(" | Type: ").append(issueRelease.type())
@@ -93,7 +101,7 @@ public class SearchDependencyRisksTool extends Tool {
     appendAssigneeInfo(stringBuilder, issueRelease.assignee());
     
     stringBuilder.append(" | Created: ").append(issueRelease.createdAt());
-    stringBuilder.append("\n");
+    return stringBuilder.toString();
   }
 
   private static void appendOptionalFields(StringBuilder stringBuilder, DependencyRisksResponse.IssueRelease issueRelease) {
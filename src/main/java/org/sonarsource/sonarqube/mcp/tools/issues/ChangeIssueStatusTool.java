@@ -16,12 +16,15 @@
  */
 package org.sonarsource.sonarqube.mcp.tools.issues;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
 import org.sonarsource.sonarqube.mcp.serverapi.issues.Transition;
+import org.sonarsource.sonarqube.mcp.tools.AsyncTool;
 import org.sonarsource.sonarqube.mcp.tools.SchemaToolBuilder;
 import org.sonarsource.sonarqube.mcp.tools.Tool;
 
-public class ChangeIssueStatusTool extends Tool {
+public class ChangeIssueStatusTool extends AsyncTool {
 
   public static final String TOOL_NAME = "change_sonar_issue_status";
   public static final String KEY_PROPERTY = "key";
@@ -42,16 +45,16 @@ public class ChangeIssueStatusTool extends Tool {
   }
 
   @Override
-  public Tool.Result execute(Tool.Arguments arguments) {
+  public CompletionStage<Tool.Result> executeAsync(Tool.Arguments arguments) {
     var key = arguments.getStringOrThrow(KEY_PROPERTY);
     var statusString = arguments.getStringListOrThrow(STATUS_PROPERTY).get(0);
     var status = Transition.fromStatus(statusString);
     if (status.isEmpty()) {
-      return Tool.Result.failure("Status is unknown: " + statusString);
+      return CompletableFuture.completedFuture(Tool.Result.failure("Status is unknown: " + statusString));
     }
 
-    serverApi.issuesApi().doTransition(key, status.get());
-    return Tool.Result.success("The issue status was successfully changed.");
+    return serverApi.issuesApi().doTransitionAsync(key, status.get())
+      .thenApply(ignored -> Tool.Result.success("The issue status was successfully changed."));
   }
 
 }
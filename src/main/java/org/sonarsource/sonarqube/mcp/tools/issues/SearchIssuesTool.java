@@ -16,12 +16,14 @@
  */
 package org.sonarsource.sonarqube.mcp.tools.issues;
 
+import java.util.concurrent.CompletionStage;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
 import org.sonarsource.sonarqube.mcp.serverapi.issues.response.SearchResponse;
+import org.sonarsource.sonarqube.mcp.tools.AsyncTool;
 import org.sonarsource.sonarqube.mcp.tools.SchemaToolBuilder;
 import org.sonarsource.sonarqube.mcp.tools.Tool;
 
-public class SearchIssuesTool extends Tool {
+public class SearchIssuesTool extends AsyncTool {
 
   public static final String TOOL_NAME = "search_sonar_issues_in_projects";
   public static final String PROJECTS_PROPERTY = "projects";
@@ -46,14 +48,14 @@ public class SearchIssuesTool extends Tool {
   }
 
   @Override
-  public Tool.Result execute(Tool.Arguments arguments) {
+  public CompletionStage<Tool.Result> executeAsync(Tool.Arguments arguments) {
     var projects = arguments.getOptionalStringList(PROJECTS_PROPERTY);
     var pullRequestId = arguments.getOptionalString(PULL_REQUEST_ID_PROPERTY);
     var severities = arguments.getOptionalStringList(SEVERITIES_PROPERTY);
     var page = arguments.getOptionalInteger(PAGE_PROPERTY);
     var pageSize = arguments.getOptionalInteger(PAGE_SIZE_PROPERTY);
-    var response = serverApi.issuesApi().search(projects, pullRequestId, severities, page, pageSize);
-    return Tool.Result.success(buildResponseFromSearchResponse(response));
+    return serverApi.issuesApi().searchAsync(projects, pullRequestId, severities, page, pageSize)
+      .thenApply(response -> Tool.Result.success(buildResponseFromSearchResponse(response)));
   }
 
   private static String buildResponseFromSearchResponse(SearchResponse response) {
@@ -16,12 +16,14 @@
  */
 package org.sonarsource.sonarqube.mcp.tools.languages;
 
+import java.util.concurrent.CompletionStage;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
 import org.sonarsource.sonarqube.mcp.serverapi.languages.response.ListResponse;
+import org.sonarsource.sonarqube.mcp.tools.AsyncTool;
 import org.sonarsource.sonarqube.mcp.tools.SchemaToolBuilder;
 import org.sonarsource.sonarqube.mcp.tools.Tool;
 
-public class ListLanguagesTool extends Tool {
+public class ListLanguagesTool extends AsyncTool {
 
   public static final String TOOL_NAME = "list_languages";
   public static final String QUERY_PROPERTY = "q";
@@ -38,10 +40,10 @@ public class ListLanguagesTool extends Tool {
   }
 
   @Override
-  public Tool.Result execute(Tool.Arguments arguments) {
+  public CompletionStage<Tool.Result> executeAsync(Tool.Arguments arguments) {
     var query = arguments.getOptionalString(QUERY_PROPERTY);
-    var response = serverApi.languagesApi().list(query);
-    return Tool.Result.success(buildResponseFromList(response));
+    return serverApi.languagesApi().listAsync(query)
+      .thenApply(response -> Tool.Result.success(buildResponseFromList(response)));
   }
 
   private static String buildResponseFromList(ListResponse response) {
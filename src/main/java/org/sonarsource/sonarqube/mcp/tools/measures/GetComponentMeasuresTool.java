@@ -17,12 +17,14 @@
 package org.sonarsource.sonarqube.mcp.tools.measures;
 
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
 import org.sonarsource.sonarqube.mcp.serverapi.measures.response.ComponentMeasuresResponse;
+import org.sonarsource.sonarqube.mcp.tools.AsyncTool;
 import org.sonarsource.sonarqube.mcp.tools.SchemaToolBuilder;
 import org.sonarsource.sonarqube.mcp.tools.Tool;
 
-public class GetComponentMeasuresTool extends Tool {
+public class GetComponentMeasuresTool extends AsyncTool {
 
   public static final String TOOL_NAME = "get_component_measures";
   public static final String COMPONENT_PROPERTY = "component";
@@ -45,14 +47,14 @@ public class GetComponentMeasuresTool extends Tool {
   }
 
   @Override
-  public Tool.Result execute(Tool.Arguments arguments) {
+  public CompletionStage<Tool.Result> executeAsync(Tool.Arguments arguments) {
     var component = arguments.getOptionalString(COMPONENT_PROPERTY);
     var branch = arguments.getOptionalString(BRANCH_PROPERTY);
     var metricKeys = arguments.getOptionalStringList(METRIC_KEYS_PROPERTY);
     var pullRequest = arguments.getOptionalString(PULL_REQUEST_PROPERTY);
-    
-    var response = serverApi.measuresApi().getComponentMeasures(component, branch, metricKeys, pullRequest);
-    return Tool.Result.success(buildResponseFromComponentMeasures(response));
+
+    return serverApi.measuresApi().getComponentMeasuresAsync(component, branch, metricKeys, pullRequest)
+      .thenApply(response -> Tool.Result.success(buildResponseFromComponentMeasures(response)));
   }
 
   private static String buildResponseFromComponentMeasures(ComponentMeasuresResponse response) {
@@ -16,12 +16,14 @@
  */
 package org.sonarsource.sonarqube.mcp.tools.metrics;
 
+import java.util.concurrent.CompletionStage;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
 import org.sonarsource.sonarqube.mcp.serverapi.metrics.response.SearchMetricsResponse;
+import org.sonarsource.sonarqube.mcp.tools.AsyncTool;
 import org.sonarsource.sonarqube.mcp.tools.SchemaToolBuilder;
 import org.sonarsource.sonarqube.mcp.tools.Tool;
 
-public class SearchMetricsTool extends Tool {
+public class SearchMetricsTool extends AsyncTool {
 
   public static final String TOOL_NAME = "search_metrics";
   public static final String PAGE_PROPERTY = "p";
@@ -40,12 +42,12 @@ public class SearchMetricsTool extends Tool {
   }
 
   @Override
-  public Tool.Result execute(Tool.Arguments arguments) {
+  public CompletionStage<Tool.Result> executeAsync(Tool.Arguments arguments) {
     var page = arguments.getOptionalInteger(PAGE_PROPERTY);
     var pageSize = arguments.getOptionalInteger(PAGE_SIZE_PROPERTY);
-    
-    var response = serverApi.metricsApi().searchMetrics(page, pageSize);
-    return Tool.Result.success(buildResponseFromSearchMetrics(response));
+
+    return serverApi.metricsApi().searchMetricsAsync(page, pageSize)
+      .thenApply(response -> Tool.Result.success(buildResponseFromSearchMetrics(response)));
   }
 
   private static String buildResponseFromSearchMetrics(SearchMetricsResponse response) {
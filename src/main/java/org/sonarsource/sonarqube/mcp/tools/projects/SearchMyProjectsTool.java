@@ -16,12 +16,14 @@
  */
 package org.sonarsource.sonarqube.mcp.tools.projects;
 
+import java.util.concurrent.CompletionStage;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
 import org.sonarsource.sonarqube.mcp.serverapi.components.response.SearchResponse;
+import org.sonarsource.sonarqube.mcp.tools.AsyncTool;
 import org.sonarsource.sonarqube.mcp.tools.SchemaToolBuilder;
 import org.sonarsource.sonarqube.mcp.tools.Tool;
 
-public class SearchMyProjectsTool extends Tool {
+public class SearchMyProjectsTool extends AsyncTool {
 
   public static final String TOOL_NAME = "search_my_sonarqube_projects";
   public static final String PAGE_PROPERTY = "page";
@@ -38,10 +40,10 @@ public class SearchMyProjectsTool extends Tool {
   }
 
   @Override
-  public Tool.Result execute(Tool.Arguments arguments) {
+  public CompletionStage<Tool.Result> executeAsync(Tool.Arguments arguments) {
     var page = arguments.getIntOrDefault(PAGE_PROPERTY, 1);
-    var projects = serverApi.componentsApi().searchProjectsInMyOrg(page);
-    return Tool.Result.success(buildResponseFromAllProjectsResponse(projects));
+    return serverApi.componentsApi().searchProjectsInMyOrgAsync(page)
+      .thenApply(projects -> Tool.Result.success(buildResponseFromAllProjectsResponse(projects)));
   }
 
   private static String buildResponseFromAllProjectsResponse(SearchResponse response) {
@@ -17,12 +17,14 @@
 package org.sonarsource.sonarqube.mcp.tools.qualitygates;
 
 import java.util.Objects;
+import java.util.concurrent.CompletionStage;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
 import org.sonarsource.sonarqube.mcp.serverapi.qualitygates.response.ListResponse;
+import org.sonarsource.sonarqube.mcp.tools.AsyncTool;
 import org.sonarsource.sonarqube.mcp.tools.SchemaToolBuilder;
 import org.sonarsource.sonarqube.mcp.tools.Tool;
 
-public class ListQualityGatesTool extends Tool {
+public class ListQualityGatesTool extends AsyncTool {
 
   public static final String TOOL_NAME = "list_quality_gates";
 
@@ -37,9 +39,9 @@ public class ListQualityGatesTool extends Tool {
   }
 
   @Override
-  public Tool.Result execute(Tool.Arguments arguments) {
-    var response = serverApi.qualityGatesApi().list();
-    return Tool.Result.success(buildResponseFromList(response));
+  public CompletionStage<Tool.Result> executeAsync(Tool.Arguments arguments) {
+    return serverApi.qualityGatesApi().listAsync()
+      .thenApply(response -> Tool.Result.success(buildResponseFromList(response)));
   }
 
   private static String buildResponseFromList(ListResponse response) {
@@ -16,12 +16,15 @@
  */
 package org.sonarsource.sonarqube.mcp.tools.qualitygates;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
 import org.sonarsource.sonarqube.mcp.serverapi.qualitygates.response.ProjectStatusResponse;
+import org.sonarsource.sonarqube.mcp.tools.AsyncTool;
 import org.sonarsource.sonarqube.mcp.tools.SchemaToolBuilder;
 import org.sonarsource.sonarqube.mcp.tools.Tool;
 
-public class ProjectStatusTool extends Tool {
+public class ProjectStatusTool extends AsyncTool {
 
   public static final String TOOL_NAME = "get_project_quality_gate_status";
   public static final String ANALYSIS_ID_PROPERTY = "analysisId";
@@ -50,7 +53,7 @@ public class ProjectStatusTool extends Tool {
   }
 
   @Override
-  public Tool.Result execute(Tool.Arguments arguments) {
+  public CompletionStage<Tool.Result> executeAsync(Tool.Arguments arguments) {
     var analysisId = arguments.getOptionalString(ANALYSIS_ID_PROPERTY);
     var branch = arguments.getOptionalString(BRANCH_PROPERTY);
     var projectId = arguments.getOptionalString(PROJECT_ID_PROPERTY);
@@ -58,15 +61,16 @@ public class ProjectStatusTool extends Tool {
     var pullRequest = arguments.getOptionalString(PULL_REQUEST_PROPERTY);
 
     if (analysisId == null && projectId == null && projectKey == null) {
-      return Tool.Result.failure("Either '%s', '%s' or '%s' must be provided".formatted(ANALYSIS_ID_PROPERTY, PROJECT_ID_PROPERTY, PROJECT_KEY_PROPERTY));
+      return CompletableFuture.completedFuture(
+        Tool.Result.failure("Either '%s', '%s' or '%s' must be provided".formatted(ANALYSIS_ID_PROPERTY, PROJECT_ID_PROPERTY, PROJECT_KEY_PROPERTY)));
     }
 
     if (projectId != null && (branch != null || pullRequest != null)) {
-      return Tool.Result.failure("Project ID doesn't work with branches or pull requests");
+      return CompletableFuture.completedFuture(Tool.Result.failure("Project ID doesn't work with branches or pull requests"));
     }
 
-    var projectStatus = serverApi.qualityGatesApi().getProjectQualityGateStatus(analysisId, branch, projectId, projectKey, pullRequest);
-    return Tool.Result.success(buildResponseFromProjectStatus(projectStatus));
+    return serverApi.qualityGatesApi().getProjectQualityGateStatusAsync(analysisId, branch, projectId, projectKey, pullRequest)
+      .thenApply(projectStatus -> Tool.Result.success(buildResponseFromProjectStatus(projectStatus)));
   }
 
   private static String buildResponseFromProjectStatus(ProjectStatusResponse projectStatus) {
@@ -17,12 +17,14 @@
 package org.sonarsource.sonarqube.mcp.tools.rules;
 
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
 import org.sonarsource.sonarqube.mcp.serverapi.rules.response.RepositoriesResponse;
+import org.sonarsource.sonarqube.mcp.tools.AsyncTool;
 import org.sonarsource.sonarqube.mcp.tools.SchemaToolBuilder;
 import org.sonarsource.sonarqube.mcp.tools.Tool;
 
-public class ListRuleRepositoriesTool extends Tool {
+public class ListRuleRepositoriesTool extends AsyncTool {
 
   public static final String TOOL_NAME = "list_rule_repositories";
   public static final String LANGUAGE_PROPERTY = "language";
@@ -41,11 +43,11 @@ public class ListRuleRepositoriesTool extends Tool {
   }
 
   @Override
-  public Tool.Result execute(Tool.Arguments arguments) {
+  public CompletionStage<Tool.Result> executeAsync(Tool.Arguments arguments) {
     var language = arguments.getOptionalString(LANGUAGE_PROPERTY);
     var query = arguments.getOptionalString(QUERY_PROPERTY);
-    var response = serverApi.rulesApi().getRepositories(language, query);
-    return Tool.Result.success(buildResponseFromRepositories(response.repositories()));
+    return serverApi.rulesApi().getRepositoriesAsync(language, query)
+      .thenApply(response -> Tool.Result.success(buildResponseFromRepositories(response.repositories())));
   }
 
   private static String buildResponseFromRepositories(List<RepositoriesResponse.Repository> repositories) {
@@ -16,12 +16,14 @@
  */
 package org.sonarsource.sonarqube.mcp.tools.rules;
 
+import java.util.concurrent.CompletionStage;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
 import org.sonarsource.sonarqube.mcp.serverapi.rules.response.ShowResponse;
+import org.sonarsource.sonarqube.mcp.tools.AsyncTool;
 import org.sonarsource.sonarqube.mcp.tools.SchemaToolBuilder;
 import org.sonarsource.sonarqube.mcp.tools.Tool;
 
-public class ShowRuleTool extends Tool {
+public class ShowRuleTool extends AsyncTool {
 
   public static final String TOOL_NAME = "show_rule";
   public static final String KEY_PROPERTY = "key";
@@ -38,10 +40,10 @@ public class ShowRuleTool extends Tool {
   }
 
   @Override
-  public Tool.Result execute(Tool.Arguments arguments) {
+  public CompletionStage<Tool.Result> executeAsync(Tool.Arguments arguments) {
     var ruleKey = arguments.getStringOrThrow(KEY_PROPERTY);
-    var response = serverApi.rulesApi().showRule(ruleKey);
-    return Tool.Result.success(buildResponseFromShowResponse(response.rule()));
+    return serverApi.rulesApi().showRuleAsync(ruleKey)
+      .thenApply(response -> Tool.Result.success(buildResponseFromShowResponse(response.rule())));
   }
 
   private static String buildResponseFromShowResponse(ShowResponse.Rule rule) {
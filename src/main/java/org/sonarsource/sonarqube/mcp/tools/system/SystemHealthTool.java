@@ -17,12 +17,14 @@
 package org.sonarsource.sonarqube.mcp.tools.system;
 
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
 import org.sonarsource.sonarqube.mcp.serverapi.system.response.HealthResponse;
+import org.sonarsource.sonarqube.mcp.tools.AsyncTool;
 import org.sonarsource.sonarqube.mcp.tools.SchemaToolBuilder;
 import org.sonarsource.sonarqube.mcp.tools.Tool;
 
-public class SystemHealthTool extends Tool {
+public class SystemHealthTool extends AsyncTool {
 
   public static final String TOOL_NAME = "get_system_health";
 
@@ -37,9 +39,9 @@ public class SystemHealthTool extends Tool {
   }
 
   @Override
-  public Tool.Result execute(Tool.Arguments arguments) {
-    var response = serverApi.systemApi().getHealth();
-    return Tool.Result.success(buildResponseFromHealth(response));
+  public CompletionStage<Tool.Result> executeAsync(Tool.Arguments arguments) {
+    return serverApi.systemApi().getHealthAsync()
+      .thenApply(response -> Tool.Result.success(buildResponseFromHealth(response)));
   }
 
   private static String buildResponseFromHealth(HealthResponse response) {
@@ -17,13 +17,15 @@
 package org.sonarsource.sonarqube.mcp.tools.system;
 
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
 import javax.annotation.Nullable;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
 import org.sonarsource.sonarqube.mcp.serverapi.system.response.InfoResponse;
+import org.sonarsource.sonarqube.mcp.tools.AsyncTool;
 import org.sonarsource.sonarqube.mcp.tools.SchemaToolBuilder;
 import org.sonarsource.sonarqube.mcp.tools.Tool;
 
-public class SystemInfoTool extends Tool {
+public class SystemInfoTool extends AsyncTool {
 
   public static final String TOOL_NAME = "get_system_info";
 
@@ -39,9 +41,9 @@ public class SystemInfoTool extends Tool {
   }
 
   @Override
-  public Tool.Result execute(Tool.Arguments arguments) {
-    var response = serverApi.systemApi().getInfo();
-    return Tool.Result.success(buildResponseFromInfo(response));
+  public CompletionStage<Tool.Result> executeAsync(Tool.Arguments arguments) {
+    return serverApi.systemApi().getInfoAsync()
+      .thenApply(response -> Tool.Result.success(buildResponseFromInfo(response)));
   }
 
   private static String buildResponseFromInfo(InfoResponse response) {
@@ -17,37 +17,44 @@
 package org.sonarsource.sonarqube.mcp.tools.system;
 
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import javax.annotation.Nullable;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
+import org.sonarsource.sonarqube.mcp.serverapi.system.SystemApi;
+import org.sonarsource.sonarqube.mcp.tools.AsyncTool;
 import org.sonarsource.sonarqube.mcp.tools.SchemaToolBuilder;
 import org.sonarsource.sonarqube.mcp.tools.Tool;
 
-public class SystemLogsTool extends Tool {
+public class SystemLogsTool extends AsyncTool {
 
   public static final String TOOL_NAME = "get_system_logs";
   public static final String NAME_PROPERTY = "name";
+  public static final int DEFAULT_MAX_LOGS_BYTES = 4 * 1024 * 1024;
 
   private final ServerApi serverApi;
+  private final long maxLogsBytes;
 
-  public SystemLogsTool(ServerApi serverApi) {
+  public SystemLogsTool(ServerApi serverApi, long maxLogsBytes) {
     super(new SchemaToolBuilder()
       .setName(TOOL_NAME)
       .setDescription("Get SonarQube Server system logs in plain-text format. Requires system administration permission.")
       .addStringProperty(NAME_PROPERTY, "Name of the logs to get. Possible values: access, app, ce, deprecation, es, web. Default: app")
       .build());
     this.serverApi = serverApi;
+    this.maxLogsBytes = maxLogsBytes;
   }
 
   @Override
-  public Tool.Result execute(Tool.Arguments arguments) {
+  public CompletionStage<Tool.Result> executeAsync(Tool.Arguments arguments) {
     var name = arguments.getOptionalString("name");
 
     if (name != null && !isValidLogName(name)) {
-      return Tool.Result.failure("Invalid log name. Possible values: access, app, ce, deprecation, es, web");
+      return CompletableFuture.completedFuture(Tool.Result.failure("Invalid log name. Possible values: access, app, ce, deprecation, es, web"));
     }
 
-    var logs = serverApi.systemApi().getLogs(name);
-    return Tool.Result.success(buildResponseFromLogs(logs, name));
+    return serverApi.systemApi().getLogsAsync(name, maxLogsBytes)
+      .thenApply(logs -> Tool.Result.success(buildResponseFromLogs(logs, name)));
   }
 
   private static boolean isValidLogName(String name) {
@@ -55,15 +62,18 @@ public class SystemLogsTool extends Tool {
            "deprecation".equals(name) || "es".equals(name) || "web".equals(name);
   }
 
-  private static String buildResponseFromLogs(@Nullable String logs, @Nullable String name) {
+  private String buildResponseFromLogs(SystemApi.Logs logs, @Nullable String name) {
     var logType = name != null ? name : "app";
     var header = "SonarQube Server " + logType.toUpperCase(Locale.getDefault()) + " Logs\n" +
                  "=".repeat(("SonarQube Server " + logType.toUpperCase(Locale.getDefault()) + " Logs").length()) + "\n\n";
     
-    if (logs == null || logs.trim().isEmpty()) {
+    if (logs.content().trim().isEmpty()) {
       return header + "No logs available.";
     }
-    
-    return header + logs;
+    if (logs.isTruncated()) {
+      header += "(Logs truncated, only the latest " + maxLogsBytes + " bytes are shown)\n\n";
+    }
+
+    return header + logs.content();
   }
 }
@@ -16,11 +16,13 @@
  */
 package org.sonarsource.sonarqube.mcp.tools.system;
 
+import java.util.concurrent.CompletionStage;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
+import org.sonarsource.sonarqube.mcp.tools.AsyncTool;
 import org.sonarsource.sonarqube.mcp.tools.SchemaToolBuilder;
 import org.sonarsource.sonarqube.mcp.tools.Tool;
 
-public class SystemPingTool extends Tool {
+public class SystemPingTool extends AsyncTool {
 
   public static final String TOOL_NAME = "ping_system";
 
@@ -35,9 +37,9 @@ public class SystemPingTool extends Tool {
   }
 
   @Override
-  public Tool.Result execute(Tool.Arguments arguments) {
-    var response = serverApi.systemApi().getPing();
-    return Tool.Result.success(response.trim());
+  public CompletionStage<Tool.Result> executeAsync(Tool.Arguments arguments) {
+    return serverApi.systemApi().getPingAsync()
+      .thenApply(response -> Tool.Result.success(response.trim()));
   }
 
 }
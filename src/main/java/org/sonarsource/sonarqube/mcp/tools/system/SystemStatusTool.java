@@ -16,12 +16,14 @@
  */
 package org.sonarsource.sonarqube.mcp.tools.system;
 
+import java.util.concurrent.CompletionStage;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
 import org.sonarsource.sonarqube.mcp.serverapi.system.response.StatusResponse;
+import org.sonarsource.sonarqube.mcp.tools.AsyncTool;
 import org.sonarsource.sonarqube.mcp.tools.SchemaToolBuilder;
 import org.sonarsource.sonarqube.mcp.tools.Tool;
 
-public class SystemStatusTool extends Tool {
+public class SystemStatusTool extends AsyncTool {
 
   public static final String TOOL_NAME = "get_system_status";
 
@@ -36,9 +38,9 @@ public class SystemStatusTool extends Tool {
   }
 
   @Override
-  public Tool.Result execute(Tool.Arguments arguments) {
-    var response = serverApi.systemApi().getStatus();
-    return Tool.Result.success(buildResponseFromStatus(response));
+  public CompletionStage<Tool.Result> executeAsync(Tool.Arguments arguments) {
+    return serverApi.systemApi().getStatusAsync()
+      .thenApply(response -> Tool.Result.success(buildResponseFromStatus(response)));
   }
 
   private static String buildResponseFromStatus(StatusResponse response) {
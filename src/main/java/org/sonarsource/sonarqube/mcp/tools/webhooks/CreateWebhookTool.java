@@ -16,11 +16,13 @@
  */
 package org.sonarsource.sonarqube.mcp.tools.webhooks;
 
+import java.util.concurrent.CompletionStage;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
+import org.sonarsource.sonarqube.mcp.serverapi.webhooks.response.CreateResponse;
+import org.sonarsource.sonarqube.mcp.tools.AsyncTool;
 import org.sonarsource.sonarqube.mcp.tools.SchemaToolBuilder;
-import org.sonarsource.sonarqube.mcp.tools.Tool;
 
-public class CreateWebhookTool extends Tool {
+public class CreateWebhookTool extends AsyncTool {
 
   public static final String TOOL_NAME = "create_webhook";
   public static final String NAME_PROPERTY = "name";
@@ -45,16 +47,18 @@ public class CreateWebhookTool extends Tool {
   }
 
   @Override
-  public Result execute(Arguments arguments) {
+  public CompletionStage<Result> executeAsync(Arguments arguments) {
     var name = arguments.getStringOrThrow(NAME_PROPERTY);
     var url = arguments.getStringOrThrow(URL_PROPERTY);
     var project = arguments.getOptionalString(PROJECT_PROPERTY);
     var secret = arguments.getOptionalString(SECRET_PROPERTY);
 
-    var response = serverApi.webhooksApi().createWebhook(name, url, project, secret);
-    var webhook = response.webhook();
+    return serverApi.webhooksApi().createWebhookAsync(name, url, project, secret)
+      .thenApply(response -> Result.success(buildResponseFromWebhook(response.webhook())));
+  }
 
-    var resultMessage = """
+  private static String buildResponseFromWebhook(CreateResponse.Webhook webhook) {
+    return """
       Webhook created successfully.
       Key: %s
       Name: %s
@@ -65,8 +69,6 @@ public class CreateWebhookTool extends Tool {
       webhook.url(),
       webhook.hasSecret() ? "Yes" : "No"
     );
-
-    return Result.success(resultMessage);
   }
 
 }
@@ -17,13 +17,15 @@
 package org.sonarsource.sonarqube.mcp.tools.webhooks;
 
 import java.util.List;
+import java.util.concurrent.CompletionStage;
 import javax.annotation.Nullable;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
 import org.sonarsource.sonarqube.mcp.serverapi.webhooks.response.ListResponse;
+import org.sonarsource.sonarqube.mcp.tools.AsyncTool;
 import org.sonarsource.sonarqube.mcp.tools.SchemaToolBuilder;
 import org.sonarsource.sonarqube.mcp.tools.Tool;
 
-public class ListWebhooksTool extends Tool {
+public class ListWebhooksTool extends AsyncTool {
 
   public static final String TOOL_NAME = "list_webhooks";
   public static final String PROJECT_PROPERTY = "projectKey";
@@ -40,10 +42,10 @@ public class ListWebhooksTool extends Tool {
   }
 
   @Override
-  public Tool.Result execute(Tool.Arguments arguments) {
+  public CompletionStage<Tool.Result> executeAsync(Tool.Arguments arguments) {
     var project = arguments.getOptionalString(PROJECT_PROPERTY);
-    var response = serverApi.webhooksApi().listWebhooks(project);
-    return Tool.Result.success(buildResponseFromList(response.webhooks(), project));
+    return serverApi.webhooksApi().listWebhooksAsync(project)
+      .thenApply(response -> Tool.Result.success(buildResponseFromList(response.webhooks(), project)));
   }
 
   private static String buildResponseFromList(List<ListResponse.Webhook> webhooks, @Nullable String project) {
@@ -0,0 +1,271 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import java.lang.management.ManagementFactory;
+import java.util.Hashtable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.util.concurrent.Queues;
+
+/**
+ * Multi-producer single-consumer queue of messages, bounded by the number of bytes they hold.
+ * Enqueueing and dequeueing are lock-free. When the queue is full, producers either wait for the consumer to make room or are rejected,
+ * depending on the {@link QueueOverflowPolicy}. A message bigger than the limit is still accepted when the queue is empty, so that it is
+ * not stuck forever.
+ * Once closed, the queue rejects new messages, and the consumer gets the remaining ones before being told that the queue is drained.
+ */
+class BoundedMessageQueue<T> implements MessageQueueMXBean {
+
+  private static final Logger logger = LoggerFactory.getLogger(BoundedMessageQueue.class);
+
+  private static final String JMX_DOMAIN = "org.sonarsource.sonarqube.mcp";
+
+  /** Producers also poll the queue state on their own, in case they missed a wake-up */
+  private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private static final AtomicInteger INSTANCE_COUNTER = new AtomicInteger();
+
+  private final String name;
+  private final long maxBufferedBytes;
+  private final QueueOverflowPolicy overflowPolicy;
+  private final Queue<Entry<T>> entries = Queues.<Entry<T>>unboundedMultiproducer().get();
+  private final Queue<Thread> waitingProducers = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger depth = new AtomicInteger();
+  private final AtomicLong bufferedBytes = new AtomicLong();
+  private final LongAdder enqueuedMessages = new LongAdder();
+  private final LongAdder rejectedMessages = new LongAdder();
+  private final LongAdder blockedEnqueues = new LongAdder();
+  private final LongAdder totalEnqueueWaitNanos = new LongAdder();
+  private final AtomicLong maxEnqueueWaitNanos = new AtomicLong();
+  @Nullable
+  private volatile Thread consumer;
+  private volatile boolean closed;
+  @Nullable
+  private ObjectName objectName;
+
+  BoundedMessageQueue(String name, long maxBufferedBytes, QueueOverflowPolicy overflowPolicy) {
+    this.name = name;
+    this.maxBufferedBytes = maxBufferedBytes;
+    this.overflowPolicy = overflowPolicy;
+  }
+
+  /**
+   * Enqueues the message, waiting for room if needed and allowed by the overflow policy.
+   * @param size The number of bytes held by the message
+   * @return false if the message was rejected because the queue is full or closed
+   */
+  boolean offer(T message, long size) {
+    if (!tryReserve(size)) {
+      if (overflowPolicy == QueueOverflowPolicy.FAIL || !awaitRoom(size)) {
+        rejectedMessages.increment();
+        return false;
+      }
+    }
+    enqueue(message, size);
+    return true;
+  }
+
+  /**
+   * Enqueues the message only if there is room right away, whatever the overflow policy, for producers that must not wait.
+   * @return false if the queue is full or closed, the message is not counted as rejected so that it can be offered again
+   */
+  boolean offerWithoutWaiting(T message, long size) {
+    if (!tryReserve(size)) {
+      return false;
+    }
+    enqueue(message, size);
+    return true;
+  }
+
+  /**
+   * Dequeues the next message, waiting for one if the queue is empty. Must always be called by the same thread.
+   * @return null once the queue is closed and drained
+   */
+  @CheckForNull
+  T take() throws InterruptedException {
+    return poll(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Dequeues the next message, waiting up to the given time if the queue is empty. Must always be called by the same thread.
+   * @return null if no message was enqueued in time, or once the queue is closed and drained
+   */
+  @CheckForNull
+  T poll(long timeout, TimeUnit unit) throws InterruptedException {
+    consumer = Thread.currentThread();
+    var start = System.nanoTime();
+    var timeoutNanos = unit.toNanos(timeout);
+    while (true) {
+      var entry = entries.poll();
+      if (entry != null) {
+        depth.decrementAndGet();
+        bufferedBytes.addAndGet(-entry.size);
+        waitingProducers.forEach(LockSupport::unpark);
+        return entry.message;
+      }
+      var remainingNanos = timeoutNanos - (System.nanoTime() - start);
+      if (closed || remainingNanos <= 0) {
+        return null;
+      }
+      LockSupport.parkNanos(this, remainingNanos);
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+    }
+  }
+
+  boolean isEmpty() {
+    return depth.get() == 0;
+  }
+
+  boolean isClosed() {
+    return closed;
+  }
+
+  void close() {
+    closed = true;
+    LockSupport.unpark(consumer);
+    waitingProducers.forEach(LockSupport::unpark);
+    unregisterMBean();
+  }
+
+  /**
+   * Exposes the metrics of this queue through JMX, until it is closed.
+   */
+  void registerMBean() {
+    try {
+      var properties = new Hashtable<String, String>();
+      properties.put("type", "MessageQueue");
+      properties.put("name", name);
+      properties.put("id", String.valueOf(INSTANCE_COUNTER.incrementAndGet()));
+      var newObjectName = new ObjectName(JMX_DOMAIN, properties);
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, newObjectName);
+      objectName = newObjectName;
+    } catch (JMException e) {
+      logger.debug("Unable to register the metrics of the {} queue", name, e);
+    }
+  }
+
+  private void unregisterMBean() {
+    var registeredObjectName = objectName;
+    if (registeredObjectName != null) {
+      objectName = null;
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredObjectName);
+      } catch (JMException e) {
+        logger.debug("Unable to unregister the metrics of the {} queue", name, e);
+      }
+    }
+  }
+
+  private void enqueue(T message, long size) {
+    entries.offer(new Entry<>(message, size));
+    depth.incrementAndGet();
+    enqueuedMessages.increment();
+    LockSupport.unpark(consumer);
+  }
+
+  private boolean tryReserve(long size) {
+    while (!closed) {
+      var current = bufferedBytes.get();
+      if (current > 0 && current + size > maxBufferedBytes) {
+        return false;
+      }
+      if (bufferedBytes.compareAndSet(current, current + size)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean awaitRoom(long size) {
+    blockedEnqueues.increment();
+    var producer = Thread.currentThread();
+    var start = System.nanoTime();
+    waitingProducers.add(producer);
+    try {
+      while (!tryReserve(size)) {
+        if (closed || producer.isInterrupted()) {
+          return false;
+        }
+        LockSupport.parkNanos(this, MAX_PARK_NANOS);
+      }
+      return true;
+    } finally {
+      waitingProducers.remove(producer);
+      var waitNanos = System.nanoTime() - start;
+      totalEnqueueWaitNanos.add(waitNanos);
+      maxEnqueueWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+  }
+
+  @Override
+  public int getDepth() {
+    return depth.get();
+  }
+
+  @Override
+  public long getBufferedBytes() {
+    return bufferedBytes.get();
+  }
+
+  @Override
+  public long getMaxBufferedBytes() {
+    return maxBufferedBytes;
+  }
+
+  @Override
+  public long getEnqueuedMessages() {
+    return enqueuedMessages.sum();
+  }
+
+  @Override
+  public long getRejectedMessages() {
+    return rejectedMessages.sum();
+  }
+
+  @Override
+  public long getBlockedEnqueues() {
+    return blockedEnqueues.sum();
+  }
+
+  @Override
+  public long getTotalEnqueueWaitMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(totalEnqueueWaitNanos.sum());
+  }
+
+  @Override
+  public long getMaxEnqueueWaitMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(maxEnqueueWaitNanos.get());
+  }
+
+  private record Entry<M>(M message, long size) {
+  }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCMessage;
+import io.modelcontextprotocol.spec.McpServerSession;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Requests of a session being handled, by id, with the signal used to cancel them.
+ * Requests are handled until they complete or the client cancels them. Cancelling the handling disposes the tool call, which aborts
+ * its pending HTTP requests and analysis. No response is sent for a cancelled request, as per spec.
+ */
+class InFlightRequests {
+
+  private static final Logger logger = LoggerFactory.getLogger(InFlightRequests.class);
+
+  static final String METHOD_NOTIFICATION_CANCELLED = "notifications/cancelled";
+
+  private final Map<Object, Sinks.One<Boolean>> cancellations = new ConcurrentHashMap<>();
+
+  private volatile boolean isCancelled;
+
+  Mono<Void> handle(McpServerSession session, JSONRPCMessage message) {
+    if (message instanceof McpSchema.JSONRPCNotification notification && METHOD_NOTIFICATION_CANCELLED.equals(notification.method())) {
+      // not supported by the SDK session, which would only log an error
+      cancelNotified(notification.params());
+      return Mono.empty();
+    }
+    if (message instanceof McpSchema.JSONRPCRequest request && request.id() != null) {
+      var requestId = request.id();
+      var cancellation = Sinks.<Boolean>one();
+      cancellations.put(requestId, cancellation);
+      if (isCancelled) {
+        // dispatched while or after the client went away
+        cancellation.tryEmitValue(true);
+      }
+      return session.handle(message)
+        .takeUntilOther(cancellation.asMono())
+        .doFinally(signal -> {
+          cancellations.remove(requestId, cancellation);
+          // also when the request failed before reaching the tool, e.g. for an unknown tool
+          SpilledString.deleteAll(message);
+        });
+    }
+    return session.handle(message);
+  }
+
+  /**
+   * Used when the client is gone, nobody is waiting for the pending responses anymore. Requests dispatched afterwards are cancelled as well.
+   */
+  void cancelAll() {
+    isCancelled = true;
+    cancellations.values().forEach(cancellation -> cancellation.tryEmitValue(true));
+    cancellations.clear();
+  }
+
+  /**
+   * Used when the client went away while waiting for the response of the request.
+   */
+  void cancel(Object requestId) {
+    var cancellation = cancellations.remove(requestId);
+    if (cancellation != null) {
+      cancellation.tryEmitValue(true);
+    }
+  }
+
+  boolean isEmpty() {
+    return cancellations.isEmpty();
+  }
+
+  private void cancelNotified(@Nullable Object params) {
+    if (params instanceof Map<?, ?> cancelledParams && cancelledParams.get("requestId") != null) {
+      logger.debug("Request {} cancelled by the client: {}", cancelledParams.get("requestId"), cancelledParams.get("reason"));
+      cancel(cancelledParams.get("requestId"));
+    }
+  }
+
+}
@@ -0,0 +1,490 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCMessage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads newline-delimited JSON-RPC messages from an input stream.
+ * Bytes are framed in a reused buffer and handed to a streaming Jackson parser, without decoding the line to a String or to a generic map first.
+ * Messages bigger than the maximum size are discarded and reported with a {@link MessageTooLargeException}. String tool arguments longer than
+ * the spill threshold are written to a file of the spill directory while they are decoded, without building a String (see {@link SpilledString}).
+ * They are decoded from the framed bytes in chunks rather than by Jackson, which would build the whole value in memory: the heap used by a
+ * message is then bounded by the maximum size of the message, plus the small arguments.
+ */
+class JsonRpcMessageReader {
+
+  private static final Logger logger = LoggerFactory.getLogger(JsonRpcMessageReader.class);
+
+  private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+  private static final int RETAINED_BUFFER_SIZE = 1024 * 1024;
+  private static final int DECODED_CHUNK_SIZE = 8 * 1024;
+
+  private final InputStream inputStream;
+  private final ObjectMapper objectMapper;
+  private final int maxMessageSize;
+  private final int spillThreshold;
+  private final Path spillDirectory;
+  /** Files written while parsing the current message, deleted if it cannot be parsed */
+  private final List<SpilledString> spilledArguments = new ArrayList<>();
+  private final CharsetDecoder utf8Decoder = StandardCharsets.UTF_8.newDecoder();
+  private final CharBuffer decodedChunk = CharBuffer.allocate(DECODED_CHUNK_SIZE);
+
+  private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+  private int start;
+  private int end;
+  private int scanPosition;
+  private boolean discarding;
+  @Nullable
+  private Object discardedRequestId;
+  private int lastMessageSize;
+  /** Position of the message being parsed in the buffer */
+  private int parsedMessageOffset;
+  private int parsedMessageEnd;
+
+  JsonRpcMessageReader(InputStream inputStream, ObjectMapper objectMapper, int maxMessageSize, int spillThreshold, Path spillDirectory) {
+    this.inputStream = inputStream;
+    this.objectMapper = objectMapper;
+    this.maxMessageSize = maxMessageSize;
+    this.spillThreshold = spillThreshold;
+    this.spillDirectory = spillDirectory;
+  }
+
+  /**
+   * Returns the next message, or null when the end of the stream is reached.
+   * @throws MessageTooLargeException once a message bigger than the maximum size has been skipped, the next call reads the following message
+   */
+  @CheckForNull
+  JSONRPCMessage read() throws IOException {
+    while (true) {
+      var newlineIndex = indexOfNewline();
+      if (newlineIndex >= 0) {
+        var messageStart = start;
+        var messageEnd = newlineIndex;
+        start = newlineIndex + 1;
+        scanPosition = start;
+        if (discarding) {
+          discarding = false;
+          throw new MessageTooLargeException(maxMessageSize, discardedRequestId);
+        }
+        if (messageEnd > messageStart && buffer[messageEnd - 1] == '\r') {
+          messageEnd--;
+        }
+        if (messageEnd > messageStart) {
+          var message = parse(messageStart, messageEnd - messageStart);
+          shrinkBufferIfPossible();
+          return message;
+        }
+      } else if (!fill()) {
+        if (discarding) {
+          discarding = false;
+          start = end;
+          throw new MessageTooLargeException(maxMessageSize, discardedRequestId);
+        }
+        if (end > start) {
+          var messageStart = start;
+          start = end;
+          return parse(messageStart, end - messageStart);
+        }
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Returns the size in bytes of the message last returned by {@link #read()}.
+   */
+  int lastMessageSize() {
+    return lastMessageSize;
+  }
+
+  private int indexOfNewline() {
+    for (var i = scanPosition; i < end; i++) {
+      if (buffer[i] == '\n') {
+        return i;
+      }
+    }
+    scanPosition = end;
+    return -1;
+  }
+
+  private boolean fill() throws IOException {
+    if (start > 0) {
+      System.arraycopy(buffer, start, buffer, 0, end - start);
+      end -= start;
+      scanPosition -= start;
+      start = 0;
+    }
+    if (end == buffer.length) {
+      if (buffer.length > maxMessageSize) {
+        if (!discarding) {
+          logger.error("Discarding inbound message bigger than the maximum size of {} bytes", maxMessageSize);
+          discarding = true;
+          discardedRequestId = peekRequestId(start, end - start);
+        }
+        end = 0;
+        scanPosition = 0;
+      } else {
+        var newBuffer = new byte[(int) Math.min((long) maxMessageSize + 1, buffer.length * 2L)];
+        System.arraycopy(buffer, 0, newBuffer, 0, end);
+        buffer = newBuffer;
+      }
+    }
+    var read = inputStream.read(buffer, end, buffer.length - end);
+    if (read < 0) {
+      return false;
+    }
+    end += read;
+    return true;
+  }
+
+  private void shrinkBufferIfPossible() {
+    var remaining = end - start;
+    if (buffer.length > RETAINED_BUFFER_SIZE && remaining <= INITIAL_BUFFER_SIZE) {
+      var newBuffer = new byte[INITIAL_BUFFER_SIZE];
+      System.arraycopy(buffer, start, newBuffer, 0, remaining);
+      buffer = newBuffer;
+      scanPosition -= start;
+      end = remaining;
+      start = 0;
+    }
+  }
+
+  /**
+   * Looks for the id of a request in the beginning of a message, so that the client can be told that it was not handled.
+   * The id is usually sent before the parameters, it is not found otherwise.
+   */
+  @CheckForNull
+  private Object peekRequestId(int offset, int length) {
+    try (var parser = objectMapper.getFactory().createParser(buffer, offset, length)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        return null;
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        var fieldName = parser.currentName();
+        var token = parser.nextToken();
+        if ("result".equals(fieldName) || "error".equals(fieldName)) {
+          // a response, there is nobody to answer
+          return null;
+        }
+        if ("id".equals(fieldName)) {
+          return switch (token) {
+            case VALUE_NUMBER_INT -> parser.getNumberValue();
+            case VALUE_STRING -> parser.getText();
+            default -> null;
+          };
+        }
+        parser.skipChildren();
+      }
+    } catch (IOException e) {
+      // the id is not in the part of the message that was received
+    }
+    return null;
+  }
+
+  private JSONRPCMessage parse(int offset, int length) throws IOException {
+    logger.debug("Received JSON message of {} bytes", length);
+    lastMessageSize = length;
+    if (length > maxMessageSize) {
+      // fits in the initial buffer
+      throw new MessageTooLargeException(maxMessageSize, peekRequestId(offset, length));
+    }
+    try {
+      return parseMessage(offset, length);
+    } catch (IOException | RuntimeException e) {
+      spilledArguments.forEach(SpilledString::delete);
+      throw e;
+    } finally {
+      spilledArguments.clear();
+    }
+  }
+
+  private JSONRPCMessage parseMessage(int offset, int length) throws IOException {
+    parsedMessageOffset = offset;
+    parsedMessageEnd = offset + length;
+    try (var parser = objectMapper.getFactory().createParser(buffer, offset, length);
+      var tokens = new TokenBuffer(parser)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IllegalArgumentException("Cannot deserialize JSONRPCMessage: expected a JSON object");
+      }
+      var hasMethod = false;
+      var hasId = false;
+      var hasResultOrError = false;
+      tokens.writeStartObject();
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        var fieldName = parser.currentName();
+        hasMethod |= "method".equals(fieldName);
+        hasId |= "id".equals(fieldName);
+        hasResultOrError |= "result".equals(fieldName) || "error".equals(fieldName);
+        tokens.writeFieldName(fieldName);
+        parser.nextToken();
+        if ("params".equals(fieldName) && parser.currentToken() == JsonToken.START_OBJECT) {
+          copyParams(parser, tokens);
+        } else {
+          tokens.copyCurrentStructure(parser);
+        }
+      }
+      tokens.writeEndObject();
+
+      // same rules as McpSchema.deserializeJsonRpcMessage
+      Class<? extends JSONRPCMessage> messageType;
+      if (hasMethod && hasId) {
+        messageType = McpSchema.JSONRPCRequest.class;
+      } else if (hasMethod) {
+        messageType = McpSchema.JSONRPCNotification.class;
+      } else if (hasResultOrError) {
+        messageType = McpSchema.JSONRPCResponse.class;
+      } else {
+        throw new IllegalArgumentException("Cannot deserialize JSONRPCMessage: missing method, result or error");
+      }
+      try (var tokensParser = tokens.asParser(objectMapper)) {
+        return objectMapper.readValue(tokensParser, messageType);
+      }
+    }
+  }
+
+  private void copyParams(JsonParser parser, TokenBuffer tokens) throws IOException {
+    tokens.writeStartObject();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      var fieldName = parser.currentName();
+      tokens.writeFieldName(fieldName);
+      parser.nextToken();
+      if ("arguments".equals(fieldName) && parser.currentToken() == JsonToken.START_OBJECT) {
+        copyArguments(parser, tokens);
+      } else {
+        tokens.copyCurrentStructure(parser);
+      }
+    }
+    tokens.writeEndObject();
+  }
+
+  private void copyArguments(JsonParser parser, TokenBuffer tokens) throws IOException {
+    tokens.writeStartObject();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      tokens.writeFieldName(parser.currentName());
+      parser.nextToken();
+      if (parser.currentToken() == JsonToken.VALUE_STRING) {
+        copyStringArgument(parser, tokens);
+      } else {
+        tokens.copyCurrentStructure(parser);
+      }
+    }
+    tokens.writeEndObject();
+  }
+
+  /**
+   * The value is decoded once, straight to the spill file when it turns out to be longer than the threshold.
+   * The parser then skips it without buffering it, and still validates it.
+   */
+  private void copyStringArgument(JsonParser parser, TokenBuffer tokens) throws IOException {
+    var writer = new SpillingWriter(spillThreshold, spillDirectory);
+    try (writer) {
+      decodeString(parser, writer);
+    } catch (IOException e) {
+      writer.discard();
+      throw e;
+    }
+    var spilledString = writer.spilledString();
+    if (spilledString == null) {
+      tokens.writeString(writer.inMemoryValue());
+    } else {
+      spilledArguments.add(spilledString);
+      tokens.writeEmbeddedObject(spilledString);
+    }
+  }
+
+  /**
+   * Decodes the current string value of the parser from the bytes of the message, in chunks of {@link #DECODED_CHUNK_SIZE} characters.
+   */
+  private void decodeString(JsonParser parser, Writer writer) throws IOException {
+    // the offset of the token is the one of its opening quote, relative to the start of the message
+    var position = parsedMessageOffset + (int) parser.currentTokenLocation().getByteOffset() + 1;
+    var runStart = position;
+    decodedChunk.clear();
+    while (true) {
+      if (position >= parsedMessageEnd) {
+        throw new JsonParseException(parser, "Unexpected end-of-input in a string value");
+      }
+      var b = buffer[position];
+      if (b == '"' || b == '\\') {
+        // escapes are ASCII, the bytes before them are complete UTF-8 sequences
+        decodeUtf8(parser, runStart, position, writer);
+        if (b == '"') {
+          flushDecodedChunk(writer);
+          return;
+        }
+        position = decodeEscape(parser, position + 1, writer);
+        runStart = position;
+      } else {
+        position++;
+      }
+    }
+  }
+
+  private void decodeUtf8(JsonParser parser, int from, int to, Writer writer) throws IOException {
+    var bytes = ByteBuffer.wrap(buffer, from, to - from);
+    utf8Decoder.reset();
+    while (true) {
+      var result = utf8Decoder.decode(bytes, decodedChunk, true);
+      if (result.isUnderflow()) {
+        break;
+      }
+      if (result.isError()) {
+        throw new JsonParseException(parser, "Invalid UTF-8 in a string value");
+      }
+      flushDecodedChunk(writer);
+    }
+    while (utf8Decoder.flush(decodedChunk).isOverflow()) {
+      flushDecodedChunk(writer);
+    }
+  }
+
+  /**
+   * Returns the position following the escape sequence
+   */
+  private int decodeEscape(JsonParser parser, int position, Writer writer) throws IOException {
+    if (position >= parsedMessageEnd) {
+      throw new JsonParseException(parser, "Unexpected end-of-input in a string value");
+    }
+    var escaped = (char) buffer[position];
+    char decoded = switch (escaped) {
+      case '"', '\\', '/' -> escaped;
+      case 'b' -> '\b';
+      case 'f' -> '\f';
+      case 'n' -> '\n';
+      case 'r' -> '\r';
+      case 't' -> '\t';
+      case 'u' -> decodeUnicodeEscape(parser, position + 1);
+      default -> throw new JsonParseException(parser, "Unrecognized character escape '" + escaped + "' in a string value");
+    };
+    if (!decodedChunk.hasRemaining()) {
+      flushDecodedChunk(writer);
+    }
+    decodedChunk.put(decoded);
+    return escaped == 'u' ? (position + 5) : (position + 1);
+  }
+
+  private char decodeUnicodeEscape(JsonParser parser, int position) throws IOException {
+    if (position + 4 > parsedMessageEnd) {
+      throw new JsonParseException(parser, "Unexpected end-of-input in a string value");
+    }
+    var code = 0;
+    for (var i = position; i < position + 4; i++) {
+      var digit = Character.digit(buffer[i], 16);
+      if (digit < 0) {
+        throw new JsonParseException(parser, "Invalid unicode escape in a string value");
+      }
+      code = (code << 4) | digit;
+    }
+    return (char) code;
+  }
+
+  private void flushDecodedChunk(Writer writer) throws IOException {
+    decodedChunk.flip();
+    writer.write(decodedChunk.array(), 0, decodedChunk.limit());
+    decodedChunk.clear();
+  }
+
+  /**
+   * Keeps the characters in memory up to the threshold, then moves them to a new file of the spill directory along with the following ones.
+   */
+  private static class SpillingWriter extends Writer {
+
+    private final int threshold;
+    private final Path directory;
+    private final StringBuilder inMemory = new StringBuilder();
+    @Nullable
+    private Path file;
+    @Nullable
+    private Writer fileWriter;
+    private int length;
+
+    private SpillingWriter(int threshold, Path directory) {
+      this.threshold = threshold;
+      this.directory = directory;
+    }
+
+    @Override
+    public void write(char[] chars, int offset, int count) throws IOException {
+      length += count;
+      if (fileWriter == null && length > threshold) {
+        Files.createDirectories(directory);
+        file = Files.createTempFile(directory, "argument-", ".txt");
+        fileWriter = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        fileWriter.append(inMemory);
+        inMemory.setLength(0);
+        inMemory.trimToSize();
+      }
+      if (fileWriter == null) {
+        inMemory.append(chars, offset, count);
+      } else {
+        fileWriter.write(chars, offset, count);
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if (fileWriter != null) {
+        fileWriter.flush();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (fileWriter != null) {
+        fileWriter.close();
+      }
+    }
+
+    private String inMemoryValue() {
+      return inMemory.toString();
+    }
+
+    @CheckForNull
+    private SpilledString spilledString() {
+      return file == null ? null : new SpilledString(file, length);
+    }
+
+    private void discard() throws IOException {
+      if (file != null) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+}
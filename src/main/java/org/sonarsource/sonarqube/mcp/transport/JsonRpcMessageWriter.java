@@ -0,0 +1,167 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCMessage;
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+/**
+ * Writes newline-delimited JSON-RPC messages to an output stream.
+ * The message is serialized by the Jackson generator directly into a reusable UTF-8 buffer, without building an intermediate String or byte array.
+ * Flushing the underlying stream is left to the caller, so that several queued messages can be sent with a single flush.
+ * The queues of messages waiting to be written are bounded by their {@link #estimateSize(JSONRPCMessage) estimated size} instead of their
+ * serialized size, so that they are only serialized once, when written.
+ */
+class JsonRpcMessageWriter {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /** Approximate size of the JSON-RPC envelope, and of any value whose size is not estimated */
+  private static final int OVERHEAD = 64;
+
+  private final ObjectMapper objectMapper;
+  private final OutputStream bufferedOutputStream;
+  private final OutputStream newlineEscapingOutputStream;
+
+  JsonRpcMessageWriter(ObjectMapper objectMapper, OutputStream outputStream) {
+    this.objectMapper = objectMapper;
+    this.bufferedOutputStream = new BufferedOutputStream(outputStream, BUFFER_SIZE);
+    this.newlineEscapingOutputStream = new NewlineEscapingOutputStream(bufferedOutputStream);
+  }
+
+  void write(JSONRPCMessage message) throws IOException {
+    try (var generator = objectMapper.getFactory().createGenerator(newlineEscapingOutputStream, JsonEncoding.UTF8)) {
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+      objectMapper.writeValue(generator, message);
+    } finally {
+      // ends the line even if the serialization failed midway, so that the next message is still framed correctly
+      bufferedOutputStream.write('\n');
+    }
+  }
+
+  /**
+   * Approximates the number of bytes of the serialized message by the length of the text it carries, without serializing it.
+   * Escaping and multibyte characters are not accounted for, which is enough to bound the memory held by the queued messages.
+   */
+  static long estimateSize(JSONRPCMessage message) {
+    return OVERHEAD + switch (message) {
+      case McpSchema.JSONRPCResponse response -> estimateSize(response.result()) + (response.error() == null ? 0
+        : (estimateSize(response.error().message()) + estimateSize(response.error().data())));
+      case McpSchema.JSONRPCNotification notification -> estimateSize(notification.params());
+      case McpSchema.JSONRPCRequest request -> estimateSize(request.params());
+      default -> 0;
+    };
+  }
+
+  private static long estimateSize(@Nullable Object value) {
+    return switch (value) {
+      case null -> 0;
+      case CharSequence text -> text.length();
+      case Map<?, ?> map -> {
+        long size = 0;
+        for (var entry : map.entrySet()) {
+          size += estimateSize(entry.getKey()) + estimateSize(entry.getValue());
+        }
+        yield size;
+      }
+      case Collection<?> values -> {
+        long size = 0;
+        for (var element : values) {
+          size += estimateSize(element);
+        }
+        yield size;
+      }
+      case McpSchema.CallToolResult result -> estimateSize(result.content());
+      case McpSchema.TextContent content -> estimateSize(content.text());
+      case McpSchema.LoggingMessageNotification notification -> estimateSize(notification.data());
+      default -> OVERHEAD;
+    };
+  }
+
+  /**
+   * Writes bytes framing the messages as is, e.g. the fields of a server-sent event.
+   */
+  void writeRaw(byte[] bytes) throws IOException {
+    bufferedOutputStream.write(bytes);
+  }
+
+  void flush() throws IOException {
+    bufferedOutputStream.flush();
+  }
+
+  /**
+   * Escapes any embedded newline as per spec, the same way for "\r\n", "\n" and "\r".
+   * Working on bytes is safe since CR and LF can never be part of a multibyte UTF-8 sequence.
+   */
+  private static class NewlineEscapingOutputStream extends FilterOutputStream {
+
+    private static final byte[] ESCAPED_NEWLINE = {'\\', 'n'};
+
+    private boolean afterCarriageReturn;
+
+    private NewlineEscapingOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+      var chunkStart = offset;
+      var end = offset + length;
+      for (var i = offset; i < end; i++) {
+        var b = bytes[i];
+        if (b == '\r' || b == '\n') {
+          out.write(bytes, chunkStart, i - chunkStart);
+          chunkStart = i + 1;
+          if (b == '\r' || !afterCarriageReturn) {
+            out.write(ESCAPED_NEWLINE);
+          }
+          afterCarriageReturn = b == '\r';
+        } else {
+          afterCarriageReturn = false;
+        }
+      }
+      out.write(bytes, chunkStart, end - chunkStart);
+    }
+
+    @Override
+    public void flush() {
+      // flushing is controlled by the JsonRpcMessageWriter
+    }
+
+    @Override
+    public void close() {
+      // the underlying stream is owned by the JsonRpcMessageWriter
+    }
+  }
+
+}
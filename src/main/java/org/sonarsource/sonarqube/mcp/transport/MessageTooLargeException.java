@@ -0,0 +1,50 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import java.io.IOException;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * An inbound message was bigger than the maximum size and was skipped. The client is still waiting for an answer when it was a request.
+ */
+class MessageTooLargeException extends IOException {
+
+  @Nullable
+  private final transient Object requestId;
+
+  MessageTooLargeException(int maxMessageSize, @Nullable Object requestId) {
+    super("Inbound message bigger than the maximum size of " + maxMessageSize + " bytes");
+    this.requestId = requestId;
+  }
+
+  /**
+   * The id of the skipped request, null when the message was not a request or when the id could not be found.
+   */
+  @CheckForNull
+  Object requestId() {
+    return requestId;
+  }
+
+  McpSchema.JSONRPCResponse toErrorResponse() {
+    return new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, requestId,
+      null, new McpSchema.JSONRPCResponse.JSONRPCError(McpSchema.ErrorCodes.INVALID_REQUEST, getMessage(), null));
+  }
+
+}
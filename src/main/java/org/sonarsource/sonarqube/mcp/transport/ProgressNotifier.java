@@ -0,0 +1,125 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCMessage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+/**
+ * Sends progress notifications for a tool call, when the client asked for them by setting a progress token in the request, as per spec.
+ * The notifier of a call is found in the Reactor context of its handling under {@link #CONTEXT_KEY}.
+ * <p>
+ * Notifications are enqueued before the response of the call, so the client always receives them first. When partial results are enabled,
+ * tools send each part of their result as soon as it is available, and only summarize them in the final result.
+ */
+public final class ProgressNotifier {
+
+  private static final Logger logger = LoggerFactory.getLogger(ProgressNotifier.class);
+
+  public static final String CONTEXT_KEY = "mcp.progress";
+
+  /** Used when the client did not set a progress token */
+  public static final ProgressNotifier NONE = new ProgressNotifier(null, message -> Mono.empty(), false, new AtomicLong());
+
+  static final String METHOD_NOTIFICATION_PROGRESS = "notifications/progress";
+
+  @Nullable
+  private final Object progressToken;
+  private final Function<JSONRPCMessage, Mono<Void>> sender;
+  private final boolean hasPartialResults;
+  private final AtomicLong progress;
+
+  private ProgressNotifier(@Nullable Object progressToken, Function<JSONRPCMessage, Mono<Void>> sender, boolean hasPartialResults, AtomicLong progress) {
+    this.progressToken = progressToken;
+    this.sender = sender;
+    this.hasPartialResults = hasPartialResults;
+    this.progress = progress;
+  }
+
+  public boolean isEnabled() {
+    return progressToken != null;
+  }
+
+  /**
+   * Whether the tool should send the parts of its result as progress notifications, instead of building the whole result in memory.
+   */
+  public boolean hasPartialResults() {
+    return isEnabled() && hasPartialResults;
+  }
+
+  public ProgressNotifier withPartialResults() {
+    return isEnabled() ? new ProgressNotifier(progressToken, sender, true, progress) : this;
+  }
+
+  public void notifyProgress(String message) {
+    notifyProgress(message, null);
+  }
+
+  /**
+   * @param total The total number of notifications expected for the call, if known
+   */
+  public void notifyProgress(String message, @Nullable Long total) {
+    if (progressToken == null) {
+      return;
+    }
+    var params = new LinkedHashMap<String, Object>();
+    params.put("progressToken", progressToken);
+    params.put("progress", progress.incrementAndGet());
+    if (total != null) {
+      params.put("total", total);
+    }
+    params.put("message", message);
+    sender.apply(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, METHOD_NOTIFICATION_PROGRESS, params))
+      .subscribe(null, e -> logger.error("Failed to send progress notification for token {}", progressToken, e));
+  }
+
+  /**
+   * The SDK does not read the metadata of the tool call requests, so the transport looks for the progress token itself.
+   */
+  @CheckForNull
+  static Object getProgressToken(JSONRPCMessage message) {
+    if (message instanceof McpSchema.JSONRPCRequest request && McpSchema.METHOD_TOOLS_CALL.equals(request.method())
+      && request.params() instanceof Map<?, ?> params && params.get("_meta") instanceof Map<?, ?> meta) {
+      var progressToken = meta.get("progressToken");
+      if (progressToken instanceof String || progressToken instanceof Number) {
+        return progressToken;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Makes a notifier available to the handling of the message, if it is a tool call with a progress token.
+   */
+  static Function<Context, Context> contextWriter(@Nullable Object progressToken, Function<JSONRPCMessage, Mono<Void>> sender) {
+    if (progressToken == null) {
+      return Function.identity();
+    }
+    return context -> context.put(CONTEXT_KEY, new ProgressNotifier(progressToken, sender, false, new AtomicLong()));
+  }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCMessage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * A large string tool argument that was written to a file while the inbound message was parsed, instead of being kept in memory.
+ * It is carried through the MCP SDK as an embedded object, so it reaches the tool untouched. Tools able to read the file themselves should
+ * use it directly instead of reading it back to a String. The file is deleted once the request is handled.
+ */
+@JsonSerialize(using = SpilledString.EmbeddedObjectSerializer.class)
+public final class SpilledString {
+
+  private final Path file;
+  private final int length;
+
+  SpilledString(Path file, int length) {
+    this.file = file;
+    this.length = length;
+  }
+
+  public Path file() {
+    return file;
+  }
+
+  public int length() {
+    return length;
+  }
+
+  public String read() {
+    try {
+      return Files.readString(file, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to read the spilled argument from " + file, e);
+    }
+  }
+
+  public void delete() {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      // best effort, the file is in a dedicated directory of the storage
+    }
+  }
+
+  /**
+   * Deletes the files of the arguments of the given tool call, whether it was handled or not.
+   */
+  static void deleteAll(JSONRPCMessage message) {
+    if (message instanceof McpSchema.JSONRPCRequest request && request.params() instanceof Map<?, ?> params
+      && params.get("arguments") instanceof Map<?, ?> arguments) {
+      arguments.values().forEach(argument -> {
+        if (argument instanceof SpilledString spilledString) {
+          spilledString.delete();
+        }
+      });
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "SpilledString[file=" + file + ", length=" + length + "]";
+  }
+
+  static class EmbeddedObjectSerializer extends StdSerializer<SpilledString> {
+
+    EmbeddedObjectSerializer() {
+      super(SpilledString.class);
+    }
+
+    @Override
+    public void serialize(SpilledString value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+      generator.writeEmbeddedObject(value);
+    }
+  }
+
+}
@@ -16,6 +16,7 @@
  */
 package org.sonarsource.sonarqube.mcp.transport;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.modelcontextprotocol.spec.McpError;
@@ -25,15 +26,14 @@ import io.modelcontextprotocol.spec.McpServerSession;
 import io.modelcontextprotocol.spec.McpServerTransport;
 import io.modelcontextprotocol.spec.McpServerTransportProvider;
 import io.modelcontextprotocol.util.Assert;
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.function.Function;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
@@ -54,18 +54,32 @@ public class StdioServerTransportProvider implements McpServerTransportProvider
 
   private static final Logger logger = LoggerFactory.getLogger(StdioServerTransportProvider.class);
 
+  public static final int DEFAULT_MAX_INBOUND_MESSAGE_SIZE = 64 * 1024 * 1024;
+
+  public static final int DEFAULT_ARGUMENT_SPILL_THRESHOLD = 1024 * 1024;
+
+  public static final int DEFAULT_MAX_QUEUED_BYTES = 32 * 1024 * 1024;
+
   private final ObjectMapper objectMapper;
 
   private final InputStream inputStream;
 
-  private final OutputStream outputStream;
+  private final JsonRpcMessageWriter messageWriter;
+
+  private int maxInboundMessageSize = DEFAULT_MAX_INBOUND_MESSAGE_SIZE;
+
+  private int argumentSpillThreshold = DEFAULT_ARGUMENT_SPILL_THRESHOLD;
+
+  private Path argumentSpillDirectory = Paths.get(System.getProperty("java.io.tmpdir"));
+
+  private int maxQueuedBytes = DEFAULT_MAX_QUEUED_BYTES;
+
+  private QueueOverflowPolicy queueOverflowPolicy = QueueOverflowPolicy.BLOCK;
 
   private McpServerSession session;
 
   private final AtomicBoolean isClosing = new AtomicBoolean(false);
 
-  private final Sinks.One<Void> inboundReady = Sinks.one();
-
   /**
    * Creates a new StdioServerTransportProvider with a default ObjectMapper and System
    * streams.
@@ -97,7 +111,29 @@ public class StdioServerTransportProvider implements McpServerTransportProvider
 
     this.objectMapper = objectMapper;
     this.inputStream = inputStream;
-    this.outputStream = outputStream;
+    this.messageWriter = new JsonRpcMessageWriter(objectMapper, outputStream);
+  }
+
+  /**
+   * Limits applied to inbound messages, must be called before the session is started.
+   * @param maxInboundMessageSize Messages bigger than this number of bytes are discarded
+   * @param argumentSpillThreshold String tool arguments longer than this number of characters are written to a file
+   * @param argumentSpillDirectory Where the files of the large arguments are written
+   */
+  public void setInboundMessageLimits(int maxInboundMessageSize, int argumentSpillThreshold, Path argumentSpillDirectory) {
+    this.maxInboundMessageSize = maxInboundMessageSize;
+    this.argumentSpillThreshold = argumentSpillThreshold;
+    this.argumentSpillDirectory = argumentSpillDirectory;
+  }
+
+  /**
+   * Limits applied to the inbound and outbound message queues, must be called before the session is started.
+   * @param maxQueuedBytes Number of bytes above which each queue is considered full
+   * @param queueOverflowPolicy What happens to the messages enqueued in a full queue
+   */
+  public void setQueueLimits(int maxQueuedBytes, QueueOverflowPolicy queueOverflowPolicy) {
+    this.maxQueuedBytes = maxQueuedBytes;
+    this.queueOverflowPolicy = queueOverflowPolicy;
   }
 
   @Override
@@ -127,50 +163,94 @@ public class StdioServerTransportProvider implements McpServerTransportProvider
 
   /**
    * Implementation of McpServerTransport for the stdio session.
+   * Inbound and outbound messages go through bounded queues, so that a client sending requests faster than they are dispatched, or reading
+   * responses slower than they are produced, does not make them pile up on the heap.
    */
   private class StdioMcpSessionTransport implements McpServerTransport {
 
-    private final Sinks.Many<JSONRPCMessage> inboundSink;
+    private final BoundedMessageQueue<JSONRPCMessage> inboundQueue;
 
-    private final Sinks.Many<JSONRPCMessage> outboundSink;
+    /** Messages are only serialized by the writer thread, streamed to stdout */
+    private final BoundedMessageQueue<JSONRPCMessage> outboundQueue;
+
+    /**
+     * Messages waiting for room in the outbound queue, in the order they were sent, enqueued one at a time by a single worker.
+     * Messages sent meanwhile wait behind them, so that e.g. the progress notifications of a tool call are always written before its response.
+     */
+    private final ArrayDeque<OverflowingMessage> overflowingMessages = new ArrayDeque<>();
+
+    private boolean isEnqueuingOverflowingMessages;
 
     private final AtomicBoolean isStarted = new AtomicBoolean(false);
 
-    /** Scheduler for handling inbound messages */
-    private Scheduler inboundScheduler;
+    private final InFlightRequests inFlightRequests = new InFlightRequests();
 
-    /** Scheduler for handling outbound messages */
-    private Scheduler outboundScheduler;
+    /** Scheduler for reading inbound messages */
+    private final Scheduler inboundScheduler;
 
-    private final Sinks.One<Void> outboundReady = Sinks.one();
+    /** Scheduler for dispatching inbound messages to the session */
+    private final Scheduler dispatchScheduler;
 
-    public StdioMcpSessionTransport() {
+    /** Scheduler for writing outbound messages */
+    private final Scheduler outboundScheduler;
 
-      this.inboundSink = Sinks.many().unicast().onBackpressureBuffer();
-      this.outboundSink = Sinks.many().unicast().onBackpressureBuffer();
+    public StdioMcpSessionTransport() {
+      this.inboundQueue = new BoundedMessageQueue<>("stdio-inbound", maxQueuedBytes, queueOverflowPolicy);
+      this.outboundQueue = new BoundedMessageQueue<>("stdio-outbound", maxQueuedBytes, queueOverflowPolicy);
+      inboundQueue.registerMBean();
+      outboundQueue.registerMBean();
 
       // Use bounded schedulers for better resource management
       this.inboundScheduler = Schedulers.fromExecutorService(Executors.newSingleThreadExecutor(),
         "stdio-inbound");
+      this.dispatchScheduler = Schedulers.fromExecutorService(Executors.newSingleThreadExecutor(),
+        "stdio-dispatch");
       this.outboundScheduler = Schedulers.fromExecutorService(Executors.newSingleThreadExecutor(),
         "stdio-outbound");
     }
 
     @Override
     public Mono<Void> sendMessage(JSONRPCMessage message) {
-      return Mono.when(inboundReady.asMono(), outboundReady.asMono()).then(Mono.defer(() -> {
+      return Mono.defer(() -> {
+        var size = JsonRpcMessageWriter.estimateSize(message);
+        OverflowingMessage overflowing;
+        synchronized (overflowingMessages) {
+          if (overflowingMessages.isEmpty() && outboundQueue.offerWithoutWaiting(message, size)) {
+            return Mono.empty();
+          }
+          overflowing = new OverflowingMessage(message, size, Sinks.empty());
+          overflowingMessages.add(overflowing);
+          if (!isEnqueuingOverflowingMessages) {
+            isEnqueuingOverflowingMessages = true;
+            // waiting for room must not park the caller, often a common pool thread completing an asynchronous tool call
+            Schedulers.boundedElastic().schedule(this::enqueueOverflowingMessages);
+          }
+        }
+        return overflowing.enqueued().asMono();
+      });
+    }
 
-        Sinks.EmitResult emitResult;
-        // XXX workaround for https://github.com/modelcontextprotocol/java-sdk/issues/304
-        synchronized (StdioMcpSessionTransport.this) {
-          emitResult = outboundSink.tryEmitNext(message);
+    private void enqueueOverflowingMessages() {
+      while (true) {
+        OverflowingMessage next;
+        synchronized (overflowingMessages) {
+          // only removed once enqueued, so that the messages sent meanwhile wait behind it
+          next = overflowingMessages.peek();
+          if (next == null) {
+            isEnqueuingOverflowingMessages = false;
+            return;
+          }
+        }
+        var isEnqueued = outboundQueue.offer(next.message(), next.size());
+        synchronized (overflowingMessages) {
+          overflowingMessages.poll();
         }
-        if (emitResult.isSuccess()) {
-          return Mono.empty();
+        if (isEnqueued) {
+          next.enqueued().tryEmitEmpty();
         } else {
-          return Mono.error(new RuntimeException("Failed to enqueue message"));
+          next.enqueued().tryEmitError(new RuntimeException("Failed to enqueue message"));
         }
-      }));
+      }
     }
 
     @Override
@@ -183,7 +263,7 @@ public class StdioServerTransportProvider implements McpServerTransportProvider
       return Mono.fromRunnable(() -> {
         isClosing.set(true);
         logger.debug("Session transport closing gracefully");
-        inboundSink.tryEmitComplete();
+        inboundQueue.close();
       });
     }
 
@@ -199,46 +279,62 @@ public class StdioServerTransportProvider implements McpServerTransportProvider
       startOutboundProcessing();
     }
 
+    /**
+     * Messages are only taken from the inbound queue when the session can handle more of them, so that a full queue slows down the reading
+     * of stdin.
+     */
     private void handleIncomingMessages() {
-      this.inboundSink.asFlux().flatMap(message -> session.handle(message)).doOnTerminate(() -> {
-        // The outbound processing will dispose its scheduler upon completion
-        this.outboundSink.tryEmitComplete();
-        this.inboundScheduler.dispose();
-      }).subscribe();
+      Flux.<JSONRPCMessage>generate(sink -> {
+        try {
+          var message = inboundQueue.take();
+          if (message == null) {
+            sink.complete();
+          } else {
+            sink.next(message);
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          sink.complete();
+        }
+      })
+        .subscribeOn(dispatchScheduler)
+        .flatMap(message -> inFlightRequests.handle(session, message)
+          .contextWrite(ProgressNotifier.contextWriter(ProgressNotifier.getProgressToken(message), this::sendMessage))
+          .contextWrite(ToolCallTimeout.contextWriter(ToolCallTimeout.getTimeout(message))))
+        .doOnTerminate(() -> {
+          // The outbound processing will dispose its scheduler once the queue is drained
+          this.outboundQueue.close();
+          this.inboundScheduler.dispose();
+          this.dispatchScheduler.dispose();
+        }).subscribe();
     }
 
     /**
      * Starts the inbound processing thread that reads JSON-RPC messages from stdin.
-     * Messages are deserialized and passed to the session for handling.
+     * Messages are deserialized and queued for the session.
      */
     private void startInboundProcessing() {
       if (isStarted.compareAndSet(false, true)) {
         this.inboundScheduler.schedule(() -> {
-          inboundReady.tryEmitValue(null);
-          BufferedReader reader = null;
           try {
-            reader = new BufferedReader(new InputStreamReader(inputStream));
+            var reader = new JsonRpcMessageReader(inputStream, objectMapper, maxInboundMessageSize, argumentSpillThreshold, argumentSpillDirectory);
             while (!isClosing.get()) {
               try {
-                String line = reader.readLine();
-                if (line == null || isClosing.get()) {
+                var message = reader.read();
+                if (message == null) {
                   break;
                 }
-
-                logger.debug("Received JSON message: {}", line);
-
-                try {
-                  JSONRPCMessage message = McpSchema.deserializeJsonRpcMessage(objectMapper,
-                    line);
-                  if (!this.inboundSink.tryEmitNext(message).isSuccess()) {
-                    // logIfNotClosing("Failed to enqueue message");
+                if (!inboundQueue.offer(message, reader.lastMessageSize())) {
+                  if (inboundQueue.isClosed()) {
                     break;
                   }
-
-                } catch (Exception e) {
-                  logIfNotClosing("Error processing inbound message", e);
-                  break;
+                  rejectInboundMessage(message);
                 }
+              } catch (MessageTooLargeException e) {
+                rejectTooLargeMessage(e);
+              } catch (JsonProcessingException | IllegalArgumentException e) {
+                logIfNotClosing("Error processing inbound message", e);
+                break;
               } catch (IOException e) {
                 logIfNotClosing("Error reading from stdin", e);
                 break;
@@ -248,63 +344,81 @@ public class StdioServerTransportProvider implements McpServerTransportProvider
             logIfNotClosing("Error in inbound processing", e);
           } finally {
             isClosing.set(true);
+            inFlightRequests.cancelAll();
             if (session != null) {
               session.close();
             }
-            inboundSink.tryEmitComplete();
+            inboundQueue.close();
           }
         });
       }
     }
 
+    /**
+     * Only happens with the {@link QueueOverflowPolicy#FAIL} policy. The client is told right away that its request was not handled.
+     */
+    private void rejectInboundMessage(JSONRPCMessage message) {
+      if (message instanceof McpSchema.JSONRPCRequest request) {
+        logger.warn("Inbound queue is full, rejecting request {} {}", request.id(), request.method());
+        SpilledString.deleteAll(request);
+        var error = new McpSchema.JSONRPCResponse.JSONRPCError(McpSchema.ErrorCodes.INTERNAL_ERROR, "Server overloaded, the request was rejected", null);
+        sendMessage(new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), null, error))
+          .subscribe(null, e -> logger.error("Failed to reject request {}", request.id(), e));
+      } else {
+        logger.warn("Inbound queue is full, dropping message {}", message.getClass().getSimpleName());
+      }
+    }
+
+    /**
+     * The client is told that its request was not handled, so that it doesn't wait for a response that will never come.
+     */
+    private void rejectTooLargeMessage(MessageTooLargeException exception) {
+      if (exception.requestId() != null) {
+        sendMessage(exception.toErrorResponse())
+          .subscribe(null, e -> logger.error("Failed to reject request {}", exception.requestId(), e));
+      }
+    }
+
     /**
      * Starts the outbound processing thread that writes JSON-RPC messages to stdout.
-     * Messages are serialized to JSON and written with a newline delimiter.
+     * Messages are written with a newline delimiter, and the output is flushed once no other message is waiting to be written.
      */
     private void startOutboundProcessing() {
-      Function<Flux<JSONRPCMessage>, Flux<JSONRPCMessage>> outboundConsumer = messages -> messages // @formatter:off
-        .doOnSubscribe(subscription -> outboundReady.tryEmitValue(null))
-        .publishOn(outboundScheduler)
-        .handle((message, sink) -> {
-          if (message != null && !isClosing.get()) {
-            try {
-              String jsonMessage = objectMapper.writeValueAsString(message);
-              // Escape any embedded newlines in the JSON message as per spec
-              jsonMessage = jsonMessage.replace("\r\n", "\\n").replace("\n", "\\n").replace("\r", "\\n");
-
-              synchronized (outputStream) {
-                outputStream.write(jsonMessage.getBytes(StandardCharsets.UTF_8));
-                outputStream.write("\n".getBytes(StandardCharsets.UTF_8));
-                outputStream.flush();
-              }
-              sink.next(message);
-            } catch (IOException e) {
-              if (!isClosing.get()) {
-                logger.error("Error writing message", e);
-                sink.error(new RuntimeException(e));
-              } else {
-                logger.debug("Stream closed during shutdown", e);
-              }
+      this.outboundScheduler.schedule(() -> {
+        try {
+          JSONRPCMessage message;
+          while ((message = outboundQueue.take()) != null && !isClosing.get()) {
+            writeMessage(message);
+            if (outboundQueue.isEmpty()) {
+              messageWriter.flush();
             }
-          } else if (isClosing.get()) {
-            sink.complete();
           }
-        })
-        .doOnComplete(() -> {
-          isClosing.set(true);
-          outboundScheduler.dispose();
-        })
-        .doOnError(e -> {
+        } catch (IOException e) {
           if (!isClosing.get()) {
-            logger.error("Error in outbound processing", e);
-            isClosing.set(true);
-            outboundScheduler.dispose();
+            logger.error("Error writing message", e);
+          } else {
+            logger.debug("Stream closed during shutdown", e);
           }
-        })
-        .map(msg -> (JSONRPCMessage) msg);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        } finally {
+          isClosing.set(true);
+          outboundQueue.close();
+          outboundScheduler.dispose();
+        }
+      });
+    }
 
-      outboundConsumer.apply(outboundSink.asFlux()).subscribe();
-    } // @formatter:on
+    /**
+     * A message that can't be serialized is skipped, the following ones are still sent.
+     */
+    private void writeMessage(JSONRPCMessage message) throws IOException {
+      try {
+        messageWriter.write(message);
+      } catch (JsonProcessingException e) {
+        logger.error("Failed to serialize message {}", message, e);
+      }
+    }
 
     private void logIfNotClosing(String message, Exception e) {
       if (!isClosing.get()) {
@@ -312,6 +426,9 @@ public class StdioServerTransportProvider implements McpServerTransportProvider
       }
     }
 
+    private record OverflowingMessage(JSONRPCMessage message, long size, Sinks.Empty<Void> enqueued) {
+    }
+
   }
 
 }
@@ -0,0 +1,658 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCMessage;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import io.modelcontextprotocol.spec.McpServerTransportProvider;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implementation of the MCP Streamable HTTP transport, serving many concurrent client sessions from a single server process.
+ * Clients POST each JSON-RPC message to the {@value #ENDPOINT} endpoint and receive the response in the HTTP response body.
+ * Messages initiated by the server (e.g. logging notifications) are sent as server-sent events on a stream opened with a GET request.
+ * Tool calls carrying a progress token are answered with an event stream instead, carrying their progress notifications before the response.
+ * Sessions are identified by the {@value #SESSION_ID_HEADER} header and terminated with a DELETE request. Sessions left idle by clients that went
+ * away without terminating them are closed periodically, and a request is cancelled when its client goes away before it is answered.
+ * <p>
+ * A client can authenticate its session with its own SonarQube token, sent as a bearer token in the Authorization header of its requests.
+ * The token is bound to the session and exposed to the handlers in the Reactor context under {@link #SONARQUBE_TOKEN_CONTEXT_KEY}.
+ * Sessions without a token are rejected, unless anonymous sessions are explicitly allowed.
+ */
+public class StreamableHttpServerTransportProvider implements McpServerTransportProvider {
+
+  private static final Logger logger = LoggerFactory.getLogger(StreamableHttpServerTransportProvider.class);
+
+  public static final String DEFAULT_HOST = "127.0.0.1";
+
+  public static final int DEFAULT_PORT = 8080;
+
+  public static final String ENDPOINT = "/mcp";
+
+  /** Key of the Reactor context entry holding the SonarQube token of the session, absent when the client did not send one */
+  public static final String SONARQUBE_TOKEN_CONTEXT_KEY = "sonarqube.token";
+
+  static final String SESSION_ID_HEADER = "Mcp-Session-Id";
+
+  private static final String AUTHORIZATION_HEADER = "Authorization";
+
+  private static final String BEARER_PREFIX = "Bearer ";
+
+  private static final Set<String> LOCAL_HOSTS = Set.of("localhost", "127.0.0.1", "[::1]");
+
+  private static final Duration DEFAULT_KEEP_ALIVE_INTERVAL = Duration.ofSeconds(30);
+
+  private static final Duration DEFAULT_SESSION_IDLE_TIMEOUT = Duration.ofHours(1);
+
+  private static final byte[] EVENT_PREFIX = "event: message\ndata: ".getBytes(StandardCharsets.UTF_8);
+
+  private static final byte[] EVENT_SUFFIX = "\n".getBytes(StandardCharsets.UTF_8);
+
+  private static final byte[] KEEP_ALIVE_COMMENT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+
+  /** Whitespace is allowed before a JSON value, so it can be written before the response is known */
+  private static final byte[] KEEP_ALIVE_WHITESPACE = "\n".getBytes(StandardCharsets.UTF_8);
+
+  private final ObjectMapper objectMapper;
+
+  private final HttpServer httpServer;
+
+  private final ExecutorService executor;
+
+  private final ScheduledExecutorService idleSessionsCloser;
+
+  private final int maxInboundMessageSize;
+
+  private final int argumentSpillThreshold;
+
+  private final Path argumentSpillDirectory;
+
+  private final int maxQueuedBytes;
+
+  private final QueueOverflowPolicy queueOverflowPolicy;
+
+  private final boolean allowAnonymousSessions;
+
+  private final Map<String, HttpMcpSessionTransport> sessions = new ConcurrentHashMap<>();
+
+  private final AtomicBoolean isClosing = new AtomicBoolean(false);
+
+  private Duration keepAliveInterval = DEFAULT_KEEP_ALIVE_INTERVAL;
+
+  private Duration sessionIdleTimeout = DEFAULT_SESSION_IDLE_TIMEOUT;
+
+  private McpServerSession.Factory sessionFactory;
+
+  private Consumer<String> tokenReleaseListener = token -> {
+  };
+
+  /**
+   * Creates the transport and binds its HTTP server, requests are only served once the session factory is set.
+   * @param objectMapper The ObjectMapper to use for JSON serialization/deserialization
+   * @param host The address to listen on, a loopback address unless the server is meant to be reached from other machines
+   * @param port The port to listen on, 0 to pick a free one
+   * @param maxInboundMessageSize Messages bigger than this number of bytes are rejected
+   * @param argumentSpillThreshold String tool arguments longer than this number of characters are written to a file
+   * @param argumentSpillDirectory Where the files of the large arguments are written
+   * @param maxQueuedBytes Number of bytes above which the event queue of a session is considered full
+   * @param queueOverflowPolicy What happens to the events enqueued in a full queue
+   * @param allowAnonymousSessions Whether clients may start a session without sending a token
+   */
+  public StreamableHttpServerTransportProvider(ObjectMapper objectMapper, String host, int port, int maxInboundMessageSize, int argumentSpillThreshold,
+    Path argumentSpillDirectory, int maxQueuedBytes, QueueOverflowPolicy queueOverflowPolicy, boolean allowAnonymousSessions) {
+    this.objectMapper = objectMapper;
+    this.maxInboundMessageSize = maxInboundMessageSize;
+    this.argumentSpillThreshold = argumentSpillThreshold;
+    this.argumentSpillDirectory = argumentSpillDirectory;
+    this.maxQueuedBytes = maxQueuedBytes;
+    this.queueOverflowPolicy = queueOverflowPolicy;
+    this.allowAnonymousSessions = allowAnonymousSessions;
+    try {
+      this.httpServer = HttpServer.create(new InetSocketAddress(host, port), 0);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to listen on " + host + ":" + port, e);
+    }
+    // event streams are long-lived and tool calls block their exchange, so each exchange gets its own virtual thread
+    this.executor = Executors.newVirtualThreadPerTaskExecutor();
+    httpServer.setExecutor(executor);
+    httpServer.createContext(ENDPOINT, this::handleExchange);
+    this.idleSessionsCloser = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      var thread = new Thread(runnable, "sonarqube-mcp-idle-sessions-closer");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  public int getPort() {
+    return httpServer.getAddress().getPort();
+  }
+
+  /**
+   * To be called before the session factory is set.
+   * @param keepAliveInterval Interval between two writes on the connection of a client waiting for a message, to detect clients that went away
+   * @param sessionIdleTimeout Duration without requests nor event stream after which a session is closed
+   */
+  void setTimeouts(Duration keepAliveInterval, Duration sessionIdleTimeout) {
+    this.keepAliveInterval = keepAliveInterval;
+    this.sessionIdleTimeout = sessionIdleTimeout;
+  }
+
+  @Override
+  public void setSessionFactory(McpServerSession.Factory sessionFactory) {
+    this.sessionFactory = sessionFactory;
+    // a session is closed at most a quarter of the timeout late
+    var checkInterval = Math.max(1, sessionIdleTimeout.toMillis() / 4);
+    idleSessionsCloser.scheduleWithFixedDelay(this::closeIdleSessions, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+    httpServer.start();
+    logger.info("Listening for MCP clients on http://{}:{}{}", httpServer.getAddress().getHostString(), getPort(), ENDPOINT);
+  }
+
+  /**
+   * Sets the listener called with the token of a closed session when no other open session uses it, to release what was kept for it.
+   */
+  public void setTokenReleaseListener(Consumer<String> tokenReleaseListener) {
+    this.tokenReleaseListener = tokenReleaseListener;
+  }
+
+  @Override
+  public Mono<Void> notifyClients(String method, Object params) {
+    if (sessions.isEmpty()) {
+      logger.debug("No active sessions to broadcast message to");
+      return Mono.empty();
+    }
+    return Flux.fromIterable(sessions.values())
+      .flatMap(transport -> transport.session.sendNotification(method, params)
+        .doOnError(e -> logger.error("Failed to send notification to session {}", transport.sessionId, e))
+        .onErrorComplete())
+      .then();
+  }
+
+  @Override
+  public Mono<Void> closeGracefully() {
+    return Mono.fromRunnable(() -> {
+      isClosing.set(true);
+      logger.debug("Closing {} active sessions", sessions.size());
+      idleSessionsCloser.shutdownNow();
+      List.copyOf(sessions.values()).forEach(HttpMcpSessionTransport::close);
+      httpServer.stop(0);
+      executor.shutdownNow();
+    });
+  }
+
+  private void handleExchange(HttpExchange exchange) {
+    try (exchange) {
+      if (isClosing.get()) {
+        sendStatus(exchange, 503);
+      } else if (!isAllowedOrigin(exchange.getRequestHeaders().getFirst("Origin"))) {
+        // prevents DNS rebinding attacks from web pages, as per spec
+        sendStatus(exchange, 403);
+      } else {
+        switch (exchange.getRequestMethod()) {
+          case "POST" -> handlePost(exchange);
+          case "GET" -> handleGet(exchange);
+          case "DELETE" -> handleDelete(exchange);
+          default -> {
+            exchange.getResponseHeaders().set("Allow", "GET, POST, DELETE");
+            sendStatus(exchange, 405);
+          }
+        }
+      }
+    } catch (IOException e) {
+      logger.debug("Error while serving {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+    }
+  }
+
+  private void handlePost(HttpExchange exchange) throws IOException {
+    var contentLength = parseContentLength(exchange.getRequestHeaders().getFirst("Content-Length"));
+    if (contentLength == null) {
+      sendStatus(exchange, 400);
+      return;
+    }
+    if (contentLength > maxInboundMessageSize) {
+      sendStatus(exchange, 413);
+      return;
+    }
+    JSONRPCMessage message;
+    try {
+      message = readSingleMessage(exchange);
+    } catch (MessageTooLargeException e) {
+      // a body sent without its length
+      sendStatus(exchange, 413);
+      return;
+    } catch (JsonProcessingException | IllegalArgumentException e) {
+      logger.debug("Invalid inbound message", e);
+      sendStatus(exchange, 400);
+      return;
+    }
+
+    var token = getBearerToken(exchange);
+    HttpMcpSessionTransport transport;
+    if (message instanceof McpSchema.JSONRPCRequest request && McpSchema.METHOD_INITIALIZE.equals(request.method())) {
+      if (token == null && !allowAnonymousSessions) {
+        sendStatus(exchange, 401);
+        return;
+      }
+      transport = new HttpMcpSessionTransport(UUID.randomUUID().toString(), token);
+      sessions.put(transport.sessionId, transport);
+      exchange.getResponseHeaders().set(SESSION_ID_HEADER, transport.sessionId);
+    } else {
+      transport = findSession(exchange, token);
+      if (transport == null) {
+        return;
+      }
+    }
+
+    var progressToken = ProgressNotifier.getProgressToken(message);
+    if (progressToken != null) {
+      handleWithProgress(exchange, transport, (McpSchema.JSONRPCRequest) message, progressToken);
+      return;
+    }
+
+    if (message instanceof McpSchema.JSONRPCRequest request) {
+      handleRequest(exchange, transport, request);
+      return;
+    }
+    transport.handle(message).block();
+    // notifications and responses
+    sendStatus(exchange, 202);
+  }
+
+  /**
+   * Answers a request with its response in the body. When the response takes longer than the keep-alive interval, the headers are sent and
+   * whitespace is written at each interval, so that the request is cancelled once the client went away, as if it had cancelled it.
+   */
+  private void handleRequest(HttpExchange exchange, HttpMcpSessionTransport transport, McpSchema.JSONRPCRequest request) throws IOException {
+    var handling = transport.handle(request).toFuture();
+    JsonRpcMessageWriter writer = null;
+    try {
+      while (!handling.isDone()) {
+        try {
+          handling.get(keepAliveInterval.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+          if (writer == null) {
+            writer = startJsonResponse(exchange);
+          }
+          writer.writeRaw(KEEP_ALIVE_WHITESPACE);
+          writer.flush();
+        }
+      }
+    } catch (IOException e) {
+      // the client went away, there is no one left to answer
+      transport.inFlightRequests.cancel(request.id());
+      transport.responses.remove(request.id());
+      throw e;
+    } catch (ExecutionException e) {
+      logger.error("Error handling request {}", request.id(), e.getCause());
+    } catch (InterruptedException e) {
+      transport.inFlightRequests.cancel(request.id());
+      Thread.currentThread().interrupt();
+      return;
+    }
+
+    var response = transport.responses.remove(request.id());
+    if (response != null) {
+      if (writer == null) {
+        writer = startJsonResponse(exchange);
+      }
+      writer.write(response);
+      writer.flush();
+    } else if (writer == null) {
+      // requests cancelled by the client
+      sendStatus(exchange, 202);
+    }
+  }
+
+  private JsonRpcMessageWriter startJsonResponse(HttpExchange exchange) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(200, 0);
+    return new JsonRpcMessageWriter(objectMapper, exchange.getResponseBody());
+  }
+
+  /**
+   * Answers a tool call that carries a progress token with an event stream, so that the progress notifications are sent as soon as they are
+   * emitted, followed by the response.
+   */
+  private void handleWithProgress(HttpExchange exchange, HttpMcpSessionTransport transport, McpSchema.JSONRPCRequest request, Object progressToken)
+    throws IOException {
+    var events = new BoundedMessageQueue<JSONRPCMessage>("http-progress", maxQueuedBytes, queueOverflowPolicy);
+    exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+    exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+    exchange.sendResponseHeaders(200, 0);
+    var writer = new JsonRpcMessageWriter(objectMapper, exchange.getResponseBody());
+    var handling = transport.handle(request)
+      .contextWrite(ProgressNotifier.contextWriter(progressToken, notification -> transport.enqueue(events, notification)))
+      .doFinally(signal -> events.close())
+      .subscribe(null, e -> logger.error("Error handling request {}", request.id(), e));
+    try {
+      writeEvents(events, writer);
+      var response = transport.responses.remove(request.id());
+      if (response != null) {
+        writeEvent(writer, response);
+        writer.flush();
+      }
+    } catch (IOException e) {
+      // the client went away, there is no one left to answer
+      handling.dispose();
+      transport.responses.remove(request.id());
+      throw e;
+    } catch (InterruptedException e) {
+      handling.dispose();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private JSONRPCMessage readSingleMessage(HttpExchange exchange) throws IOException {
+    var reader = new JsonRpcMessageReader(exchange.getRequestBody(), objectMapper, maxInboundMessageSize, argumentSpillThreshold, argumentSpillDirectory);
+    var messages = new ArrayList<JSONRPCMessage>();
+    JSONRPCMessage message;
+    while ((message = reader.read()) != null) {
+      messages.add(message);
+    }
+    if (messages.size() != 1) {
+      throw new IllegalArgumentException("Expected a single JSON-RPC message, got " + messages.size());
+    }
+    return messages.get(0);
+  }
+
+  private void handleGet(HttpExchange exchange) throws IOException {
+    var transport = findSession(exchange, getBearerToken(exchange));
+    if (transport == null) {
+      return;
+    }
+    var events = transport.openEventStream();
+    if (events == null) {
+      // only one stream per session, so that each message is delivered once
+      sendStatus(exchange, 409);
+      return;
+    }
+    exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+    exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+    exchange.sendResponseHeaders(200, 0);
+    transport.streamEvents(events, new JsonRpcMessageWriter(objectMapper, exchange.getResponseBody()));
+  }
+
+  private void handleDelete(HttpExchange exchange) throws IOException {
+    var transport = findSession(exchange, getBearerToken(exchange));
+    if (transport == null) {
+      return;
+    }
+    transport.close();
+    sendStatus(exchange, 200);
+  }
+
+  /**
+   * Looks up the session of the request, and sends the error status when there is none or when the token does not match.
+   */
+  @CheckForNull
+  private HttpMcpSessionTransport findSession(HttpExchange exchange, @Nullable String token) throws IOException {
+    var sessionId = exchange.getRequestHeaders().getFirst(SESSION_ID_HEADER);
+    if (sessionId == null) {
+      sendStatus(exchange, 400);
+      return null;
+    }
+    var transport = sessions.get(sessionId);
+    if (transport == null) {
+      // the client is expected to start a new session, as per spec
+      sendStatus(exchange, 404);
+      return null;
+    }
+    if (!Objects.equals(transport.token, token)) {
+      sendStatus(exchange, 403);
+      return null;
+    }
+    transport.lastActivity = System.nanoTime();
+    return transport;
+  }
+
+  /**
+   * Closes the sessions of clients that went away without terminating them, checked periodically.
+   */
+  private void closeIdleSessions() {
+    var now = System.nanoTime();
+    var idleTimeoutNanos = sessionIdleTimeout.toNanos();
+    sessions.values().stream()
+      .filter(transport -> transport.eventStream.get() == null && transport.inFlightRequests.isEmpty()
+        && now - transport.lastActivity > idleTimeoutNanos)
+      .forEach(HttpMcpSessionTransport::close);
+  }
+
+  /**
+   * Returns the declared size of the request body, 0 when not declared, or null when the header is invalid.
+   */
+  @CheckForNull
+  private static Long parseContentLength(@Nullable String contentLength) {
+    if (contentLength == null) {
+      return 0L;
+    }
+    try {
+      var length = Long.parseLong(contentLength.trim());
+      return length < 0 ? null : length;
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  @CheckForNull
+  private static String getBearerToken(HttpExchange exchange) {
+    var authorization = exchange.getRequestHeaders().getFirst(AUTHORIZATION_HEADER);
+    if (authorization == null || !authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+      return null;
+    }
+    var token = authorization.substring(BEARER_PREFIX.length()).trim();
+    return token.isEmpty() ? null : token;
+  }
+
+  private static boolean isAllowedOrigin(@Nullable String origin) {
+    if (origin == null) {
+      // not sent by non-browser clients
+      return true;
+    }
+    try {
+      var host = URI.create(origin).getHost();
+      return host != null && LOCAL_HOSTS.contains(host);
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Writes the queued messages as server-sent events until the queue is closed and drained.
+   * The output is flushed once no other message is waiting to be written.
+   */
+  private void writeEvents(BoundedMessageQueue<JSONRPCMessage> events, JsonRpcMessageWriter writer) throws IOException, InterruptedException {
+    while (true) {
+      var message = events.poll(keepAliveInterval.toMillis(), TimeUnit.MILLISECONDS);
+      if (message == null) {
+        if (events.isClosed()) {
+          writer.flush();
+          return;
+        }
+        // also detects clients that went away
+        writer.writeRaw(KEEP_ALIVE_COMMENT);
+      } else {
+        writeEvent(writer, message);
+      }
+      if (events.isEmpty()) {
+        writer.flush();
+      }
+    }
+  }
+
+  /**
+   * A message that can't be serialized is skipped, the event stream goes on with the following ones.
+   */
+  private static void writeEvent(JsonRpcMessageWriter writer, JSONRPCMessage message) throws IOException {
+    writer.writeRaw(EVENT_PREFIX);
+    try {
+      writer.write(message);
+    } catch (JsonProcessingException e) {
+      logger.error("Failed to serialize message {}", message, e);
+    }
+    writer.writeRaw(EVENT_SUFFIX);
+  }
+
+  private static void sendStatus(HttpExchange exchange, int status) throws IOException {
+    exchange.sendResponseHeaders(status, -1);
+  }
+
+  /**
+   * Implementation of McpServerTransport for one HTTP client session.
+   * Responses are handed to the POST request that carried the corresponding request, other messages are sent on the event stream.
+   */
+  private class HttpMcpSessionTransport implements McpServerTransport {
+
+    private final String sessionId;
+
+    @Nullable
+    private final String token;
+
+    private final McpServerSession session;
+
+    private final InFlightRequests inFlightRequests = new InFlightRequests();
+
+    private final Map<Object, McpSchema.JSONRPCResponse> responses = new ConcurrentHashMap<>();
+
+    /** Messages waiting to be sent on the event stream, serialized when written to it; null when no stream is open */
+    private final AtomicReference<BoundedMessageQueue<JSONRPCMessage>> eventStream = new AtomicReference<>();
+
+    private final AtomicBoolean isClosed = new AtomicBoolean(false);
+
+    private volatile long lastActivity = System.nanoTime();
+
+    private HttpMcpSessionTransport(String sessionId, @Nullable String token) {
+      this.sessionId = sessionId;
+      this.token = token;
+      this.session = sessionFactory.create(this);
+    }
+
+    private Mono<Void> handle(JSONRPCMessage message) {
+      var handling = inFlightRequests.handle(session, message).contextWrite(ToolCallTimeout.contextWriter(ToolCallTimeout.getTimeout(message)));
+      return token == null ? handling : handling.contextWrite(context -> context.put(SONARQUBE_TOKEN_CONTEXT_KEY, token));
+    }
+
+    @Override
+    public Mono<Void> sendMessage(JSONRPCMessage message) {
+      return Mono.defer(() -> {
+        if (message instanceof McpSchema.JSONRPCResponse response && response.id() != null) {
+          responses.put(response.id(), response);
+          return Mono.empty();
+        }
+        var events = eventStream.get();
+        if (events == null) {
+          logger.debug("No event stream open for session {}, dropping message {}", sessionId, message);
+          return Mono.empty();
+        }
+        return enqueue(events, message);
+      });
+    }
+
+    private Mono<Void> enqueue(BoundedMessageQueue<JSONRPCMessage> events, JSONRPCMessage message) {
+      if (events.offer(message, JsonRpcMessageWriter.estimateSize(message))) {
+        return Mono.empty();
+      }
+      return Mono.error(new RuntimeException("Failed to enqueue message"));
+    }
+
+    @Override
+    public <T> T unmarshalFrom(Object data, TypeReference<T> typeRef) {
+      return objectMapper.convertValue(data, typeRef);
+    }
+
+    @CheckForNull
+    private BoundedMessageQueue<JSONRPCMessage> openEventStream() {
+      var events = new BoundedMessageQueue<JSONRPCMessage>("http-events", maxQueuedBytes, queueOverflowPolicy);
+      if (isClosed.get() || !eventStream.compareAndSet(null, events)) {
+        return null;
+      }
+      return events;
+    }
+
+    /**
+     * Writes the queued messages as server-sent events until the session is closed or the client goes away.
+     */
+    private void streamEvents(BoundedMessageQueue<JSONRPCMessage> events, JsonRpcMessageWriter writer) {
+      try {
+        writeEvents(events, writer);
+      } catch (IOException e) {
+        logger.debug("Event stream of session {} closed by the client", sessionId, e);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        eventStream.compareAndSet(events, null);
+        events.close();
+      }
+    }
+
+    @Override
+    public Mono<Void> closeGracefully() {
+      return Mono.fromRunnable(this::close);
+    }
+
+    @Override
+    public void close() {
+      if (isClosed.compareAndSet(false, true)) {
+        logger.debug("Session {} closed", sessionId);
+        sessions.remove(sessionId, this);
+        inFlightRequests.cancelAll();
+        if (token != null && sessions.values().stream().noneMatch(other -> token.equals(other.token))) {
+          tokenReleaseListener.accept(token);
+        }
+        var events = eventStream.getAndSet(null);
+        if (events != null) {
+          events.close();
+        }
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpSchema.JSONRPCMessage;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Function;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import reactor.util.context.Context;
+
+/**
+ * Timeout of a tool call asked by the client, in milliseconds, in the {@code timeoutMs} field of the metadata of the request.
+ * It is found in the Reactor context of the handling of the call under {@link #CONTEXT_KEY}, and can only shorten the configured timeout.
+ */
+public final class ToolCallTimeout {
+
+  public static final String CONTEXT_KEY = "mcp.timeout";
+
+  static final String META_KEY = "timeoutMs";
+
+  private ToolCallTimeout() {
+    // utility class
+  }
+
+  /**
+   * The SDK does not read the metadata of the tool call requests, so the transport looks for the timeout itself.
+   */
+  @CheckForNull
+  static Duration getTimeout(JSONRPCMessage message) {
+    if (message instanceof McpSchema.JSONRPCRequest request && McpSchema.METHOD_TOOLS_CALL.equals(request.method())
+      && request.params() instanceof Map<?, ?> params && params.get("_meta") instanceof Map<?, ?> meta
+      && meta.get(META_KEY) instanceof Number timeoutMillis && timeoutMillis.longValue() > 0) {
+      return Duration.ofMillis(timeoutMillis.longValue());
+    }
+    return null;
+  }
+
+  static Function<Context, Context> contextWriter(@Nullable Duration timeout) {
+    if (timeout == null) {
+      return Function.identity();
+    }
+    return context -> context.put(CONTEXT_KEY, timeout);
+  }
+
+}
@@ -17,10 +17,17 @@
 package org.sonarsource.sonarqube.mcp.configuration;
 
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Map;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.sonarsource.sonarqube.mcp.http.CompressionSettings;
+import org.sonarsource.sonarqube.mcp.http.ConcurrencyLimitSettings;
+import org.sonarsource.sonarqube.mcp.http.ConnectionPoolSettings;
+import org.sonarsource.sonarqube.mcp.serverapi.retry.RetryPolicy;
+import org.sonarsource.sonarqube.mcp.transport.QueueOverflowPolicy;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -155,4 +162,376 @@ class McpServerLaunchConfigurationTest {
       .hasMessage("SONARQUBE_IDE_PORT value must be between 64120 and 64130, got: 70000");
   }
 
+  @Test
+  void should_return_default_max_concurrent_tool_calls_if_not_set(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org");
+
+    var mcpServerLaunchConfiguration = new McpServerLaunchConfiguration(arg);
+
+    assertThat(mcpServerLaunchConfiguration.getMaxConcurrentToolCalls()).isEqualTo(16);
+  }
+
+  @Test
+  void should_return_max_concurrent_tool_calls_if_set(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org", "SONARQUBE_MAX_CONCURRENT_TOOL_CALLS", "4");
+
+    var mcpServerLaunchConfiguration = new McpServerLaunchConfiguration(arg);
+
+    assertThat(mcpServerLaunchConfiguration.getMaxConcurrentToolCalls()).isEqualTo(4);
+  }
+
+  @Test
+  void should_return_the_tool_call_timeout(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org");
+    var argWithTimeout = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org", "SONARQUBE_TOOL_CALL_TIMEOUT_SECONDS", "10");
+
+    assertThat(new McpServerLaunchConfiguration(arg).getToolCallTimeout()).isEqualTo(Duration.ofMinutes(2));
+    assertThat(new McpServerLaunchConfiguration(argWithTimeout).getToolCallTimeout()).isEqualTo(Duration.ofSeconds(10));
+  }
+
+  @Test
+  void should_disable_the_export_of_the_http_metrics_by_default(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org");
+    var argWithExport = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "SONARQUBE_HTTP_METRICS_FILE_INTERVAL_SECONDS", "15", "SONARQUBE_HTTP_METRICS_PORT", "9464");
+
+    assertThat(new McpServerLaunchConfiguration(arg).getHttpMetricsFileInterval()).isZero();
+    assertThat(new McpServerLaunchConfiguration(arg).getHttpMetricsPort()).isZero();
+    assertThat(new McpServerLaunchConfiguration(argWithExport).getHttpMetricsFileInterval()).isEqualTo(Duration.ofSeconds(15));
+    assertThat(new McpServerLaunchConfiguration(argWithExport).getHttpMetricsPort()).isEqualTo(9464);
+  }
+
+  @Test
+  void should_throw_error_if_http_metrics_port_is_invalid(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org", "SONARQUBE_HTTP_METRICS_PORT", "70000");
+
+    assertThatThrownBy(() -> new McpServerLaunchConfiguration(arg))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Invalid SONARQUBE_HTTP_METRICS_PORT value: 70000");
+  }
+
+  @Test
+  void should_throw_error_if_max_concurrent_tool_calls_is_not_positive(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org", "SONARQUBE_MAX_CONCURRENT_TOOL_CALLS", "0");
+
+    assertThatThrownBy(() -> new McpServerLaunchConfiguration(arg))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("SONARQUBE_MAX_CONCURRENT_TOOL_CALLS value must be greater than 0, got: 0");
+  }
+
+  @Test
+  void should_return_default_inbound_message_limits_if_not_set(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org");
+
+    var mcpServerLaunchConfiguration = new McpServerLaunchConfiguration(arg);
+
+    assertThat(mcpServerLaunchConfiguration.getMaxInboundMessageSize()).isEqualTo(64 * 1024 * 1024);
+    assertThat(mcpServerLaunchConfiguration.getArgumentSpillThreshold()).isEqualTo(1024 * 1024);
+  }
+
+  @Test
+  void should_throw_error_if_max_inbound_message_size_is_invalid(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org", "SONARQUBE_MAX_INBOUND_MESSAGE_SIZE", "big");
+
+    assertThatThrownBy(() -> new McpServerLaunchConfiguration(arg))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Invalid SONARQUBE_MAX_INBOUND_MESSAGE_SIZE value: big");
+  }
+
+  @Test
+  void should_use_stdio_transport_by_default(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org");
+
+    var mcpServerLaunchConfiguration = new McpServerLaunchConfiguration(arg);
+
+    assertThat(mcpServerLaunchConfiguration.isHttpTransport()).isFalse();
+    assertThat(mcpServerLaunchConfiguration.getHttpHost()).isEqualTo("127.0.0.1");
+    assertThat(mcpServerLaunchConfiguration.getHttpPort()).isEqualTo(8080);
+    assertThat(mcpServerLaunchConfiguration.isHttpAllowAnonymous()).isFalse();
+  }
+
+  @Test
+  void should_return_http_transport_settings_if_set(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org", "SONARQUBE_TRANSPORT", "HTTP",
+      "SONARQUBE_HTTP_HOST", "0.0.0.0", "SONARQUBE_HTTP_PORT", "9000", "SONARQUBE_HTTP_ALLOW_ANONYMOUS", "true");
+
+    var mcpServerLaunchConfiguration = new McpServerLaunchConfiguration(arg);
+
+    assertThat(mcpServerLaunchConfiguration.isHttpTransport()).isTrue();
+    assertThat(mcpServerLaunchConfiguration.getHttpHost()).isEqualTo("0.0.0.0");
+    assertThat(mcpServerLaunchConfiguration.getHttpPort()).isEqualTo(9000);
+    assertThat(mcpServerLaunchConfiguration.isHttpAllowAnonymous()).isTrue();
+  }
+
+  @Test
+  void should_throw_error_if_transport_is_unknown(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org", "SONARQUBE_TRANSPORT", "sse");
+
+    assertThatThrownBy(() -> new McpServerLaunchConfiguration(arg))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Invalid SONARQUBE_TRANSPORT value: sse, expected 'stdio' or 'http'");
+  }
+
+  @Test
+  void should_return_queue_limits_if_set(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org", "SONARQUBE_MAX_QUEUED_MESSAGE_BYTES", "1024",
+      "SONARQUBE_QUEUE_OVERFLOW_POLICY", "fail");
+
+    var mcpServerLaunchConfiguration = new McpServerLaunchConfiguration(arg);
+
+    assertThat(mcpServerLaunchConfiguration.getMaxQueuedMessageBytes()).isEqualTo(1024);
+    assertThat(mcpServerLaunchConfiguration.getQueueOverflowPolicy()).isEqualTo(QueueOverflowPolicy.FAIL);
+  }
+
+  @Test
+  void should_block_on_full_queues_by_default(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org");
+
+    var mcpServerLaunchConfiguration = new McpServerLaunchConfiguration(arg);
+
+    assertThat(mcpServerLaunchConfiguration.getMaxQueuedMessageBytes()).isEqualTo(32 * 1024 * 1024);
+    assertThat(mcpServerLaunchConfiguration.getQueueOverflowPolicy()).isEqualTo(QueueOverflowPolicy.BLOCK);
+  }
+
+  @Test
+  void should_throw_error_if_queue_overflow_policy_is_unknown(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org", "SONARQUBE_QUEUE_OVERFLOW_POLICY", "drop");
+
+    assertThatThrownBy(() -> new McpServerLaunchConfiguration(arg))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Invalid SONARQUBE_QUEUE_OVERFLOW_POLICY value: drop, expected 'block' or 'fail'");
+  }
+
+  @Test
+  void should_not_stream_partial_results_by_default(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org");
+
+    var mcpServerLaunchConfiguration = new McpServerLaunchConfiguration(arg);
+
+    assertThat(mcpServerLaunchConfiguration.isStreamPartialResults()).isFalse();
+  }
+
+  @Test
+  void should_stream_partial_results_if_enabled(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org", "SONARQUBE_STREAM_PARTIAL_RESULTS", "true");
+
+    var mcpServerLaunchConfiguration = new McpServerLaunchConfiguration(arg);
+
+    assertThat(mcpServerLaunchConfiguration.isStreamPartialResults()).isTrue();
+  }
+
+  @Test
+  void should_return_default_connection_pool_settings_if_not_set(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org");
+
+    var mcpServerLaunchConfiguration = new McpServerLaunchConfiguration(arg);
+
+    assertThat(mcpServerLaunchConfiguration.getConnectionPoolSettings()).isEqualTo(ConnectionPoolSettings.DEFAULT);
+    assertThat(mcpServerLaunchConfiguration.getPrewarmConnections()).isZero();
+  }
+
+  @Test
+  void should_return_connection_pool_settings_if_set(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "SONARQUBE_HTTP_MAX_CONNECTIONS", "100", "SONARQUBE_HTTP_MAX_CONNECTIONS_PER_ROUTE", "50", "SONARQUBE_HTTP_CONNECTION_TTL_SECONDS", "60",
+      "SONARQUBE_HTTP_IDLE_EVICTION_SECONDS", "10", "SONARQUBE_HTTP_VALIDATE_AFTER_INACTIVITY_MILLIS", "500", "SONARQUBE_HTTP_PREWARM_CONNECTIONS", "4");
+
+    var mcpServerLaunchConfiguration = new McpServerLaunchConfiguration(arg);
+
+    assertThat(mcpServerLaunchConfiguration.getConnectionPoolSettings())
+      .isEqualTo(new ConnectionPoolSettings(100, 50, Duration.ofSeconds(60), Duration.ofSeconds(10), Duration.ofMillis(500)));
+    assertThat(mcpServerLaunchConfiguration.getPrewarmConnections()).isEqualTo(4);
+  }
+
+  @Test
+  void should_throw_error_if_prewarm_connections_is_negative(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org", "SONARQUBE_HTTP_PREWARM_CONNECTIONS", "-1");
+
+    assertThatThrownBy(() -> new McpServerLaunchConfiguration(arg))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("SONARQUBE_HTTP_PREWARM_CONNECTIONS value must not be negative, got: -1");
+  }
+
+  @Test
+  void should_cache_responses_by_default(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org");
+
+    var mcpServerLaunchConfiguration = new McpServerLaunchConfiguration(arg);
+
+    assertThat(mcpServerLaunchConfiguration.getResponseCacheMaxBytes()).isEqualTo(16 * 1024 * 1024);
+  }
+
+  @Test
+  void should_disable_the_response_cache_if_its_size_is_zero(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org", "SONARQUBE_RESPONSE_CACHE_MAX_BYTES", "0");
+
+    var mcpServerLaunchConfiguration = new McpServerLaunchConfiguration(arg);
+
+    assertThat(mcpServerLaunchConfiguration.getResponseCacheMaxBytes()).isZero();
+  }
+
+  @Test
+  void should_negotiate_http2_with_sonarqube_cloud_only(@TempDir Path tempDir) {
+    var cloudArg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org");
+    var serverArg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_URL", "https://sonarqube.example.com");
+
+    assertThat(new McpServerLaunchConfiguration(cloudArg).getHttpVersionSettings().versionPolicy()).isEqualTo(HttpVersionPolicy.NEGOTIATE);
+    assertThat(new McpServerLaunchConfiguration(serverArg).getHttpVersionSettings().versionPolicy()).isEqualTo(HttpVersionPolicy.FORCE_HTTP_1);
+  }
+
+  @Test
+  void should_allow_forcing_http2(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_URL", "https://sonarqube.example.com",
+      "SONARQUBE_HTTP_VERSION", "HTTP2");
+
+    var settings = new McpServerLaunchConfiguration(arg).getHttpVersionSettings();
+
+    assertThat(settings.versionPolicy()).isEqualTo(HttpVersionPolicy.FORCE_HTTP_2);
+  }
+
+  @Test
+  void should_fail_with_an_invalid_http_version(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org", "SONARQUBE_HTTP_VERSION", "http3");
+
+    assertThatThrownBy(() -> new McpServerLaunchConfiguration(arg))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Invalid SONARQUBE_HTTP_VERSION value: http3, expected 'http1', 'negotiate' or 'http2'");
+  }
+
+  @Test
+  void should_coalesce_requests_by_default(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org");
+
+    var mcpServerLaunchConfiguration = new McpServerLaunchConfiguration(arg);
+
+    assertThat(mcpServerLaunchConfiguration.isRequestCoalescing()).isTrue();
+  }
+
+  @Test
+  void should_allow_disabling_request_coalescing(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org", "SONARQUBE_REQUEST_COALESCING", "false");
+
+    var mcpServerLaunchConfiguration = new McpServerLaunchConfiguration(arg);
+
+    assertThat(mcpServerLaunchConfiguration.isRequestCoalescing()).isFalse();
+  }
+
+  @Test
+  void should_request_json_responses_by_default(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org");
+
+    var mcpServerLaunchConfiguration = new McpServerLaunchConfiguration(arg);
+
+    assertThat(mcpServerLaunchConfiguration.isProtobufResponses()).isFalse();
+  }
+
+  @Test
+  void should_allow_requesting_protobuf_responses(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org", "SONARQUBE_PROTOBUF_RESPONSES", "true");
+
+    var mcpServerLaunchConfiguration = new McpServerLaunchConfiguration(arg);
+
+    assertThat(mcpServerLaunchConfiguration.isProtobufResponses()).isTrue();
+  }
+
+  @Test
+  void should_limit_the_size_of_plugins_and_logs_by_default(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org");
+
+    var mcpServerLaunchConfiguration = new McpServerLaunchConfiguration(arg);
+
+    assertThat(mcpServerLaunchConfiguration.getMaxPluginSizeBytes()).isEqualTo(512 * 1024 * 1024);
+    assertThat(mcpServerLaunchConfiguration.getMaxLogsBytes()).isEqualTo(4 * 1024 * 1024);
+  }
+
+  @Test
+  void should_fail_when_the_maximum_logs_size_is_not_positive(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org", "SONARQUBE_MAX_LOGS_BYTES", "0");
+
+    assertThatThrownBy(() -> new McpServerLaunchConfiguration(arg))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("SONARQUBE_MAX_LOGS_BYTES value must be greater than 0, got: 0");
+  }
+
+  @Test
+  void should_compress_the_responses_of_large_endpoints_by_default(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org");
+
+    var mcpServerLaunchConfiguration = new McpServerLaunchConfiguration(arg);
+
+    assertThat(mcpServerLaunchConfiguration.getCompressionSettings()).isEqualTo(CompressionSettings.DEFAULT);
+  }
+
+  @Test
+  void should_allow_to_choose_the_compressed_endpoints(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org",
+      "SONARQUBE_HTTP_COMPRESSED_ENDPOINTS", "/api/issues/search, api/hotspots/search,");
+
+    var mcpServerLaunchConfiguration = new McpServerLaunchConfiguration(arg);
+
+    assertThat(mcpServerLaunchConfiguration.getCompressionSettings().endpoints()).containsOnly("/api/issues/search", "/api/hotspots/search");
+  }
+
+  @Test
+  void should_allow_to_disable_compression(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org", "SONARQUBE_HTTP_COMPRESSION", "false");
+
+    var mcpServerLaunchConfiguration = new McpServerLaunchConfiguration(arg);
+
+    assertThat(mcpServerLaunchConfiguration.getCompressionSettings().isEnabled()).isFalse();
+  }
+
+  @Test
+  void should_retry_transient_errors_without_hedging_by_default(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org");
+
+    var mcpServerLaunchConfiguration = new McpServerLaunchConfiguration(arg);
+
+    assertThat(mcpServerLaunchConfiguration.getRetryPolicy()).isEqualTo(RetryPolicy.DEFAULT);
+  }
+
+  @Test
+  void should_allow_to_configure_retries_and_hedging(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org", "SONARQUBE_HTTP_MAX_ATTEMPTS", "5",
+      "SONARQUBE_HTTP_RETRY_BUDGET_MILLIS", "2000", "SONARQUBE_HTTP_HEDGING", "true", "SONARQUBE_HTTP_MIN_HEDGING_DELAY_MILLIS", "300");
+
+    var retryPolicy = new McpServerLaunchConfiguration(arg).getRetryPolicy();
+
+    assertThat(retryPolicy.maxAttempts()).isEqualTo(5);
+    assertThat(retryPolicy.retryBudget()).isEqualTo(Duration.ofSeconds(2));
+    assertThat(retryPolicy.isHedgingEnabled()).isTrue();
+    assertThat(retryPolicy.minHedgingDelay()).isEqualTo(Duration.ofMillis(300));
+  }
+
+  @Test
+  void should_adapt_the_concurrency_by_default(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org");
+
+    var mcpServerLaunchConfiguration = new McpServerLaunchConfiguration(arg);
+
+    assertThat(mcpServerLaunchConfiguration.getConcurrencyLimitSettings()).isEqualTo(ConcurrencyLimitSettings.DEFAULT);
+  }
+
+  @Test
+  void should_keep_the_initial_concurrency_within_the_configured_bounds(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org", "SONARQUBE_HTTP_MIN_CONCURRENCY", "2",
+      "SONARQUBE_HTTP_MAX_CONCURRENCY", "4", "SONARQUBE_HTTP_MAX_QUEUEING_MILLIS", "1000");
+
+    var settings = new McpServerLaunchConfiguration(arg).getConcurrencyLimitSettings();
+
+    assertThat(settings.initialLimit()).isEqualTo(4);
+    assertThat(settings.minLimit()).isEqualTo(2);
+    assertThat(settings.maxQueueingDelay()).isEqualTo(Duration.ofSeconds(1));
+  }
+
+  @Test
+  void should_fail_when_the_minimum_concurrency_is_greater_than_the_maximum(@TempDir Path tempDir) {
+    var arg = Map.of("STORAGE_PATH", tempDir.toString(), "SONARQUBE_TOKEN", "token", "SONARQUBE_ORG", "org", "SONARQUBE_HTTP_MIN_CONCURRENCY", "8",
+      "SONARQUBE_HTTP_MAX_CONCURRENCY", "4");
+
+    assertThatThrownBy(() -> new McpServerLaunchConfiguration(arg))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("SONARQUBE_HTTP_MIN_CONCURRENCY value must not be greater than SONARQUBE_HTTP_MAX_CONCURRENCY, got: 8");
+  }
+
 }
@@ -19,6 +19,7 @@ package org.sonarsource.sonarqube.mcp.harness;
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.client.MappingBuilder;
 import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.github.tomakehurst.wiremock.matching.RequestPatternBuilder;
 import com.github.tomakehurst.wiremock.stubbing.StubMapping;
 import java.util.List;
 
@@ -57,6 +58,10 @@ public class MockWebServer {
     return mockServer.stubFor(mappingBuilder);
   }
 
+  public void verify(int count, RequestPatternBuilder requestPatternBuilder) {
+    mockServer.verify(count, requestPatternBuilder);
+  }
+
   public boolean isStubConfigured(String path) {
     return mockServer.listAllStubMappings().getMappings()
       .stream()
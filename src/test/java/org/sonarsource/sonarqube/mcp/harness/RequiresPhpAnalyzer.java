@@ -0,0 +1,34 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.harness;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import org.junit.jupiter.api.condition.EnabledIf;
+
+/**
+ * Marks the tests expecting issues found by the PHP analyzer. They only run when the plugin prepared by the build is the actual analyzer,
+ * since any other jar is loaded without error but never finds anything.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@EnabledIf(value = "org.sonarsource.sonarqube.mcp.harness.SonarQubeMcpServerTestHarness#isPhpAnalyzerAvailable",
+  disabledReason = "The PHP analyzer is not available in build/sonarqube-mcp-server/plugins")
+public @interface RequiresPhpAnalyzer {
+}
@@ -32,6 +32,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.jar.JarFile;
 import org.apache.commons.io.FileUtils;
 import org.junit.jupiter.api.extension.AfterEachCallback;
 import org.junit.jupiter.api.extension.BeforeEachCallback;
@@ -51,6 +52,7 @@ import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
 public class SonarQubeMcpServerTestHarness extends TypeBasedParameterResolver<SonarQubeMcpServerTestHarness> implements AfterEachCallback, BeforeEachCallback {
   private static final Map<String, String> DEFAULT_ENV_TEMPLATE = Map.of(
     "SONARQUBE_TOKEN", "token");
+  private static final Path PHP_PLUGIN_PATH = Paths.get("build/sonarqube-mcp-server/plugins/sonar-php-plugin-3.45.0.12991.jar");
   private final List<McpSyncClient> clients = new ArrayList<>();
   private Path tempStoragePath;
   private final List<SonarQubeMcpServer> servers = new ArrayList<>();
@@ -94,6 +96,22 @@ public class SonarQubeMcpServerTestHarness extends TypeBasedParameterResolver<So
     }
   }
 
+  public Path getStoragePath() {
+    return tempStoragePath;
+  }
+
+  /**
+   * Whether the PHP plugin prepared by the build is the actual analyzer, see {@link RequiresPhpAnalyzer}
+   */
+  public static boolean isPhpAnalyzerAvailable() {
+    try (var jar = new JarFile(PHP_PLUGIN_PATH.toFile())) {
+      var manifest = jar.getManifest();
+      return manifest != null && "php".equals(manifest.getMainAttributes().getValue("Plugin-Key"));
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
   public MockWebServer getMockSonarQubeServer() {
     return mockSonarQubeServer;
   }
@@ -166,7 +184,7 @@ public class SonarQubeMcpServerTestHarness extends TypeBasedParameterResolver<So
       """)));
     try {
       mockSonarQubeServer.stubFor(get(PluginsApi.DOWNLOAD_PLUGINS_PATH + "?plugin=php")
-        .willReturn(aResponse().withBody(Files.readAllBytes(Paths.get("build/sonarqube-mcp-server/plugins/sonar-php-plugin-3.45.0.12991.jar")))));
+        .willReturn(aResponse().withBody(Files.readAllBytes(PHP_PLUGIN_PATH))));
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
@@ -0,0 +1,180 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AdaptiveConcurrencyLimiterTests {
+
+  private static final String URL = "https://sonarcloud.io/api/issues/search?ps=500";
+
+  private AdaptiveConcurrencyLimiter underTest;
+
+  @AfterEach
+  void tearDown() {
+    if (underTest != null) {
+      underTest.close();
+    }
+  }
+
+  @Test
+  void it_should_track_limits_per_server_and_endpoint_family() {
+    assertThat(AdaptiveConcurrencyLimiter.limitKey(URL)).isEqualTo("https://sonarcloud.io/api/issues");
+    assertThat(AdaptiveConcurrencyLimiter.limitKey("http://localhost:9000/sonarqube/api/rules/show?key=java:S100"))
+      .isEqualTo("http://localhost:9000/api/rules");
+    assertThat(AdaptiveConcurrencyLimiter.limitKey("https://api.sonarcloud.io/dependency-risks/issues"))
+      .isEqualTo("https://api.sonarcloud.io/dependency-risks");
+  }
+
+  @Test
+  void it_should_queue_requests_over_the_limit() {
+    underTest = new AdaptiveConcurrencyLimiter(settings(2, Duration.ofSeconds(10)));
+    var requests = new PendingRequests();
+
+    var first = underTest.execute(URL, requests);
+    underTest.execute(URL, requests);
+    var third = underTest.execute(URL, requests);
+
+    assertThat(requests.sent).hasSize(2);
+    assertThat(underTest.getLimit(URL).getQueued()).isEqualTo(1);
+    requests.sent.get(0).complete(response(200));
+    assertThat(first).isCompleted();
+    assertThat(requests.sent).hasSize(3);
+    requests.sent.get(2).complete(response(200));
+    assertThat(third).isCompleted();
+    assertThat(underTest.getLimit(URL).getQueuedRequests()).isEqualTo(1);
+  }
+
+  @Test
+  void it_should_not_queue_requests_of_other_endpoint_families() {
+    underTest = new AdaptiveConcurrencyLimiter(settings(1, Duration.ofSeconds(10)));
+    var requests = new PendingRequests();
+
+    underTest.execute(URL, requests);
+    underTest.execute("https://sonarcloud.io/api/rules/search", requests);
+
+    assertThat(requests.sent).hasSize(2);
+  }
+
+  @Test
+  void it_should_fail_requests_queued_for_too_long() {
+    underTest = new AdaptiveConcurrencyLimiter(settings(1, Duration.ofMillis(50)));
+    var requests = new PendingRequests();
+
+    underTest.execute(URL, requests);
+    var queued = underTest.execute(URL, requests);
+
+    assertThat(queued).failsWithin(Duration.ofSeconds(5))
+      .withThrowableOfType(ExecutionException.class)
+      .withCauseInstanceOf(RequestQueueTimeoutException.class);
+    assertThat(requests.sent).hasSize(1);
+    assertThat(underTest.getLimit(URL).getRejectedRequests()).isEqualTo(1);
+  }
+
+  @Test
+  void it_should_not_send_queued_requests_that_were_cancelled() {
+    underTest = new AdaptiveConcurrencyLimiter(settings(1, Duration.ofSeconds(10)));
+    var requests = new PendingRequests();
+
+    underTest.execute(URL, requests);
+    var queued = underTest.execute(URL, requests);
+    queued.thenApply(HttpClient.Response::code).cancel(true);
+    requests.sent.get(0).complete(response(200));
+
+    assertThat(queued).isCancelled();
+    assertThat(requests.sent).hasSize(1);
+    assertThat(underTest.getLimit(URL).getInFlight()).isZero();
+  }
+
+  @Test
+  void it_should_cancel_the_queue_timeout_of_requests_leaving_the_queue() {
+    underTest = new AdaptiveConcurrencyLimiter(settings(1, Duration.ofSeconds(30)));
+    var requests = new PendingRequests();
+    var scheduledTimeouts = AdaptiveConcurrencyLimiter.scheduledQueueTimeouts();
+
+    underTest.execute(URL, requests);
+    underTest.execute(URL, requests);
+    var cancelled = underTest.execute(URL, requests);
+    assertThat(AdaptiveConcurrencyLimiter.scheduledQueueTimeouts()).isEqualTo(scheduledTimeouts + 2);
+    cancelled.cancel(true);
+    requests.sent.get(0).complete(response(200));
+
+    assertThat(AdaptiveConcurrencyLimiter.scheduledQueueTimeouts()).isEqualTo(scheduledTimeouts);
+  }
+
+  @Test
+  void it_should_back_off_when_the_server_is_overloaded() {
+    underTest = new AdaptiveConcurrencyLimiter(settings(10, Duration.ofSeconds(10)));
+    var requests = new PendingRequests();
+
+    underTest.execute(URL, requests);
+    requests.sent.get(0).complete(response(503));
+
+    assertThat(underTest.getLimit(URL).getLimit()).isEqualTo(9);
+  }
+
+  @Test
+  void it_should_increase_the_limit_while_the_server_is_healthy() {
+    underTest = new AdaptiveConcurrencyLimiter(settings(2, Duration.ofSeconds(10)));
+    var requests = new PendingRequests();
+
+    for (var i = 0; i < 50; i++) {
+      var inFlight = underTest.getLimit(URL) == null ? 2 : underTest.getLimit(URL).getLimit();
+      for (var j = 0; j < inFlight; j++) {
+        underTest.execute(URL, requests);
+      }
+      var batch = new ArrayList<>(requests.sent);
+      requests.sent.clear();
+      batch.forEach(request -> request.complete(response(200)));
+    }
+
+    assertThat(underTest.getLimit(URL).getLimit()).isGreaterThan(2);
+  }
+
+  private static ConcurrencyLimitSettings settings(int initialLimit, Duration maxQueueingDelay) {
+    return new ConcurrencyLimitSettings(true, initialLimit, 1, 20, maxQueueingDelay);
+  }
+
+  private static HttpClient.Response response(int code) {
+    var response = mock(HttpClient.Response.class);
+    when(response.code()).thenReturn(code);
+    return response;
+  }
+
+  private static class PendingRequests implements Supplier<CompletableFuture<HttpClient.Response>> {
+    private final List<CompletableFuture<HttpClient.Response>> sent = new ArrayList<>();
+
+    @Override
+    public synchronized CompletableFuture<HttpClient.Response> get() {
+      var request = new CompletableFuture<HttpClient.Response>();
+      sent.add(request);
+      return request;
+    }
+  }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ContentDecoderTests {
+
+  private static final String TEXT = "{\"rules\":[{\"key\":\"java:S100\"}]}".repeat(1000);
+
+  @Test
+  void it_should_not_decode_unknown_encodings() {
+    assertThat(ContentDecoder.forEncoding(null)).isNull();
+    assertThat(ContentDecoder.forEncoding("identity")).isNull();
+    assertThat(ContentDecoder.forEncoding("br")).isNull();
+  }
+
+  @Test
+  void it_should_decode_gzip_received_in_small_chunks() throws IOException {
+    var decoded = decode("gzip", gzip(TEXT), 7);
+
+    assertThat(decoded).isEqualTo(TEXT);
+  }
+
+  @Test
+  void it_should_decode_gzip_with_optional_header_fields() throws IOException {
+    var encoded = gzip(TEXT);
+    // FEXTRA (2 bytes), FNAME and FCOMMENT
+    var header = new ByteArrayOutputStream();
+    header.write(encoded, 0, 3);
+    header.write(4 | 8 | 16);
+    header.write(encoded, 4, 6);
+    header.writeBytes(new byte[] {2, 0, 'x', 'y'});
+    header.writeBytes("file.json\0".getBytes(StandardCharsets.US_ASCII));
+    header.writeBytes("comment\0".getBytes(StandardCharsets.US_ASCII));
+    header.write(encoded, 10, encoded.length - 10);
+
+    var decoded = decode("gzip", header.toByteArray(), 3);
+
+    assertThat(decoded).isEqualTo(TEXT);
+  }
+
+  @Test
+  void it_should_decode_zlib_and_raw_deflate() throws IOException {
+    assertThat(decode("deflate", deflate(TEXT, false), 100)).isEqualTo(TEXT);
+    assertThat(decode("deflate", deflate(TEXT, true), 100)).isEqualTo(TEXT);
+  }
+
+  @Test
+  void it_should_fail_if_the_body_is_truncated() throws IOException {
+    var encoded = gzip(TEXT);
+    var truncated = Arrays.copyOf(encoded, encoded.length - 4);
+
+    assertThatThrownBy(() -> decode("gzip", truncated, 1024))
+      .isInstanceOf(EOFException.class);
+  }
+
+  @Test
+  void it_should_fail_if_the_checksum_does_not_match() throws IOException {
+    var encoded = gzip(TEXT);
+    encoded[encoded.length - 8] ^= 1;
+
+    assertThatThrownBy(() -> decode("gzip", encoded, 1024))
+      .isInstanceOf(ZipException.class)
+      .hasMessage("Corrupted compressed response body");
+  }
+
+  @Test
+  void it_should_fail_if_the_body_is_not_gzip() {
+    var notGzip = TEXT.getBytes(StandardCharsets.UTF_8);
+
+    assertThatThrownBy(() -> decode("gzip", notGzip, 1024))
+      .isInstanceOf(ZipException.class)
+      .hasMessage("The response body is not in gzip format");
+  }
+
+  private static String decode(String encoding, byte[] encoded, int chunkSize) throws IOException {
+    var decoder = ContentDecoder.forEncoding(encoding);
+    var decoded = new ByteArrayOutputStream();
+    try {
+      for (var offset = 0; offset < encoded.length; offset += chunkSize) {
+        decoder.decode(ByteBuffer.wrap(encoded, offset, Math.min(chunkSize, encoded.length - offset)), buffer -> {
+          var bytes = new byte[buffer.remaining()];
+          buffer.get(bytes);
+          decoded.writeBytes(bytes);
+        });
+      }
+      decoder.finish();
+    } finally {
+      decoder.release();
+    }
+    return decoded.toString(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] gzip(String text) throws IOException {
+    var bytes = new ByteArrayOutputStream();
+    try (var gzip = new GZIPOutputStream(bytes)) {
+      gzip.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+    return bytes.toByteArray();
+  }
+
+  private static byte[] deflate(String text, boolean raw) throws IOException {
+    var bytes = new ByteArrayOutputStream();
+    var deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, raw);
+    try (var deflate = new DeflaterOutputStream(bytes, deflater)) {
+      deflate.write(text.getBytes(StandardCharsets.UTF_8));
+    } finally {
+      deflater.end();
+    }
+    return bytes.toByteArray();
+  }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EndpointTableTests {
+
+  private final AtomicInteger createdValues = new AtomicInteger();
+  private final EndpointTable<String> underTest = new EndpointTable<>(2, template -> {
+    createdValues.incrementAndGet();
+    return template;
+  });
+
+  @Test
+  void it_should_use_the_path_of_the_url_as_endpoint() {
+    assertThat(EndpointTable.template("https://sonarcloud.io/api/issues/search?ps=500&p=2")).isEqualTo("/api/issues/search");
+    assertThat(EndpointTable.template("http://localhost:9000/sonarqube/api/rules/show#key")).isEqualTo("/sonarqube/api/rules/show");
+    assertThat(EndpointTable.template("https://sonarcloud.io")).isEqualTo("/");
+  }
+
+  @Test
+  void it_should_keep_a_single_value_per_endpoint() {
+    var value = underTest.get("https://sonarcloud.io/api/issues/search?ps=500&p=2");
+
+    assertThat(value).isEqualTo("/api/issues/search");
+    assertThat(underTest.get("https://sonarcloud.io/api/issues/search#top")).isSameAs(value);
+    assertThat(underTest.get("https://sonarcloud.io")).isEqualTo("/");
+    assertThat(createdValues).hasValue(2);
+  }
+
+  @Test
+  void it_should_share_a_value_between_the_endpoints_beyond_the_maximum() {
+    underTest.get("https://sonarcloud.io/api/issues/search");
+    underTest.get("https://sonarcloud.io/api/rules/show");
+
+    var other = underTest.get("https://sonarcloud.io/api/projects/search");
+
+    assertThat(other).isEqualTo(EndpointTable.OTHER_ENDPOINTS);
+    assertThat(underTest.get("https://sonarcloud.io/api/hotspots/search")).isSameAs(other);
+    assertThat(underTest.get("https://sonarcloud.io/api/rules/show?key=java:S1")).isEqualTo("/api/rules/show");
+    assertThat(underTest.values()).containsExactlyInAnyOrder("/api/issues/search", "/api/rules/show", EndpointTable.OTHER_ENDPOINTS);
+  }
+
+  @Test
+  void it_should_not_allocate_when_looking_up_an_endpoint_already_seen() {
+    var url = "https://sonarcloud.io/api/issues/search?ps=500&p=2";
+    underTest.get(url);
+    var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    var threadId = Thread.currentThread().threadId();
+    // warms up the measurement itself
+    threads.getThreadAllocatedBytes(threadId);
+
+    var allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+    for (var i = 0; i < 10_000; i++) {
+      underTest.get(url);
+    }
+    var allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+    // far less than a single String per lookup
+    assertThat(allocated).isLessThan(10_000);
+  }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.http;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HttpClientMetricsTests {
+
+  private final HttpClientMetrics metrics = new HttpClientMetrics();
+
+  @AfterEach
+  void closeMetrics() {
+    metrics.close();
+  }
+
+  @Test
+  void it_should_approximate_percentiles_with_the_bounds_of_the_buckets() {
+    var endpoint = metrics.endpoint("https://sonarcloud.io/api/issues/search");
+
+    for (var i = 0; i < 98; i++) {
+      endpoint.recordResponse(200, 1000, TimeUnit.MILLISECONDS.toNanos(20));
+    }
+    endpoint.recordResponse(200, 1000, TimeUnit.MILLISECONDS.toNanos(400));
+    endpoint.recordResponse(500, 100, TimeUnit.MILLISECONDS.toNanos(40_000));
+
+    assertThat(endpoint.getResponses()).isEqualTo(100);
+    assertThat(endpoint.getP50LatencyMillis()).isEqualTo(25);
+    assertThat(endpoint.getP99LatencyMillis()).isEqualTo(500);
+    assertThat(endpoint.getMaxLatencyMillis()).isEqualTo(40_000);
+    assertThat(endpoint.getMaxResponseBytes()).isEqualTo(1000);
+  }
+
+  @Test
+  void it_should_write_the_metrics_in_the_prometheus_text_format() {
+    var endpoint = metrics.endpoint("https://sonarcloud.io/api/issues/search?p=1");
+    endpoint.recordResponse(200, 2000, TimeUnit.MILLISECONDS.toNanos(30));
+    endpoint.recordResponse(503, 100, TimeUnit.MILLISECONDS.toNanos(3));
+    endpoint.recordFailure();
+    metrics.recordConnect(TimeUnit.MILLISECONDS.toNanos(80));
+    metrics.recordTlsHandshake(TimeUnit.MILLISECONDS.toNanos(60));
+
+    assertThat(metrics.toPrometheusText()).contains(
+      "# TYPE sonarqube_mcp_http_request_duration_seconds histogram\n",
+      "sonarqube_mcp_http_request_duration_seconds_bucket{endpoint=\"/api/issues/search\",le=\"0.005\"} 1\n",
+      "sonarqube_mcp_http_request_duration_seconds_bucket{endpoint=\"/api/issues/search\",le=\"0.050\"} 2\n",
+      "sonarqube_mcp_http_request_duration_seconds_bucket{endpoint=\"/api/issues/search\",le=\"+Inf\"} 2\n",
+      "sonarqube_mcp_http_request_duration_seconds_sum{endpoint=\"/api/issues/search\"} 0.033\n",
+      "sonarqube_mcp_http_request_duration_seconds_count{endpoint=\"/api/issues/search\"} 2\n",
+      "sonarqube_mcp_http_response_size_bytes_bucket{endpoint=\"/api/issues/search\",le=\"4096\"} 2\n",
+      "sonarqube_mcp_http_responses_total{endpoint=\"/api/issues/search\",code=\"503\"} 1\n",
+      "sonarqube_mcp_http_request_failures_total{endpoint=\"/api/issues/search\"} 1\n",
+      "sonarqube_mcp_http_pool_connections{state=\"leased\"} 0\n",
+      "sonarqube_mcp_http_connect_duration_seconds_count 1\n",
+      "sonarqube_mcp_http_tls_handshake_duration_seconds_sum 0.060\n");
+  }
+
+  @Test
+  void it_should_expose_the_metrics_through_jmx() throws Exception {
+    metrics.endpoint("https://sonarcloud.io/api/rules/show?key=java:S1").recordResponse(200, 10, TimeUnit.MILLISECONDS.toNanos(5));
+
+    var server = ManagementFactory.getPlatformMBeanServer();
+    var endpoints = server.queryNames(new ObjectName("org.sonarsource.sonarqube.mcp:type=HttpEndpoint,*"), null);
+    var endpoint = endpoints.stream().filter(name -> name.getKeyProperty("name").equals(ObjectName.quote("/api/rules/show"))).findFirst().orElseThrow();
+    assertThat(server.getAttribute(endpoint, "Responses")).isNotNull();
+    assertThat(server.queryNames(new ObjectName("org.sonarsource.sonarqube.mcp:type=HttpConnections,*"), null)).isNotEmpty();
+  }
+
+  @Test
+  void it_should_write_the_metrics_to_a_file_and_serve_them(@TempDir Path tempDir) throws IOException, InterruptedException {
+    metrics.endpoint("https://sonarcloud.io/api/rules/show").recordResponse(200, 10, TimeUnit.MILLISECONDS.toNanos(5));
+    var exporter = new HttpMetricsExporter(metrics);
+    var file = tempDir.resolve("metrics").resolve(HttpMetricsExporter.METRICS_FILE_NAME);
+
+    exporter.write(file);
+    exporter.serve(0);
+
+    try (var client = java.net.http.HttpClient.newHttpClient()) {
+      var response = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + exporter.getPort() + "/metrics")).build(),
+        HttpResponse.BodyHandlers.ofString());
+      assertThat(response.statusCode()).isEqualTo(200);
+      assertThat(response.body()).contains("sonarqube_mcp_http_responses_total{endpoint=\"/api/rules/show\",code=\"200\"} 1");
+    } finally {
+      exporter.close();
+    }
+    assertThat(Files.readString(file)).contains("sonarqube_mcp_http_responses_total{endpoint=\"/api/rules/show\",code=\"200\"} 1");
+    assertThat(tempDir.resolve("metrics")).isDirectoryNotContaining("glob:**.tmp");
+  }
+
+}
@@ -17,17 +17,30 @@
 package org.sonarsource.sonarqube.mcp.http;
 
 import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
 import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
 import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.headRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.post;
 import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
@@ -70,6 +83,20 @@ class HttpClientProviderTests {
     assertThat(future).isCancelled();
   }
 
+  @Test
+  void it_should_cancel_the_request_when_a_dependent_stage_is_cancelled() {
+    sonarqubeMock.stubFor(get("/delayed")
+      .willReturn(aResponse()
+        .withFixedDelay(20000)));
+
+    var underTest = new HttpClientProvider(USER_AGENT);
+
+    var future = underTest.getHttpClient("token").getAsync(sonarqubeMock.url("/delayed"));
+    var body = future.thenApply(HttpClient.Response::bodyAsString).thenApply(String::length);
+    assertThat(body.cancel(true)).isTrue();
+    assertThat(future).isCancelled();
+  }
+
   @Test
   void it_should_preserve_post_on_permanent_moved_status() {
     sonarqubeMock.stubFor(post("/afterMove").willReturn(aResponse()));
@@ -133,4 +160,199 @@ class HttpClientProviderTests {
     sonarqubeMock.verify(postRequestedFor(urlEqualTo("/test")));
   }
 
+  @Test
+  void it_should_prewarm_connections_to_each_server() throws Exception {
+    var underTest = new HttpClientProvider(USER_AGENT, new ConnectionPoolSettings(10, 2, Duration.ofMinutes(1), Duration.ofSeconds(10), Duration.ofSeconds(1)),
+      HttpVersionSettings.HTTP_1, CompressionSettings.DEFAULT, ConcurrencyLimitSettings.DEFAULT);
+
+    underTest.prewarm(List.of(sonarqubeMock.baseUrl(), "http://localhost:1"), 3).get(5, TimeUnit.SECONDS);
+
+    sonarqubeMock.verify(2, headRequestedFor(urlEqualTo("/")));
+  }
+
+  @Test
+  void it_should_prewarm_a_single_connection_when_http2_is_forced() throws Exception {
+    var underTest = new HttpClientProvider(USER_AGENT, new ConnectionPoolSettings(10, 2, Duration.ofMinutes(1), Duration.ofSeconds(10), Duration.ofSeconds(1)),
+      new HttpVersionSettings(HttpVersionPolicy.FORCE_HTTP_2, HttpVersionSettings.DEFAULT_INITIAL_WINDOW_SIZE), CompressionSettings.DEFAULT,
+      ConcurrencyLimitSettings.DEFAULT);
+
+    underTest.prewarm(List.of(sonarqubeMock.baseUrl()), 3).get(5, TimeUnit.SECONDS);
+
+    sonarqubeMock.verify(1, headRequestedFor(urlEqualTo("/")));
+  }
+
+  @Test
+  void it_should_send_additional_headers_and_expose_the_response_headers() {
+    sonarqubeMock.stubFor(get("/conditional")
+      .withHeader("If-None-Match", equalTo("\"v1\""))
+      .willReturn(aResponse().withStatus(HttpStatus.SC_NOT_MODIFIED).withHeader("ETag", "\"v1\"")));
+    var underTest = new HttpClientProvider(USER_AGENT);
+
+    try (var response = underTest.getHttpClient("token").getAsync(sonarqubeMock.url("/conditional"), Map.of("If-None-Match", "\"v1\"")).join()) {
+      assertThat(response.code()).isEqualTo(HttpStatus.SC_NOT_MODIFIED);
+      assertThat(response.header("etag")).isEqualTo("\"v1\"");
+      assertThat(response.header("Last-Modified")).isNull();
+    }
+  }
+
+  @Test
+  void it_should_stream_a_successful_response_to_a_file(@TempDir Path tempDir) throws IOException {
+    sonarqubeMock.stubFor(get("/download").willReturn(aResponse().withBody("plugin content")));
+    var destination = tempDir.resolve("plugin.jar");
+
+    try (var response = new HttpClientProvider(USER_AGENT).getHttpClient("token").getToFileAsync(sonarqubeMock.url("/download"), destination, 1024).join()) {
+      assertThat(response.isSuccessful()).isTrue();
+      assertThat(response.bodyAsStream()).hasContent("plugin content");
+    }
+    assertThat(destination).hasContent("plugin content");
+  }
+
+  @Test
+  void it_should_stream_a_response_bigger_than_the_flow_control_window_over_http2(@TempDir Path tempDir) throws IOException {
+    var body = "a".repeat(3 * 1024 * 1024);
+    sonarqubeMock.stubFor(get("/download").willReturn(aResponse().withBody(body)));
+    var destination = tempDir.resolve("plugin.jar");
+    var underTest = new HttpClientProvider(USER_AGENT, ConnectionPoolSettings.DEFAULT,
+      new HttpVersionSettings(HttpVersionPolicy.FORCE_HTTP_2, HttpVersionSettings.DEFAULT_INITIAL_WINDOW_SIZE), CompressionSettings.DISABLED,
+      ConcurrencyLimitSettings.DISABLED);
+
+    try (var response = underTest.getHttpClient("token").getToFileAsync(sonarqubeMock.url("/download"), destination, body.length()).join()) {
+      assertThat(response.isSuccessful()).isTrue();
+    }
+    assertThat(destination).hasSize(body.length());
+  }
+
+  @Test
+  void it_should_not_write_an_error_response_to_the_file(@TempDir Path tempDir) {
+    sonarqubeMock.stubFor(get("/download").willReturn(aResponse().withStatus(HttpStatus.SC_NOT_FOUND).withBody("not found")));
+    var destination = tempDir.resolve("plugin.jar");
+
+    try (var response = new HttpClientProvider(USER_AGENT).getHttpClient("token").getToFileAsync(sonarqubeMock.url("/download"), destination, 1024).join()) {
+      assertThat(response.code()).isEqualTo(HttpStatus.SC_NOT_FOUND);
+      assertThat(response.bodyAsString()).isEqualTo("not found");
+    }
+    assertThat(destination).doesNotExist();
+  }
+
+  @Test
+  void it_should_reject_a_response_bigger_than_the_maximum_size(@TempDir Path tempDir) {
+    sonarqubeMock.stubFor(get("/download").willReturn(aResponse().withBody("a".repeat(100))));
+    var destination = tempDir.resolve("plugin.jar");
+
+    var future = new HttpClientProvider(USER_AGENT).getHttpClient("token").getToFileAsync(sonarqubeMock.url("/download"), destination, 10);
+
+    assertThat(future).failsWithin(Duration.ofSeconds(5))
+      .withThrowableOfType(ExecutionException.class)
+      .withCauseInstanceOf(ResponseTooLargeException.class);
+  }
+
+  @Test
+  void it_should_keep_the_end_of_a_response_bigger_than_the_maximum_size() {
+    sonarqubeMock.stubFor(get("/logs").willReturn(aResponse().withBody("0123456789".repeat(10) + "end")));
+
+    try (var response = new HttpClientProvider(USER_AGENT).getHttpClient("token").getTailAsync(sonarqubeMock.url("/logs"), 13).join()) {
+      assertThat(response.isTruncated()).isTrue();
+      assertThat(response.bodyAsString()).isEqualTo("0123456789end");
+    }
+  }
+
+  @Test
+  void it_should_not_truncate_a_response_smaller_than_the_maximum_size() {
+    sonarqubeMock.stubFor(get("/logs").willReturn(aResponse().withBody("some logs")));
+
+    try (var response = new HttpClientProvider(USER_AGENT).getHttpClient("token").getTailAsync(sonarqubeMock.url("/logs"), 1024).join()) {
+      assertThat(response.isTruncated()).isFalse();
+      assertThat(response.bodyAsString()).isEqualTo("some logs");
+    }
+  }
+
+  @Test
+  void it_should_negotiate_compression_and_decompress_the_response_of_enabled_endpoints() throws IOException {
+    var body = "{\"issues\":[]}".repeat(100);
+    sonarqubeMock.stubFor(get("/api/issues/search").willReturn(aResponse().withHeader("Content-Encoding", "gzip").withBody(gzip(body))));
+
+    try (var response = new HttpClientProvider(USER_AGENT).getHttpClient("token").getAsync(sonarqubeMock.url("/api/issues/search")).join()) {
+      assertThat(response.bodyAsString()).isEqualTo(body);
+      assertThat(response.header("Content-Encoding")).isNull();
+    }
+    sonarqubeMock.verify(getRequestedFor(urlEqualTo("/api/issues/search"))
+      .withHeader("Accept-Encoding", equalTo("gzip, deflate")));
+  }
+
+  @Test
+  void it_should_not_negotiate_compression_for_other_endpoints() {
+    var underTest = new HttpClientProvider(USER_AGENT, ConnectionPoolSettings.DEFAULT, HttpVersionSettings.HTTP_1, new CompressionSettings(true, Set.of("/api/rules/search")),
+      ConcurrencyLimitSettings.DEFAULT);
+
+    try (var ignored = underTest.getHttpClient("token").getAsync(sonarqubeMock.url("/api/issues/search")).join()) {
+      // nothing
+    }
+
+    sonarqubeMock.verify(getRequestedFor(urlEqualTo("/api/issues/search"))
+      .withoutHeader("Accept-Encoding"));
+  }
+
+  @Test
+  void it_should_multiplex_concurrent_requests_over_http2() {
+    sonarqubeMock.stubFor(get("/api/rules/show").willReturn(aResponse().withBody("rule").withFixedDelay(200)));
+    var underTest = new HttpClientProvider(USER_AGENT, ConnectionPoolSettings.DEFAULT,
+      new HttpVersionSettings(HttpVersionPolicy.FORCE_HTTP_2, HttpVersionSettings.DEFAULT_INITIAL_WINDOW_SIZE), CompressionSettings.DISABLED,
+      ConcurrencyLimitSettings.DISABLED);
+    var client = underTest.getHttpClient("token");
+
+    var responses = IntStream.range(0, 5).mapToObj(i -> client.getAsync(sonarqubeMock.url("/api/rules/show"))).toList();
+
+    assertThat(responses).allSatisfy(response -> assertThat(response.join().bodyAsString()).isEqualTo("rule"));
+    assertThat(sonarqubeMock.getAllServeEvents()).allSatisfy(event -> assertThat(event.getRequest().getProtocol()).isEqualTo("HTTP/2.0"));
+  }
+
+  @Test
+  void it_should_fail_a_request_still_running_once_the_deadline_of_the_call_is_exceeded() {
+    sonarqubeMock.stubFor(get("/hanging").willReturn(aResponse().withFixedDelay(10_000)));
+    var client = new HttpClientProvider(USER_AGENT).getHttpClient("token");
+
+    var future = Deadline.after(Duration.ofMillis(200)).callWith(() -> client.getAsync(sonarqubeMock.url("/hanging")));
+
+    var exception = assertThrows(ExecutionException.class, () -> future.get(2, TimeUnit.SECONDS));
+    assertThat(exception.getCause()).isInstanceOf(IOException.class);
+  }
+
+  @Test
+  void it_should_not_send_a_request_once_the_deadline_of_the_call_is_exceeded() {
+    var deadline = Deadline.after(Duration.ZERO);
+
+    var future = deadline.callWith(() -> new HttpClientProvider(USER_AGENT).getHttpClient("token").getAsync(sonarqubeMock.url("/test")));
+
+    var exception = assertThrows(ExecutionException.class, future::get);
+    assertThat(exception.getCause()).isInstanceOf(DeadlineExceededException.class);
+    sonarqubeMock.verify(0, getRequestedFor(urlEqualTo("/test")));
+  }
+
+  @Test
+  void it_should_record_the_metrics_of_the_responses_by_endpoint() {
+    sonarqubeMock.stubFor(get(urlEqualTo("/api/rules/show?key=java:S1")).willReturn(aResponse().withBody("rule")));
+    sonarqubeMock.stubFor(get(urlEqualTo("/api/rules/show?key=java:S2")).willReturn(aResponse().withStatus(404)));
+    var underTest = new HttpClientProvider(USER_AGENT);
+    var client = underTest.getHttpClient("token");
+
+    client.getAsync(sonarqubeMock.url("/api/rules/show?key=java:S1")).join().close();
+    client.getAsync(sonarqubeMock.url("/api/rules/show?key=java:S2")).join().close();
+
+    var endpoint = underTest.getMetrics().endpoint(sonarqubeMock.url("/api/rules/show"));
+    assertThat(endpoint.getResponses()).isEqualTo(2);
+    assertThat(endpoint.getStatusCounts()).containsExactly(Map.entry(200, 1L), Map.entry(404, 1L));
+    assertThat(endpoint.getMaxResponseBytes()).isEqualTo(4);
+    assertThat(underTest.getMetrics().getConnects()).isPositive();
+    assertThat(underTest.getMetrics().getAvailableConnections()).isPositive();
+    underTest.shutdown();
+  }
+
+  private static byte[] gzip(String text) throws IOException {
+    var bytes = new ByteArrayOutputStream();
+    try (var gzip = new GZIPOutputStream(bytes)) {
+      gzip.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+    return bytes.toByteArray();
+  }
+
 }
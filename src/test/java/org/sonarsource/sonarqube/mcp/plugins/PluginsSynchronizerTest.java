@@ -16,21 +16,25 @@
  */
 package org.sonarsource.sonarqube.mcp.plugins;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.CompletionException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import org.sonarsource.sonarlint.core.rpc.protocol.common.Language;
 import org.sonarsource.sonarqube.mcp.http.HttpClient;
+import org.sonarsource.sonarqube.mcp.http.ResponseTooLargeException;
 import org.sonarsource.sonarqube.mcp.serverapi.ServerApi;
 import org.sonarsource.sonarqube.mcp.serverapi.plugins.PluginsApi;
 import org.sonarsource.sonarqube.mcp.serverapi.plugins.response.InstalledPluginsResponse;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -43,8 +47,10 @@ class PluginsSynchronizerTest {
     when(pluginsApi.getInstalled()).thenReturn(new InstalledPluginsResponse(List.of(new InstalledPluginsResponse.Plugin("java", true, "filename"))));
     var response = mock(HttpClient.Response.class);
     when(response.isSuccessful()).thenReturn(true);
-    when(response.bodyAsStream()).thenReturn(new ByteArrayInputStream("hello".getBytes()));
-    when(pluginsApi.downloadPlugin("java")).thenReturn(response);
+    when(pluginsApi.downloadPlugin(eq("java"), any(), anyLong())).thenAnswer(invocation -> {
+      Files.writeString(invocation.getArgument(1, Path.class), "hello");
+      return response;
+    });
     var pluginsSynchronizer = new PluginsSynchronizer(serverApi, tempDir);
 
     var analyzers = pluginsSynchronizer.synchronizeAnalyzers();
@@ -55,6 +61,27 @@ class PluginsSynchronizerTest {
     assertThat(pluginPath)
       .exists()
       .hasContent("hello");
+    assertThat(pluginPath.resolveSibling("filename.part")).doesNotExist();
+  }
+
+  @Test
+  void it_should_not_keep_a_partial_plugin_if_the_download_fails(@TempDir Path tempDir) {
+    var serverApi = mock(ServerApi.class);
+    var pluginsApi = mock(PluginsApi.class);
+    when(serverApi.pluginsApi()).thenReturn(pluginsApi);
+    when(pluginsApi.getInstalled()).thenReturn(new InstalledPluginsResponse(List.of(new InstalledPluginsResponse.Plugin("java", true, "filename"))));
+    when(pluginsApi.downloadPlugin(eq("java"), any(), eq(10L))).thenAnswer(invocation -> {
+      Files.writeString(invocation.getArgument(1, Path.class), "hello");
+      throw new CompletionException(new ResponseTooLargeException("url", 10));
+    });
+    var pluginsSynchronizer = new PluginsSynchronizer(serverApi, tempDir, 10);
+
+    var throwable = catchThrowable(pluginsSynchronizer::synchronizeAnalyzers);
+
+    assertThat(throwable).isInstanceOf(IllegalStateException.class)
+      .hasMessage("Error downloading plugin 'java'")
+      .hasCauseInstanceOf(ResponseTooLargeException.class);
+    assertThat(tempDir.resolve("plugins")).isEmptyDirectory();
   }
 
   @Test
@@ -99,7 +126,7 @@ class PluginsSynchronizerTest {
     var response = mock(HttpClient.Response.class);
     when(response.isSuccessful()).thenReturn(false);
     when(response.code()).thenReturn(500);
-    when(pluginsApi.downloadPlugin("java")).thenReturn(response);
+    when(pluginsApi.downloadPlugin(eq("java"), any(), anyLong())).thenReturn(response);
     var pluginsSynchronizer = new PluginsSynchronizer(serverApi, tempDir);
 
     var throwable = catchThrowable(pluginsSynchronizer::synchronizeAnalyzers);
@@ -121,7 +148,7 @@ class PluginsSynchronizerTest {
     var response = mock(HttpClient.Response.class);
     when(response.isSuccessful()).thenReturn(false);
     when(response.code()).thenReturn(500);
-    when(pluginsApi.downloadPlugin("java")).thenReturn(response);
+    when(pluginsApi.downloadPlugin(eq("java"), any(), anyLong())).thenReturn(response);
     var pluginsSynchronizer = new PluginsSynchronizer(serverApi, tempDir);
 
     var analyzers = pluginsSynchronizer.synchronizeAnalyzers();
@@ -0,0 +1,96 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi;
+
+import com.google.gson.reflect.TypeToken;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import javax.annotation.CheckForNull;
+import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarqube.mcp.http.HttpClient;
+import org.sonarsource.sonarqube.mcp.serverapi.enterprises.response.ListResponse;
+import org.sonarsource.sonarqube.mcp.serverapi.rules.response.SearchResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonCodecTests {
+
+  @Test
+  void it_should_parse_a_response_record_from_the_body_stream() {
+    var response = new BytesResponse("{\"total\":1,\"p\":1,\"ps\":100,\"rules\":[{\"key\":\"java:S1\"}],"
+      + "\"actives\":{\"java:S1\":[{\"params\":[{\"key\":\"max\",\"value\":\"10 ✓\"}]}]}}");
+
+    var searchResponse = JsonCodec.fromJson(response, SearchResponse.class);
+
+    assertThat(searchResponse).isNotNull();
+    assertThat(searchResponse.total()).isEqualTo(1);
+    assertThat(searchResponse.actives().get("java:S1").get(0).params())
+      .containsExactly(new SearchResponse.RuleParameter("max", "10 ✓"));
+  }
+
+  @Test
+  void it_should_parse_a_generic_type() {
+    var response = new BytesResponse("[{\"id\":\"1\",\"key\":\"enterprise\",\"name\":\"Enterprise\"}]");
+
+    var enterprises = JsonCodec.fromJson(response, new TypeToken<List<ListResponse.Enterprise>>() {
+    });
+
+    assertThat(enterprises).extracting(ListResponse.Enterprise::key).containsExactly("enterprise");
+  }
+
+  @Test
+  void it_should_return_null_for_an_empty_body() {
+    assertThat(JsonCodec.fromJson(new BytesResponse(""), SearchResponse.class)).isNull();
+  }
+
+  private record BytesResponse(String body) implements HttpClient.Response {
+
+    @Override
+    public int code() {
+      return 200;
+    }
+
+    @Override
+    public String bodyAsString() {
+      return body;
+    }
+
+    @Override
+    public InputStream bodyAsStream() {
+      return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @CheckForNull
+    @Override
+    public String header(String name) {
+      return null;
+    }
+
+    @Override
+    public void close() {
+      // nothing to release
+    }
+
+    @Override
+    public String url() {
+      return "https://sonarcloud.io/api/test";
+    }
+  }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaginatorTests {
+
+  private final Map<Integer, CompletableFuture<Integer>> requestedPages = new HashMap<>();
+
+  @Test
+  void it_should_compute_the_number_of_pages() {
+    assertThat(Paginator.pageCount(0, 100)).isEqualTo(1);
+    assertThat(Paginator.pageCount(100, 100)).isEqualTo(1);
+    assertThat(Paginator.pageCount(101, 100)).isEqualTo(2);
+    assertThat(Paginator.pageCount(500, 0)).isEqualTo(1);
+  }
+
+  @Test
+  void it_should_request_the_next_pages_ahead_with_bounded_parallelism_and_return_them_in_order() {
+    var paginator = new Paginator<>(this::requestPage, firstPage -> 5, 2);
+    requestPage(1).complete(1);
+
+    assertThat(paginator.next()).isEqualTo(1);
+    assertThat(requestedPages).containsOnlyKeys(1, 2, 3);
+
+    requestedPages.get(3).complete(3);
+    requestedPages.get(2).complete(2);
+    var pages = new ArrayList<Integer>();
+    pages.add(paginator.next());
+    assertThat(requestedPages).containsOnlyKeys(1, 2, 3, 4);
+    pages.add(paginator.next());
+    requestedPages.get(4).complete(4);
+    requestedPages.get(5).complete(5);
+    paginator.forEachRemaining(pages::add);
+
+    assertThat(pages).containsExactly(2, 3, 4, 5);
+    assertThat(paginator.hasNext()).isFalse();
+  }
+
+  @Test
+  void it_should_cancel_the_pages_in_flight_when_a_page_fails() {
+    var paginator = new Paginator<>(this::requestPage, firstPage -> 4, 3);
+    requestPage(1).complete(1);
+    paginator.next();
+
+    requestedPages.get(2).completeExceptionally(new IllegalStateException("Kaboom"));
+
+    assertThatThrownBy(paginator::next).isInstanceOf(IllegalStateException.class).hasMessage("Kaboom");
+    assertThat(requestedPages.get(3)).isCancelled();
+    assertThat(requestedPages.get(4)).isCancelled();
+    assertThat(paginator.hasNext()).isFalse();
+  }
+
+  @Test
+  void it_should_cancel_the_pages_in_flight_when_the_stream_is_closed_early() {
+    List<Integer> firstPages;
+    try (var pages = Paginator.stream(this::requestPage, firstPage -> 10, 2)) {
+      requestPage(1).complete(1);
+      firstPages = pages.limit(1).toList();
+    }
+
+    assertThat(firstPages).containsExactly(1);
+    assertThat(requestedPages.get(2)).isCancelled();
+    assertThat(requestedPages.get(3)).isCancelled();
+    assertThat(requestedPages).doesNotContainKey(4);
+  }
+
+  private CompletableFuture<Integer> requestPage(int page) {
+    return requestedPages.computeIfAbsent(page, p -> new CompletableFuture<>());
+  }
+
+}
@@ -17,29 +17,40 @@
 package org.sonarsource.sonarqube.mcp.serverapi;
 
 import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+import java.util.List;
+import java.util.concurrent.CompletionException;
 import org.apache.hc.core5.http.HttpStatus;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.sonarsource.sonarlint.core.serverapi.proto.sonarqube.ws.Measures;
 import org.sonarsource.sonarqube.mcp.http.HttpClientProvider;
 import org.sonarsource.sonarqube.mcp.serverapi.exception.ForbiddenException;
 import org.sonarsource.sonarqube.mcp.serverapi.exception.NotFoundException;
 import org.sonarsource.sonarqube.mcp.serverapi.exception.ServerInternalErrorException;
 import org.sonarsource.sonarqube.mcp.serverapi.exception.UnauthorizedException;
+import org.sonarsource.sonarqube.mcp.serverapi.measures.MeasuresApi;
+import org.sonarsource.sonarqube.mcp.serverapi.measures.response.ComponentMeasuresResponse;
+import org.sonarsource.sonarqube.mcp.serverapi.retry.RequestRetrier;
+import org.sonarsource.sonarqube.mcp.serverapi.retry.RetryPolicy;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
 import static com.github.tomakehurst.wiremock.client.WireMock.jsonResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.sonarsource.sonarqube.mcp.harness.ProtobufUtils.protobufBody;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 class ServerApiTests {
 
   private static final String USER_AGENT = "SonarQube MCP tests";
   private ServerApiHelper serverApiHelper;
+  private ServerApiHelper protobufServerApiHelper;
 
   @RegisterExtension
   static WireMockExtension sonarqubeMock = WireMockExtension.newInstance()
@@ -52,6 +63,8 @@ class ServerApiTests {
     var httpClient = httpClientProvider.getHttpClient("token");
 
     serverApiHelper = new ServerApiHelper(new EndpointParams(sonarqubeMock.baseUrl(), "org"), httpClient);
+    protobufServerApiHelper = new ServerApiHelper(new EndpointParams(sonarqubeMock.baseUrl(), "org"), httpClient, null, null, "token",
+      new RequestRetrier(RetryPolicy.NONE), true);
   }
 
   @Test
@@ -102,4 +115,64 @@ class ServerApiTests {
     assertThat(exception).hasMessage("Error 400 on " + sonarqubeMock.baseUrl() + "/test: Kaboom");
   }
 
+  @Test
+  void it_should_complete_an_async_get_with_the_response() {
+    sonarqubeMock.stubFor(get("/test").willReturn(aResponse().withStatus(HttpStatus.SC_OK).withBody("Hello")));
+
+    try (var response = serverApiHelper.getAsync("/test").join()) {
+      assertThat(response.bodyAsString()).isEqualTo("Hello");
+    }
+  }
+
+  @Test
+  void it_should_complete_an_async_get_exceptionally_on_error_response() {
+    sonarqubeMock.stubFor(get("/test").willReturn(aResponse().withStatus(HttpStatus.SC_UNAUTHORIZED)));
+
+    var future = serverApiHelper.getAsync("/test");
+
+    var exception = assertThrows(CompletionException.class, future::join);
+    assertThat(exception).hasCauseInstanceOf(UnauthorizedException.class);
+  }
+
+  @Test
+  void it_should_parse_a_protobuf_response_when_enabled() {
+    sonarqubeMock.stubFor(get(urlPathEqualTo(MeasuresApi.COMPONENT_PATH))
+      .withHeader("Accept", equalTo(ServerApiHelper.PROTOBUF_MEDIA_TYPE))
+      .willReturn(aResponse().withStatus(HttpStatus.SC_OK).withHeader("Content-Type", ServerApiHelper.PROTOBUF_MEDIA_TYPE)
+        .withResponseBody(protobufBody(Measures.ComponentWsResponse.newBuilder()
+          .setComponent(Measures.Component.newBuilder().setKey("project").setName("Project").setQualifier("TRK")
+            .addMeasures(Measures.Measure.newBuilder().setMetric("ncloc").setValue("42")))
+          .build()))));
+
+    var response = new MeasuresApi(protobufServerApiHelper).getComponentMeasures("project", null, List.of("ncloc"), null);
+
+    assertThat(response.component())
+      .isEqualTo(new ComponentMeasuresResponse.Component("project", "Project", "TRK", null, null,
+        List.of(new ComponentMeasuresResponse.Measure("ncloc", "42", null))));
+    assertThat(response.metrics()).isEmpty();
+  }
+
+  @Test
+  void it_should_fall_back_to_json_when_the_server_does_not_answer_in_protobuf() {
+    sonarqubeMock.stubFor(get(urlPathEqualTo(MeasuresApi.COMPONENT_PATH))
+      .willReturn(jsonResponse("{\"component\": {\"key\": \"project\", \"measures\": [{\"metric\": \"ncloc\", \"value\": \"42\"}]}}",
+        HttpStatus.SC_OK)));
+
+    var response = new MeasuresApi(protobufServerApiHelper).getComponentMeasures("project", null, List.of("ncloc"), null);
+
+    assertThat(response.component().key()).isEqualTo("project");
+    assertThat(response.component().measures()).extracting(ComponentMeasuresResponse.Measure::value).containsExactly("42");
+  }
+
+  @Test
+  void it_should_not_parse_a_protobuf_error_as_json() {
+    sonarqubeMock.stubFor(get("/test").willReturn(aResponse().withStatus(HttpStatus.SC_BAD_REQUEST)
+      .withHeader("Content-Type", ServerApiHelper.PROTOBUF_MEDIA_TYPE).withBody(new byte[] {10, 8, 10, 6, 75, 97, 98, 111, 111, 109})));
+
+    var future = protobufServerApiHelper.getProtobufAsync("/test");
+
+    var exception = assertThrows(IllegalStateException.class, () -> ServerApiHelper.join(future));
+    assertThat(exception).hasMessage("Error 400 on " + sonarqubeMock.baseUrl() + "/test");
+  }
+
 }
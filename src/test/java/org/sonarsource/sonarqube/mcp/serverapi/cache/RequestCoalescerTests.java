@@ -0,0 +1,188 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarqube.mcp.http.Deadline;
+import org.sonarsource.sonarqube.mcp.http.DeadlineExceededException;
+import org.sonarsource.sonarqube.mcp.http.HttpClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RequestCoalescerTests {
+
+  private static final String URL = "https://sonarqube.example.com/api/rules/show?key=java:S1";
+
+  private final RequestCoalescer underTest = new RequestCoalescer();
+  private final AtomicInteger sentRequests = new AtomicInteger();
+  private final CompletableFuture<HttpClient.Response> pendingResponse = new CompletableFuture<>();
+  private final Supplier<CompletableFuture<HttpClient.Response>> request = () -> {
+    sentRequests.incrementAndGet();
+    return pendingResponse;
+  };
+
+  @Test
+  void it_should_share_a_request_in_flight_between_its_callers() throws IOException {
+    var first = underTest.getAsync("user", URL, request);
+    var second = underTest.getAsync("user", URL, request);
+
+    pendingResponse.complete(response(200, "rule"));
+
+    assertThat(sentRequests).hasValue(1);
+    var firstResponse = first.join();
+    var secondResponse = second.join();
+    assertThat(firstResponse).isNotSameAs(secondResponse);
+    assertThat(firstResponse.code()).isEqualTo(200);
+    assertThat(firstResponse.bodyAsStream().readAllBytes()).isEqualTo("rule".getBytes(StandardCharsets.UTF_8));
+    firstResponse.close();
+    assertThat(firstResponse.bodyAsString()).isEqualTo("rule");
+    assertThat(secondResponse.bodyAsString()).isEqualTo("rule");
+    assertThat(underTest.getInFlightCount()).isZero();
+  }
+
+  @Test
+  void it_should_pass_the_response_through_when_a_single_caller_is_waiting() {
+    var call = underTest.getAsync("user", URL, request);
+    var response = response(200, "rule");
+
+    pendingResponse.complete(response);
+
+    assertThat(call.join()).isSameAs(response);
+    verify(response, never()).bodyAsStream();
+  }
+
+  @Test
+  void it_should_share_the_response_with_a_caller_joining_the_request_in_flight_only() {
+    var first = underTest.getAsync("user", URL, request);
+    pendingResponse.complete(response(200, "rule"));
+    var second = underTest.getAsync("user", URL, () -> {
+      sentRequests.incrementAndGet();
+      return new CompletableFuture<>();
+    });
+
+    assertThat(first.join().bodyAsString()).isEqualTo("rule");
+    assertThat(second).isNotDone();
+    assertThat(sentRequests).hasValue(2);
+  }
+
+  @Test
+  void it_should_keep_the_requests_of_each_user_apart() {
+    underTest.getAsync("user1", URL, request);
+    underTest.getAsync("user2", URL, request);
+    underTest.getAsync("user1", URL + "&other", request);
+
+    assertThat(sentRequests).hasValue(3);
+  }
+
+  @Test
+  void it_should_send_the_request_again_once_the_previous_one_completed() {
+    underTest.getAsync("user", URL, () -> {
+      sentRequests.incrementAndGet();
+      return CompletableFuture.completedFuture(response(200, "rule"));
+    }).join();
+
+    underTest.getAsync("user", URL, request);
+
+    assertThat(sentRequests).hasValue(2);
+  }
+
+  @Test
+  void it_should_share_failures_between_the_callers() {
+    var first = underTest.getAsync("user", URL, request);
+    var second = underTest.getAsync("user", URL, request);
+
+    pendingResponse.completeExceptionally(new IOException("Connection reset"));
+
+    assertThatThrownBy(first::join).isInstanceOf(CompletionException.class).hasCauseInstanceOf(IOException.class);
+    assertThatThrownBy(second::join).isInstanceOf(CompletionException.class).hasCauseInstanceOf(IOException.class);
+  }
+
+  @Test
+  void it_should_enforce_the_deadline_of_each_caller_on_its_own_call() {
+    var sentDeadline = new AtomicReference<Deadline>();
+    Supplier<CompletableFuture<HttpClient.Response>> deadlineCapturingRequest = () -> {
+      sentDeadline.set(Deadline.current());
+      return request.get();
+    };
+    var first = Deadline.after(Duration.ofMillis(50)).callWith(() -> underTest.getAsync("user", URL, deadlineCapturingRequest));
+    var second = Deadline.after(Duration.ofSeconds(30)).callWith(() -> underTest.getAsync("user", URL, deadlineCapturingRequest));
+
+    assertThatThrownBy(first::join).isInstanceOf(CompletionException.class).hasCauseInstanceOf(DeadlineExceededException.class);
+    assertThat(pendingResponse).isNotCancelled();
+    pendingResponse.complete(response(200, "rule"));
+
+    assertThat(sentDeadline.get().isBounded()).isFalse();
+    assertThat(second.join().bodyAsString()).isEqualTo("rule");
+    assertThat(sentRequests).hasValue(1);
+  }
+
+  @Test
+  void it_should_cancel_the_deadline_of_a_call_once_it_completed() {
+    var scheduledDeadlines = RequestCoalescer.scheduledDeadlines();
+
+    var call = Deadline.after(Duration.ofMinutes(2)).callWith(() -> underTest.getAsync("user", URL, request));
+    assertThat(RequestCoalescer.scheduledDeadlines()).isEqualTo(scheduledDeadlines + 1);
+    pendingResponse.complete(response(200, "rule"));
+
+    assertThat(call).isCompleted();
+    assertThat(RequestCoalescer.scheduledDeadlines()).isEqualTo(scheduledDeadlines);
+  }
+
+  @Test
+  void it_should_only_cancel_the_request_once_all_its_callers_cancelled() {
+    var first = underTest.getAsync("user", URL, request);
+    var second = underTest.getAsync("user", URL, request);
+
+    first.cancel(true);
+    assertThat(pendingResponse).isNotCancelled();
+    second.cancel(true);
+
+    assertThat(pendingResponse).isCancelled();
+    assertThat(underTest.getInFlightCount()).isZero();
+  }
+
+  @Test
+  void it_should_decode_the_body_with_the_charset_of_the_response() {
+    assertThat(RequestCoalescer.charset("text/plain; charset=ISO-8859-1")).isEqualTo(StandardCharsets.ISO_8859_1);
+    assertThat(RequestCoalescer.charset("application/json")).isEqualTo(StandardCharsets.UTF_8);
+    assertThat(RequestCoalescer.charset(null)).isEqualTo(StandardCharsets.UTF_8);
+  }
+
+  private static HttpClient.Response response(int code, String body) {
+    var response = mock(HttpClient.Response.class);
+    when(response.code()).thenReturn(code);
+    when(response.bodyAsStream()).thenReturn(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    when(response.bodyAsString()).thenReturn(body);
+    when(response.url()).thenReturn(URL);
+    return response;
+  }
+
+}
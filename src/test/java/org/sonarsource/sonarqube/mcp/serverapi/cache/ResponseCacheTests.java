@@ -0,0 +1,136 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi.cache;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarqube.mcp.http.HttpClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ResponseCacheTests {
+
+  private static final String URL = "https://sonarqube.example.com/api/languages/list";
+  private static final CachePolicy POLICY = new CachePolicy(Duration.ofMinutes(1), Duration.ofMinutes(10));
+
+  private final AtomicLong now = new AtomicLong();
+  private final List<Map<String, String>> sentHeaders = new CopyOnWriteArrayList<>();
+  private final ResponseCache underTest = new ResponseCache(10_000, Map.of("/api/languages/list", POLICY), now::get);
+
+  @Test
+  void it_should_only_have_a_policy_for_the_cached_endpoints() {
+    assertThat(underTest.getPolicy("/api/languages/list?q=java")).isEqualTo(POLICY);
+    assertThat(underTest.getPolicy("/api/issues/search")).isNull();
+    assertThat(new ResponseCache(1).getPolicy("/api/rules/show?key=java:S1")).isNotNull();
+  }
+
+  @Test
+  void it_should_serve_a_fresh_response_from_the_cache() {
+    var first = underTest.getAsync("user", URL, POLICY, respondWith(200, "languages", "\"v1\"")).join();
+    now.addAndGet(Duration.ofSeconds(59).toNanos());
+    var second = underTest.getAsync("user", URL, POLICY, respondWith(200, "other", null)).join();
+
+    assertThat(first.bodyAsString()).isEqualTo("languages");
+    assertThat(second.bodyAsString()).isEqualTo("languages");
+    assertThat(sentHeaders).containsExactly(Map.of());
+  }
+
+  @Test
+  void it_should_keep_the_responses_of_each_user_apart() {
+    underTest.getAsync("user1", URL, POLICY, respondWith(200, "languages of user1", null)).join();
+
+    var response = underTest.getAsync("user2", URL, POLICY, respondWith(200, "languages of user2", null)).join();
+
+    assertThat(response.bodyAsString()).isEqualTo("languages of user2");
+    assertThat(sentHeaders).hasSize(2);
+  }
+
+  @Test
+  void it_should_serve_a_stale_response_while_revalidating_it() {
+    underTest.getAsync("user", URL, POLICY, respondWith(200, "languages", "\"v1\"")).join();
+    now.addAndGet(Duration.ofMinutes(2).toNanos());
+
+    var staleResponse = underTest.getAsync("user", URL, POLICY, respondWith(304, "", null)).join();
+    var revalidatedResponse = underTest.getAsync("user", URL, POLICY, respondWith(200, "other", null)).join();
+
+    assertThat(staleResponse.bodyAsString()).isEqualTo("languages");
+    assertThat(revalidatedResponse.bodyAsString()).isEqualTo("languages");
+    assertThat(sentHeaders).containsExactly(Map.of(), Map.of("If-None-Match", "\"v1\""));
+  }
+
+  @Test
+  void it_should_refresh_a_response_too_old_to_be_served() {
+    underTest.getAsync("user", URL, POLICY, respondWith(200, "languages", null)).join();
+    now.addAndGet(Duration.ofMinutes(20).toNanos());
+
+    var response = underTest.getAsync("user", URL, POLICY, respondWith(200, "new languages", null)).join();
+
+    assertThat(response.bodyAsString()).isEqualTo("new languages");
+    assertThat(sentHeaders).containsExactly(Map.of(), Map.of());
+  }
+
+  @Test
+  void it_should_not_cache_errors() {
+    var error = underTest.getAsync("user", URL, POLICY, respondWith(500, "error", null)).join();
+    var response = underTest.getAsync("user", URL, POLICY, respondWith(200, "languages", null)).join();
+
+    assertThat(error.code()).isEqualTo(500);
+    assertThat(response.bodyAsString()).isEqualTo("languages");
+    assertThat(underTest.getSize()).isOne();
+  }
+
+  @Test
+  void it_should_evict_the_least_recently_used_entries_when_full() {
+    var body = "x".repeat(3_000);
+    underTest.getAsync("user", URL + "?q=1", POLICY, respondWith(200, body, null)).join();
+    underTest.getAsync("user", URL + "?q=2", POLICY, respondWith(200, body, null)).join();
+    underTest.getAsync("user", URL + "?q=1", POLICY, respondWith(200, body, null)).join();
+    underTest.getAsync("user", URL + "?q=3", POLICY, respondWith(200, body, null)).join();
+    underTest.getAsync("user", URL + "?q=4", POLICY, respondWith(200, body, null)).join();
+
+    assertThat(underTest.getSize()).isEqualTo(3);
+    assertThat(underTest.getCachedBytes()).isLessThanOrEqualTo(10_000);
+    underTest.getAsync("user", URL + "?q=1", POLICY, respondWith(200, body, null)).join();
+    underTest.getAsync("user", URL + "?q=2", POLICY, respondWith(200, body, null)).join();
+    // q=1 was still cached, q=2 was evicted
+    assertThat(sentHeaders).hasSize(5);
+  }
+
+  private Function<Map<String, String>, CompletableFuture<HttpClient.Response>> respondWith(int code, String body, @Nullable String etag) {
+    return headers -> {
+      sentHeaders.add(headers);
+      var response = mock(HttpClient.Response.class);
+      when(response.code()).thenReturn(code);
+      when(response.bodyAsString()).thenReturn(body);
+      when(response.bodyAsStream()).thenReturn(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+      when(response.header("ETag")).thenReturn(etag);
+      return CompletableFuture.completedFuture(response);
+    };
+  }
+
+}
@@ -0,0 +1,234 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.serverapi.retry;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarqube.mcp.http.Deadline;
+import org.sonarsource.sonarqube.mcp.http.HttpClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RequestRetrierTests {
+
+  private static final RetryPolicy POLICY = new RetryPolicy(3, Duration.ofMillis(10), Duration.ofMillis(50), Duration.ofSeconds(1), false,
+    Duration.ofMillis(100));
+  private static final String URL = "http://localhost/api/issues/search?projects=project";
+
+  @Test
+  void it_should_retry_transient_errors_until_a_response_is_successful() {
+    var underTest = new RequestRetrier(POLICY);
+    var request = respondWith(response(503, null), response(429, "0"), response(200, null));
+
+    var response = underTest.executeAsync(URL, request).join();
+
+    assertThat(response.code()).isEqualTo(200);
+    assertThat(request.count()).isEqualTo(3);
+  }
+
+  @Test
+  void it_should_retry_io_errors() {
+    var underTest = new RequestRetrier(POLICY);
+    var attempts = new AtomicInteger();
+
+    var response = underTest.executeAsync(URL, () -> attempts.incrementAndGet() == 1 ?
+      CompletableFuture.failedFuture(new IOException("Connection reset")) :
+      CompletableFuture.completedFuture(response(200, null))).join();
+
+    assertThat(response.code()).isEqualTo(200);
+    assertThat(attempts).hasValue(2);
+  }
+
+  @Test
+  void it_should_not_retry_when_the_deadline_of_the_call_would_be_exceeded() {
+    var underTest = new RequestRetrier(POLICY);
+    var request = respondWith(response(503, "1"), response(200, null));
+
+    var response = Deadline.after(Duration.ofMillis(500)).callWith(() -> underTest.executeAsync(URL, request)).join();
+
+    assertThat(response.code()).isEqualTo(503);
+    assertThat(request.count()).isEqualTo(1);
+  }
+
+  @Test
+  void it_should_not_retry_other_errors() {
+    var underTest = new RequestRetrier(POLICY);
+    var request = respondWith(response(404, null), response(200, null));
+
+    var response = underTest.executeAsync(URL, request).join();
+
+    assertThat(response.code()).isEqualTo(404);
+    assertThat(request.count()).isEqualTo(1);
+  }
+
+  @Test
+  void it_should_return_the_last_response_once_all_attempts_failed() {
+    var underTest = new RequestRetrier(POLICY);
+    var lastResponse = response(502, null);
+    var request = respondWith(response(502, null), response(502, null), lastResponse);
+
+    var response = underTest.executeAsync(URL, request).join();
+
+    assertThat(response).isSameAs(lastResponse);
+    assertThat(request.count()).isEqualTo(3);
+  }
+
+  @Test
+  void it_should_not_wait_longer_than_the_retry_budget() {
+    var underTest = new RequestRetrier(POLICY);
+    var request = respondWith(response(429, "3600"), response(200, null));
+
+    var response = underTest.executeAsync(URL, request).join();
+
+    assertThat(response.code()).isEqualTo(429);
+    assertThat(request.count()).isEqualTo(1);
+  }
+
+  @Test
+  void it_should_share_the_retry_budget_between_the_requests_of_a_call() {
+    var underTest = new RequestRetrier(POLICY);
+    var firstRequest = respondWith(response(503, "1"), response(200, null));
+    var secondRequest = respondWith(response(503, "1"), response(200, null));
+    var deadline = Deadline.after(Duration.ofSeconds(30));
+
+    var firstResponse = deadline.callWith(() -> underTest.executeAsync(URL, firstRequest)).join();
+    var secondResponse = deadline.callWith(() -> underTest.executeAsync(URL, secondRequest)).join();
+
+    assertThat(firstResponse.code()).isEqualTo(200);
+    assertThat(secondResponse.code()).isEqualTo(503);
+    assertThat(secondRequest.count()).isEqualTo(1);
+  }
+
+  @Test
+  void it_should_close_the_responses_that_are_retried() {
+    var underTest = new RequestRetrier(POLICY);
+    var failedResponse = response(503, null);
+
+    underTest.executeAsync(URL, respondWith(failedResponse, response(200, null))).join();
+
+    verify(failedResponse).close();
+  }
+
+  @Test
+  void it_should_keep_the_first_response_of_hedged_requests() {
+    var underTest = new RequestRetrier(new RetryPolicy(1, Duration.ofMillis(10), Duration.ofMillis(50), Duration.ZERO, true, Duration.ofMillis(50)));
+    var slowRequest = new CompletableFuture<HttpClient.Response>();
+    var hedgedResponse = response(200, null);
+    var attempts = new AtomicInteger();
+
+    var response = underTest.executeAsync(URL, () -> attempts.incrementAndGet() == 1 ? slowRequest : CompletableFuture.completedFuture(hedgedResponse))
+      .join();
+
+    assertThat(response).isSameAs(hedgedResponse);
+    assertThat(slowRequest).isCancelled();
+  }
+
+  @Test
+  void it_should_not_keep_a_transient_error_of_hedged_requests_while_another_one_is_running() {
+    var underTest = new RequestRetrier(new RetryPolicy(1, Duration.ofMillis(10), Duration.ofMillis(50), Duration.ZERO, true, Duration.ofMillis(50)));
+    var slowRequest = new CompletableFuture<HttpClient.Response>();
+    var unavailableResponse = response(503, null);
+    var successfulResponse = response(200, null);
+    var attempts = new AtomicInteger();
+
+    var response = underTest.executeAsync(URL, () -> attempts.incrementAndGet() == 1 ? slowRequest :
+      CompletableFuture.completedFuture(unavailableResponse));
+    await().until(() -> attempts.get() == 2);
+    slowRequest.complete(successfulResponse);
+
+    assertThat(response.join()).isSameAs(successfulResponse);
+    verify(unavailableResponse).close();
+  }
+
+  @Test
+  void it_should_track_the_latencies_of_each_endpoint() {
+    var underTest = new RequestRetrier(POLICY);
+    for (var i = 0; i < LatencyTracker.MIN_SAMPLES; i++) {
+      underTest.latencies("http://localhost/api/languages/list").record(Duration.ofMillis(5));
+    }
+
+    assertThat(underTest.latencies("http://localhost/api/languages/list?ps=500").percentile(95)).isEqualTo(Duration.ofMillis(5));
+    assertThat(underTest.latencies(URL).percentile(95)).isNull();
+  }
+
+  @Test
+  void it_should_not_hedge_fast_requests() throws InterruptedException {
+    var underTest = new RequestRetrier(new RetryPolicy(1, Duration.ofMillis(10), Duration.ofMillis(50), Duration.ZERO, true, Duration.ofMillis(50)));
+    var request = respondWith(response(200, null), response(200, null));
+
+    underTest.executeAsync(URL, request).join();
+    Thread.sleep(100);
+
+    assertThat(request.count()).isEqualTo(1);
+  }
+
+  @Test
+  void it_should_parse_retry_after_in_seconds_or_as_a_date() {
+    assertThat(RequestRetrier.parseRetryAfter("120")).isEqualTo(Duration.ofSeconds(120));
+    assertThat(RequestRetrier.parseRetryAfter(DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now().plusMinutes(10))))
+      .isBetween(Duration.ofMinutes(9), Duration.ofMinutes(10));
+    assertThat(RequestRetrier.parseRetryAfter(DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now().minusMinutes(10))))
+      .isZero();
+    assertThat(RequestRetrier.parseRetryAfter("soon")).isNull();
+    assertThat(RequestRetrier.parseRetryAfter(null)).isNull();
+  }
+
+  private static HttpClient.Response response(int code, @Nullable String retryAfter) {
+    var response = mock(HttpClient.Response.class);
+    when(response.code()).thenReturn(code);
+    when(response.url()).thenReturn("http://localhost/api/issues/search");
+    when(response.header("Retry-After")).thenReturn(retryAfter);
+    return response;
+  }
+
+  private static CountingRequest respondWith(HttpClient.Response... responses) {
+    return new CountingRequest(List.of(responses));
+  }
+
+  private static class CountingRequest implements Supplier<CompletableFuture<HttpClient.Response>> {
+    private final ArrayDeque<HttpClient.Response> responses;
+    private final AtomicInteger count = new AtomicInteger();
+
+    private CountingRequest(List<HttpClient.Response> responses) {
+      this.responses = new ArrayDeque<>(responses);
+    }
+
+    @Override
+    public synchronized CompletableFuture<HttpClient.Response> get() {
+      count.incrementAndGet();
+      return CompletableFuture.completedFuture(responses.poll());
+    }
+
+    private int count() {
+      return count.get();
+    }
+  }
+
+}
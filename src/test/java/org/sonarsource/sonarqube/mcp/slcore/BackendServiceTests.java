@@ -24,6 +24,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -34,14 +35,21 @@ import org.sonarsource.sonarlint.core.rpc.protocol.backend.analysis.AnalysisRpcS
 import org.sonarsource.sonarlint.core.rpc.protocol.backend.analysis.AnalyzeFilesAndTrackParams;
 import org.sonarsource.sonarlint.core.rpc.protocol.backend.file.DidUpdateFileSystemParams;
 import org.sonarsource.sonarlint.core.rpc.protocol.backend.file.FileRpcService;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.rules.ListAllStandaloneRulesDefinitionsResponse;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.rules.RuleDefinitionDto;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.rules.RulesRpcService;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.rules.StandaloneRuleConfigDto;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.rules.UpdateStandaloneRulesConfigurationParams;
 import org.sonarsource.sonarlint.core.rpc.protocol.backend.telemetry.TelemetryRpcService;
 import org.sonarsource.sonarlint.core.rpc.protocol.client.telemetry.ToolCalledParams;
 import org.sonarsource.sonarlint.core.rpc.protocol.common.ClientFileDto;
 import org.sonarsource.sonarlint.core.rpc.protocol.common.Language;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -55,6 +63,7 @@ class BackendServiceTests {
   private AnalysisRpcService analysisRpcService;
   private TelemetryRpcService telemetryRpcService;
   private FileRpcService fileRpcService;
+  private RulesRpcService rulesRpcService;
 
   @BeforeEach
   void init() {
@@ -66,6 +75,11 @@ class BackendServiceTests {
     when(backend.getAnalysisService()).thenReturn(analysisRpcService);
     when(backend.getTelemetryService()).thenReturn(telemetryRpcService);
     when(backend.getFileService()).thenReturn(fileRpcService);
+    rulesRpcService = mock(RulesRpcService.class);
+    when(rulesRpcService.listAllStandaloneRulesDefinitions()).thenReturn(CompletableFuture.completedFuture(new ListAllStandaloneRulesDefinitionsResponse(Map.of(
+      "java:S1", ruleDefinition("java:S1", true),
+      "java:S2", ruleDefinition("java:S2", false)))));
+    when(backend.getRulesService()).thenReturn(rulesRpcService);
 
     var jsonRpcLauncher = mock(ClientJsonRpcLauncher.class);
     when(jsonRpcLauncher.getServerProxy()).thenReturn(backend);
@@ -143,4 +157,93 @@ class BackendServiceTests {
     ).containsExactly(List.of(clientFileDto), List.of(), List.of());
   }
 
+  @Test
+  void should_add_and_remove_several_files_at_once() {
+    var firstFile = mock(ClientFileDto.class);
+    var secondFile = mock(ClientFileDto.class);
+    var uris = List.of(URI.create("file:///first.java"), URI.create("file:///second.java"));
+
+    service.addFiles(List.of(firstFile, secondFile));
+    service.removeFiles(uris);
+
+    var captor = ArgumentCaptor.forClass(DidUpdateFileSystemParams.class);
+    verify(fileRpcService, timeout(1000).times(2)).didUpdateFileSystem(captor.capture());
+    assertThat(captor.getAllValues())
+      .extracting("addedFiles", "removedFiles")
+      .containsExactlyInAnyOrder(tuple(List.of(firstFile, secondFile), List.of()), tuple(List.of(), uris));
+  }
+
+  @Test
+  void should_give_the_content_of_the_file_in_utf8() {
+    var path = storagePath.resolve("snippet.java");
+
+    var clientFileDto = service.toClientFileDto(path, "class A {}", Language.JAVA);
+
+    assertThat(clientFileDto.getContent()).isEqualTo("class A {}");
+    assertThat(clientFileDto.getCharset()).isEqualTo("UTF-8");
+    assertThat(clientFileDto.getUri()).isEqualTo(path.toUri());
+    assertThat(path).doesNotExist();
+  }
+
+  @Test
+  void should_only_disable_the_rules_active_by_default() throws Exception {
+    service.acquireRulesConfiguration(Map.of("java:S2", new StandaloneRuleConfigDto(true, Map.of("max", "3")))).close();
+
+    var captor = ArgumentCaptor.forClass(UpdateStandaloneRulesConfigurationParams.class);
+    verify(rulesRpcService).updateStandaloneRulesConfiguration(captor.capture());
+    var configuration = captor.getValue().getRuleConfigByKey();
+    assertThat(configuration).containsOnlyKeys("java:S1", "java:S2");
+    assertThat(configuration.get("java:S1").isActive()).isFalse();
+    assertThat(configuration.get("java:S2").isActive()).isTrue();
+    assertThat(configuration.get("java:S2").getParamValueByKey()).containsEntry("max", "3");
+  }
+
+  @Test
+  void should_skip_the_update_when_the_configuration_did_not_change() throws Exception {
+    service.acquireRulesConfiguration(Map.of("java:S2", new StandaloneRuleConfigDto(true, Map.of("max", "3")))).close();
+    service.acquireRulesConfiguration(Map.of("java:S2", new StandaloneRuleConfigDto(true, Map.of("max", "3")))).close();
+    service.acquireRulesConfiguration(Map.of("java:S2", new StandaloneRuleConfigDto(true, Map.of("max", "4")))).close();
+
+    verify(rulesRpcService, times(2)).updateStandaloneRulesConfiguration(any());
+    verify(rulesRpcService, times(1)).listAllStandaloneRulesDefinitions();
+  }
+
+  @Test
+  void should_share_the_rules_configuration_in_use() throws Exception {
+    var first = service.acquireRulesConfiguration(Map.of("java:S2", new StandaloneRuleConfigDto(true, Map.of("max", "3"))));
+    var second = service.acquireRulesConfiguration(Map.of("java:S2", new StandaloneRuleConfigDto(true, Map.of("max", "3"))));
+
+    verify(rulesRpcService, times(1)).updateStandaloneRulesConfiguration(any());
+    first.close();
+    second.close();
+  }
+
+  @Test
+  void should_wait_for_the_rules_configuration_in_use_to_be_released_before_changing_it() throws Exception {
+    var first = service.acquireRulesConfiguration(Map.of("java:S2", new StandaloneRuleConfigDto(true, Map.of("max", "3"))));
+
+    var second = CompletableFuture.supplyAsync(() -> {
+      try {
+        return service.acquireRulesConfiguration(Map.of("java:S2", new StandaloneRuleConfigDto(true, Map.of("max", "4"))));
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+
+    Thread.sleep(200);
+    assertThat(second).isNotDone();
+    verify(rulesRpcService, times(1)).updateStandaloneRulesConfiguration(any());
+
+    first.close();
+
+    second.get(5, TimeUnit.SECONDS).close();
+    var captor = ArgumentCaptor.forClass(UpdateStandaloneRulesConfigurationParams.class);
+    verify(rulesRpcService, times(2)).updateStandaloneRulesConfiguration(captor.capture());
+    assertThat(captor.getValue().getRuleConfigByKey().get("java:S2").getParamValueByKey()).containsEntry("max", "4");
+  }
+
+  private static RuleDefinitionDto ruleDefinition(String key, boolean activeByDefault) {
+    return new RuleDefinitionDto(key, key, null, List.of(), Map.of(), activeByDefault, Language.JAVA);
+  }
+
 }
@@ -16,6 +16,7 @@
  */
 package org.sonarsource.sonarqube.mcp.tools;
 
+import io.modelcontextprotocol.spec.McpSchema;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -309,4 +310,15 @@ class ToolArgumentsTest {
       .hasMessage("Missing required argument: intArg");
   }
 
+  @Test
+  void should_return_all_partial_results_when_the_client_did_not_ask_for_progress() {
+    var arguments = new Tool.Arguments(Map.of());
+
+    var result = arguments.partialResults().add("first").add("second").toResult("summary");
+
+    assertThat(result.toCallToolResult().content()).singleElement()
+      .extracting(content -> ((McpSchema.TextContent) content).text())
+      .isEqualTo("first\nsecond");
+  }
+
 }
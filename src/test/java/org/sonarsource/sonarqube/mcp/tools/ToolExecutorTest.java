@@ -17,12 +17,24 @@
 package org.sonarsource.sonarqube.mcp.tools;
 
 import io.modelcontextprotocol.spec.McpSchema;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarqube.mcp.http.Deadline;
 import org.sonarsource.sonarqube.mcp.slcore.BackendService;
+import org.sonarsource.sonarqube.mcp.transport.ProgressNotifier;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
@@ -37,6 +49,11 @@ class ToolExecutorTest {
     toolExecutor = new ToolExecutor(mockBackendService);
   }
 
+  @AfterEach
+  void cleanup() {
+    toolExecutor.shutdown();
+  }
+
   @Test
   void it_should_register_telemetry_after_the_tool_call_succeeds() {
     toolExecutor.execute(new Tool(new McpSchema.Tool("tool_name", null, new McpSchema.JsonSchema("object", Map.of(), List.of(), false, Map.of(), Map.of()))) {
@@ -61,4 +78,154 @@ class ToolExecutorTest {
     verify(mockBackendService).notifyToolCalled("mcp_tool_name", false);
   }
 
+  @Test
+  void it_should_not_run_more_tool_calls_than_the_configured_limit() {
+    toolExecutor.shutdown();
+    toolExecutor = new ToolExecutor(mockBackendService, 2);
+    var release = new CountDownLatch(1);
+    var running = new AtomicInteger();
+    var blockingTool = tool("blocking_tool", () -> {
+      running.incrementAndGet();
+      awaitQuietly(release);
+      return Tool.Result.success("Done");
+    });
+
+    var calls = List.of(
+      toolExecutor.executeAsync(blockingTool, Map.of()),
+      toolExecutor.executeAsync(blockingTool, Map.of()),
+      toolExecutor.executeAsync(blockingTool, Map.of()));
+
+    await().atMost(2, TimeUnit.SECONDS).until(() -> running.get() == 2);
+    assertThat(calls).filteredOn(CompletableFuture::isDone).isEmpty();
+    release.countDown();
+    CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).join();
+    assertThat(running.get()).isEqualTo(3);
+  }
+
+  @Test
+  void it_should_release_the_slot_of_an_async_tool_call_only_once_its_result_is_complete() {
+    toolExecutor.shutdown();
+    toolExecutor = new ToolExecutor(mockBackendService, 1);
+    var pendingResult = new CompletableFuture<Tool.Result>();
+    var asyncTool = asyncTool("async_tool", () -> pendingResult);
+    var shortTool = tool("short_tool", () -> Tool.Result.success("Short"));
+
+    var asyncCall = toolExecutor.executeAsync(asyncTool, Map.of());
+    var shortCall = toolExecutor.executeAsync(shortTool, Map.of());
+
+    await().during(200, TimeUnit.MILLISECONDS).atMost(1, TimeUnit.SECONDS).until(() -> !shortCall.isDone());
+    pendingResult.complete(Tool.Result.success("Async"));
+    assertThat(asyncCall.join().content()).containsExactly(new McpSchema.TextContent("Async"));
+    assertThat(shortCall.join().content()).containsExactly(new McpSchema.TextContent("Short"));
+  }
+
+  @Test
+  void it_should_report_the_failure_of_an_async_tool_call() {
+    var asyncTool = asyncTool("async_tool", () -> CompletableFuture.supplyAsync(() -> {
+      throw new IllegalStateException("Kaboom");
+    }));
+
+    var result = toolExecutor.executeAsync(asyncTool, Map.of()).join();
+
+    assertThat(result.isError()).isTrue();
+    assertThat(result.content()).containsExactly(new McpSchema.TextContent("An error occurred during the tool execution: Kaboom"));
+    verify(mockBackendService).notifyToolCalled("mcp_async_tool", false);
+  }
+
+  @Test
+  void it_should_cancel_the_pending_stage_of_an_async_tool_when_the_call_is_cancelled() {
+    var pendingResult = new CompletableFuture<Tool.Result>();
+    var asyncTool = asyncTool("async_tool", () -> pendingResult);
+
+    var call = toolExecutor.executeAsync(asyncTool, Map.of());
+    await().atMost(2, TimeUnit.SECONDS).until(() -> pendingResult.getNumberOfDependents() > 0);
+    call.cancel(true);
+
+    assertThat(call).isCancelled();
+    assertThat(pendingResult).isCancelled();
+  }
+
+  @Test
+  void it_should_interrupt_a_blocking_tool_when_the_call_is_cancelled() {
+    var started = new CountDownLatch(1);
+    var interrupted = new CountDownLatch(1);
+    var blockingTool = tool("blocking_tool", () -> {
+      started.countDown();
+      try {
+        Thread.sleep(10_000);
+      } catch (InterruptedException e) {
+        interrupted.countDown();
+      }
+      return Tool.Result.success("Done");
+    });
+
+    var call = toolExecutor.executeAsync(blockingTool, Map.of());
+    awaitQuietly(started);
+    call.cancel(true);
+
+    await().atMost(2, TimeUnit.SECONDS).until(() -> interrupted.getCount() == 0);
+    assertThat(call).isCancelled();
+  }
+
+  @Test
+  void it_should_fail_and_interrupt_a_tool_call_exceeding_its_timeout() {
+    toolExecutor.shutdown();
+    toolExecutor = new ToolExecutor(mockBackendService, 1, Duration.ofMillis(200));
+    var interrupted = new CountDownLatch(1);
+    var blockingTool = tool("blocking_tool", () -> {
+      try {
+        Thread.sleep(10_000);
+      } catch (InterruptedException e) {
+        interrupted.countDown();
+      }
+      return Tool.Result.success("Done");
+    });
+
+    var result = toolExecutor.executeAsync(blockingTool, Map.of()).join();
+
+    assertThat(result.isError()).isTrue();
+    assertThat(result.content())
+      .containsExactly(new McpSchema.TextContent("An error occurred during the tool execution: the call did not complete within its timeout of 200 ms"));
+    await().atMost(2, TimeUnit.SECONDS).until(() -> interrupted.getCount() == 0);
+  }
+
+  @Test
+  void it_should_bind_the_deadline_of_the_call_to_its_thread_using_the_shortest_timeout() {
+    var deadlineTool = tool("deadline_tool", () -> {
+      var deadline = Deadline.current();
+      return Tool.Result.success(deadline.timeout().toMillis() + " " + deadline.isBounded());
+    });
+
+    var result = toolExecutor.executeAsync(deadlineTool, Map.of(), ProgressNotifier.NONE, Duration.ofSeconds(5)).join();
+
+    assertThat(result.content()).containsExactly(new McpSchema.TextContent("5000 true"));
+    assertThat(Deadline.current().isBounded()).isFalse();
+  }
+
+  private static AsyncTool asyncTool(String name, Supplier<CompletionStage<Tool.Result>> execution) {
+    return new AsyncTool(new McpSchema.Tool(name, null, new McpSchema.JsonSchema("object", Map.of(), List.of(), false, Map.of(), Map.of()))) {
+      @Override
+      public CompletionStage<Result> executeAsync(Arguments arguments) {
+        return execution.get();
+      }
+    };
+  }
+
+  private static Tool tool(String name, Supplier<Tool.Result> execution) {
+    return new Tool(new McpSchema.Tool(name, null, new McpSchema.JsonSchema("object", Map.of(), List.of(), false, Map.of(), Map.of()))) {
+      @Override
+      public Result execute(Arguments arguments) {
+        return execution.get();
+      }
+    };
+  }
+
+  private static void awaitQuietly(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
 }
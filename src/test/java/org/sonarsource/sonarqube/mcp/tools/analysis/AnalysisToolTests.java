@@ -18,17 +18,24 @@ package org.sonarsource.sonarqube.mcp.tools.analysis;
 
 import io.modelcontextprotocol.spec.McpSchema;
 import jakarta.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import org.junit.jupiter.api.Nested;
+import org.sonarsource.sonarqube.mcp.harness.RequiresPhpAnalyzer;
 import org.sonarsource.sonarqube.mcp.harness.SonarQubeMcpServerTest;
 import org.sonarsource.sonarqube.mcp.harness.SonarQubeMcpServerTestHarness;
+import org.sonarsource.sonarqube.mcp.harness.SonarQubeMcpTestClient;
 import org.sonarsource.sonarqube.mcp.serverapi.qualityprofiles.QualityProfilesApi;
 import org.sonarsource.sonarqube.mcp.serverapi.rules.RulesApi;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
 public class AnalysisToolTests {
@@ -95,6 +102,53 @@ public class AnalysisToolTests {
           Disclaimer: Analysis results might not be fully accurate as the code snippet is not part of a complete project context. Use SonarQube for IDE for better results, or setup a full project analysis in SonarQube Server or Cloud.""", false));
     }
 
+    @SonarQubeMcpServerTest
+    @RequiresPhpAnalyzer
+    void it_should_analyze_a_snippet_from_memory_without_writing_it_to_the_work_dir(SonarQubeMcpServerTestHarness harness) throws IOException {
+      mockServerRules(harness, null, List.of("php:S1135"));
+      var mcpClient = harness.newClient();
+      var workDir = Paths.get(System.getProperty("user.home")).resolve(".sonarlint");
+
+      var result = mcpClient.callTool(
+        AnalysisTool.TOOL_NAME,
+        Map.of(
+          AnalysisTool.SNIPPET_PROPERTY, """
+            <?php
+
+            // TODO just do it
+            """,
+          AnalysisTool.LANGUAGE_PROPERTY, "php"));
+
+      assertThat(result.isError()).isFalse();
+      assertThat(result.content().toString()).contains("Found 1 Sonar issues in the code snippet", "Rule key: php:S1135", "Starting on line: 3");
+      if (Files.isDirectory(workDir)) {
+        try (var snippetFiles = Files.newDirectoryStream(workDir, "analysis-*.php")) {
+          assertThat(snippetFiles.iterator().hasNext()).isFalse();
+        }
+      }
+    }
+
+    @SonarQubeMcpServerTest
+    @RequiresPhpAnalyzer
+    void it_should_analyze_a_snippet_spilled_to_a_file_and_delete_the_file(SonarQubeMcpServerTestHarness harness) throws IOException {
+      mockServerRules(harness, null, List.of("php:S1135"));
+      var mcpClient = harness.newClient(Map.of("SONARQUBE_ARGUMENT_SPILL_THRESHOLD", "16"));
+
+      var result = mcpClient.callTool(
+        AnalysisTool.TOOL_NAME,
+        Map.of(
+          AnalysisTool.SNIPPET_PROPERTY, """
+            // TODO just do it
+            """,
+          AnalysisTool.LANGUAGE_PROPERTY, "php"));
+
+      try (var spilledFiles = Files.list(harness.getStoragePath().resolve("arguments"))) {
+        assertThat(spilledFiles.count()).isZero();
+      }
+      assertThat(result.isError()).isFalse();
+      assertThat(result.content().toString()).contains("Found 1 Sonar issues in the code snippet", "Rule key: php:S1135", "Starting on line: 1");
+    }
+
     @SonarQubeMcpServerTest
     void it_should_find_an_issues_in_a_php_file_when_rule_enabled_in_project_quality_profile(SonarQubeMcpServerTestHarness harness) {
       mockServerRules(harness, "projectKey", List.of("php:S1135"));
@@ -141,6 +195,55 @@ public class AnalysisToolTests {
           No Sonar issues found in the code snippet.
           Disclaimer: Analysis results might not be fully accurate as the code snippet is not part of a complete project context. Use SonarQube for IDE for better results, or setup a full project analysis in SonarQube Server or Cloud.""", false));
     }
+
+    @SonarQubeMcpServerTest
+    void it_should_reuse_the_active_rules_while_the_quality_profile_is_unchanged(SonarQubeMcpServerTestHarness harness) {
+      mockQualityProfiles(harness, "projectKey", "qpKey", "2025-01-01T10:00:00+0000", "2025-01-01T12:00:00+0000");
+      mockRules(harness, "qpKey", List.of());
+      var mcpClient = harness.newClient();
+
+      analyzeTodo(mcpClient);
+      analyzeTodo(mcpClient);
+
+      harness.getMockSonarQubeServer().verify(2, getRequestedFor(urlPathEqualTo(QualityProfilesApi.SEARCH_PATH)));
+      harness.getMockSonarQubeServer().verify(1, getRequestedFor(urlPathEqualTo(RulesApi.SEARCH_PATH)));
+    }
+
+    @SonarQubeMcpServerTest
+    void it_should_not_cache_the_active_rules_when_the_quality_profile_has_no_last_use_date(SonarQubeMcpServerTestHarness harness) {
+      mockQualityProfiles(harness, "projectKey", "qpKey", "2025-01-01T10:00:00+0000", null);
+      mockRules(harness, "qpKey", List.of());
+      var mcpClient = harness.newClient();
+
+      analyzeTodo(mcpClient);
+      analyzeTodo(mcpClient);
+
+      harness.getMockSonarQubeServer().verify(2, getRequestedFor(urlPathEqualTo(RulesApi.SEARCH_PATH)));
+    }
+
+    @SonarQubeMcpServerTest
+    void it_should_download_the_active_rules_again_when_the_quality_profile_changed(SonarQubeMcpServerTestHarness harness) {
+      mockQualityProfiles(harness, "projectKey", "qpKey", "2025-01-01T10:00:00+0000", "2025-01-01T12:00:00+0000");
+      mockRules(harness, "qpKey", List.of());
+      var mcpClient = harness.newClient();
+
+      analyzeTodo(mcpClient);
+      mockQualityProfiles(harness, "projectKey", "qpKey", "2025-01-02T10:00:00+0000", "2025-01-01T12:00:00+0000");
+      analyzeTodo(mcpClient);
+
+      harness.getMockSonarQubeServer().verify(2, getRequestedFor(urlPathEqualTo(RulesApi.SEARCH_PATH)));
+    }
+
+    private static void analyzeTodo(SonarQubeMcpTestClient mcpClient) {
+      mcpClient.callTool(
+        AnalysisTool.TOOL_NAME,
+        Map.of(
+          AnalysisTool.PROJECT_KEY_PROPERTY, "projectKey",
+          AnalysisTool.SNIPPET_PROPERTY, """
+            // TODO just do it
+            """,
+          AnalysisTool.LANGUAGE_PROPERTY, "php"));
+    }
   }
 
   private void mockServerRules(SonarQubeMcpServerTestHarness harness, @Nullable String projectKey, List<String> activeRuleKeys) {
@@ -149,16 +252,25 @@ public class AnalysisToolTests {
   }
 
   private static void mockQualityProfiles(SonarQubeMcpServerTestHarness harness, @Nullable String projectKey, String qualityProfileKey) {
+    mockQualityProfiles(harness, projectKey, qualityProfileKey, null, null);
+  }
+
+  private static void mockQualityProfiles(SonarQubeMcpServerTestHarness harness, @Nullable String projectKey, String qualityProfileKey,
+    @Nullable String rulesUpdatedAt, @Nullable String lastUsed) {
     var query = projectKey == null ? "defaults=true" : ("project=" + projectKey);
     harness.getMockSonarQubeServer().stubFor(get(QualityProfilesApi.SEARCH_PATH + "?" + query).willReturn(okJson("""
       {
           "profiles": [
             {
-              "key": "%s"
+              "key": "%s"%s%s
             }
           ]
         }
-      """.formatted(qualityProfileKey))));
+      """.formatted(qualityProfileKey, jsonField("rulesUpdatedAt", rulesUpdatedAt), jsonField("lastUsed", lastUsed)))));
+  }
+
+  private static String jsonField(String name, @Nullable String value) {
+    return value == null ? "" : (",\n\"" + name + "\": \"" + value + "\"");
   }
 
   private static void mockRules(SonarQubeMcpServerTestHarness harness, String qualityProfileKey, List<String> activeRuleKeys) {
@@ -0,0 +1,202 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.tools.analysis;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import java.net.URI;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarlint.core.rpc.protocol.backend.analysis.AnalyzeFilesResponse;
+import org.sonarsource.sonarqube.mcp.harness.RequiresPhpAnalyzer;
+import org.sonarsource.sonarqube.mcp.harness.SonarQubeMcpServerTest;
+import org.sonarsource.sonarqube.mcp.harness.SonarQubeMcpServerTestHarness;
+import org.sonarsource.sonarqube.mcp.serverapi.qualityprofiles.QualityProfilesApi;
+import org.sonarsource.sonarqube.mcp.serverapi.rules.RulesApi;
+import org.sonarsource.sonarqube.mcp.tools.Tool;
+import org.sonarsource.sonarqube.mcp.transport.ProgressNotifier;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.okJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+class AnalyzeCodeSnippetsToolTests {
+
+  @Nested
+  class MissingPrerequisite {
+    @SonarQubeMcpServerTest
+    void it_should_return_an_error_if_snippets_are_missing(SonarQubeMcpServerTestHarness harness) {
+      var mcpClient = harness.newClient();
+
+      var result = mcpClient.callTool(
+        AnalyzeCodeSnippetsTool.TOOL_NAME,
+        Map.of(AnalyzeCodeSnippetsTool.PROJECT_KEY_PROPERTY, "projectKey"));
+
+      assertThat(result)
+        .isEqualTo(new McpSchema.CallToolResult("An error occurred during the tool execution: Missing required argument: snippets", true));
+    }
+
+    @SonarQubeMcpServerTest
+    void it_should_return_an_error_if_there_are_too_many_snippets(SonarQubeMcpServerTestHarness harness) {
+      var mcpClient = harness.newClient();
+
+      var result = mcpClient.callTool(
+        AnalyzeCodeSnippetsTool.TOOL_NAME,
+        Map.of(
+          AnalyzeCodeSnippetsTool.PROJECT_KEY_PROPERTY, "projectKey",
+          AnalyzeCodeSnippetsTool.SNIPPETS_PROPERTY, Collections.nCopies(AnalyzeCodeSnippetsTool.MAX_SNIPPETS + 1,
+            Map.of(AnalyzeCodeSnippetsTool.SNIPPET_PROPERTY, ""))));
+
+      assertThat(result)
+        .isEqualTo(new McpSchema.CallToolResult("Too many code snippets to analyze, at most 100 can be analyzed at once.", true));
+    }
+  }
+
+  @Nested
+  class Connected {
+
+    @SonarQubeMcpServerTest
+    void it_should_analyze_all_the_snippets_at_once_and_report_by_snippet(SonarQubeMcpServerTestHarness harness) {
+      mockServerRules(harness);
+      var mcpClient = harness.newClient();
+
+      var result = mcpClient.callTool(
+        AnalyzeCodeSnippetsTool.TOOL_NAME,
+        Map.of(
+          AnalyzeCodeSnippetsTool.PROJECT_KEY_PROPERTY, "projectKey",
+          AnalyzeCodeSnippetsTool.SNIPPETS_PROPERTY, List.of(
+            Map.of(AnalyzeCodeSnippetsTool.NAME_PROPERTY, "src/first.txt", AnalyzeCodeSnippetsTool.SNIPPET_PROPERTY, ""),
+            Map.of(AnalyzeCodeSnippetsTool.SNIPPET_PROPERTY, "", AnalyzeCodeSnippetsTool.LANGUAGE_PROPERTY, ""))));
+
+      assertThat(result)
+        .isEqualTo(new McpSchema.CallToolResult("""
+          Found 0 Sonar issues in 0 of the 2 code snippets
+          src/first.txt: No Sonar issues found.
+          Snippet 2: No Sonar issues found.
+          Disclaimer: Analysis results might not be fully accurate as the code snippet is not part of a complete project context. Use SonarQube for IDE for better results, or setup a full project analysis in SonarQube Server or Cloud.""", false));
+      harness.getMockSonarQubeServer().verify(1, getRequestedFor(urlPathEqualTo(RulesApi.SEARCH_PATH)));
+    }
+
+    @SonarQubeMcpServerTest
+    @RequiresPhpAnalyzer
+    void it_should_group_the_issues_found_by_snippet(SonarQubeMcpServerTestHarness harness) {
+      mockServerRules(harness, "php:S1135");
+      var mcpClient = harness.newClient();
+
+      var result = mcpClient.callTool(
+        AnalyzeCodeSnippetsTool.TOOL_NAME,
+        Map.of(
+          AnalyzeCodeSnippetsTool.PROJECT_KEY_PROPERTY, "projectKey",
+          AnalyzeCodeSnippetsTool.SNIPPETS_PROPERTY, List.of(
+            Map.of(AnalyzeCodeSnippetsTool.NAME_PROPERTY, "src/first.php", AnalyzeCodeSnippetsTool.SNIPPET_PROPERTY, """
+              // TODO just do it
+              """, AnalyzeCodeSnippetsTool.LANGUAGE_PROPERTY, "php"),
+            Map.of(AnalyzeCodeSnippetsTool.NAME_PROPERTY, "src/second.php", AnalyzeCodeSnippetsTool.SNIPPET_PROPERTY, "",
+              AnalyzeCodeSnippetsTool.LANGUAGE_PROPERTY, "php"),
+            Map.of(AnalyzeCodeSnippetsTool.NAME_PROPERTY, "src/third.php", AnalyzeCodeSnippetsTool.SNIPPET_PROPERTY, """
+              // nothing to do
+              // TODO do it later
+              """, AnalyzeCodeSnippetsTool.LANGUAGE_PROPERTY, "php"))));
+
+      assertThat(result)
+        .isEqualTo(new McpSchema.CallToolResult("""
+          Found 2 Sonar issues in 2 of the 3 code snippets
+          src/first.php: Found 1 Sonar issues
+          Complete the task associated to this "TODO" comment.
+          Rule key: php:S1135
+          Severity: INFO
+          Clean Code attribute: COMPLETE
+          Impacts: {MAINTAINABILITY=INFO}
+          Description: Complete the task associated to this "TODO" comment.
+          Quick fixes available: No
+          Starting on line: 1
+          src/second.php: No Sonar issues found.
+          src/third.php: Found 1 Sonar issues
+          Complete the task associated to this "TODO" comment.
+          Rule key: php:S1135
+          Severity: INFO
+          Clean Code attribute: COMPLETE
+          Impacts: {MAINTAINABILITY=INFO}
+          Description: Complete the task associated to this "TODO" comment.
+          Quick fixes available: No
+          Starting on line: 2
+          Disclaimer: Analysis results might not be fully accurate as the code snippet is not part of a complete project context. Use SonarQube for IDE for better results, or setup a full project analysis in SonarQube Server or Cloud.""", false));
+    }
+
+    @SonarQubeMcpServerTest
+    void it_should_return_an_error_if_a_snippet_has_no_content(SonarQubeMcpServerTestHarness harness) {
+      mockServerRules(harness);
+      var mcpClient = harness.newClient();
+
+      var result = mcpClient.callTool(
+        AnalyzeCodeSnippetsTool.TOOL_NAME,
+        Map.of(
+          AnalyzeCodeSnippetsTool.PROJECT_KEY_PROPERTY, "projectKey",
+          AnalyzeCodeSnippetsTool.SNIPPETS_PROPERTY, List.of(
+            Map.of(AnalyzeCodeSnippetsTool.SNIPPET_PROPERTY, ""),
+            Map.of(AnalyzeCodeSnippetsTool.NAME_PROPERTY, "src/second.txt"))));
+
+      assertThat(result).isEqualTo(new McpSchema.CallToolResult("Missing codeSnippet in snippet 2.", true));
+    }
+  }
+
+  @Test
+  void it_should_report_the_snippets_that_could_not_be_analyzed() {
+    var snippetNamesByUri = new LinkedHashMap<URI, String>();
+    snippetNamesByUri.put(URI.create("file:///work/first.php"), "src/first.php");
+    snippetNamesByUri.put(URI.create("file:///work/second.php"), "src/second.php");
+    var response = new AnalyzeFilesResponse(Set.of(URI.create("file:///work/second.php")), List.of());
+
+    var result = AnalyzeCodeSnippetsTool.buildResponseFromAnalysisResults(response, Map.of(), snippetNamesByUri,
+      new Tool.Arguments(Map.of(), ProgressNotifier.NONE).partialResults());
+
+    assertThat(result.toCallToolResult())
+      .isEqualTo(new McpSchema.CallToolResult("""
+        Found 0 Sonar issues in 0 of the 2 code snippets, 1 could not be analyzed
+        src/first.php: No Sonar issues found.
+        src/second.php: Failed to analyze the code snippet.
+        Disclaimer: Analysis results might not be fully accurate as the code snippet is not part of a complete project context. Use SonarQube for IDE for better results, or setup a full project analysis in SonarQube Server or Cloud.""", false));
+  }
+
+  private static void mockServerRules(SonarQubeMcpServerTestHarness harness, String... activeRuleKeys) {
+    harness.getMockSonarQubeServer().stubFor(get(QualityProfilesApi.SEARCH_PATH + "?project=projectKey").willReturn(okJson("""
+      {
+        "profiles": [
+          {
+            "key": "qpKey"
+          }
+        ]
+      }
+      """)));
+    harness.getMockSonarQubeServer().stubFor(get(RulesApi.SEARCH_PATH + "?qprofile=qpKey&activation=true&f=templateKey%2Cactives&p=1").willReturn(okJson("""
+      {
+        "actives": {
+          %s
+        }
+      }
+      """.formatted(Stream.of(activeRuleKeys).map("\"%s\": [{\"params\": []}]"::formatted).collect(Collectors.joining(","))))));
+  }
+
+}
@@ -93,6 +93,24 @@ class SystemLogsToolTests {
       assertThat(harness.getMockSonarQubeServer().getReceivedRequests())
         .contains(new ReceivedRequest("Bearer token", ""));
     }
+
+    @SonarQubeMcpServerTest
+    void it_should_only_return_the_latest_logs_when_they_are_too_big(SonarQubeMcpServerTestHarness harness) {
+      harness.getMockSonarQubeServer().stubFor(get(SystemApi.LOGS_PATH)
+        .willReturn(aResponse().withBody(generateAppLogsPayload())));
+      var mcpClient = harness.newClient(Map.of("SONARQUBE_MAX_LOGS_BYTES", "100"));
+
+      var result = mcpClient.callTool(SystemLogsTool.TOOL_NAME);
+
+      assertThat(result)
+        .isEqualTo(new McpSchema.CallToolResult("""
+          SonarQube Server APP Logs
+          =========================
+
+          (Logs truncated, only the latest 100 bytes are shown)
+
+          2023-01-01 10:00:02 INFO  o.s.s.p.ProcessEntryPoint Process[web] is up""", false));
+    }
   }
 
   private static String generateAppLogsPayload() {
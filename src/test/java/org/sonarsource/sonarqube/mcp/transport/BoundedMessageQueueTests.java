@@ -0,0 +1,136 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class BoundedMessageQueueTests {
+
+  @Test
+  void it_should_dequeue_messages_in_order_and_account_for_their_size() throws InterruptedException {
+    var queue = new BoundedMessageQueue<String>("test", 100, QueueOverflowPolicy.FAIL);
+
+    assertThat(queue.offer("first", 30)).isTrue();
+    assertThat(queue.offer("second", 40)).isTrue();
+
+    assertThat(queue.getDepth()).isEqualTo(2);
+    assertThat(queue.getBufferedBytes()).isEqualTo(70);
+    assertThat(queue.take()).isEqualTo("first");
+    assertThat(queue.getBufferedBytes()).isEqualTo(40);
+    assertThat(queue.take()).isEqualTo("second");
+    assertThat(queue.isEmpty()).isTrue();
+    assertThat(queue.getEnqueuedMessages()).isEqualTo(2);
+  }
+
+  @Test
+  void it_should_reject_messages_when_full_with_the_fail_policy() {
+    var queue = new BoundedMessageQueue<String>("test", 100, QueueOverflowPolicy.FAIL);
+    queue.offer("first", 80);
+
+    assertThat(queue.offer("second", 30)).isFalse();
+
+    assertThat(queue.getDepth()).isEqualTo(1);
+    assertThat(queue.getRejectedMessages()).isEqualTo(1);
+  }
+
+  @Test
+  void it_should_accept_a_message_bigger_than_the_limit_when_empty() {
+    var queue = new BoundedMessageQueue<String>("test", 100, QueueOverflowPolicy.FAIL);
+
+    assertThat(queue.offer("huge", 1000)).isTrue();
+    assertThat(queue.offer("next", 1)).isFalse();
+  }
+
+  @Test
+  void it_should_block_producers_until_the_consumer_makes_room() throws InterruptedException {
+    var queue = new BoundedMessageQueue<String>("test", 100, QueueOverflowPolicy.BLOCK);
+    queue.offer("first", 80);
+
+    var blockedOffer = CompletableFuture.supplyAsync(() -> queue.offer("second", 30));
+
+    await().atMost(2, TimeUnit.SECONDS).until(() -> queue.getBlockedEnqueues() == 1);
+    assertThat(blockedOffer).isNotDone();
+    assertThat(queue.take()).isEqualTo("first");
+    assertThat(blockedOffer.join()).isTrue();
+    assertThat(queue.take()).isEqualTo("second");
+    assertThat(queue.getRejectedMessages()).isZero();
+  }
+
+  @Test
+  void it_should_not_wait_for_room_when_asked_to_whatever_the_policy() throws InterruptedException {
+    var queue = new BoundedMessageQueue<String>("test", 100, QueueOverflowPolicy.BLOCK);
+    queue.offer("first", 80);
+
+    assertThat(queue.offerWithoutWaiting("second", 30)).isFalse();
+    assertThat(queue.take()).isEqualTo("first");
+    assertThat(queue.offerWithoutWaiting("second", 30)).isTrue();
+    assertThat(queue.getBlockedEnqueues()).isZero();
+    assertThat(queue.getRejectedMessages()).isZero();
+  }
+
+  @Test
+  void it_should_hand_out_the_remaining_messages_once_closed() throws InterruptedException {
+    var queue = new BoundedMessageQueue<String>("test", 100, QueueOverflowPolicy.BLOCK);
+    queue.offer("first", 10);
+
+    queue.close();
+
+    assertThat(queue.offer("second", 10)).isFalse();
+    assertThat(queue.take()).isEqualTo("first");
+    assertThat(queue.take()).isNull();
+  }
+
+  @Test
+  void it_should_wake_up_a_waiting_consumer() throws Exception {
+    var queue = new BoundedMessageQueue<String>("test", 100, QueueOverflowPolicy.BLOCK);
+
+    var taken = CompletableFuture.supplyAsync(() -> {
+      try {
+        return queue.poll(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    queue.offer("first", 10);
+
+    assertThat(taken.get(2, TimeUnit.SECONDS)).isEqualTo("first");
+  }
+
+  @Test
+  void it_should_expose_its_metrics_through_jmx_until_closed() throws Exception {
+    var queue = new BoundedMessageQueue<String>("jmx-test", 100, QueueOverflowPolicy.BLOCK);
+    var mBeanServer = ManagementFactory.getPlatformMBeanServer();
+    var pattern = new ObjectName("org.sonarsource.sonarqube.mcp:type=MessageQueue,name=jmx-test,*");
+
+    queue.registerMBean();
+    queue.offer("first", 42);
+
+    var objectName = mBeanServer.queryNames(pattern, null).iterator().next();
+    assertThat(mBeanServer.getAttribute(objectName, "Depth")).isEqualTo(1);
+    assertThat(mBeanServer.getAttribute(objectName, "BufferedBytes")).isEqualTo(42L);
+    queue.close();
+    assertThat(mBeanServer.queryNames(pattern, null)).isEmpty();
+  }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpSchema;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JsonRpcMessageReaderTests {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  @TempDir
+  private Path spillDirectory;
+
+  @Test
+  void it_should_read_requests_notifications_and_responses() throws IOException {
+    var reader = reader("""
+      {"jsonrpc":"2.0","id":1,"method":"tools/list"}
+      {"jsonrpc":"2.0","method":"notifications/initialized"}
+      {"jsonrpc":"2.0","id":"abc","result":{"ok":true}}
+      """, 1024, 1024);
+
+    assertThat(reader.read()).isInstanceOfSatisfying(McpSchema.JSONRPCRequest.class, request -> {
+      assertThat(request.id()).isEqualTo(1);
+      assertThat(request.method()).isEqualTo("tools/list");
+    });
+    assertThat(reader.read()).isInstanceOfSatisfying(McpSchema.JSONRPCNotification.class,
+      notification -> assertThat(notification.method()).isEqualTo("notifications/initialized"));
+    assertThat(reader.read()).isInstanceOfSatisfying(McpSchema.JSONRPCResponse.class, response -> assertThat(response.id()).isEqualTo("abc"));
+    assertThat(reader.read()).isNull();
+  }
+
+  @Test
+  void it_should_handle_crlf_empty_lines_and_a_last_message_without_newline() throws IOException {
+    var reader = reader("\r\n{\"jsonrpc\":\"2.0\",\"method\":\"first\"}\r\n\n{\"jsonrpc\":\"2.0\",\"method\":\"second\"}", 1024, 1024);
+
+    assertThat(((McpSchema.JSONRPCNotification) reader.read()).method()).isEqualTo("first");
+    assertThat(((McpSchema.JSONRPCNotification) reader.read()).method()).isEqualTo("second");
+    assertThat(reader.read()).isNull();
+  }
+
+  @Test
+  void it_should_read_messages_bigger_than_the_initial_buffer() throws IOException {
+    var text = "é".repeat(20_000);
+    var reader = reader("{\"jsonrpc\":\"2.0\",\"method\":\"big\",\"params\":{\"text\":\"" + text + "\"}}\n", 1024 * 1024, 1024 * 1024);
+
+    var notification = (McpSchema.JSONRPCNotification) reader.read();
+
+    assertThat(notification.params()).isEqualTo(Map.of("text", text));
+  }
+
+  @Test
+  void it_should_discard_messages_bigger_than_the_maximum_size() throws IOException {
+    var reader = reader("{\"jsonrpc\":\"2.0\",\"method\":\"big\",\"params\":{\"text\":\"" + "a".repeat(100_000) + "\"}}\n"
+      + "{\"jsonrpc\":\"2.0\",\"method\":\"small\"}\n", 10_000, 1024);
+
+    assertThatThrownBy(reader::read).isInstanceOfSatisfying(MessageTooLargeException.class, e -> assertThat(e.requestId()).isNull());
+    assertThat(((McpSchema.JSONRPCNotification) reader.read()).method()).isEqualTo("small");
+    assertThat(reader.read()).isNull();
+  }
+
+  @Test
+  void it_should_report_the_id_of_a_request_bigger_than_the_maximum_size() throws IOException {
+    var reader = reader("{\"jsonrpc\":\"2.0\",\"id\":\"req-1\",\"method\":\"tools/call\",\"params\":{\"text\":\"" + "a".repeat(100_000) + "\"}}", 10_000,
+      1024);
+
+    assertThatThrownBy(reader::read).isInstanceOfSatisfying(MessageTooLargeException.class, e -> assertThat(e.requestId()).isEqualTo("req-1"));
+    assertThat(reader.read()).isNull();
+  }
+
+  @Test
+  void it_should_delete_the_spilled_arguments_of_a_message_that_cannot_be_parsed() throws IOException {
+    var reader = reader("{\"jsonrpc\":\"2.0\",\"id\":1,\"params\":{\"arguments\":{\"large\":\"" + "a".repeat(1000) + "\"}}}\n", 1024 * 1024, 100);
+
+    assertThatThrownBy(reader::read).isInstanceOf(IllegalArgumentException.class);
+    try (var files = Files.list(spillDirectory)) {
+      assertThat(files).isEmpty();
+    }
+  }
+
+  @Test
+  void it_should_spill_large_string_arguments_to_a_temporary_file() throws IOException {
+    var largeArgument = "line\n✓".repeat(1000);
+    var reader = reader("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"tools/call\",\"params\":{\"name\":\"tool\",\"arguments\":{\"small\":\"value\",\"large\":\""
+      + largeArgument.replace("\n", "\\n") + "\",\"count\":3}}}\n", 1024 * 1024, 100);
+
+    var request = (McpSchema.JSONRPCRequest) reader.read();
+    var callToolRequest = objectMapper.convertValue(request.params(), new TypeReference<McpSchema.CallToolRequest>() {
+    });
+
+    var arguments = callToolRequest.arguments();
+    assertThat(arguments).containsEntry("small", "value").containsEntry("count", 3);
+    var spilled = (SpilledString) arguments.get("large");
+    assertThat(spilled.file().getParent()).isEqualTo(spillDirectory);
+    assertThat(spilled.length()).isEqualTo(largeArgument.length());
+    assertThat(spilled.read()).isEqualTo(largeArgument);
+    spilled.delete();
+    assertThat(Files.exists(spilled.file())).isFalse();
+  }
+
+  @Test
+  void it_should_decode_the_escapes_of_the_string_arguments() throws IOException {
+    var escaped = "quote \\\" backslash \\\\ slash \\/ controls \\b\\f\\n\\r\\t unicode \\u00e9\\ud83d\\ude00 ✓";
+    var decoded = "quote \" backslash \\ slash / controls \b\f\n\r\t unicode é😀 ✓";
+    var reader = reader("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"tools/call\",\"params\":{\"name\":\"tool\",\"arguments\":{\"small\":\"" + escaped
+      + "\",\"large\":\"" + escaped.repeat(1000) + "\"}}}\n", 1024 * 1024, 1000);
+
+    var request = (McpSchema.JSONRPCRequest) reader.read();
+
+    var arguments = objectMapper.convertValue(request.params(), new TypeReference<McpSchema.CallToolRequest>() {
+    }).arguments();
+    assertThat(arguments).containsEntry("small", decoded);
+    var spilled = (SpilledString) arguments.get("large");
+    assertThat(spilled.read()).isEqualTo(decoded.repeat(1000));
+    spilled.delete();
+  }
+
+  @Test
+  void it_should_reject_a_string_argument_with_an_invalid_escape() {
+    var reader = reader("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"tools/call\",\"params\":{\"arguments\":{\"large\":\"" + "a".repeat(1000)
+      + "\\x\"}}}\n", 1024 * 1024, 100);
+
+    assertThatThrownBy(reader::read).isInstanceOf(IOException.class).hasMessageContaining("Unrecognized character escape 'x'");
+  }
+
+  private JsonRpcMessageReader reader(String input, int maxMessageSize, int spillThreshold) {
+    return new JsonRpcMessageReader(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), objectMapper, maxMessageSize, spillThreshold,
+      spillDirectory);
+  }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.modelcontextprotocol.spec.McpSchema;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JsonRpcMessageWriterTests {
+
+  private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+  @Test
+  void it_should_write_a_newline_delimited_message_once_flushed() throws IOException {
+    var writer = new JsonRpcMessageWriter(new ObjectMapper(), output);
+
+    writer.write(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, "notifications/initialized", null));
+
+    assertThat(output.size()).isZero();
+    writer.flush();
+    assertThat(output.toString(StandardCharsets.UTF_8)).isEqualTo("{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}\n");
+  }
+
+  @Test
+  void it_should_batch_several_messages_in_a_single_flush() throws IOException {
+    var writer = new JsonRpcMessageWriter(new ObjectMapper(), output);
+
+    writer.write(new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, 1, Map.of("text", "first"), null));
+    writer.write(new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, 2, Map.of("text", "second"), null));
+    writer.flush();
+
+    assertThat(output.toString(StandardCharsets.UTF_8).split("\n"))
+      .containsExactly(
+        "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":{\"text\":\"first\"}}",
+        "{\"jsonrpc\":\"2.0\",\"id\":2,\"result\":{\"text\":\"second\"}}");
+  }
+
+  @Test
+  void it_should_keep_newlines_in_strings_escaped() throws IOException {
+    var writer = new JsonRpcMessageWriter(new ObjectMapper(), output);
+
+    writer.write(new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, 1, Map.of("text", "line1\r\nline2\nline3\rline4 ✓"), null));
+    writer.flush();
+
+    assertThat(output.toString(StandardCharsets.UTF_8))
+      .isEqualTo("{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":{\"text\":\"line1\\r\\nline2\\nline3\\rline4 ✓\"}}\n");
+  }
+
+  @Test
+  void it_should_escape_raw_newlines_produced_by_the_serializer() throws IOException {
+    var writer = new JsonRpcMessageWriter(new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT), output);
+
+    writer.write(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, "notifications/initialized", null));
+    writer.flush();
+
+    var written = output.toString(StandardCharsets.UTF_8);
+    assertThat(written).endsWith("}\n");
+    assertThat(written.substring(0, written.length() - 1)).doesNotContain("\n", "\r").contains("\\n");
+  }
+
+  @Test
+  void it_should_end_the_line_of_a_message_that_failed_to_serialize() throws IOException {
+    var writer = new JsonRpcMessageWriter(new ObjectMapper(), output);
+
+    assertThatThrownBy(() -> writer.write(new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, 1, new Object(), null)))
+      .isInstanceOf(JsonProcessingException.class);
+    writer.write(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, "notifications/initialized", null));
+    writer.flush();
+
+    assertThat(output.toString(StandardCharsets.UTF_8).split("\n", -1))
+      .hasSize(3)
+      .endsWith("{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}", "");
+  }
+
+  @Test
+  void it_should_estimate_the_size_of_a_message_from_the_text_it_carries() {
+    var text = "a".repeat(10_000);
+
+    var toolResultSize = JsonRpcMessageWriter.estimateSize(
+      new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, 1, new McpSchema.CallToolResult(List.of(new McpSchema.TextContent(text)), false), null));
+    var notificationSize = JsonRpcMessageWriter.estimateSize(
+      new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, "notifications/progress", Map.of("message", text)));
+    var emptySize = JsonRpcMessageWriter.estimateSize(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, "notifications/initialized", null));
+
+    assertThat(toolResultSize).isBetween(10_000L, 10_500L);
+    assertThat(notificationSize).isBetween(10_000L, 10_500L);
+    assertThat(emptySize).isPositive().isLessThan(500L);
+  }
+
+}
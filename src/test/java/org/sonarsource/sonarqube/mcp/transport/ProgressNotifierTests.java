@@ -0,0 +1,88 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+import org.sonarsource.sonarqube.mcp.tools.Tool;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProgressNotifierTests {
+
+  private final List<McpSchema.JSONRPCMessage> sentMessages = new CopyOnWriteArrayList<>();
+
+  @Test
+  void it_should_only_find_the_progress_token_of_tool_calls() {
+    var meta = Map.of("_meta", Map.of("progressToken", "token"));
+
+    assertThat(ProgressNotifier.getProgressToken(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, "tools/call", 1, meta))).isEqualTo("token");
+    assertThat(ProgressNotifier.getProgressToken(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, "tools/list", 1, meta))).isNull();
+    assertThat(ProgressNotifier.getProgressToken(new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, "tools/call", 1, Map.of()))).isNull();
+  }
+
+  @Test
+  void it_should_not_be_enabled_without_a_progress_token() {
+    var context = ProgressNotifier.contextWriter(null, this::send).apply(Context.empty());
+
+    assertThat(context.hasKey(ProgressNotifier.CONTEXT_KEY)).isFalse();
+    assertThat(ProgressNotifier.NONE.withPartialResults().hasPartialResults()).isFalse();
+  }
+
+  @Test
+  void it_should_send_progress_notifications_with_an_increasing_progress() {
+    var notifier = notifierFor(42);
+
+    notifier.notifyProgress("first");
+    notifier.notifyProgress("second", 2L);
+
+    assertThat(sentMessages)
+      .extracting(message -> ((McpSchema.JSONRPCNotification) message).params())
+      .containsExactly(
+        Map.of("progressToken", 42, "progress", 1L, "message", "first"),
+        Map.of("progressToken", 42, "progress", 2L, "total", 2L, "message", "second"));
+  }
+
+  @Test
+  void it_should_send_the_partial_results_and_only_return_the_summary() {
+    var arguments = new Tool.Arguments(Map.of(), notifierFor("token").withPartialResults());
+
+    var result = arguments.partialResults().add("first").add("second").toResult("summary");
+
+    assertThat(sentMessages)
+      .extracting(message -> (Object) ((Map<?, ?>) ((McpSchema.JSONRPCNotification) message).params()).get("message"))
+      .containsExactly("first", "second");
+    assertThat(result.toCallToolResult().content()).singleElement()
+      .extracting(content -> ((McpSchema.TextContent) content).text())
+      .isEqualTo("summary");
+  }
+
+  private ProgressNotifier notifierFor(Object progressToken) {
+    return ProgressNotifier.contextWriter(progressToken, this::send).apply(Context.empty()).get(ProgressNotifier.CONTEXT_KEY);
+  }
+
+  private Mono<Void> send(McpSchema.JSONRPCMessage message) {
+    sentMessages.add(message);
+    return Mono.empty();
+  }
+
+}
@@ -0,0 +1,208 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StdioServerTransportProviderTests {
+
+  private static final int MAX_INBOUND_MESSAGE_SIZE = 4096;
+  private static final int ARGUMENT_SPILL_THRESHOLD = 64;
+
+  @TempDir
+  private Path spillDirectory;
+  private PipedOutputStream clientOutput;
+  private McpServerSession session;
+  private CountDownLatch handlingCancelled;
+  private ByteArrayOutputStream serverOutput;
+  private McpServerTransport transport;
+
+  @BeforeEach
+  void prepare() throws IOException {
+    clientOutput = new PipedOutputStream();
+    var serverInput = new PipedInputStream(clientOutput);
+    serverOutput = new ByteArrayOutputStream();
+    var provider = new StdioServerTransportProvider(new ObjectMapper(), serverInput, serverOutput);
+    provider.setInboundMessageLimits(MAX_INBOUND_MESSAGE_SIZE, ARGUMENT_SPILL_THRESHOLD, spillDirectory);
+    session = mock(McpServerSession.class);
+    handlingCancelled = new CountDownLatch(1);
+    when(session.handle(any())).thenReturn(Mono.<Void>never().doOnCancel(handlingCancelled::countDown));
+    provider.setSessionFactory(sessionTransport -> {
+      transport = sessionTransport;
+      return session;
+    });
+  }
+
+  @Test
+  void it_should_cancel_the_handling_of_a_request_cancelled_by_the_client() throws Exception {
+    send("{\"jsonrpc\":\"2.0\",\"id\":7,\"method\":\"tools/call\",\"params\":{\"name\":\"tool\"}}");
+    send("{\"jsonrpc\":\"2.0\",\"method\":\"notifications/cancelled\",\"params\":{\"requestId\":7,\"reason\":\"Timeout\"}}");
+
+    assertThat(handlingCancelled.await(2, TimeUnit.SECONDS)).isTrue();
+    verify(session, times(1)).handle(any(McpSchema.JSONRPCRequest.class));
+    verify(session, times(1)).handle(any());
+  }
+
+  @Test
+  void it_should_cancel_the_handling_of_pending_requests_when_the_client_disconnects() throws Exception {
+    send("{\"jsonrpc\":\"2.0\",\"id\":7,\"method\":\"tools/call\",\"params\":{\"name\":\"tool\"}}");
+    clientOutput.close();
+
+    assertThat(handlingCancelled.await(2, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  void it_should_write_the_messages_sent_by_the_session() {
+    transport.sendMessage(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, "notifications/message", Map.of("data", "line1\nline2"))).block();
+    transport.sendMessage(new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, 1, Map.of(), null)).block();
+
+    await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> assertThat(serverOutput.toString(StandardCharsets.UTF_8).split("\n"))
+      .containsExactly(
+        "{\"jsonrpc\":\"2.0\",\"method\":\"notifications/message\",\"params\":{\"data\":\"line1\\nline2\"}}",
+        "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":{}}"));
+  }
+
+  @Test
+  void it_should_send_the_progress_notifications_of_a_tool_call_with_a_progress_token() throws Exception {
+    when(session.handle(any())).thenReturn(Mono.deferContextual(context -> {
+      context.getOrDefault(ProgressNotifier.CONTEXT_KEY, ProgressNotifier.NONE).notifyProgress("Half way", 2L);
+      return Mono.empty();
+    }));
+
+    send("{\"jsonrpc\":\"2.0\",\"id\":7,\"method\":\"tools/call\",\"params\":{\"name\":\"tool\",\"_meta\":{\"progressToken\":\"token\"}}}");
+    send("{\"jsonrpc\":\"2.0\",\"id\":8,\"method\":\"tools/call\",\"params\":{\"name\":\"tool\"}}");
+
+    await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> verify(session, times(2)).handle(any()));
+    await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> assertThat(serverOutput.toString(StandardCharsets.UTF_8).split("\n"))
+      .containsExactly("{\"jsonrpc\":\"2.0\",\"method\":\"notifications/progress\",\"params\":{\"progressToken\":\"token\",\"progress\":1,\"total\":2,\"message\":\"Half way\"}}"));
+  }
+
+  @Test
+  void it_should_answer_a_request_bigger_than_the_maximum_size_with_an_error() throws Exception {
+    send("{\"jsonrpc\":\"2.0\",\"id\":7,\"method\":\"tools/call\",\"params\":{\"name\":\"tool\",\"arguments\":{\"codeSnippet\":\""
+      + "a".repeat(MAX_INBOUND_MESSAGE_SIZE * 4) + "\"}}}");
+
+    await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> assertThat(serverOutput.toString(StandardCharsets.UTF_8).split("\n"))
+      .containsExactly("{\"jsonrpc\":\"2.0\",\"id\":7,\"error\":{\"code\":-32600,\"message\":\"Inbound message bigger than the maximum size of "
+        + MAX_INBOUND_MESSAGE_SIZE + " bytes\"}}"));
+    verify(session, times(0)).handle(any());
+  }
+
+  @Test
+  void it_should_delete_the_spilled_arguments_of_a_request_failing_before_reaching_the_tool() throws Exception {
+    var spilledFiles = new ArrayList<Path>();
+    when(session.handle(any())).thenAnswer(invocation -> {
+      var request = (McpSchema.JSONRPCRequest) invocation.getArgument(0);
+      var arguments = (Map<?, ?>) ((Map<?, ?>) request.params()).get("arguments");
+      spilledFiles.add(((SpilledString) arguments.get("codeSnippet")).file());
+      return Mono.error(new IllegalStateException("Unknown tool"));
+    });
+
+    send("{\"jsonrpc\":\"2.0\",\"id\":7,\"method\":\"tools/call\",\"params\":{\"name\":\"unknown\",\"arguments\":{\"codeSnippet\":\""
+      + "a".repeat(ARGUMENT_SPILL_THRESHOLD * 2) + "\"}}}");
+
+    await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> assertThat(spilledFiles).hasSize(1));
+    await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> assertThat(spilledFiles.get(0)).doesNotExist());
+    assertThat(spilledFiles.get(0).getParent()).isEqualTo(spillDirectory);
+  }
+
+  @Test
+  void it_should_not_park_common_pool_threads_while_the_outbound_queue_is_full() throws Exception {
+    var clientInput = new PipedInputStream(1024);
+    var provider = new StdioServerTransportProvider(new ObjectMapper(), new PipedInputStream(new PipedOutputStream()),
+      new PipedOutputStream(clientInput));
+    provider.setQueueLimits(256, QueueOverflowPolicy.BLOCK);
+    var sessionTransport = new AtomicReference<McpServerTransport>();
+    provider.setSessionFactory(createdTransport -> {
+      sessionTransport.set(createdTransport);
+      return mock(McpServerSession.class);
+    });
+    var notification = new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, "notifications/message", Map.of("data", "a".repeat(200)));
+
+    var sends = IntStream.range(0, 20)
+      .mapToObj(i -> CompletableFuture.runAsync(() -> sessionTransport.get().sendMessage(notification).subscribe()))
+      .toArray(CompletableFuture[]::new);
+
+    // stdout is not read yet, the messages that don't fit wait for room outside of the common pool
+    CompletableFuture.allOf(sends).get(2, TimeUnit.SECONDS);
+    var reader = new BufferedReader(new InputStreamReader(clientInput, StandardCharsets.UTF_8));
+    for (var i = 0; i < 20; i++) {
+      assertThat(reader.readLine()).contains("notifications/message");
+    }
+  }
+
+  @Test
+  void it_should_keep_the_order_of_the_messages_while_the_outbound_queue_is_full() throws Exception {
+    var clientInput = new PipedInputStream(1024);
+    var provider = new StdioServerTransportProvider(new ObjectMapper(), new PipedInputStream(new PipedOutputStream()),
+      new PipedOutputStream(clientInput));
+    provider.setQueueLimits(256, QueueOverflowPolicy.BLOCK);
+    var sessionTransport = new AtomicReference<McpServerTransport>();
+    provider.setSessionFactory(createdTransport -> {
+      sessionTransport.set(createdTransport);
+      return mock(McpServerSession.class);
+    });
+
+    for (var i = 1; i <= 20; i++) {
+      sessionTransport.get().sendMessage(new McpSchema.JSONRPCNotification(McpSchema.JSONRPC_VERSION, ProgressNotifier.METHOD_NOTIFICATION_PROGRESS,
+        Map.of("progressToken", "token", "progress", i, "message", "a".repeat(200)))).subscribe();
+    }
+    sessionTransport.get().sendMessage(new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, 7, Map.of(), null)).subscribe();
+
+    var reader = new BufferedReader(new InputStreamReader(clientInput, StandardCharsets.UTF_8));
+    for (var i = 1; i <= 20; i++) {
+      assertThat(reader.readLine()).containsPattern("\"progress\":" + i + "[,}]");
+    }
+    assertThat(reader.readLine()).isEqualTo("{\"jsonrpc\":\"2.0\",\"id\":7,\"result\":{}}");
+  }
+
+  private void send(String message) throws IOException {
+    clientOutput.write((message + "\n").getBytes(StandardCharsets.UTF_8));
+    clientOutput.flush();
+  }
+
+}
@@ -0,0 +1,315 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.modelcontextprotocol.spec.McpSchema;
+import io.modelcontextprotocol.spec.McpServerSession;
+import io.modelcontextprotocol.spec.McpServerTransport;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StreamableHttpServerTransportProviderTests {
+
+  private static final String INITIALIZE_REQUEST = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{}}";
+  private static final String TOOL_CALL_REQUEST = "{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/call\",\"params\":{\"name\":\"tool\"}}";
+  private static final String SLOW_TOOL_CALL_REQUEST = "{\"jsonrpc\":\"2.0\",\"id\":3,\"method\":\"tools/call\",\"params\":{\"name\":\"slow\"}}";
+  private static final Duration DEFAULT_KEEP_ALIVE_INTERVAL = Duration.ofSeconds(30);
+  private static final Duration DEFAULT_SESSION_IDLE_TIMEOUT = Duration.ofHours(1);
+
+  private final HttpClient httpClient = HttpClient.newHttpClient();
+  private final List<McpServerTransport> transports = new CopyOnWriteArrayList<>();
+  private final List<String> tokensSeenByHandlers = new CopyOnWriteArrayList<>();
+  private final List<String> releasedTokens = new CopyOnWriteArrayList<>();
+  private final List<Object> cancelledRequests = new CopyOnWriteArrayList<>();
+  @TempDir
+  private Path spillDirectory;
+  private StreamableHttpServerTransportProvider provider;
+
+  @BeforeEach
+  void prepare() {
+    startProvider(true);
+  }
+
+  private void startProvider(boolean allowAnonymousSessions) {
+    startProvider(allowAnonymousSessions, DEFAULT_KEEP_ALIVE_INTERVAL, DEFAULT_SESSION_IDLE_TIMEOUT);
+  }
+
+  private void startProvider(boolean allowAnonymousSessions, Duration keepAliveInterval, Duration sessionIdleTimeout) {
+    provider = new StreamableHttpServerTransportProvider(new ObjectMapper(), "127.0.0.1", 0, 1024, 1024, spillDirectory, 1024,
+      QueueOverflowPolicy.BLOCK, allowAnonymousSessions);
+    provider.setTokenReleaseListener(releasedTokens::add);
+    provider.setTimeouts(keepAliveInterval, sessionIdleTimeout);
+    provider.setSessionFactory(transport -> {
+      transports.add(transport);
+      var session = mock(McpServerSession.class);
+      when(session.handle(any())).thenAnswer(invocation -> {
+        if (invocation.getArgument(0) instanceof McpSchema.JSONRPCRequest request && request.params() instanceof Map<?, ?> params
+          && "slow".equals(params.get("name"))) {
+          return Mono.<Void>never().doOnCancel(() -> cancelledRequests.add(request.id()));
+        }
+        if (invocation.getArgument(0) instanceof McpSchema.JSONRPCRequest request) {
+          return Mono.deferContextual(context -> {
+            tokensSeenByHandlers.add(context.getOrDefault(StreamableHttpServerTransportProvider.SONARQUBE_TOKEN_CONTEXT_KEY, "none"));
+            context.getOrDefault(ProgressNotifier.CONTEXT_KEY, ProgressNotifier.NONE).notifyProgress("Working");
+            return transport.sendMessage(new McpSchema.JSONRPCResponse(McpSchema.JSONRPC_VERSION, request.id(), Map.of("method", request.method()), null));
+          });
+        }
+        return Mono.empty();
+      });
+      return session;
+    });
+  }
+
+  @AfterEach
+  void close() {
+    provider.closeGracefully().block();
+  }
+
+  @Test
+  void it_should_start_a_session_and_return_the_response_in_the_body() throws Exception {
+    var initializeResponse = post(INITIALIZE_REQUEST, null, null);
+
+    assertThat(initializeResponse.statusCode()).isEqualTo(200);
+    assertThat(initializeResponse.body()).isEqualTo("{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":{\"method\":\"initialize\"}}\n");
+    var sessionId = initializeResponse.headers().firstValue("Mcp-Session-Id").orElseThrow();
+
+    var toolCallResponse = post(TOOL_CALL_REQUEST, sessionId, null);
+
+    assertThat(toolCallResponse.statusCode()).isEqualTo(200);
+    assertThat(toolCallResponse.body()).isEqualTo("{\"jsonrpc\":\"2.0\",\"id\":2,\"result\":{\"method\":\"tools/call\"}}\n");
+    assertThat(transports).hasSize(1);
+  }
+
+  @Test
+  void it_should_stream_the_progress_notifications_before_the_response() throws Exception {
+    var sessionId = post(INITIALIZE_REQUEST, null, null).headers().firstValue("Mcp-Session-Id").orElseThrow();
+
+    var response = post("{\"jsonrpc\":\"2.0\",\"id\":2,\"method\":\"tools/call\",\"params\":{\"name\":\"tool\",\"_meta\":{\"progressToken\":5}}}", sessionId, null);
+
+    assertThat(response.statusCode()).isEqualTo(200);
+    assertThat(response.headers().firstValue("Content-Type")).hasValue("text/event-stream");
+    assertThat(response.body()).isEqualTo("""
+      event: message
+      data: {"jsonrpc":"2.0","method":"notifications/progress","params":{"progressToken":5,"progress":1,"message":"Working"}}
+
+      event: message
+      data: {"jsonrpc":"2.0","id":2,"result":{"method":"tools/call"}}
+
+      """);
+  }
+
+  @Test
+  void it_should_serve_several_sessions_with_their_own_token() throws Exception {
+    var firstSessionId = post(INITIALIZE_REQUEST, null, "token1").headers().firstValue("Mcp-Session-Id").orElseThrow();
+    var secondSessionId = post(INITIALIZE_REQUEST, null, "token2").headers().firstValue("Mcp-Session-Id").orElseThrow();
+    var anonymousSessionId = post(INITIALIZE_REQUEST, null, null).headers().firstValue("Mcp-Session-Id").orElseThrow();
+    tokensSeenByHandlers.clear();
+
+    post(TOOL_CALL_REQUEST, secondSessionId, "token2");
+    post(TOOL_CALL_REQUEST, firstSessionId, "token1");
+    post(TOOL_CALL_REQUEST, anonymousSessionId, null);
+
+    assertThat(transports).hasSize(3);
+    assertThat(tokensSeenByHandlers).containsExactly("token2", "token1", "none");
+  }
+
+  @Test
+  void it_should_reject_requests_with_another_token_than_the_session_one() throws Exception {
+    var sessionId = post(INITIALIZE_REQUEST, null, "token1").headers().firstValue("Mcp-Session-Id").orElseThrow();
+
+    assertThat(post(TOOL_CALL_REQUEST, sessionId, "token2").statusCode()).isEqualTo(403);
+    assertThat(post(TOOL_CALL_REQUEST, sessionId, null).statusCode()).isEqualTo(403);
+  }
+
+  @Test
+  void it_should_reject_sessions_without_a_token_unless_allowed() throws Exception {
+    provider.closeGracefully().block();
+    startProvider(false);
+
+    assertThat(post(INITIALIZE_REQUEST, null, null).statusCode()).isEqualTo(401);
+    assertThat(post(INITIALIZE_REQUEST, null, "token1").statusCode()).isEqualTo(200);
+    assertThat(transports).hasSize(1);
+  }
+
+  @Test
+  void it_should_release_a_token_when_its_last_session_is_terminated() throws Exception {
+    var firstSessionId = post(INITIALIZE_REQUEST, null, "token1").headers().firstValue("Mcp-Session-Id").orElseThrow();
+    var secondSessionId = post(INITIALIZE_REQUEST, null, "token1").headers().firstValue("Mcp-Session-Id").orElseThrow();
+
+    delete(firstSessionId, "token1");
+
+    assertThat(releasedTokens).isEmpty();
+
+    delete(secondSessionId, "token1");
+
+    assertThat(releasedTokens).containsExactly("token1");
+  }
+
+  @Test
+  void it_should_cancel_a_request_when_its_client_goes_away() throws Exception {
+    provider.closeGracefully().block();
+    startProvider(true, Duration.ofMillis(50), DEFAULT_SESSION_IDLE_TIMEOUT);
+    var sessionId = post(INITIALIZE_REQUEST, null, null).headers().firstValue("Mcp-Session-Id").orElseThrow();
+
+    try (var socket = new Socket("127.0.0.1", provider.getPort())) {
+      var out = socket.getOutputStream();
+      out.write(("POST /mcp HTTP/1.1\r\nHost: localhost\r\nContent-Type: application/json\r\nMcp-Session-Id: " + sessionId + "\r\nContent-Length: "
+        + SLOW_TOOL_CALL_REQUEST.length() + "\r\n\r\n" + SLOW_TOOL_CALL_REQUEST).getBytes(StandardCharsets.UTF_8));
+      out.flush();
+      var statusLine = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)).readLine();
+
+      // sent with the first keep-alive, before the response is known
+      assertThat(statusLine).startsWith("HTTP/1.1 200");
+      assertThat(cancelledRequests).isEmpty();
+    }
+
+    await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> assertThat(cancelledRequests).containsExactly(3));
+  }
+
+  @Test
+  void it_should_close_the_sessions_left_idle() throws Exception {
+    provider.closeGracefully().block();
+    startProvider(true, DEFAULT_KEEP_ALIVE_INTERVAL, Duration.ofMillis(200));
+    var sessionId = post(INITIALIZE_REQUEST, null, "token1").headers().firstValue("Mcp-Session-Id").orElseThrow();
+
+    await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> assertThat(releasedTokens).containsExactly("token1"));
+    assertThat(post(TOOL_CALL_REQUEST, sessionId, "token1").statusCode()).isEqualTo(404);
+  }
+
+  @Test
+  void it_should_reject_requests_with_an_invalid_content_length() throws Exception {
+    try (var socket = new Socket("127.0.0.1", provider.getPort())) {
+      var out = socket.getOutputStream();
+      out.write(("POST /mcp HTTP/1.1\r\nHost: localhost\r\nContent-Length: abc\r\n\r\n" + INITIALIZE_REQUEST).getBytes(StandardCharsets.UTF_8));
+      out.flush();
+      var statusLine = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)).readLine();
+
+      assertThat(statusLine).startsWith("HTTP/1.1 400");
+    }
+    assertThat(transports).isEmpty();
+  }
+
+  @Test
+  void it_should_reject_requests_without_a_known_session() throws Exception {
+    assertThat(post(TOOL_CALL_REQUEST, null, null).statusCode()).isEqualTo(400);
+    assertThat(post(TOOL_CALL_REQUEST, "unknown", null).statusCode()).isEqualTo(404);
+  }
+
+  @Test
+  void it_should_accept_notifications_without_a_body() throws Exception {
+    var sessionId = post(INITIALIZE_REQUEST, null, null).headers().firstValue("Mcp-Session-Id").orElseThrow();
+
+    var response = post("{\"jsonrpc\":\"2.0\",\"method\":\"notifications/initialized\"}", sessionId, null);
+
+    assertThat(response.statusCode()).isEqualTo(202);
+    assertThat(response.body()).isEmpty();
+  }
+
+  @Test
+  void it_should_forget_a_terminated_session() throws Exception {
+    var sessionId = post(INITIALIZE_REQUEST, null, null).headers().firstValue("Mcp-Session-Id").orElseThrow();
+
+    var deleteResponse = httpClient.send(HttpRequest.newBuilder(endpoint()).DELETE().header("Mcp-Session-Id", sessionId).build(),
+      HttpResponse.BodyHandlers.ofString());
+
+    assertThat(deleteResponse.statusCode()).isEqualTo(200);
+    assertThat(post(TOOL_CALL_REQUEST, sessionId, null).statusCode()).isEqualTo(404);
+  }
+
+  @Test
+  void it_should_reject_messages_bigger_than_the_maximum_size() throws Exception {
+    var response = post("{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{\"padding\":\"" + "a".repeat(2048) + "\"}}", null, null);
+
+    assertThat(response.statusCode()).isEqualTo(413);
+    assertThat(transports).isEmpty();
+  }
+
+  @Test
+  void it_should_reject_messages_bigger_than_the_maximum_size_sent_without_their_length() throws Exception {
+    var message = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"initialize\",\"params\":{\"padding\":\"" + "a".repeat(2048) + "\"}}";
+    var request = HttpRequest.newBuilder(endpoint())
+      .POST(HttpRequest.BodyPublishers.fromPublisher(HttpRequest.BodyPublishers.ofString(message)))
+      .build();
+
+    var response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+    assertThat(response.statusCode()).isEqualTo(413);
+    assertThat(transports).isEmpty();
+  }
+
+  @Test
+  void it_should_reject_requests_from_remote_web_pages() throws Exception {
+    var request = HttpRequest.newBuilder(endpoint())
+      .POST(HttpRequest.BodyPublishers.ofString(INITIALIZE_REQUEST))
+      .header("Origin", "https://example.com")
+      .build();
+
+    var response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+    assertThat(response.statusCode()).isEqualTo(403);
+    assertThat(transports).isEmpty();
+  }
+
+  private HttpResponse<String> post(String message, String sessionId, String token) throws IOException, InterruptedException {
+    var request = HttpRequest.newBuilder(endpoint())
+      .POST(HttpRequest.BodyPublishers.ofString(message))
+      .header("Content-Type", "application/json")
+      .header("Accept", "application/json, text/event-stream");
+    if (sessionId != null) {
+      request.header("Mcp-Session-Id", sessionId);
+    }
+    if (token != null) {
+      request.header("Authorization", "Bearer " + token);
+    }
+    return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+  }
+
+  private void delete(String sessionId, String token) throws IOException, InterruptedException {
+    var request = HttpRequest.newBuilder(endpoint()).DELETE().header("Mcp-Session-Id", sessionId).header("Authorization", "Bearer " + token).build();
+    assertThat(httpClient.send(request, HttpResponse.BodyHandlers.ofString()).statusCode()).isEqualTo(200);
+  }
+
+  private URI endpoint() {
+    return URI.create("http://127.0.0.1:" + provider.getPort() + "/mcp");
+  }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * SonarQube MCP Server
+ * Copyright (C) 2025 SonarSource
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonarsource.sonarqube.mcp.transport;
+
+import io.modelcontextprotocol.spec.McpSchema;
+import java.time.Duration;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import reactor.util.context.Context;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ToolCallTimeoutTests {
+
+  @Test
+  void it_should_only_find_the_positive_timeout_of_tool_calls() {
+    assertThat(ToolCallTimeout.getTimeout(request("tools/call", Map.of("_meta", Map.of("timeoutMs", 1500))))).isEqualTo(Duration.ofMillis(1500));
+    assertThat(ToolCallTimeout.getTimeout(request("tools/list", Map.of("_meta", Map.of("timeoutMs", 1500))))).isNull();
+    assertThat(ToolCallTimeout.getTimeout(request("tools/call", Map.of("_meta", Map.of("timeoutMs", 0))))).isNull();
+    assertThat(ToolCallTimeout.getTimeout(request("tools/call", Map.of("_meta", Map.of("timeoutMs", "1500"))))).isNull();
+    assertThat(ToolCallTimeout.getTimeout(request("tools/call", Map.of()))).isNull();
+  }
+
+  @Test
+  void it_should_expose_the_timeout_in_the_context() {
+    assertThat(ToolCallTimeout.contextWriter(Duration.ofSeconds(1)).apply(Context.empty()).<Duration>get(ToolCallTimeout.CONTEXT_KEY))
+      .isEqualTo(Duration.ofSeconds(1));
+    assertThat(ToolCallTimeout.contextWriter(null).apply(Context.empty()).hasKey(ToolCallTimeout.CONTEXT_KEY)).isFalse();
+  }
+
+  private static McpSchema.JSONRPCRequest request(String method, Map<String, Object> params) {
+    return new McpSchema.JSONRPCRequest(McpSchema.JSONRPC_VERSION, method, 1, params);
+  }
+
+}